@@ -0,0 +1,67 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.benchmark;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.keyple.core.seproxy.message.ApduResponse;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Construction and decoding of {@link ApduResponse}, built for every APDU exchanged by a local
+ * reader.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApduResponseBenchmark {
+
+    private byte[] recordResponse;
+    private byte[] errorResponse;
+    private Set<Integer> successfulStatusCodes;
+    private ApduResponse apduResponse;
+
+    @Setup
+    public void setUp() {
+        recordResponse = ByteArrayUtil
+                .fromHex("00112233445566778899AABBCCDDEEFF00112233445566778899AABBCC9000");
+        errorResponse = ByteArrayUtil.fromHex("6283");
+        successfulStatusCodes = new HashSet<Integer>();
+        successfulStatusCodes.add(0x6283);
+        apduResponse = new ApduResponse(recordResponse, null);
+    }
+
+    @Benchmark
+    public ApduResponse construct() {
+        return new ApduResponse(recordResponse, null);
+    }
+
+    @Benchmark
+    public ApduResponse constructWithSuccessfulStatusCodes() {
+        return new ApduResponse(errorResponse, successfulStatusCodes);
+    }
+
+    @Benchmark
+    public byte[] getDataOut() {
+        return apduResponse.getDataOut();
+    }
+
+    @Benchmark
+    public int getStatusCode() {
+        return apduResponse.getStatusCode();
+    }
+}
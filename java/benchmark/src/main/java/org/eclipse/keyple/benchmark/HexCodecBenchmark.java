@@ -0,0 +1,101 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Hexadecimal conversions of {@link ByteArrayUtil}, used for every APDU by the stub SEs and the
+ * remote SE JSON serialization.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HexCodecBenchmark {
+
+    /** size of the converted data: short command, record response, large response */
+    @Param({"5", "31", "250"})
+    public int size;
+
+    private byte[] bytes;
+    private String hex;
+    private String spacedHex;
+    private char[] charBuffer;
+    private byte[] byteBuffer;
+    private ByteBuffer heapBuffer;
+    private ByteBuffer directBuffer;
+
+    @Setup
+    public void setUp() {
+        bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) (i * 37);
+        }
+        hex = ByteArrayUtil.toHex(bytes);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < hex.length(); i += 2) {
+            builder.append(hex, i, i + 2).append(' ');
+        }
+        spacedHex = builder.toString();
+        charBuffer = new char[size * 2];
+        byteBuffer = new byte[size];
+        heapBuffer = ByteBuffer.allocate(size);
+        directBuffer = ByteBuffer.allocateDirect(size);
+    }
+
+    @Benchmark
+    public String toHex() {
+        return ByteArrayUtil.toHex(bytes);
+    }
+
+    @Benchmark
+    public char[] toHexIntoCharArray() {
+        ByteArrayUtil.toHex(bytes, 0, bytes.length, charBuffer, 0);
+        return charBuffer;
+    }
+
+    @Benchmark
+    public byte[] fromHex() {
+        return ByteArrayUtil.fromHex(hex);
+    }
+
+    @Benchmark
+    public byte[] fromHexWithSpaces() {
+        return ByteArrayUtil.fromHex(spacedHex);
+    }
+
+    @Benchmark
+    public byte[] fromHexIntoByteArray() {
+        ByteArrayUtil.fromHex(hex, byteBuffer, 0);
+        return byteBuffer;
+    }
+
+    @Benchmark
+    public ByteBuffer fromHexIntoHeapBuffer() {
+        heapBuffer.clear();
+        ByteArrayUtil.fromHex(hex, heapBuffer);
+        return heapBuffer;
+    }
+
+    @Benchmark
+    public ByteBuffer fromHexIntoDirectBuffer() {
+        directBuffer.clear();
+        ByteArrayUtil.fromHex(hex, directBuffer);
+        return directBuffer;
+    }
+}
@@ -0,0 +1,103 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.eclipse.keyple.benchmark.stub.StubCalypsoPo;
+import org.eclipse.keyple.benchmark.stub.StubEnvironment;
+import org.eclipse.keyple.calypso.transaction.CalypsoPo;
+import org.eclipse.keyple.calypso.transaction.PoResource;
+import org.eclipse.keyple.calypso.transaction.PoSecuritySettings;
+import org.eclipse.keyple.calypso.transaction.PoSelectionRequest;
+import org.eclipse.keyple.calypso.transaction.PoSelector;
+import org.eclipse.keyple.calypso.transaction.PoTransaction;
+import org.eclipse.keyple.core.selection.SeSelection;
+import org.eclipse.keyple.core.seproxy.ChannelControl;
+import org.eclipse.keyple.core.seproxy.SeReader;
+import org.eclipse.keyple.core.seproxy.SeSelector;
+import org.eclipse.keyple.core.seproxy.exception.KeypleException;
+import org.eclipse.keyple.core.seproxy.protocol.SeCommonProtocols;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Complete Calypso secure session (open/read/close) performed with a {@link PoTransaction} on a
+ * stub PO and a stub SAM.
+ * <p>
+ * The PO and the SAM are selected once at setup, their channels are kept open between the
+ * operations. One operation is one transaction, the allocation rate reported by the gc profiler
+ * (gc.alloc.rate.norm) is thus the allocation per transaction.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PoTransactionBenchmark {
+
+    private StubEnvironment stubEnvironment;
+    private SeReader poReader;
+    private CalypsoPo calypsoPo;
+    private PoSecuritySettings poSecuritySettings;
+
+    @Setup
+    public void setUp() throws KeypleException {
+        stubEnvironment = new StubEnvironment("PoTransactionBenchmark");
+        poReader = stubEnvironment.plugPoReader();
+        SeReader samReader = stubEnvironment.plugSamReader();
+
+        poSecuritySettings =
+                StubEnvironment.getSecuritySettings(StubEnvironment.selectSam(samReader));
+
+        SeSelection seSelection = new SeSelection();
+        seSelection.prepareSelection(new PoSelectionRequest(PoSelector.builder()
+                .seProtocol(SeCommonProtocols.PROTOCOL_ISO14443_4)
+                .aidSelector(
+                        SeSelector.AidSelector.builder().aidToSelect(StubCalypsoPo.AID).build())
+                .invalidatedPo(PoSelector.InvalidatedPo.REJECT).build()));
+        calypsoPo = (CalypsoPo) seSelection.processExplicitSelection(poReader)
+                .getActiveMatchingSe();
+    }
+
+    @TearDown
+    public void tearDown() {
+        stubEnvironment.tearDown();
+    }
+
+    /**
+     * Open a session reading a record, close it
+     */
+    @Benchmark
+    public PoTransaction openClose() throws KeypleException {
+        PoTransaction poTransaction =
+                new PoTransaction(new PoResource(poReader, calypsoPo), poSecuritySettings);
+        poTransaction.prepareReadRecordFile(StubCalypsoPo.SFI_EVENT_LOG, 1);
+        poTransaction.processOpening(PoTransaction.SessionSetting.AccessLevel.SESSION_LVL_DEBIT);
+        poTransaction.processClosing(ChannelControl.KEEP_OPEN);
+        return poTransaction;
+    }
+
+    /**
+     * Open a session reading a record, read another record in session, close it
+     */
+    @Benchmark
+    public PoTransaction openReadClose() throws KeypleException {
+        PoTransaction poTransaction =
+                new PoTransaction(new PoResource(poReader, calypsoPo), poSecuritySettings);
+        poTransaction.prepareReadRecordFile(StubCalypsoPo.SFI_EVENT_LOG, 1);
+        poTransaction.processOpening(PoTransaction.SessionSetting.AccessLevel.SESSION_LVL_DEBIT);
+        poTransaction.prepareReadRecordFile(StubCalypsoPo.SFI_CONTRACT_LIST, 1);
+        poTransaction.processPoCommandsInSession();
+        poTransaction.processClosing(ChannelControl.KEEP_OPEN);
+        return poTransaction;
+    }
+}
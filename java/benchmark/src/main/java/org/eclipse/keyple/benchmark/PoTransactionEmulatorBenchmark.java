@@ -0,0 +1,108 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.eclipse.keyple.benchmark.stub.StubEnvironment;
+import org.eclipse.keyple.calypso.transaction.CalypsoPo;
+import org.eclipse.keyple.calypso.transaction.PoResource;
+import org.eclipse.keyple.calypso.transaction.PoSecuritySettings;
+import org.eclipse.keyple.calypso.transaction.PoSelectionRequest;
+import org.eclipse.keyple.calypso.transaction.PoSelector;
+import org.eclipse.keyple.calypso.transaction.PoTransaction;
+import org.eclipse.keyple.core.selection.SeSelection;
+import org.eclipse.keyple.core.seproxy.ChannelControl;
+import org.eclipse.keyple.core.seproxy.SeReader;
+import org.eclipse.keyple.core.seproxy.SeSelector;
+import org.eclipse.keyple.core.seproxy.exception.KeypleException;
+import org.eclipse.keyple.core.seproxy.protocol.SeCommonProtocols;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.eclipse.keyple.plugin.stub.StubCalypsoPoEmulator;
+import org.eclipse.keyple.plugin.stub.StubCalypsoSamEmulator;
+import org.eclipse.keyple.plugin.stub.StubLatencyModel;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Calypso secure sessions modifying the PO, performed with a {@link PoTransaction} on the stateful
+ * PO and SAM emulators of the stub plugin.
+ * <p>
+ * Unlike {@link PoTransactionBenchmark}, the session is really processed by the PO (session
+ * buffer, transaction counter, signatures checked against the SAM digest). The latency parameter
+ * is the fixed delay applied to each PO APDU, in microseconds.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PoTransactionEmulatorBenchmark {
+
+    private static final byte SFI_EVENT_LOG = (byte) 0x08;
+    private static final byte SFI_COUNTERS = (byte) 0x19;
+    private static final byte[] EVENT =
+            ByteArrayUtil.fromHex("00112233445566778899AABBCCDDEEFF00112233445566778899AABBCC");
+
+    @Param({"0", "200"})
+    private long latency;
+
+    private StubEnvironment stubEnvironment;
+    private SeReader poReader;
+    private CalypsoPo calypsoPo;
+    private PoSecuritySettings poSecuritySettings;
+
+    @Setup
+    public void setUp() throws KeypleException {
+        stubEnvironment = new StubEnvironment("PoTransactionEmulatorBenchmark");
+        StubCalypsoPoEmulator poEmulator = StubCalypsoPoEmulator.builder()//
+                .cyclicFile(SFI_EVENT_LOG, (short) 0x2010, 3, EVENT.length)//
+                .counterFile(SFI_COUNTERS, (short) 0x2069, 4)//
+                .build();
+        poEmulator.setLatencyModel(StubLatencyModel.fixed(latency));
+        poReader = stubEnvironment.plugReader(StubEnvironment.PO_READER_NAME,
+                SeCommonProtocols.PROTOCOL_ISO14443_4, poEmulator);
+        SeReader samReader = stubEnvironment.plugReader(StubEnvironment.SAM_READER_NAME,
+                SeCommonProtocols.PROTOCOL_ISO7816_3, new StubCalypsoSamEmulator());
+
+        poSecuritySettings =
+                StubEnvironment.getSecuritySettings(StubEnvironment.selectSam(samReader));
+
+        SeSelection seSelection = new SeSelection();
+        seSelection.prepareSelection(new PoSelectionRequest(PoSelector.builder()
+                .seProtocol(SeCommonProtocols.PROTOCOL_ISO14443_4)
+                .aidSelector(SeSelector.AidSelector.builder()
+                        .aidToSelect(StubCalypsoPoEmulator.DEFAULT_AID).build())
+                .invalidatedPo(PoSelector.InvalidatedPo.REJECT).build()));
+        calypsoPo = (CalypsoPo) seSelection.processExplicitSelection(poReader)
+                .getActiveMatchingSe();
+    }
+
+    @TearDown
+    public void tearDown() {
+        stubEnvironment.tearDown();
+    }
+
+    /**
+     * Open a session reading the counters, increase a counter and append an event, close it
+     */
+    @Benchmark
+    public PoTransaction openIncreaseAppendClose() throws KeypleException {
+        PoTransaction poTransaction =
+                new PoTransaction(new PoResource(poReader, calypsoPo), poSecuritySettings);
+        poTransaction.prepareReadRecordFile(SFI_COUNTERS, 1);
+        poTransaction.processOpening(PoTransaction.SessionSetting.AccessLevel.SESSION_LVL_DEBIT);
+        poTransaction.prepareIncrease(SFI_COUNTERS, (byte) 1, 1);
+        poTransaction.prepareAppendRecord(SFI_EVENT_LOG, EVENT);
+        poTransaction.processClosing(ChannelControl.KEEP_OPEN);
+        return poTransaction;
+    }
+}
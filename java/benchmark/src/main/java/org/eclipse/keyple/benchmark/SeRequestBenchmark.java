@@ -0,0 +1,105 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.keyple.benchmark.stub.StubCalypsoPo;
+import org.eclipse.keyple.benchmark.stub.StubEnvironment;
+import org.eclipse.keyple.core.seproxy.ChannelControl;
+import org.eclipse.keyple.core.seproxy.MultiSeRequestProcessing;
+import org.eclipse.keyple.core.seproxy.SeSelector;
+import org.eclipse.keyple.core.seproxy.exception.KeypleException;
+import org.eclipse.keyple.core.seproxy.message.ApduRequest;
+import org.eclipse.keyple.core.seproxy.message.ProxyReader;
+import org.eclipse.keyple.core.seproxy.message.SeRequest;
+import org.eclipse.keyple.core.seproxy.message.SeResponse;
+import org.eclipse.keyple.core.seproxy.protocol.SeCommonProtocols;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Transmission of {@link SeRequest} to a stub reader through
+ * {@link ProxyReader#transmitSeRequests(List, MultiSeRequestProcessing, ChannelControl)} and
+ * {@link ProxyReader#transmitSeRequest(SeRequest, ChannelControl)}.
+ * <ul>
+ * <li>processAll: two SeRequests with selection processed in PROCESS_ALL mode, the channel is
+ * closed afterwards</li>
+ * <li>transmitInOpenChannel: a SeRequest without selector sent to the already selected
+ * application (logical channel kept open)</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeRequestBenchmark {
+
+    private static final String[] READ_RECORD_COMMANDS =
+            {"00B2013C00", "00B2014400", "00B201F400", "00B2014C00"};
+
+    private StubEnvironment stubEnvironment;
+    private ProxyReader poReader;
+
+    private List<SeRequest> seRequests;
+    private SeRequest seRequest;
+
+    @Setup
+    public void setUp() throws KeypleException {
+        stubEnvironment = new StubEnvironment("SeRequestBenchmark");
+        poReader = (ProxyReader) stubEnvironment.plugPoReader();
+
+        seRequests = new ArrayList<SeRequest>();
+        seRequests.add(new SeRequest(seSelector(StubCalypsoPo.AID_NOT_FOUND), readRecords()));
+        seRequests.add(new SeRequest(seSelector(StubCalypsoPo.AID), readRecords()));
+
+        seRequest = new SeRequest(readRecords());
+
+        /* open the logical channel used by transmitInOpenChannel */
+        poReader.transmitSeRequest(
+                new SeRequest(seSelector(StubCalypsoPo.AID), new ArrayList<ApduRequest>()),
+                ChannelControl.KEEP_OPEN);
+    }
+
+    @TearDown
+    public void tearDown() {
+        stubEnvironment.tearDown();
+    }
+
+    private static SeSelector seSelector(String aid) {
+        return SeSelector.builder().seProtocol(SeCommonProtocols.PROTOCOL_ISO14443_4)
+                .atrFilter(new SeSelector.AtrFilter(".*"))
+                .aidSelector(SeSelector.AidSelector.builder().aidToSelect(aid).build()).build();
+    }
+
+    private static List<ApduRequest> readRecords() {
+        List<ApduRequest> apduRequests = new ArrayList<ApduRequest>();
+        for (String command : READ_RECORD_COMMANDS) {
+            apduRequests.add(new ApduRequest(ByteArrayUtil.fromHex(command), false));
+        }
+        return apduRequests;
+    }
+
+    @Benchmark
+    public List<SeResponse> processAll() throws KeypleException {
+        return poReader.transmitSeRequests(seRequests, MultiSeRequestProcessing.PROCESS_ALL,
+                ChannelControl.CLOSE_AFTER);
+    }
+
+    @Benchmark
+    public SeResponse transmitInOpenChannel() throws KeypleException {
+        return poReader.transmitSeRequest(seRequest, ChannelControl.KEEP_OPEN);
+    }
+}
@@ -0,0 +1,103 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.eclipse.keyple.benchmark.stub.StubCalypsoPo;
+import org.eclipse.keyple.benchmark.stub.StubEnvironment;
+import org.eclipse.keyple.calypso.transaction.PoSelectionRequest;
+import org.eclipse.keyple.calypso.transaction.PoSelector;
+import org.eclipse.keyple.core.selection.SeSelection;
+import org.eclipse.keyple.core.selection.SelectionsResult;
+import org.eclipse.keyple.core.seproxy.ChannelControl;
+import org.eclipse.keyple.core.seproxy.MultiSeRequestProcessing;
+import org.eclipse.keyple.core.seproxy.SeReader;
+import org.eclipse.keyple.core.seproxy.SeSelector;
+import org.eclipse.keyple.core.seproxy.exception.KeypleException;
+import org.eclipse.keyple.core.seproxy.protocol.SeCommonProtocols;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Explicit selection of a Calypso PO inserted in a stub reader through
+ * {@link SeSelection#processExplicitSelection(SeReader)}.
+ * <p>
+ * The channel is closed after each selection so that every operation goes through the complete
+ * sequence: physical channel opening, ATR filtering, protocol matching, AID selection and
+ * processing of the commands prepared in the selection request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeSelectionBenchmark {
+
+    private StubEnvironment stubEnvironment;
+    private SeReader poReader;
+
+    /** selection of the PO application only */
+    private SeSelection aidSelection;
+    /** selection of the PO application with the reading of a record */
+    private SeSelection aidSelectionWithRead;
+    /** first selection fails (application not found), the second one succeeds */
+    private SeSelection multipleSelection;
+
+    @Setup
+    public void setUp() throws KeypleException {
+        stubEnvironment = new StubEnvironment("SeSelectionBenchmark");
+        poReader = stubEnvironment.plugPoReader();
+
+        aidSelection = new SeSelection(MultiSeRequestProcessing.FIRST_MATCH,
+                ChannelControl.CLOSE_AFTER);
+        aidSelection.prepareSelection(new PoSelectionRequest(poSelector(StubCalypsoPo.AID)));
+
+        aidSelectionWithRead = new SeSelection(MultiSeRequestProcessing.FIRST_MATCH,
+                ChannelControl.CLOSE_AFTER);
+        PoSelectionRequest poSelectionRequest =
+                new PoSelectionRequest(poSelector(StubCalypsoPo.AID));
+        poSelectionRequest.prepareReadRecordFile(StubCalypsoPo.SFI_ENVIRONMENT_AND_HOLDER, 1);
+        aidSelectionWithRead.prepareSelection(poSelectionRequest);
+
+        multipleSelection = new SeSelection(MultiSeRequestProcessing.FIRST_MATCH,
+                ChannelControl.CLOSE_AFTER);
+        multipleSelection
+                .prepareSelection(new PoSelectionRequest(poSelector(StubCalypsoPo.AID_NOT_FOUND)));
+        multipleSelection.prepareSelection(new PoSelectionRequest(poSelector(StubCalypsoPo.AID)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        stubEnvironment.tearDown();
+    }
+
+    private static PoSelector poSelector(String aid) {
+        return PoSelector.builder().seProtocol(SeCommonProtocols.PROTOCOL_ISO14443_4)
+                .aidSelector(SeSelector.AidSelector.builder().aidToSelect(aid).build())
+                .invalidatedPo(PoSelector.InvalidatedPo.REJECT).build();
+    }
+
+    @Benchmark
+    public SelectionsResult selectAid() throws KeypleException {
+        return aidSelection.processExplicitSelection(poReader);
+    }
+
+    @Benchmark
+    public SelectionsResult selectAidAndReadRecord() throws KeypleException {
+        return aidSelectionWithRead.processExplicitSelection(poReader);
+    }
+
+    @Benchmark
+    public SelectionsResult selectFirstMatch() throws KeypleException {
+        return multipleSelection.processExplicitSelection(poReader);
+    }
+}
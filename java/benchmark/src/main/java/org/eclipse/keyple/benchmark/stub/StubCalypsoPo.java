@@ -0,0 +1,74 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.benchmark.stub;
+
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.eclipse.keyple.plugin.stub.StubSecureElement;
+
+/**
+ * Stub Calypso PO (revision 3.1, contactless) used by the benchmarks.
+ * <p>
+ * It answers to the AID selection, the record readings and the secure session commands exchanged
+ * by a PoTransaction opened in the DEBIT level (SFI 08, record 1 read at opening).
+ */
+public final class StubCalypsoPo extends StubSecureElement {
+
+    public static final String SE_PROTOCOL = "PROTOCOL_ISO14443_4";
+    public static final String ATR_HEX = "3B8880010000000000718100F9";
+    public static final String AID = "315449432E49434131";
+    public static final String AID_NOT_FOUND = "AABBCCDDEE";
+    public static final byte SFI_ENVIRONMENT_AND_HOLDER = (byte) 0x07;
+    public static final byte SFI_EVENT_LOG = (byte) 0x08;
+    public static final byte SFI_CONTRACT_LIST = (byte) 0x1E;
+    public static final byte SFI_CONTRACTS = (byte) 0x09;
+
+    private final byte[] atr = ByteArrayUtil.fromHex(ATR_HEX);
+
+    public StubCalypsoPo() {
+        /* Select Application */
+        addHexCommand("00A4 0400 05 AABBCCDDEE 00", "6A82");
+        /* Select Application */
+        addHexCommand("00A4 0400 09 315449432E49434131 00",
+                "6F238409315449432E49434131A516BF0C13C708 0000000011223344 53070A3C23121410019000");
+        /* Read Records - EnvironmentAndHolder (SFI=07)) */
+        addHexCommand("00B2013C00",
+                "24B92848080000131A50001200000000000000000000000000000000009000");
+        /* Read Records - EventLog (SFI=08, recnbr=1)) */
+        addHexCommand("00B2014400",
+                "00112233445566778899AABBCCDDEEFF00112233445566778899AABBCC9000");
+        /* Read Records - ContractList (SFI=1E, recnbr=1)) */
+        addHexCommand("00B201F400",
+                "00000000000000000000000000000000000000000000000000000000009000");
+        /* Read Records - Contracts (SFI=09, recnbr=1)) */
+        addHexCommand("00B2014C00",
+                "00000FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF9000");
+        /* Open Secure Session V3.1 - DEBIT, read SFI=08 recnbr=1 */
+        addHexCommand("008A0B4104C1C2C3C400",
+                "030490980030791D01112233445566778899AABBCCDDEEFF00112233445566778899AABBCC9000");
+        /* Close Secure Session, no ratification asked */
+        addHexCommand("008E0000040506070800", "010203049000");
+        /* Close Secure Session, ratification asked */
+        addHexCommand("008E8000040506070800", "010203049000");
+        /* Ratification */
+        addHexCommand("00B2000000", "6B00");
+    }
+
+    @Override
+    public byte[] getATR() {
+        return atr;
+    }
+
+    @Override
+    public String getSeProcotol() {
+        return SE_PROTOCOL;
+    }
+}
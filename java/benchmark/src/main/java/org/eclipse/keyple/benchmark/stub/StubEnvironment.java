@@ -0,0 +1,136 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.benchmark.stub;
+
+import org.eclipse.keyple.calypso.command.sam.SamRevision;
+import org.eclipse.keyple.calypso.transaction.CalypsoSam;
+import org.eclipse.keyple.calypso.transaction.PoSecuritySettings;
+import org.eclipse.keyple.calypso.transaction.PoTransaction;
+import org.eclipse.keyple.calypso.transaction.SamResource;
+import org.eclipse.keyple.calypso.transaction.SamSelectionRequest;
+import org.eclipse.keyple.calypso.transaction.SamSelector;
+import org.eclipse.keyple.core.selection.SeSelection;
+import org.eclipse.keyple.core.selection.SelectionsResult;
+import org.eclipse.keyple.core.seproxy.SeReader;
+import org.eclipse.keyple.core.seproxy.exception.KeypleException;
+import org.eclipse.keyple.core.seproxy.protocol.SeCommonProtocols;
+import org.eclipse.keyple.plugin.stub.StubPlugin;
+import org.eclipse.keyple.plugin.stub.StubPluginFactory;
+import org.eclipse.keyple.plugin.stub.StubProtocolSetting;
+import org.eclipse.keyple.plugin.stub.StubReader;
+import org.eclipse.keyple.plugin.stub.StubSecureElement;
+
+/**
+ * Stub plugin setup shared by the benchmarks.
+ * <p>
+ * The plugin is instantiated directly from its factory (it is not registered to the SeProxyService)
+ * so that each benchmark state owns its readers.
+ */
+public final class StubEnvironment {
+
+    public static final String PO_READER_NAME = "poReader";
+    public static final String SAM_READER_NAME = "samReader";
+
+    private final StubPlugin stubPlugin;
+
+    /**
+     * Creates a new stub plugin
+     *
+     * @param pluginName the name of the plugin
+     * @throws KeypleException if the plugin cannot be instantiated
+     */
+    public StubEnvironment(String pluginName) throws KeypleException {
+        stubPlugin = (StubPlugin) new StubPluginFactory(pluginName).getPluginInstance();
+    }
+
+    /**
+     * Plug a stub reader, set the protocol setting and insert the provided SE
+     *
+     * @param readerName the reader name
+     * @param seProtocol the protocol to be activated on the reader
+     * @param stubSecureElement the SE to insert
+     * @return the reader
+     * @throws KeypleException if the reader cannot be retrieved
+     */
+    public StubReader plugReader(String readerName, SeCommonProtocols seProtocol,
+            StubSecureElement stubSecureElement) throws KeypleException {
+        stubPlugin.plugStubReader(readerName, true);
+        StubReader reader = (StubReader) stubPlugin.getReader(readerName);
+        reader.addSeProtocolSetting(seProtocol,
+                StubProtocolSetting.STUB_PROTOCOL_SETTING.get(seProtocol));
+        reader.insertSe(stubSecureElement);
+        return reader;
+    }
+
+    /**
+     * Plug a PO reader with a {@link StubCalypsoPo} inserted
+     *
+     * @return the reader
+     * @throws KeypleException if the reader cannot be retrieved
+     */
+    public StubReader plugPoReader() throws KeypleException {
+        return plugReader(PO_READER_NAME, SeCommonProtocols.PROTOCOL_ISO14443_4,
+                new StubCalypsoPo());
+    }
+
+    /**
+     * Plug a SAM reader with a {@link StubCalypsoSam} inserted
+     *
+     * @return the reader
+     * @throws KeypleException if the reader cannot be retrieved
+     */
+    public StubReader plugSamReader() throws KeypleException {
+        return plugReader(SAM_READER_NAME, SeCommonProtocols.PROTOCOL_ISO7816_3,
+                new StubCalypsoSam());
+    }
+
+    /**
+     * Select the SAM inserted in the provided reader and keep its channel open
+     *
+     * @param samReader the SAM reader
+     * @return the SAM resource
+     * @throws KeypleException if the selection failed
+     */
+    public static SamResource selectSam(SeReader samReader) throws KeypleException {
+        SeSelection samSelection = new SeSelection();
+        samSelection.prepareSelection(new SamSelectionRequest(
+                SamSelector.builder().seProtocol(SeCommonProtocols.PROTOCOL_ISO7816_3)
+                        .samRevision(SamRevision.C1).serialNumber(".*").build()));
+        SelectionsResult selectionsResult = samSelection.processExplicitSelection(samReader);
+        if (!selectionsResult.hasActiveSelection()) {
+            throw new IllegalStateException("Unable to select the stub SAM");
+        }
+        return new SamResource(samReader, (CalypsoSam) selectionsResult.getActiveMatchingSe());
+    }
+
+    /**
+     * Build the security settings matching {@link StubCalypsoSam}
+     *
+     * @param samResource the SAM resource
+     * @return the security settings
+     */
+    public static PoSecuritySettings getSecuritySettings(SamResource samResource) {
+        return new PoSecuritySettings.PoSecuritySettingsBuilder(samResource)//
+                .sessionDefaultKif(PoTransaction.SessionSetting.AccessLevel.SESSION_LVL_DEBIT,
+                        (byte) 0x30)//
+                .sessionDefaultKeyRecordNumber(
+                        PoTransaction.SessionSetting.AccessLevel.SESSION_LVL_DEBIT, (byte) 0x03)//
+                .build();
+    }
+
+    /**
+     * Unplug all the readers
+     */
+    public void tearDown() {
+        stubPlugin.unplugStubReaders(stubPlugin.getReaderNames(), true);
+    }
+}
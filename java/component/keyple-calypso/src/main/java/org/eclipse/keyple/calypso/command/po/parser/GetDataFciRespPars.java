@@ -11,8 +11,6 @@
  ********************************************************************************/
 package org.eclipse.keyple.calypso.command.po.parser;
 
-import static org.eclipse.keyple.core.util.bertlv.Tag.TagType.CONSTRUCTED;
-import static org.eclipse.keyple.core.util.bertlv.Tag.TagType.PRIMITIVE;
 import java.util.HashMap;
 import java.util.Map;
 import org.eclipse.keyple.calypso.command.po.AbstractPoResponseParser;
@@ -22,8 +20,7 @@ import org.eclipse.keyple.calypso.command.po.exception.CalypsoPoIllegalParameter
 import org.eclipse.keyple.core.command.AbstractApduResponseParser;
 import org.eclipse.keyple.core.seproxy.message.ApduResponse;
 import org.eclipse.keyple.core.util.ByteArrayUtil;
-import org.eclipse.keyple.core.util.bertlv.TLV;
-import org.eclipse.keyple.core.util.bertlv.Tag;
+import org.eclipse.keyple.core.util.bertlv.TLVIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -61,25 +58,22 @@ public final class GetDataFciRespPars extends AbstractPoResponseParser {
 
     /* BER-TLV tags definitions */
     /* FCI Template: application class, constructed, tag number Fh => tag field 6Fh */
-    private static final Tag TAG_FCI_TEMPLATE = new Tag(0x0F, Tag.APPLICATION, CONSTRUCTED, 1);
+    private static final int TAG_FCI_TEMPLATE = 0x6F;
     /* DF Name: context-specific class, primitive, tag number 4h => tag field 84h */
-    private static final Tag TAG_DF_NAME = new Tag(0x04, Tag.CONTEXT, PRIMITIVE, 1);
+    private static final int TAG_DF_NAME = 0x84;
     /*
      * FCI Proprietary Template: context-specific class, constructed, tag number 5h => tag field A5h
      */
-    private static final Tag TAG_FCI_PROPRIETARY_TEMPLATE =
-            new Tag(0x05, Tag.CONTEXT, CONSTRUCTED, 1);
+    private static final int TAG_FCI_PROPRIETARY_TEMPLATE = 0xA5;
     /*
      * FCI Issuer Discretionary Data: context-specific class, constructed, tag number Ch => tag
      * field BF0Ch
      */
-    private static final Tag TAG_FCI_ISSUER_DISCRETIONARY_DATA =
-            new Tag(0x0C, Tag.CONTEXT, CONSTRUCTED, 2);
+    private static final int TAG_FCI_ISSUER_DISCRETIONARY_DATA = 0xBF0C;
     /* Application Serial Number: private class, primitive, tag number 7h => tag field C7h */
-    private static final Tag TAG_APPLICATION_SERIAL_NUMBER =
-            new Tag(0x07, Tag.PRIVATE, PRIMITIVE, 1);
+    private static final int TAG_APPLICATION_SERIAL_NUMBER = 0xC7;
     /* Discretionary Data: application class, primitive, tag number 13h => tag field 53h */
-    private static final Tag TAG_DISCRETIONARY_DATA = new Tag(0x13, Tag.APPLICATION, PRIMITIVE, 1);
+    private static final int TAG_DISCRETIONARY_DATA = 0x53;
 
     /** attributes result of th FCI parsing */
     private boolean isDfInvalidated = false;
@@ -117,7 +111,6 @@ public final class GetDataFciRespPars extends AbstractPoResponseParser {
      */
     public GetDataFciRespPars(ApduResponse response, GetDataFciCmdBuild builder) {
         super(response, builder);
-        TLV tlv;
 
         /* check the command status to determine if the DF has been invalidated */
         if (response.getStatusCode() == 0x6283) {
@@ -126,57 +119,70 @@ public final class GetDataFciRespPars extends AbstractPoResponseParser {
             isDfInvalidated = true;
         }
 
-        /* parse the raw data with the help of the TLV class */
+        /* parse the raw data with the help of the TLV index */
         try {
-            /* init TLV object with the raw data and extract the FCI Template */
+            /*
+             * index the whole FCI (without the status word) in a single pass, the lengths of the
+             * templates are not enforced as some POs return inconsistent ones
+             */
             final byte[] responseData = response.getBytes();
-            tlv = new TLV(responseData);
+            TLVIndex tlvIndex = new TLVIndex(true).parse(responseData, 0, responseData.length - 2);
 
             /* Get the FCI template */
-            if (!tlv.parse(TAG_FCI_TEMPLATE, 0)) {
+            int fciTemplate = tlvIndex.indexOfChild(TLVIndex.NOT_FOUND, TAG_FCI_TEMPLATE);
+            if (fciTemplate == TLVIndex.NOT_FOUND) {
                 logger.error("FCI parsing error: FCI template tag not found.");
                 return;
             }
 
             /* Get the DF Name */
-            if (!tlv.parse(TAG_DF_NAME, tlv.getPosition())) {
+            int dfNameIndex = tlvIndex.indexOfChild(fciTemplate, TAG_DF_NAME);
+            if (dfNameIndex == TLVIndex.NOT_FOUND) {
                 logger.error("FCI parsing error: DF name tag not found.");
                 return;
             }
 
-            dfName = tlv.getValue();
+            dfName = tlvIndex.getValue(dfNameIndex);
 
             /* Get the FCI Proprietary Template */
-            if (!tlv.parse(TAG_FCI_PROPRIETARY_TEMPLATE, tlv.getPosition())) {
+            int proprietaryTemplate =
+                    tlvIndex.indexOfChild(fciTemplate, TAG_FCI_PROPRIETARY_TEMPLATE);
+            if (proprietaryTemplate == TLVIndex.NOT_FOUND) {
                 logger.error("FCI parsing error: FCI proprietary template tag not found.");
                 return;
             }
 
             /* Get the FCI Issuer Discretionary Data */
-            if (!tlv.parse(TAG_FCI_ISSUER_DISCRETIONARY_DATA, tlv.getPosition())) {
+            int issuerDiscretionaryData = tlvIndex.indexOfChild(proprietaryTemplate,
+                    TAG_FCI_ISSUER_DISCRETIONARY_DATA);
+            if (issuerDiscretionaryData == TLVIndex.NOT_FOUND) {
                 logger.error("FCI parsing error: FCI issuer discretionary data tag not found.");
                 return;
             }
 
             /* Get the Application Serial Number */
-            if (!tlv.parse(TAG_APPLICATION_SERIAL_NUMBER, tlv.getPosition())) {
+            int applicationSNIndex =
+                    tlvIndex.indexOfChild(issuerDiscretionaryData, TAG_APPLICATION_SERIAL_NUMBER);
+            if (applicationSNIndex == TLVIndex.NOT_FOUND) {
                 logger.error("FCI parsing error: serial number tag not found.");
                 return;
             }
 
-            applicationSN = tlv.getValue();
+            applicationSN = tlvIndex.getValue(applicationSNIndex);
 
             if (logger.isDebugEnabled()) {
                 logger.debug("Application Serial Number = {}", ByteArrayUtil.toHex(applicationSN));
             }
 
             /* Get the Discretionary Data */
-            if (!tlv.parse(TAG_DISCRETIONARY_DATA, tlv.getPosition())) {
+            int discretionaryDataIndex =
+                    tlvIndex.indexOfChild(issuerDiscretionaryData, TAG_DISCRETIONARY_DATA);
+            if (discretionaryDataIndex == TLVIndex.NOT_FOUND) {
                 logger.error("FCI parsing error: discretionary data tag not found.");
                 return;
             }
 
-            discretionaryData = tlv.getValue();
+            discretionaryData = tlvIndex.getValue(discretionaryDataIndex);
 
             if (logger.isDebugEnabled()) {
                 logger.debug("Discretionary Data = {}", ByteArrayUtil.toHex(discretionaryData));
@@ -11,7 +11,6 @@
  ********************************************************************************/
 package org.eclipse.keyple.calypso.command.po.parser;
 
-import static org.eclipse.keyple.core.util.bertlv.Tag.TagType.PRIMITIVE;
 import java.util.HashMap;
 import java.util.Map;
 import org.eclipse.keyple.calypso.command.po.AbstractPoResponseParser;
@@ -21,8 +20,7 @@ import org.eclipse.keyple.calypso.command.po.exception.CalypsoPoIllegalParameter
 import org.eclipse.keyple.core.command.AbstractApduResponseParser;
 import org.eclipse.keyple.core.seproxy.message.ApduResponse;
 import org.eclipse.keyple.core.util.Assert;
-import org.eclipse.keyple.core.util.bertlv.TLV;
-import org.eclipse.keyple.core.util.bertlv.Tag;
+import org.eclipse.keyple.core.util.bertlv.TLVIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,7 +53,7 @@ public final class SelectFileRespPars extends AbstractPoResponseParser {
     }
 
     /* Proprietary Information: context-specific class, primitive, tag number 5h => tag field 85h */
-    private static final Tag TAG_PROPRIETARY_INFORMATION = new Tag(0x05, Tag.CONTEXT, PRIMITIVE, 1);
+    private static final int TAG_PROPRIETARY_INFORMATION = 0x85;
 
     /**
      * Instantiates a new SelectFileRespPars.
@@ -74,11 +72,13 @@ public final class SelectFileRespPars extends AbstractPoResponseParser {
      */
     public byte[] getProprietaryInformation() {
         if (proprietaryInformation == null) {
-            TLV tlv = new TLV(response.getDataOut());
-            if (!tlv.parse(TAG_PROPRIETARY_INFORMATION, 0)) {
+            byte[] responseData = response.getBytes();
+            TLVIndex tlvIndex = new TLVIndex(true).parse(responseData, 0, responseData.length - 2);
+            int index = tlvIndex.indexOf(TAG_PROPRIETARY_INFORMATION);
+            if (index == TLVIndex.NOT_FOUND) {
                 throw new IllegalStateException("Proprietary information: tag not found.");
             }
-            proprietaryInformation = tlv.getValue();
+            proprietaryInformation = tlvIndex.getValue(index);
             Assert.getInstance().isEqual(proprietaryInformation.length, 23,
                     "proprietaryInformation");
         }
@@ -32,7 +32,9 @@ public class DigestUpdateMultipleCmdBuild
      * Instantiates a new DigestUpdateMultipleCmdBuild.
      *
      * @param revision the revision
-     * @param digestData the digest data
+     * @param digestData the digest data: one or more blocks made of the length of a PO command or
+     *        response followed by its bytes
+     * @throws IllegalArgumentException - if the digest data is null, empty or has a length &gt; 255
      */
     public DigestUpdateMultipleCmdBuild(SamRevision revision, byte[] digestData) {
         super(command, null);
@@ -43,6 +45,10 @@ public class DigestUpdateMultipleCmdBuild
         byte p1 = (byte) 0x80;
         byte p2 = (byte) 0x00;
 
+        if (digestData == null || digestData.length == 0 || digestData.length > 255) {
+            throw new IllegalArgumentException("Digest data null, empty or too long!");
+        }
+
         request = setApduRequest(cla, command, p1, p2, digestData, null);
     }
 
@@ -179,6 +179,32 @@ public final class CalypsoPo extends AbstractMatchingSe {
         }
     }
 
+    /**
+     * Copy constructor: the selection data are shared (immutable), the files are cloned.
+     *
+     * @param calypsoPo the PO to copy
+     */
+    CalypsoPo(CalypsoPo calypsoPo) {
+        super(calypsoPo);
+        isConfidentialSessionModeSupported = calypsoPo.isConfidentialSessionModeSupported;
+        isDeselectRatificationSupported = calypsoPo.isDeselectRatificationSupported;
+        isSvFeatureAvailable = calypsoPo.isSvFeatureAvailable;
+        isPinFeatureAvailable = calypsoPo.isPinFeatureAvailable;
+        isPublicAuthenticationSupported = calypsoPo.isPublicAuthenticationSupported;
+        isDfInvalidated = calypsoPo.isDfInvalidated;
+        poClass = calypsoPo.poClass;
+        calypsoSerialNumber = calypsoPo.calypsoSerialNumber;
+        startupInfo = calypsoPo.startupInfo;
+        revision = calypsoPo.revision;
+        dfName = calypsoPo.dfName;
+        modificationsCounterMax = calypsoPo.modificationsCounterMax;
+        modificationCounterIsInBytes = calypsoPo.modificationCounterIsInBytes;
+        directoryHeader = calypsoPo.directoryHeader;
+        isDfRatified = calypsoPo.isDfRatified;
+        copyMapFiles(calypsoPo.efBySfi, efBySfi);
+        copyMapSfi(calypsoPo.sfiByLid, sfiByLid);
+    }
+
     /**
      * Resolve the PO revision from the application type byte
      *
@@ -36,9 +36,11 @@ public class PoSecuritySettings {
 
     private final ModificationMode sessionModificationMode;
     private final RatificationMode ratificationMode;
+    private final boolean digestUpdateMultipleEnabled;
 
     public static final ModificationMode defaultSessionModificationMode = ModificationMode.ATOMIC;
     public static final RatificationMode defaultRatificationMode = RatificationMode.CLOSE_RATIFIED;
+    public static final boolean defaultDigestUpdateMultipleEnabled = false;
 
     /** Private constructor */
     private PoSecuritySettings(PoSecuritySettingsBuilder builder) {
@@ -49,6 +51,7 @@ public class PoSecuritySettings {
         this.defaultKeyRecordNumber = builder.defaultKeyRecordNumber;
         this.sessionModificationMode = builder.sessionModificationMode;
         this.ratificationMode = builder.ratificationMode;
+        this.digestUpdateMultipleEnabled = builder.digestUpdateMultipleEnabled;
     }
 
     /**
@@ -69,6 +72,7 @@ public class PoSecuritySettings {
 
         ModificationMode sessionModificationMode = defaultSessionModificationMode;
         RatificationMode ratificationMode = defaultRatificationMode;
+        boolean digestUpdateMultipleEnabled = defaultDigestUpdateMultipleEnabled;
 
         /**
          * Constructor
@@ -110,6 +114,25 @@ public class PoSecuritySettings {
             return this;
         }
 
+        /**
+         * Enable the use of the Digest Update Multiple command<br>
+         * The default value is false
+         * <p>
+         * When enabled, the PO exchanges to be digested are packed in as few SAM APDUs as possible
+         * instead of one Digest Update per PO command and response. The command is used only with
+         * SAMs supporting it (revision C1) and in non encrypted sessions, single Digest Update
+         * commands are used otherwise.
+         *
+         * @param digestUpdateMultipleEnabled true to enable the Digest Update Multiple command
+         * @return the builder instance
+         * @since 0.9
+         */
+        public PoSecuritySettingsBuilder digestUpdateMultipleEnabled(
+                boolean digestUpdateMultipleEnabled) {
+            this.digestUpdateMultipleEnabled = digestUpdateMultipleEnabled;
+            return this;
+        }
+
         /**
          * Set the default KIF<br>
          *
@@ -205,6 +228,16 @@ public class PoSecuritySettings {
         return ratificationMode;
     }
 
+    /**
+     * (package-private)<br>
+     *
+     * @return true if the Digest Update Multiple command is enabled
+     * @since 0.9
+     */
+    boolean isDigestUpdateMultipleEnabled() {
+        return digestUpdateMultipleEnabled;
+    }
+
     /**
      * (package-private)<br>
      * 
@@ -18,6 +18,7 @@ import org.eclipse.keyple.calypso.command.po.AbstractPoCommandBuilder;
 import org.eclipse.keyple.calypso.command.po.AbstractPoResponseParser;
 import org.eclipse.keyple.calypso.command.po.exception.CalypsoPoCommandException;
 import org.eclipse.keyple.calypso.transaction.exception.CalypsoDesynchronizedExchangesException;
+import org.eclipse.keyple.core.selection.AbstractMatchingSe;
 import org.eclipse.keyple.core.selection.AbstractSeSelectionRequest;
 import org.eclipse.keyple.core.seproxy.message.ApduResponse;
 import org.eclipse.keyple.core.seproxy.message.SeResponse;
@@ -122,4 +123,15 @@ public final class PoSelectionRequest extends
 
         return calypsoPo;
     }
+
+    /**
+     * Create a new CalypsoPo with the selection data and the files of the provided one
+     *
+     * @param matchingSe a {@link CalypsoPo} previously returned by {@link #parse(SeResponse)}
+     * @return a {@link CalypsoPo}
+     */
+    @Override
+    protected CalypsoPo copy(AbstractMatchingSe matchingSe) {
+        return new CalypsoPo((CalypsoPo) matchingSe);
+    }
 }
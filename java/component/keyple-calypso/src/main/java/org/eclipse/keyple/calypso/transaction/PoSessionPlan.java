@@ -0,0 +1,115 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.calypso.transaction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.eclipse.keyple.calypso.command.po.AbstractPoCommandBuilder;
+import org.eclipse.keyple.calypso.command.po.AbstractPoResponseParser;
+
+/**
+ * Exchanges with the PO planned by {@link PoTransaction#planSession()} for the prepared commands.
+ * <p>
+ * The commands are distributed in as few secure sessions as the PO modifications buffer allows (a
+ * single one in ATOMIC modification mode). Each session is made of two PO exchanges, the minimum
+ * since the Close Secure Session command requires the SAM signature of the responses to the Open
+ * Secure Session command:
+ * <ul>
+ * <li>the opening exchange: the Open Secure Session command followed by the commands whose
+ * responses are needed (reads, counter modifications without known value, ...),</li>
+ * <li>the closing exchange: the remaining commands, whose responses are anticipated, followed by
+ * the Close Secure Session command and the ratification command if any.</li>
+ * </ul>
+ */
+public final class PoSessionPlan {
+
+    /**
+     * The commands of a secure session
+     */
+    static final class Session {
+        private final List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> openingCommands;
+        private final List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> closingCommands;
+
+        Session(List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> opening,
+                List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> closing) {
+            this.openingCommands = opening;
+            this.closingCommands = closing;
+        }
+
+        /**
+         * @return the commands sent with the Open Secure Session command
+         */
+        List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> getOpeningCommands() {
+            return openingCommands;
+        }
+
+        /**
+         * @return the commands sent with the Close Secure Session command
+         */
+        List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> getClosingCommands() {
+            return closingCommands;
+        }
+    }
+
+    private final List<Session> sessions;
+
+    PoSessionPlan(List<Session> sessions) {
+        this.sessions = Collections.unmodifiableList(new ArrayList<Session>(sessions));
+    }
+
+    /**
+     * @return the planned sessions, in order
+     */
+    List<Session> getSessions() {
+        return sessions;
+    }
+
+    /**
+     * @return the number of secure sessions needed to process the commands
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * @return the number of exchanges (SE requests) with the PO
+     */
+    public int getExchangeCount() {
+        return 2 * sessions.size();
+    }
+
+    /**
+     * @return the number of prepared commands distributed in the exchanges
+     */
+    public int getCommandCount() {
+        int commandCount = 0;
+        for (Session session : sessions) {
+            commandCount += session.openingCommands.size() + session.closingCommands.size();
+        }
+        return commandCount;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder exchanges = new StringBuilder();
+        for (Session session : sessions) {
+            if (exchanges.length() > 0) {
+                exchanges.append(", ");
+            }
+            exchanges.append("OPEN+").append(session.openingCommands.size()).append(", ")
+                    .append(session.closingCommands.size()).append("+CLOSE");
+        }
+        return "PoSessionPlan{sessions=" + getSessionCount() + ", exchanges=" + getExchangeCount()
+                + " [" + exchanges + "]}";
+    }
+}
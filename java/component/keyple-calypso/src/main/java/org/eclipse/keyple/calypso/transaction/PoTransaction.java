@@ -15,7 +15,10 @@ import static org.eclipse.keyple.calypso.command.po.CalypsoPoCommand.DECREASE;
 import static org.eclipse.keyple.calypso.command.po.CalypsoPoCommand.INCREASE;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.SortedMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.eclipse.keyple.calypso.SelectFileControl;
@@ -32,6 +35,7 @@ import org.eclipse.keyple.calypso.command.po.builder.security.AbstractOpenSessio
 import org.eclipse.keyple.calypso.command.po.builder.security.CloseSessionCmdBuild;
 import org.eclipse.keyple.calypso.command.po.builder.security.RatificationCmdBuild;
 import org.eclipse.keyple.calypso.command.po.exception.CalypsoPoCommandException;
+import org.eclipse.keyple.calypso.command.po.parser.ReadRecordsRespPars;
 import org.eclipse.keyple.calypso.command.po.parser.security.AbstractOpenSessionRespPars;
 import org.eclipse.keyple.calypso.command.po.parser.security.CloseSessionRespPars;
 import org.eclipse.keyple.calypso.command.sam.exception.CalypsoSamCommandException;
@@ -45,6 +49,7 @@ import org.eclipse.keyple.calypso.transaction.exception.CalypsoPoTransactionIlle
 import org.eclipse.keyple.calypso.transaction.exception.CalypsoSamIOException;
 import org.eclipse.keyple.calypso.transaction.exception.CalypsoSessionAuthenticationException;
 import org.eclipse.keyple.calypso.transaction.exception.CalypsoUnauthorizedKvcException;
+import org.eclipse.keyple.core.metrics.MetricsProvider;
 import org.eclipse.keyple.core.seproxy.ChannelControl;
 import org.eclipse.keyple.core.seproxy.SeReader;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderIOException;
@@ -76,6 +81,8 @@ public class PoTransaction {
      */
     private static final int SESSION_BUFFER_CMD_ADDITIONAL_COST = 6;
     private static final int APDU_HEADER_LENGTH = 5;
+    /** status word of a Read Records command beyond the last record of the file */
+    private static final int SW_RECORD_NOT_FOUND = 0x6A83;
 
     private static final Logger logger = LoggerFactory.getLogger(PoTransaction.class);
 
@@ -116,6 +123,40 @@ public class PoTransaction {
         samCommandProcessor = new SamCommandProcessor(poResource, poSecuritySettings);
     }
 
+    /**
+     * PoTransaction with PO and SAM readers, the SAM operations being pipelined with the PO
+     * exchanges.
+     * <p>
+     * The SAM commands are executed by the provided executor: the digest commands are transmitted
+     * to the SAM while the PO exchanges go on, their result is checked at the session closing.
+     *
+     * @param poResource the PO resource (combination of {@link SeReader} and {@link CalypsoPo})
+     * @param poSecuritySettings a list of security settings ({@link PoSecuritySettings}) used in
+     *        the session (such as key identification)
+     * @param samExecutor the executor running the SAM operations
+     * @see PoTransactionEngine
+     */
+    PoTransaction(PoResource poResource, PoSecuritySettings poSecuritySettings,
+            Executor samExecutor) {
+
+        this(poResource);
+
+        this.poSecuritySettings = poSecuritySettings;
+
+        samCommandProcessor =
+                new SamCommandProcessor(poResource, poSecuritySettings, samExecutor);
+    }
+
+    /**
+     * Requests the terminal challenge of the next session opening in advance, when the SAM
+     * operations are pipelined.
+     */
+    void prefetchSessionTerminalChallenge() {
+        if (samCommandProcessor != null) {
+            samCommandProcessor.prefetchSessionTerminalChallenge();
+        }
+    }
+
     /**
      * PoTransaction with PO reader and without SAM reader.
      * <ul>
@@ -279,6 +320,9 @@ public class PoTransaction {
             samCommandProcessor.pushPoExchangeDataList(poApduRequests, poApduResponses, 1);
         }
 
+        // In pipelined mode, start the digest computation while the PO processing goes on
+        samCommandProcessor.processPendingDigestCommandsInBackground();
+
         // Remove Open Secure Session response and create a new SeResponse
         poApduResponses.remove(0);
 
@@ -349,6 +393,7 @@ public class PoTransaction {
         // Session.
         if (sessionState == SessionState.SESSION_OPEN) {
             samCommandProcessor.pushPoExchangeDataList(poApduRequests, poApduResponses, 0);
+            samCommandProcessor.processPendingDigestCommandsInBackground();
         }
 
         CalypsoPoUtils.updateCalypsoPo(calypsoPo, poCommands, poSeResponse.getApduResponses());
@@ -534,6 +579,23 @@ public class PoTransaction {
         processAtomicClosing(poCommands, poAnticipatedResponses, ratificationMode, channelControl);
     }
 
+    /**
+     * Receiver of the records read by
+     * {@link #processReadRecords(byte, int, int, int, RecordHandler, boolean, ChannelControl)}.
+     */
+    public interface RecordHandler {
+        /**
+         * Called for each record, in the order of the record numbers, as soon as the PO response
+         * containing it has been received.
+         *
+         * @param sfi the SFI of the EF
+         * @param recordNumber the record number
+         * @param data the record content
+         * @return false to stop the reading, true to continue
+         */
+        boolean onRecord(byte sfi, int recordNumber, byte[] data);
+    }
+
     public static class SessionSetting {
         /**
          * The modification mode indicates whether the secure session can be closed and reopened to
@@ -625,6 +687,25 @@ public class PoTransaction {
         }
     }
 
+    /**
+     * Tells if the value of the designated counter is available in the current {@link CalypsoPo}
+     *
+     * @param sfi the SFI of the EF containing the counter
+     * @param counter the number of the counter
+     * @return true if the value is available
+     */
+    private boolean isCounterValueAvailable(int sfi, int counter) {
+        try {
+            getCounterValue(sfi, counter);
+            return true;
+        } catch (CalypsoPoTransactionIllegalStateException e) {
+            return false;
+        } catch (IndexOutOfBoundsException e) {
+            // truncated value
+            return false;
+        }
+    }
+
     /**
      * Create an anticipated response to an Increase/Decrease command
      * 
@@ -718,6 +799,19 @@ public class PoTransaction {
     public final void processOpening(PoTransaction.SessionSetting.AccessLevel accessLevel)
             throws CalypsoPoTransactionException, CalypsoPoCommandException,
             CalypsoSamCommandException {
+        long startTime = System.nanoTime();
+        boolean successful = false;
+        try {
+            doProcessOpening(accessLevel);
+            successful = true;
+        } finally {
+            recordTransactionPhase("OPENING", startTime, successful);
+        }
+    }
+
+    private void doProcessOpening(PoTransaction.SessionSetting.AccessLevel accessLevel)
+            throws CalypsoPoTransactionException, CalypsoPoCommandException,
+            CalypsoSamCommandException {
         currentAccessLevel = accessLevel;
 
         // create a sublist of AbstractPoCommandBuilder to be sent atomically
@@ -781,6 +875,18 @@ public class PoTransaction {
      */
     public final void processPoCommands(ChannelControl channelControl)
             throws CalypsoPoTransactionException, CalypsoPoCommandException {
+        long startTime = System.nanoTime();
+        boolean successful = false;
+        try {
+            doProcessPoCommands(channelControl);
+            successful = true;
+        } finally {
+            recordTransactionPhase("PO_COMMANDS", startTime, successful);
+        }
+    }
+
+    private void doProcessPoCommands(ChannelControl channelControl)
+            throws CalypsoPoTransactionException, CalypsoPoCommandException {
 
         /** This method should be called only if no session was previously open */
         checkSessionIsNotOpen();
@@ -810,6 +916,18 @@ public class PoTransaction {
      */
     public final void processPoCommandsInSession() throws CalypsoPoTransactionException,
             CalypsoPoCommandException, CalypsoSamCommandException {
+        long startTime = System.nanoTime();
+        boolean successful = false;
+        try {
+            doProcessPoCommandsInSession();
+            successful = true;
+        } finally {
+            recordTransactionPhase("PO_COMMANDS_IN_SESSION", startTime, successful);
+        }
+    }
+
+    private void doProcessPoCommandsInSession() throws CalypsoPoTransactionException,
+            CalypsoPoCommandException, CalypsoSamCommandException {
 
         /** This method should be called only if a session was previously open */
         checkSessionIsOpen();
@@ -891,6 +1009,19 @@ public class PoTransaction {
     public final void processClosing(ChannelControl channelControl)
             throws CalypsoPoTransactionException, CalypsoPoCommandException,
             CalypsoSamCommandException {
+        long startTime = System.nanoTime();
+        boolean successful = false;
+        try {
+            doProcessClosing(channelControl);
+            successful = true;
+        } finally {
+            recordTransactionPhase("CLOSING", startTime, successful);
+        }
+    }
+
+    private void doProcessClosing(ChannelControl channelControl)
+            throws CalypsoPoTransactionException, CalypsoPoCommandException,
+            CalypsoSamCommandException {
         checkSessionIsOpen();
 
         boolean atLeastOneReadCommand = false;
@@ -967,6 +1098,222 @@ public class PoTransaction {
         poCommandManager.notifyCommandsProcessed();
     }
 
+    /**
+     * Plans the exchanges with the PO needed to process all the prepared PO commands in a Secure
+     * Session, from its opening to its closing, without transmitting anything.
+     * <p>
+     * The returned plan is the one executed by processSession if no command is prepared in the
+     * meantime, it gives the number of PO exchanges of the transaction.
+     *
+     * @return the plan of the exchanges
+     * @throws CalypsoPoTransactionException if the commands overflow the PO modifications buffer in
+     *         ATOMIC modification mode, or if no SAM resource is available
+     */
+    public final PoSessionPlan planSession() throws CalypsoPoTransactionException {
+
+        if (poSecuritySettings == null) {
+            throw new CalypsoPoTransactionIllegalStateException("No SAM resource is available");
+        }
+
+        List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> poCommands =
+                poCommandManager.getPoCommandBuilders();
+
+        List<PoSessionPlan.Session> sessions = new ArrayList<PoSessionPlan.Session>();
+
+        AtomicInteger neededSessionBufferSpace = new AtomicInteger();
+        AtomicBoolean overflow = new AtomicBoolean();
+
+        // the plan simulates the consumption of the modifications buffer of a new session
+        int currentModificationsCounter = modificationsCounter;
+        resetModificationsBufferCounter();
+        try {
+            int sessionStart = 0;
+            for (int i = 0; i < poCommands.size(); i++) {
+                // if the command overflows the session buffer in atomic modification mode, an
+                // exception is raised.
+                if (checkModifyingCommand(poCommands.get(i), overflow, neededSessionBufferSpace)
+                        && overflow.get()) {
+                    // The command does not fit in the PO modifications buffer, the session is
+                    // closed and a new one is opened for the remaining commands.
+                    sessions.add(planSessionExchanges(poCommands, sessionStart, i));
+                    sessionStart = i;
+                    resetModificationsBufferCounter();
+                    // just update modifications buffer usage counter, ignore result (always false)
+                    isSessionBufferOverflowed(neededSessionBufferSpace.get());
+                }
+            }
+            sessions.add(planSessionExchanges(poCommands, sessionStart, poCommands.size()));
+        } finally {
+            modificationsCounter = currentModificationsCounter;
+        }
+        return new PoSessionPlan(sessions);
+    }
+
+    /**
+     * Distributes the commands of a secure session between its opening and closing exchanges.
+     * <p>
+     * The closing exchange gets the longest sequence of commands ending the session whose
+     * responses can be anticipated, the other ones are sent with the Open Secure Session command.
+     *
+     * @param poCommands all the prepared PO commands
+     * @param fromIndex index of the first command of the session
+     * @param toIndex index following the last command of the session
+     * @return the session
+     */
+    private PoSessionPlan.Session planSessionExchanges(
+            List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> poCommands,
+            int fromIndex, int toIndex) {
+        int closingIndex = toIndex;
+        while (closingIndex > fromIndex && isResponseAnticipable(poCommands, closingIndex - 1)) {
+            closingIndex--;
+        }
+        return new PoSessionPlan.Session(
+                new ArrayList<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>>(
+                        poCommands.subList(fromIndex, closingIndex)),
+                new ArrayList<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>>(
+                        poCommands.subList(closingIndex, toIndex)));
+    }
+
+    /**
+     * Tells if the response to a command can be anticipated by getAnticipatedResponses when the
+     * command is sent with the Close Secure Session command.
+     * <p>
+     * This is the case of the commands modifying the PO, except the Increase/Decrease commands
+     * whose counter value is unknown at the closing: the counter has neither been read before the
+     * planning nor by a previous command, or it is modified by a previous command.
+     *
+     * @param poCommands all the prepared PO commands
+     * @param index the index of the command
+     * @return true if the response can be anticipated
+     */
+    private boolean isResponseAnticipable(
+            List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> poCommands,
+            int index) {
+        AbstractPoCommandBuilder<? extends AbstractPoResponseParser> commandBuilder =
+                poCommands.get(index);
+        if (!commandBuilder.isSessionBufferUsed()) {
+            // the response to a reading command is not known
+            return false;
+        }
+        int sfi;
+        int counter;
+        if (commandBuilder.getCommandRef() == DECREASE) {
+            sfi = ((DecreaseCmdBuild) commandBuilder).getSfi();
+            counter = ((DecreaseCmdBuild) commandBuilder).getCounterNumber();
+        } else if (commandBuilder.getCommandRef() == INCREASE) {
+            sfi = ((IncreaseCmdBuild) commandBuilder).getSfi();
+            counter = ((IncreaseCmdBuild) commandBuilder).getCounterNumber();
+        } else { // Append/Update/Write Record: response = 9000
+            return true;
+        }
+        boolean counterValueKnown = isCounterValueAvailable(sfi, counter);
+        for (int i = 0; i < index; i++) {
+            AbstractPoCommandBuilder<? extends AbstractPoResponseParser> previousCommand =
+                    poCommands.get(i);
+            if (previousCommand.getCommandRef() == CalypsoPoCommand.READ_RECORDS
+                    && ((ReadRecordsCmdBuild) previousCommand).getSfi() == sfi
+                    && ((ReadRecordsCmdBuild) previousCommand).getFirstRecordNumber() == 1) {
+                counterValueKnown = true;
+            } else if (isCounterModified(previousCommand, sfi, counter)) {
+                // the anticipation would be based on the value before the previous modification
+                return false;
+            }
+        }
+        return counterValueKnown;
+    }
+
+    /**
+     * Tells if a command is an Increase/Decrease command of the designated counter
+     *
+     * @param commandBuilder the command builder
+     * @param sfi the SFI of the EF containing the counter
+     * @param counter the number of the counter
+     * @return true if the command modifies the counter
+     */
+    private static boolean isCounterModified(
+            AbstractPoCommandBuilder<? extends AbstractPoResponseParser> commandBuilder, int sfi,
+            int counter) {
+        if (commandBuilder.getCommandRef() == DECREASE) {
+            return ((DecreaseCmdBuild) commandBuilder).getSfi() == sfi
+                    && ((DecreaseCmdBuild) commandBuilder).getCounterNumber() == counter;
+        } else if (commandBuilder.getCommandRef() == INCREASE) {
+            return ((IncreaseCmdBuild) commandBuilder).getSfi() == sfi
+                    && ((IncreaseCmdBuild) commandBuilder).getCounterNumber() == counter;
+        }
+        return false;
+    }
+
+    /**
+     * Processes all prepared PO commands in a single Secure Session (or in several successive
+     * sessions in MULTIPLE modification mode if the PO modifications buffer is overflowed), with
+     * the exchanges planned by {@link #planSession()}.
+     * <ul>
+     * <li>The commands whose responses are needed are sent along with the Open Secure Session
+     * command, the others along with the Close Secure Session command with their anticipated
+     * responses.</li>
+     * <li>The ratification is handled according to the communication mode, as in
+     * {@link #processClosing(ChannelControl)}.</li>
+     * <li>All parsers keept by the prepare command methods are updated with the Apdu responses from
+     * the PO and made available with the getCommandParser method.</li>
+     * </ul>
+     *
+     * @param accessLevel access level of the session (personalization, load or debit).
+     * @param channelControl indicates if the SE channel of the PO reader must be closed after the
+     *        last command
+     * @throws CalypsoPoTransactionException if a functional error occurs (including PO and SAM IO
+     *         errors)
+     * @throws CalypsoPoCommandException if a response from the PO was unexpected
+     * @throws CalypsoSamCommandException if a response from the SAM was unexpected
+     */
+    public final void processSession(PoTransaction.SessionSetting.AccessLevel accessLevel,
+            ChannelControl channelControl) throws CalypsoPoTransactionException,
+            CalypsoPoCommandException, CalypsoSamCommandException {
+        long startTime = System.nanoTime();
+        boolean successful = false;
+        try {
+            doProcessSession(accessLevel, channelControl);
+            successful = true;
+        } finally {
+            recordTransactionPhase("SESSION", startTime, successful);
+        }
+    }
+
+    private void doProcessSession(PoTransaction.SessionSetting.AccessLevel accessLevel,
+            ChannelControl channelControl) throws CalypsoPoTransactionException,
+            CalypsoPoCommandException, CalypsoSamCommandException {
+
+        /** This method should be called only if no session was previously open */
+        checkSessionIsNotOpen();
+
+        PoSessionPlan sessionPlan = planSession();
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("processSession => {} command(s), {}", sessionPlan.getCommandCount(),
+                    sessionPlan);
+        }
+
+        currentAccessLevel = accessLevel;
+
+        List<PoSessionPlan.Session> sessions = sessionPlan.getSessions();
+        for (int i = 0; i < sessions.size(); i++) {
+            boolean lastSession = i == sessions.size() - 1;
+            // the lists are copied since the opening may withdraw the first command
+            processAtomicOpening(accessLevel,
+                    new ArrayList<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>>(
+                            sessions.get(i).getOpeningCommands()));
+            processAtomicClosing(
+                    new ArrayList<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>>(
+                            sessions.get(i).getClosingCommands()),
+                    lastSession ? poSecuritySettings.getRatificationMode()
+                            : SessionSetting.RatificationMode.CLOSE_RATIFIED,
+                    lastSession ? channelControl : ChannelControl.KEEP_OPEN);
+            resetModificationsBufferCounter();
+        }
+
+        // sets the flag indicating that the commands have been executed
+        poCommandManager.notifyCommandsProcessed();
+    }
+
     /**
      * Abort a Secure Session.
      * <p>
@@ -982,6 +1329,18 @@ public class PoTransaction {
      */
     public final void processCancel(ChannelControl channelControl)
             throws CalypsoPoTransactionException, CalypsoPoCommandException {
+        long startTime = System.nanoTime();
+        boolean successful = false;
+        try {
+            doProcessCancel(channelControl);
+            successful = true;
+        } finally {
+            recordTransactionPhase("CANCEL", startTime, successful);
+        }
+    }
+
+    private void doProcessCancel(ChannelControl channelControl)
+            throws CalypsoPoTransactionException, CalypsoPoCommandException {
         // PO ApduRequest List to hold Close Secure Session command
         List<ApduRequest> poApduRequests = new ArrayList<ApduRequest>();
 
@@ -1007,6 +1366,11 @@ public class PoTransaction {
         sessionState = SessionState.SESSION_CLOSED;
     }
 
+    private static void recordTransactionPhase(String phase, long startTime, boolean successful) {
+        MetricsProvider.getMetrics().recordTransactionPhase(phase,
+                (System.nanoTime() - startTime) / 1000, successful);
+    }
+
     private SeResponse safePoTransmit(SeRequest poSeRequest, ChannelControl channelControl)
             throws CalypsoPoIOException {
         try {
@@ -1233,6 +1597,147 @@ public class PoTransaction {
         }
     }
 
+    /**
+     * Reads records of the indicated EF and delivers them to the provided handler as the PO
+     * responses arrive.
+     * <p>
+     * Unlike {@link #prepareReadRecordFile(byte, int, int, int)}, the reading is performed
+     * immediately, without the other prepared commands: one Read Records command is sent per
+     * exchange with the PO, each command reading as many records as the payload capacity of the PO
+     * allows. The next command starts after the last record returned by the previous one.
+     * <p>
+     * The reading ends when the requested number of records has been read, when the handler
+     * returns false, or when the PO indicates that there are no more records after at least one
+     * record has been read (record not found). It can be performed inside or outside a Secure
+     * Session.
+     *
+     * @param sfi the SFI of the EF
+     * @param firstRecordNumber the first record to read
+     * @param numberOfRecords the maximum number of records to read
+     * @param recordSize the record length
+     * @param recordHandler the handler receiving the records
+     * @param cacheRecords true if the records have also to be stored in the {@link CalypsoPo}
+     * @param channelControl indicates if the SE channel of the PO reader must be closed after the
+     *        last command
+     * @return the number of records delivered to the handler
+     * @throws IllegalArgumentException if one of the provided argument is out of range
+     * @throws CalypsoPoTransactionException if a functional error occurs (including PO and SAM IO
+     *         errors)
+     * @throws CalypsoPoCommandException if a response from the PO was unexpected
+     */
+    public final int processReadRecords(byte sfi, int firstRecordNumber, int numberOfRecords,
+            int recordSize, RecordHandler recordHandler, boolean cacheRecords,
+            ChannelControl channelControl)
+            throws CalypsoPoTransactionException, CalypsoPoCommandException {
+
+        Assert.getInstance() //
+                .isInRange((int) sfi, CalypsoPoUtils.SFI_MIN, CalypsoPoUtils.SFI_MAX, "sfi") //
+                .isInRange(firstRecordNumber, CalypsoPoUtils.NB_REC_MIN, CalypsoPoUtils.NB_REC_MAX,
+                        "firstRecordNumber") //
+                .isInRange(numberOfRecords, CalypsoPoUtils.NB_REC_MIN,
+                        CalypsoPoUtils.NB_REC_MAX - firstRecordNumber + 1, "numberOfRecords") //
+                .notNull(recordHandler, "recordHandler");
+
+        long startTime = System.nanoTime();
+        boolean successful = false;
+        try {
+            int nbRecords = doProcessReadRecords(sfi, firstRecordNumber, numberOfRecords,
+                    recordSize, recordHandler, cacheRecords, channelControl);
+            successful = true;
+            return nbRecords;
+        } finally {
+            recordTransactionPhase("READ_RECORDS", startTime, successful);
+        }
+    }
+
+    private int doProcessReadRecords(byte sfi, int firstRecordNumber, int numberOfRecords,
+            int recordSize, RecordHandler recordHandler, boolean cacheRecords,
+            ChannelControl channelControl)
+            throws CalypsoPoTransactionException, CalypsoPoCommandException {
+
+        // each record is returned with 2 extra bytes (record number and length)
+        int recordsPerApdu = calypsoPo.getPayloadCapacity() / (recordSize + 2);
+        int lastRecordNumber = firstRecordNumber + numberOfRecords - 1;
+        int nextRecordNumber = firstRecordNumber;
+        int nbRecords = 0;
+
+        while (nextRecordNumber <= lastRecordNumber) {
+            int remainingRecords = lastRecordNumber - nextRecordNumber + 1;
+            ReadRecordsCmdBuild readRecordsCmdBuild;
+            if (remainingRecords == 1 || recordsPerApdu <= 1) {
+                readRecordsCmdBuild = new ReadRecordsCmdBuild(calypsoPo.getPoClass(), sfi,
+                        nextRecordNumber, ReadRecordsCmdBuild.ReadMode.ONE_RECORD, recordSize);
+            } else {
+                readRecordsCmdBuild = new ReadRecordsCmdBuild(calypsoPo.getPoClass(), sfi,
+                        nextRecordNumber, ReadRecordsCmdBuild.ReadMode.MULTIPLE_RECORD,
+                        Math.min(remainingRecords, recordsPerApdu) * (recordSize + 2));
+            }
+
+            List<ApduRequest> poApduRequests = new ArrayList<ApduRequest>();
+            poApduRequests.add(readRecordsCmdBuild.getApduRequest());
+
+            // the channel is kept open until the last command that can be expected
+            boolean lastCommand = remainingRecords <= Math.max(recordsPerApdu, 1);
+            SeResponse poSeResponse = safePoTransmit(new SeRequest(poApduRequests),
+                    lastCommand ? channelControl : ChannelControl.KEEP_OPEN);
+            List<ApduResponse> poApduResponses = poSeResponse.getApduResponses();
+            checkCommandsResponsesSynchronization(poApduRequests.size(), poApduResponses.size());
+
+            if (sessionState == SessionState.SESSION_OPEN) {
+                samCommandProcessor.pushPoExchangeDataList(poApduRequests, poApduResponses, 0);
+                samCommandProcessor.processPendingDigestCommandsInBackground();
+            }
+
+            ReadRecordsRespPars readRecordsRespPars =
+                    readRecordsCmdBuild.createResponseParser(poApduResponses.get(0));
+            if (nbRecords > 0 && poApduResponses.get(0).getStatusCode() == SW_RECORD_NOT_FOUND) {
+                // end of the file
+                closeChannelIfNeeded(lastCommand, channelControl);
+                return nbRecords;
+            }
+            readRecordsRespPars.checkStatus();
+
+            SortedMap<Integer, byte[]> records = readRecordsRespPars.getRecords();
+            if (records.isEmpty()) {
+                closeChannelIfNeeded(lastCommand, channelControl);
+                return nbRecords;
+            }
+            int previousRecordNumber = nextRecordNumber;
+            for (Map.Entry<Integer, byte[]> entry : records.entrySet()) {
+                int recordNumber = entry.getKey();
+                if (recordNumber > lastRecordNumber) {
+                    break;
+                }
+                if (cacheRecords) {
+                    calypsoPo.setContent(sfi, recordNumber, entry.getValue());
+                }
+                nbRecords++;
+                nextRecordNumber = recordNumber + 1;
+                if (!recordHandler.onRecord(sfi, recordNumber, entry.getValue())) {
+                    closeChannelIfNeeded(lastCommand, channelControl);
+                    return nbRecords;
+                }
+            }
+            if (lastCommand || nextRecordNumber == previousRecordNumber) {
+                // no more records can be expected from the PO
+                closeChannelIfNeeded(lastCommand, channelControl);
+                return nbRecords;
+            }
+        }
+        return nbRecords;
+    }
+
+    /**
+     * Closes the SE channel when a reading is stopped before its last command while the channel
+     * control requested it.
+     */
+    private void closeChannelIfNeeded(boolean lastCommandSent, ChannelControl channelControl)
+            throws CalypsoPoIOException {
+        if (!lastCommandSent && channelControl == ChannelControl.CLOSE_AFTER) {
+            safePoTransmit(new SeRequest(new ArrayList<ApduRequest>()), channelControl);
+        }
+    }
+
     /**
      * Read a record of the indicated EF, which should be a count file.
      * <p>
@@ -0,0 +1,263 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.calypso.transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.keyple.core.seproxy.exception.KeypleException;
+import org.eclipse.keyple.core.util.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Asynchronous engine running {@link PoTransaction}s with pipelined SAM operations.
+ * <p>
+ * Each submitted transaction is run on a PO thread while its SAM operations are run in the
+ * background on a SAM thread:
+ * <ul>
+ * <li>the terminal challenge is requested as soon as the transaction is submitted, the PO
+ * exchanges preceding the session opening are thus overlapped with the SAM Select Diversifier and
+ * Get Challenge commands,</li>
+ * <li>the Digest Init/Update commands are transmitted to the SAM as soon as the corresponding PO
+ * responses are received, while the PO processing goes on,</li>
+ * <li>only the Digest Close and the Digest Authenticate commands are waited for by the PO
+ * thread.</li>
+ * </ul>
+ * A {@link TransactionFuture} is returned for each transaction.
+ * <p>
+ * The SAM operations of a transaction are executed in order. The SAM resource provided with the
+ * security settings must be dedicated to the transaction until its completion (see
+ * {@link SamResourceManager}): two concurrent transactions must not share the same SAM.
+ */
+public final class PoTransactionEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(PoTransactionEngine.class);
+
+    private final ExecutorService poExecutor;
+    private final ExecutorService samExecutor;
+    private final boolean ownedExecutors;
+
+    /**
+     * The processing of a PO transaction, executed on a PO thread.
+     *
+     * @param <T> the type of the result of the transaction
+     */
+    public interface TransactionTask<T> {
+        /**
+         * Performs the PO transaction
+         *
+         * @param poTransaction the PO transaction (with pipelined SAM operations)
+         * @return the result of the transaction
+         * @throws KeypleException if the transaction failed
+         */
+        T execute(PoTransaction poTransaction) throws KeypleException;
+    }
+
+    /**
+     * Callback notified at the completion of a transaction.
+     *
+     * @param <T> the type of the result of the transaction
+     */
+    public interface TransactionCallback<T> {
+        /**
+         * Called when the transaction succeeded
+         *
+         * @param result the result of the transaction
+         */
+        void onSuccess(T result);
+
+        /**
+         * Called when the transaction failed or was cancelled
+         *
+         * @param cause the exception raised by the transaction
+         */
+        void onFailure(Throwable cause);
+    }
+
+    /**
+     * Handle of a submitted transaction: a {@link java.util.concurrent.Future} to which completion
+     * callbacks can be attached.
+     *
+     * @param <T> the type of the result of the transaction
+     */
+    public static final class TransactionFuture<T> extends FutureTask<T> {
+
+        private final List<TransactionCallback<? super T>> callbacks =
+                new ArrayList<TransactionCallback<? super T>>();
+
+        private TransactionFuture(Callable<T> callable) {
+            super(callable);
+        }
+
+        /**
+         * Registers a callback to be notified at the completion of the transaction.
+         * <p>
+         * If the transaction is already completed, the callback is notified immediately on the
+         * calling thread, otherwise it will be notified on the thread completing the transaction.
+         *
+         * @param callback the callback
+         * @return this future
+         */
+        public TransactionFuture<T> whenComplete(TransactionCallback<? super T> callback) {
+            if (callback == null) {
+                throw new IllegalArgumentException("Callback must not be null");
+            }
+            synchronized (callbacks) {
+                if (!isDone()) {
+                    callbacks.add(callback);
+                    return this;
+                }
+            }
+            notifyCallback(callback);
+            return this;
+        }
+
+        @Override
+        protected void done() {
+            List<TransactionCallback<? super T>> toNotify;
+            synchronized (callbacks) {
+                toNotify = new ArrayList<TransactionCallback<? super T>>(callbacks);
+                callbacks.clear();
+            }
+            for (TransactionCallback<? super T> callback : toNotify) {
+                notifyCallback(callback);
+            }
+        }
+
+        private void notifyCallback(TransactionCallback<? super T> callback) {
+            T result = null;
+            Throwable failure = null;
+            try {
+                result = get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = e;
+            } catch (ExecutionException e) {
+                failure = e.getCause();
+            } catch (CancellationException e) {
+                failure = e;
+            }
+            try {
+                if (failure == null) {
+                    callback.onSuccess(result);
+                } else {
+                    callback.onFailure(failure);
+                }
+            } catch (RuntimeException e) {
+                logger.error("Transaction callback failed", e);
+            }
+        }
+    }
+
+    /**
+     * Creates an engine with its own executors
+     *
+     * @param nbLanes the maximum number of transactions processed simultaneously (i.e. the number
+     *        of PO readers)
+     */
+    public PoTransactionEngine(int nbLanes) {
+        if (nbLanes <= 0) {
+            throw new IllegalArgumentException("The number of lanes must be positive");
+        }
+        this.poExecutor = Executors.newFixedThreadPool(nbLanes,
+                new NamedThreadFactory("PoTransactionEngine-po"));
+        this.samExecutor = Executors.newFixedThreadPool(nbLanes,
+                new NamedThreadFactory("PoTransactionEngine-sam"));
+        this.ownedExecutors = true;
+    }
+
+    /**
+     * Creates an engine on top of the provided executors.
+     * <p>
+     * The executors are not shut down by {@link #shutdown()}.
+     *
+     * @param poExecutor the executor running the transactions (PO side)
+     * @param samExecutor the executor running the SAM operations
+     */
+    public PoTransactionEngine(ExecutorService poExecutor, ExecutorService samExecutor) {
+        if (poExecutor == null || samExecutor == null) {
+            throw new IllegalArgumentException("Executors must not be null");
+        }
+        this.poExecutor = poExecutor;
+        this.samExecutor = samExecutor;
+        this.ownedExecutors = false;
+    }
+
+    /**
+     * Submits a transaction.
+     * <p>
+     * The terminal challenge is requested immediately, then the task is run on a PO thread with a
+     * {@link PoTransaction} whose SAM operations are pipelined.
+     *
+     * @param poResource the PO resource
+     * @param poSecuritySettings the security settings, including the SAM resource dedicated to
+     *        this transaction
+     * @param transactionTask the processing to perform
+     * @param <T> the type of the result of the transaction
+     * @return the handle of the transaction
+     */
+    public <T> TransactionFuture<T> submit(PoResource poResource,
+            PoSecuritySettings poSecuritySettings, final TransactionTask<T> transactionTask) {
+        if (poResource == null || poSecuritySettings == null || transactionTask == null) {
+            throw new IllegalArgumentException(
+                    "PO resource, security settings and task must not be null");
+        }
+
+        final PoTransaction poTransaction =
+                new PoTransaction(poResource, poSecuritySettings, samExecutor);
+
+        // the SAM starts working while the PO task is waiting for a thread
+        poTransaction.prefetchSessionTerminalChallenge();
+
+        TransactionFuture<T> transactionFuture = new TransactionFuture<T>(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                return transactionTask.execute(poTransaction);
+            }
+        });
+
+        if (logger.isTraceEnabled()) {
+            logger.trace("Submit transaction: PO READER = {}, SAM READER = {}",
+                    poResource.getSeReader().getName(),
+                    poSecuritySettings.getSamResource().getSeReader().getName());
+        }
+
+        poExecutor.execute(transactionFuture);
+        return transactionFuture;
+    }
+
+    /**
+     * Stops the engine executors if they were created by the engine.
+     * <p>
+     * The transactions already submitted are completed before the method returns (the SAM
+     * executor has to remain available until the end of the PO processing).
+     */
+    public void shutdown() {
+        if (ownedExecutors) {
+            poExecutor.shutdown();
+            try {
+                poExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Interrupted while waiting for the end of the transactions");
+            }
+            samExecutor.shutdown();
+        }
+    }
+}
@@ -11,12 +11,18 @@
  ********************************************************************************/
 package org.eclipse.keyple.calypso.transaction;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import org.eclipse.keyple.calypso.command.po.PoRevision;
 import org.eclipse.keyple.calypso.command.sam.AbstractSamCommandBuilder;
 import org.eclipse.keyple.calypso.command.sam.AbstractSamResponseParser;
+import org.eclipse.keyple.calypso.command.sam.SamRevision;
 import org.eclipse.keyple.calypso.command.sam.builder.security.*;
 import org.eclipse.keyple.calypso.command.sam.exception.CalypsoSamCommandException;
 import org.eclipse.keyple.calypso.command.sam.parser.security.DigestAuthenticateRespPars;
@@ -29,6 +35,7 @@ import org.eclipse.keyple.core.seproxy.ChannelControl;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderIOException;
 import org.eclipse.keyple.core.seproxy.message.*;
 import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.eclipse.keyple.core.util.SerialExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,6 +47,12 @@ import org.slf4j.LoggerFactory;
  * <p>
  * It also will integrate the SAM commands used for Stored Value and PIN/key management. In session,
  * these commands need to be carefully synchronized with the digest calculation.
+ * <p>
+ * When an {@link Executor} is provided, the processor works in pipelined mode: the terminal
+ * challenge can be fetched in advance and the Digest Init/Update commands are transmitted to the
+ * SAM in the background, as soon as the PO data are available, while the PO exchanges continue.
+ * The SAM operations are executed in their submission order; their results are checked when the
+ * terminal signature is requested.
  */
 class SamCommandProcessor {
     private static final Logger logger = LoggerFactory.getLogger(SamCommandProcessor.class);
@@ -50,6 +63,8 @@ class SamCommandProcessor {
     private static final byte CHALLENGE_LENGTH_REV32 = (byte) 0x08;
     private static final byte SIGNATURE_LENGTH_REV_INF_32 = (byte) 0x04;
     private static final byte SIGNATURE_LENGTH_REV32 = (byte) 0x08;
+    /* maximum length of the data field of a Digest Update Multiple command */
+    private static final int DIGEST_UPDATE_MULTIPLE_MAX_LENGTH = 255;
 
     /** The SAM resource */
     private final SamResource samResource;
@@ -64,14 +79,19 @@ class SamCommandProcessor {
      * buffer is the data buffer to be provided with Digest Init. The following buffers are PO
      * command/response pairs
      */
-    private static final List<byte[]> poDigestDataCache = new ArrayList<byte[]>();
+    private final List<ByteBuffer> poDigestDataCache = new ArrayList<ByteBuffer>();
     private boolean sessionEncryption;
     private boolean verificationMode;
     private byte workKeyRecordNumber;
     private byte workKeyKif;
     private byte workKeyKVC;
-    private boolean isDiversificationDone;
     private boolean isDigestInitDone;
+    /** Serial executor of the SAM operations (pipelined mode only) */
+    private final Executor samExecutor;
+    /** The terminal challenge requested in advance (pipelined mode only) */
+    private Future<byte[]> prefetchedChallenge;
+    /** The Digest Init/Update operations transmitted in the background (pipelined mode only) */
+    private final List<Future<Void>> pendingDigestOperations = new ArrayList<Future<Void>>();
 
     /**
      * Constructor
@@ -80,20 +100,63 @@ class SamCommandProcessor {
      * @param poSecuritySettings the security settings from the application layer
      */
     SamCommandProcessor(PoResource poResource, PoSecuritySettings poSecuritySettings) {
+        this(poResource, poSecuritySettings, null);
+    }
+
+    /**
+     * Constructor of a pipelined processor
+     *
+     * @param poResource the PO resource containing the PO reader and the Calypso PO information
+     * @param poSecuritySettings the security settings from the application layer
+     * @param executor the executor running the SAM operations in the background (may be shared
+     *        between several processors), null to process all SAM operations on the caller thread
+     */
+    SamCommandProcessor(PoResource poResource, PoSecuritySettings poSecuritySettings,
+            Executor executor) {
         this.poResource = poResource;
         this.poSecuritySettings = poSecuritySettings;
         this.samResource = poSecuritySettings.getSamResource();
         samReader = (ProxyReader) this.samResource.getSeReader();
+        samExecutor = executor != null ? new SerialExecutor(executor) : null;
+    }
+
+    /**
+     * @return true if the SAM operations are pipelined
+     */
+    boolean isPipelined() {
+        return samExecutor != null;
+    }
+
+    /**
+     * Requests the terminal challenge in the background (pipelined mode only).
+     * <p>
+     * The challenge will be returned by the next call to {@link #getSessionTerminalChallenge()}.
+     * Does nothing if the processor is not pipelined or if a challenge is already pending.
+     */
+    void prefetchSessionTerminalChallenge() {
+        if (samExecutor == null || prefetchedChallenge != null) {
+            return;
+        }
+        FutureTask<byte[]> challengeTask = new FutureTask<byte[]>(new Callable<byte[]>() {
+            @Override
+            public byte[] call() throws Exception {
+                return requestSessionTerminalChallenge();
+            }
+        });
+        samExecutor.execute(challengeTask);
+        prefetchedChallenge = challengeTask;
     }
 
     /**
      * Gets the terminal challenge
      * <p>
      * Performs key diversification if necessary by sending the SAM Select Diversifier command prior
-     * to the Get Challenge command. The diversification flag is set to avoid further unnecessary
-     * diversification operations.
+     * to the Get Challenge command. The diversification is recorded in the SAM resource to avoid
+     * further unnecessary diversification operations.
      * <p>
-     * If the key diversification is already done, the Select Diversifier command is omitted.
+     * If the SAM keys are already diversified with the serial number of the PO (in this
+     * transaction or in a previous one with the same PO), the Select Diversifier command is
+     * omitted.
      * <p>
      * The length of the challenge varies from one PO revision to another. This information can be
      * found in the PoResource class field.
@@ -105,19 +168,42 @@ class SamCommandProcessor {
      */
     byte[] getSessionTerminalChallenge() throws CalypsoSamIOException,
             CalypsoDesynchronizedExchangesException, CalypsoSamCommandException {
+        if (prefetchedChallenge != null) {
+            Future<byte[]> challenge = prefetchedChallenge;
+            prefetchedChallenge = null;
+            return waitForSamOperation(challenge);
+        }
+        if (samExecutor != null) {
+            // keep the SAM operations ordered: wait for the pending ones before going on
+            waitForPendingDigestOperations();
+        }
+        return requestSessionTerminalChallenge();
+    }
+
+    /**
+     * Builds and transmits the Select Diversifier (if needed) and Get Challenge commands
+     *
+     * @return the terminal challenge as an array of bytes
+     * @throws CalypsoSamIOException if the communication with the SAM has failed.
+     * @throws CalypsoDesynchronizedExchangesException if the APDU SAM exchanges are out of sync
+     * @throws CalypsoSamCommandException if the SAM has responded with an error status
+     */
+    private byte[] requestSessionTerminalChallenge() throws CalypsoSamIOException,
+            CalypsoDesynchronizedExchangesException, CalypsoSamCommandException {
         List<ApduRequest> apduRequests = new ArrayList<ApduRequest>();
 
-        // diversify only if this has not already been done.
-        if (!isDiversificationDone) {
+        // diversify only if the SAM is not already diversified with this PO
+        byte[] poSerialNumber = poResource.getMatchingSe().getApplicationSerialNumber();
+        boolean diversify = !samResource.isDiversifiedWith(poSerialNumber);
+        if (diversify) {
             // build the SAM Select Diversifier command to provide the SAM with the PO S/N
-            AbstractApduCommandBuilder selectDiversifier =
-                    new SelectDiversifierCmdBuild(samResource.getMatchingSe().getSamRevision(),
-                            poResource.getMatchingSe().getApplicationSerialNumber());
+            AbstractApduCommandBuilder selectDiversifier = new SelectDiversifierCmdBuild(
+                    samResource.getMatchingSe().getSamRevision(), poSerialNumber);
 
             apduRequests.add(selectDiversifier.getApduRequest());
 
-            // note that the diversification has been made
-            isDiversificationDone = true;
+            // the diversification is unknown until the SAM has responded
+            samResource.setDiversifier(null);
         }
 
         // build the SAM Get Challenge command
@@ -137,6 +223,8 @@ class SamCommandProcessor {
             samSeResponse = samReader.transmitSeRequest(new SeRequest(apduRequests),
                     ChannelControl.KEEP_OPEN);
         } catch (KeypleReaderIOException e) {
+            // the SAM may have been reset
+            samResource.resetDiversifier();
             throw new CalypsoSamIOException("SAM IO Exception while getting terminal challenge.",
                     e);
         }
@@ -146,6 +234,10 @@ class SamCommandProcessor {
 
         int numberOfSamCmd = apduRequests.size();
         if (samApduResponses.size() == numberOfSamCmd) {
+            if (diversify && samApduResponses.get(0).isSuccessful()) {
+                // note that the diversification has been made
+                samResource.setDiversifier(poSerialNumber);
+            }
             SamGetChallengeRespPars getChallengeRespPars =
                     (SamGetChallengeRespPars) getChallengeCmdBuild
                             .createResponseParser(samApduResponses.get(numberOfSamCmd - 1));
@@ -234,9 +326,12 @@ class SamCommandProcessor {
         poDigestDataCache.clear();
 
         // Build Digest Init command as first ApduRequest of the digest computation process
-        poDigestDataCache.add(digestData);
+        poDigestDataCache.add(ByteBuffer.wrap(digestData));
 
         isDigestInitDone = false;
+
+        // operations of a previous (aborted) session are no longer relevant
+        discardPendingDigestOperations();
     }
 
     /**
@@ -251,18 +346,39 @@ class SamCommandProcessor {
 
         // Add an ApduRequest to the digest computation: if the request is of case4 type, Le must be
         // excluded from the digest computation. In this cas, we remove here the last byte of the
-        // command buffer.
+        // command buffer: the request is not copied, a slice of its buffer is cached.
         if (request.isCase4()) {
             poDigestDataCache
-                    .add(Arrays.copyOfRange(request.getBytes(), 0, request.getBytes().length - 1));
+                    .add(ByteBuffer.wrap(request.getBytes(), 0, request.getBytes().length - 1));
         } else {
-            poDigestDataCache.add(request.getBytes());
+            poDigestDataCache.add(ByteBuffer.wrap(request.getBytes()));
         }
 
         logger.trace("pushPoExchangeData: RESPONSE = {}", response);
 
         // Add an ApduResponse to the digest computation
-        poDigestDataCache.add(response.getBytes());
+        poDigestDataCache.add(ByteBuffer.wrap(response.getBytes()));
+    }
+
+    /**
+     * Gets the content of a buffer of the digest data cache as a byte array.
+     * <p>
+     * The array of the buffer is returned when it is fully used, it is copied otherwise (case 4
+     * requests).
+     *
+     * @param buffer a buffer of the cache
+     * @return the digest data
+     */
+    private static byte[] getDigestData(ByteBuffer buffer) {
+        byte[] array = buffer.array();
+        if (buffer.arrayOffset() == 0 && buffer.position() == 0
+                && buffer.remaining() == array.length) {
+            return array;
+        }
+        byte[] digestData = new byte[buffer.remaining()];
+        System.arraycopy(array, buffer.arrayOffset() + buffer.position(), digestData, 0,
+                digestData.length);
+        return digestData;
     }
 
     /**
@@ -288,7 +404,8 @@ class SamCommandProcessor {
      * Builds all pending SAM commands related to the digest calculation process of a secure session
      * <ul>
      * <li>Starts with a Digest Init command if not already done,
-     * <li>Adds as many Digest Update commands as there are packages in the cache,
+     * <li>Adds as many Digest Update commands as there are packages in the cache (or fewer Digest
+     * Update Multiple commands when enabled and supported by the SAM),
      * <li>Appends a Digest Close command if the addDigestClose flag is set to true.
      * </ul>
      * 
@@ -297,12 +414,11 @@ class SamCommandProcessor {
      */
     private List<AbstractSamCommandBuilder<? extends AbstractSamResponseParser>> getPendingSamCommands(
             boolean addDigestClose) {
-        // TODO optimization with the use of Digest Update Multiple whenever possible.
         List<AbstractSamCommandBuilder<? extends AbstractSamResponseParser>> samCommands =
                 new ArrayList<AbstractSamCommandBuilder<? extends AbstractSamResponseParser>>();
 
         // sanity checks
-        if (poDigestDataCache.isEmpty()) {
+        if (poDigestDataCache.isEmpty() && !isDigestInitDone) {
             logger.debug("getSamDigestRequest: no data in cache.");
             throw new IllegalStateException("Digest data cache is empty.");
         }
@@ -322,16 +438,22 @@ class SamCommandProcessor {
             samCommands.add(new DigestInitCmdBuild(samResource.getMatchingSe().getSamRevision(),
                     verificationMode,
                     poResource.getMatchingSe().isConfidentialSessionModeSupported(),
-                    workKeyRecordNumber, workKeyKif, workKeyKVC, poDigestDataCache.get(0)));
+                    workKeyRecordNumber, workKeyKif, workKeyKVC,
+                    getDigestData(poDigestDataCache.get(0))));
             poDigestDataCache.remove(0);
             // note that the digest init has been made
             isDigestInitDone = true;
         }
 
         // Build and append Digest Update commands
-        for (int i = 0; i < poDigestDataCache.size(); i++) {
-            samCommands.add(new DigestUpdateCmdBuild(samResource.getMatchingSe().getSamRevision(),
-                    sessionEncryption, poDigestDataCache.get(i)));
+        if (isDigestUpdateMultipleAllowed()) {
+            addDigestUpdateMultipleCommands(samCommands);
+        } else {
+            for (int i = 0; i < poDigestDataCache.size(); i++) {
+                samCommands.add(new DigestUpdateCmdBuild(
+                        samResource.getMatchingSe().getSamRevision(), sessionEncryption,
+                        getDigestData(poDigestDataCache.get(i))));
+            }
         }
 
         // clears cached commands once they have been processed
@@ -348,6 +470,63 @@ class SamCommandProcessor {
         return samCommands;
     }
 
+    /**
+     * Indicates whether the digest data can be packed with Digest Update Multiple commands.
+     * <p>
+     * The command is not available on SAMs prior to revision C1 and it does not handle the session
+     * encryption.
+     *
+     * @return true if the Digest Update Multiple command is enabled and supported
+     */
+    private boolean isDigestUpdateMultipleAllowed() {
+        return poSecuritySettings.isDigestUpdateMultipleEnabled() && !sessionEncryption
+                && samResource.getMatchingSe().getSamRevision() == SamRevision.C1;
+    }
+
+    /**
+     * Appends the commands digesting the buffers of the cache, packing them in Digest Update
+     * Multiple commands.
+     * <p>
+     * Each buffer is put in the command data field preceded by its length, as many consecutive
+     * buffers as possible are packed in one command (Lc &lt;= 255). A single Digest Update is used
+     * for a buffer that could not be packed with its neighbours.
+     *
+     * @param samCommands the list of commands to complete
+     */
+    private void addDigestUpdateMultipleCommands(
+            List<AbstractSamCommandBuilder<? extends AbstractSamResponseParser>> samCommands) {
+        SamRevision samRevision = samResource.getMatchingSe().getSamRevision();
+        int i = 0;
+        while (i < poDigestDataCache.size()) {
+            // determine how many buffers fit in a single command
+            int dataLength = 0;
+            int end = i;
+            while (end < poDigestDataCache.size() && dataLength + 1
+                    + poDigestDataCache.get(end).remaining() <= DIGEST_UPDATE_MULTIPLE_MAX_LENGTH) {
+                dataLength += 1 + poDigestDataCache.get(end).remaining();
+                end++;
+            }
+            if (end - i < 2) {
+                // nothing to pack
+                samCommands.add(new DigestUpdateCmdBuild(samRevision, false,
+                        getDigestData(poDigestDataCache.get(i))));
+                i++;
+                continue;
+            }
+            byte[] digestData = new byte[dataLength];
+            int offset = 0;
+            for (; i < end; i++) {
+                ByteBuffer buffer = poDigestDataCache.get(i);
+                int length = buffer.remaining();
+                digestData[offset++] = (byte) length;
+                System.arraycopy(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                        digestData, offset, length);
+                offset += length;
+            }
+            samCommands.add(new DigestUpdateMultipleCmdBuild(samRevision, digestData));
+        }
+    }
+
     /**
      * Gets the terminal signature from the SAM
      * <p>
@@ -367,6 +546,135 @@ class SamCommandProcessor {
         List<AbstractSamCommandBuilder<? extends AbstractSamResponseParser>> samCommands =
                 getPendingSamCommands(true);
 
+        // In pipelined mode, the digest operations already started must be successfully completed
+        waitForPendingDigestOperations();
+
+        List<ApduResponse> samApduResponses = transmitDigestCommands(samCommands);
+
+        // Get Terminal Signature from the latest response
+        DigestCloseRespPars digestCloseRespPars =
+                (DigestCloseRespPars) samCommands.get(samCommands.size() - 1)
+                        .createResponseParser(samApduResponses.get(samCommands.size() - 1));
+
+        byte[] sessionTerminalSignature = digestCloseRespPars.getSignature();
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("SIGNATURE = {}", ByteArrayUtil.toHex(sessionTerminalSignature));
+        }
+
+        return sessionTerminalSignature;
+    }
+
+    /**
+     * Transmits the pending Digest Init/Update commands to the SAM in the background (pipelined
+     * mode only).
+     * <p>
+     * The commands are built from the digest data cache on the caller thread, only their
+     * transmission is delegated to the SAM executor. Does nothing if the processor is not pipelined
+     * or if there is no pending data.
+     */
+    void processPendingDigestCommandsInBackground() {
+        if (samExecutor == null || poDigestDataCache.isEmpty()) {
+            return;
+        }
+        final List<AbstractSamCommandBuilder<? extends AbstractSamResponseParser>> samCommands =
+                getPendingSamCommands(false);
+        FutureTask<Void> digestTask = new FutureTask<Void>(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                transmitDigestCommands(samCommands);
+                return null;
+            }
+        });
+        samExecutor.execute(digestTask);
+        pendingDigestOperations.add(digestTask);
+    }
+
+    /**
+     * Waits for the completion of the digest operations started in the background and checks
+     * their results.
+     *
+     * @throws CalypsoSamIOException if the communication with the SAM has failed.
+     * @throws CalypsoDesynchronizedExchangesException if the APDU SAM exchanges are out of sync
+     * @throws CalypsoSamCommandException if the SAM has responded with an error status
+     */
+    private void waitForPendingDigestOperations() throws CalypsoSamIOException,
+            CalypsoDesynchronizedExchangesException, CalypsoSamCommandException {
+        try {
+            for (Future<Void> digestOperation : pendingDigestOperations) {
+                waitForSamOperation(digestOperation);
+            }
+        } finally {
+            pendingDigestOperations.clear();
+        }
+    }
+
+    /**
+     * Waits for the completion of the digest operations of a previous (aborted) session, still
+     * running in the background, so that they do not interleave with the operations of the new
+     * session.
+     * <p>
+     * Their results are no longer relevant: their errors are logged and discarded.
+     */
+    private void discardPendingDigestOperations() {
+        for (Future<Void> digestOperation : pendingDigestOperations) {
+            try {
+                waitForSamOperation(digestOperation);
+            } catch (Exception e) {
+                logger.warn("Digest operation of an aborted session failed: {}", e.getMessage());
+            }
+        }
+        pendingDigestOperations.clear();
+    }
+
+    /**
+     * Waits for the result of a SAM operation executed in the background.
+     * <p>
+     * The exception raised by the operation, if any, is thrown again as is.
+     *
+     * @param samOperation the SAM operation
+     * @return the result of the operation
+     * @throws CalypsoSamIOException if the communication with the SAM has failed or if the
+     *         current thread was interrupted
+     * @throws CalypsoDesynchronizedExchangesException if the APDU SAM exchanges are out of sync
+     * @throws CalypsoSamCommandException if the SAM has responded with an error status
+     */
+    private static <T> T waitForSamOperation(Future<T> samOperation) throws CalypsoSamIOException,
+            CalypsoDesynchronizedExchangesException, CalypsoSamCommandException {
+        try {
+            return samOperation.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CalypsoSamIOException("Interrupted while waiting for the SAM.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CalypsoSamIOException) {
+                throw (CalypsoSamIOException) cause;
+            } else if (cause instanceof CalypsoDesynchronizedExchangesException) {
+                throw (CalypsoDesynchronizedExchangesException) cause;
+            } else if (cause instanceof CalypsoSamCommandException) {
+                throw (CalypsoSamCommandException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new CalypsoSamIOException("SAM operation failed.", cause);
+        }
+    }
+
+    /**
+     * Transmits a list of digest commands to the SAM and checks the status of all responses.
+     *
+     * @param samCommands the SAM commands
+     * @return the list of SAM responses
+     * @throws CalypsoSamIOException if the communication with the SAM has failed.
+     * @throws CalypsoDesynchronizedExchangesException if the APDU SAM exchanges are out of sync
+     * @throws CalypsoSamCommandException if the SAM has responded with an error status
+     */
+    private List<ApduResponse> transmitDigestCommands(
+            List<AbstractSamCommandBuilder<? extends AbstractSamResponseParser>> samCommands)
+            throws CalypsoSamIOException, CalypsoDesynchronizedExchangesException,
+            CalypsoSamCommandException {
+
         SeRequest samSeRequest = new SeRequest(getApduRequests(samCommands));
 
         // Transmit SeRequest and get SeResponse
@@ -375,6 +683,8 @@ class SamCommandProcessor {
         try {
             samSeResponse = samReader.transmitSeRequest(samSeRequest, ChannelControl.KEEP_OPEN);
         } catch (KeypleReaderIOException e) {
+            // the SAM may have been reset
+            samResource.resetDiversifier();
             throw new CalypsoSamIOException("SAM IO Exception while transmitting digest data.", e);
         }
 
@@ -387,22 +697,17 @@ class SamCommandProcessor {
         }
 
         // check all responses status
-        for (int i = 0; i < samApduResponses.size(); i++) {
-            samCommands.get(i).createResponseParser(samApduResponses.get(i)).checkStatus();
-        }
-
-        // Get Terminal Signature from the latest response
-        DigestCloseRespPars digestCloseRespPars =
-                (DigestCloseRespPars) samCommands.get(samCommands.size() - 1)
-                        .createResponseParser(samApduResponses.get(samCommands.size() - 1));
-
-        byte[] sessionTerminalSignature = digestCloseRespPars.getSignature();
-
-        if (logger.isDebugEnabled()) {
-            logger.debug("SIGNATURE = {}", ByteArrayUtil.toHex(sessionTerminalSignature));
+        try {
+            for (int i = 0; i < samApduResponses.size(); i++) {
+                samCommands.get(i).createResponseParser(samApduResponses.get(i)).checkStatus();
+            }
+        } catch (CalypsoSamCommandException e) {
+            // the SAM rejected the digest (e.g. reset in between): its diversification is unknown
+            samResource.resetDiversifier();
+            throw e;
         }
 
-        return sessionTerminalSignature;
+        return samApduResponses;
     }
 
     /**
@@ -431,6 +736,8 @@ class SamCommandProcessor {
         try {
             samSeResponse = samReader.transmitSeRequest(samSeRequest, ChannelControl.KEEP_OPEN);
         } catch (KeypleReaderIOException e) {
+            // the SAM may have been reset
+            samResource.resetDiversifier();
             throw new CalypsoSamIOException(
                     "SAM IO Exception while transmitting digest authentication data.", e);
         }
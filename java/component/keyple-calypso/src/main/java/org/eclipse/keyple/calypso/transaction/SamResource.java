@@ -11,6 +11,7 @@
  ********************************************************************************/
 package org.eclipse.keyple.calypso.transaction;
 
+import java.util.Arrays;
 import org.eclipse.keyple.core.selection.SeResource;
 import org.eclipse.keyple.core.seproxy.SeReader;
 
@@ -26,6 +27,9 @@ public class SamResource extends SeResource<CalypsoSam> {
     /** the sam identifier */
     private SamIdentifier samIdentifier;
 
+    /** the PO serial number with which the SAM keys are currently diversified (null if unknown) */
+    private volatile byte[] diversifier;
+
     /**
      * Constructor
      *
@@ -84,4 +88,37 @@ public class SamResource extends SeResource<CalypsoSam> {
     public void setSamResourceStatus(SamResourceStatus samResourceStatus) {
         this.samResourceStatus = samResourceStatus;
     }
+
+    /**
+     * Indicates whether the SAM keys are currently diversified with the provided PO serial number,
+     * i.e. whether the Select Diversifier command can be omitted for this PO.
+     *
+     * @param poSerialNumber the PO application serial number
+     * @return true if the last diversification done through this resource used this serial number
+     */
+    boolean isDiversifiedWith(byte[] poSerialNumber) {
+        byte[] currentDiversifier = diversifier;
+        return currentDiversifier != null && Arrays.equals(currentDiversifier, poSerialNumber);
+    }
+
+    /**
+     * Records the PO serial number with which the SAM keys have been diversified
+     *
+     * @param poSerialNumber the PO application serial number, null if the diversification state
+     *        of the SAM is unknown
+     */
+    void setDiversifier(byte[] poSerialNumber) {
+        diversifier = poSerialNumber != null ? poSerialNumber.clone() : null;
+    }
+
+    /**
+     * Forgets the current diversification of the SAM keys, the next transaction will send the
+     * Select Diversifier command again.
+     * <p>
+     * To be called when the SAM has been reset or has received a Select Diversifier command outside
+     * of the Calypso transactions.
+     */
+    public void resetDiversifier() {
+        diversifier = null;
+    }
 }
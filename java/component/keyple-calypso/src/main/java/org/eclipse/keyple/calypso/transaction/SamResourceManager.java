@@ -61,6 +61,34 @@ public abstract class SamResourceManager {
             SamIdentifier samIdentifier) throws KeypleReaderException,
             CalypsoNoSamResourceAvailableException, KeypleAllocationReaderException;
 
+    /**
+     * Allocate a SAM resource from the specified SAM group, preferably the one last allocated with
+     * the same affinity key.
+     * <p>
+     * The affinity key identifies the context of the allocation, typically the PO reader (lane) or
+     * the PO serial number (card). Going back to the same SAM allows the transactions to skip the
+     * Select Diversifier command when the same PO is presented again.
+     * <p>
+     * The preferred SAM resource is only an hint: if it is busy or no longer available, another
+     * matching SAM resource is allocated as with
+     * {@link #allocateSamResource(AllocationMode, SamIdentifier)}.
+     * <p>
+     * By default the affinity key is ignored.
+     *
+     * @param allocationMode the blocking/non-blocking mode
+     * @param samIdentifier the targeted SAM identifier
+     * @param affinityKey the affinity key (null if none)
+     * @return a SAM resource
+     * @throws CalypsoNoSamResourceAvailableException if no resource is available
+     * @throws KeypleReaderException if a reader error occurs
+     * @throws KeypleAllocationReaderException if reader allocation fails
+     */
+    public SamResource allocateSamResource(AllocationMode allocationMode,
+            SamIdentifier samIdentifier, String affinityKey) throws KeypleReaderException,
+            CalypsoNoSamResourceAvailableException, KeypleAllocationReaderException {
+        return allocateSamResource(allocationMode, samIdentifier);
+    }
+
     /**
      * Free a previously allocated SAM resource.
      *
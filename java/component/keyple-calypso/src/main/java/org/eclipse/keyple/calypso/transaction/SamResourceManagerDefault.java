@@ -15,14 +15,18 @@ package org.eclipse.keyple.calypso.transaction;
 import java.util.*;
 import java.util.regex.Pattern;
 import org.eclipse.keyple.calypso.exception.CalypsoNoSamResourceAvailableException;
+import org.eclipse.keyple.core.metrics.MetricsProvider;
 import org.eclipse.keyple.core.seproxy.*;
 import org.eclipse.keyple.core.seproxy.event.ObservablePlugin;
 import org.eclipse.keyple.core.seproxy.event.ObservableReader;
 import org.eclipse.keyple.core.seproxy.event.PluginEvent;
 import org.eclipse.keyple.core.seproxy.event.ReaderEvent;
 import org.eclipse.keyple.core.seproxy.exception.*;
+import org.eclipse.keyple.core.seproxy.plugin.local.AbstractLocalReader;
+import org.eclipse.keyple.core.seproxy.plugin.local.LogicalChannelReader;
 import org.eclipse.keyple.core.seproxy.protocol.SeCommonProtocols;
 import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.eclipse.keyple.core.util.LatencyHistogram;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,16 +37,35 @@ import org.slf4j.LoggerFactory;
 public class SamResourceManagerDefault extends SamResourceManager {
     private static final Logger logger = LoggerFactory.getLogger(SamResourceManagerDefault.class);
 
+    /* the maximum number of affinity keys remembered */
+    private static final int MAX_AFFINITY_KEYS = 1024;
+
     private final List<SamResource> localSamResources = new ArrayList<SamResource>();
     final SamResourceManagerDefault.ReaderObserver readerObserver;// only used with observable
                                                                   // readers
     protected final ReaderPlugin samReaderPlugin;
     /* the maximum time (in milliseconds) during which the BLOCKING mode will wait */
     private final int maxBlockingTime;
+    /* the maximum number of SAM resources (logical channels) created for each SAM */
+    private final int nbLogicalChannels;
+    /*
+     * the allocations waiting for a SAM resource, one FIFO queue per group reference (guarded by
+     * localSamResources)
+     */
+    private final Map<String, Queue<SamWaiter>> waitQueues =
+            new LinkedHashMap<String, Queue<SamWaiter>>();
+    /* arrival order of the waiting allocations (guarded by localSamResources) */
+    private long waiterSequence;
+    /* the usage of each SAM resource (guarded by localSamResources) */
+    private final Map<SamResource, SamUsage> samUsages =
+            new IdentityHashMap<SamResource, SamUsage>();
     /*
-     * the sleep time between two tries (in milliseconds) during which the BLOCKING mode will wait
+     * the SAM resource last allocated for each affinity key, least recently used first (guarded by
+     * localSamResources)
      */
-    private final int sleepTime;
+    private final Map<String, SamResource> affinities = new AffinityMap();
+    /* the time spent waiting for a SAM resource by the successful allocations (microseconds) */
+    private final LatencyHistogram waitTimeHistogram = new LatencyHistogram();
 
     /**
      * Protected constructor, use the {@link SamResourceManagerFactory}
@@ -52,21 +75,50 @@ public class SamResourceManagerDefault extends SamResourceManager {
      *        others.
      * @param maxBlockingTime the maximum duration for which the allocateSamResource method will
      *        attempt to allocate a new reader by retrying (in milliseconds)
-     * @param sleepTime the duration to wait between two retries
+     * @param sleepTime not used anymore (kept for compatibility): the waiting allocations are woken
+     *        up as soon as a matching SAM resource is freed or inserted
      * @throws KeypleReaderException thrown if an error occurs while getting the readers list.
      */
     protected SamResourceManagerDefault(ReaderPlugin readerPlugin, String samReaderFilter,
             int maxBlockingTime, int sleepTime) throws KeypleReaderException {
+        this(readerPlugin, samReaderFilter, maxBlockingTime, sleepTime, 1);
+    }
+
+    /**
+     * Protected constructor, use the {@link SamResourceManagerFactory}
+     * <p>
+     * Up to nbLogicalChannels SAM resources are created for each SAM: one on the basic channel,
+     * the others on supplementary logical channels, as far as the SAM accepts to open them. The
+     * supplementary logical channels are only available with the local readers.
+     *
+     * @param readerPlugin the plugin through which SAM readers are accessible
+     * @param samReaderFilter the regular expression defining how to identify SAM readers among
+     *        others.
+     * @param maxBlockingTime the maximum duration for which the allocateSamResource method will
+     *        attempt to allocate a new reader by retrying (in milliseconds)
+     * @param sleepTime not used anymore (kept for compatibility): the waiting allocations are woken
+     *        up as soon as a matching SAM resource is freed or inserted
+     * @param nbLogicalChannels the maximum number of logical channels used on each SAM (1 to use
+     *        the basic channel only)
+     * @throws KeypleReaderException thrown if an error occurs while getting the readers list.
+     */
+    protected SamResourceManagerDefault(ReaderPlugin readerPlugin, String samReaderFilter,
+            int maxBlockingTime, int sleepTime, int nbLogicalChannels)
+            throws KeypleReaderException {
         /*
          * Assign parameters
          */
+        if (nbLogicalChannels < 1
+                || nbLogicalChannels > AbstractLocalReader.MAX_CHANNEL_NUMBER + 1) {
+            throw new IllegalArgumentException("Number of logical channels must be in [1..20]");
+        }
+        this.nbLogicalChannels = nbLogicalChannels;
         if (sleepTime < 1) {
             throw new IllegalArgumentException("Sleep time must be greater than 0");
         }
         if (maxBlockingTime < 1) {
             throw new IllegalArgumentException("Max Blocking Time must be greater than 0");
         }
-        this.sleepTime = sleepTime;
         this.maxBlockingTime = maxBlockingTime;
         this.samReaderPlugin = readerPlugin;
 
@@ -104,73 +156,210 @@ public class SamResourceManagerDefault extends SamResourceManager {
 
     /**
      * Remove a {@link SamResource}from the current SamResource list
+     * <p>
+     * As when a resource is added, the remaining free resources are then handed over to the
+     * waiting allocations they match.
      *
      * @param samReader the SAM reader of the resource to remove from the list.
      */
     protected void removeResource(SeReader samReader) {
-        ListIterator<SamResource> iterator = localSamResources.listIterator();
-        while (iterator.hasNext()) {
-            SamResource currentSamResource = iterator.next();
-            if (currentSamResource.getSeReader().equals(samReader)) {
-                if (logger.isInfoEnabled()) {
-                    logger.trace(
-                            "Freed SAM resource: READER = {}, SAM_REVISION = {}, SAM_SERIAL_NUMBER = {}",
-                            samReader.getName(),
-                            currentSamResource.getMatchingSe().getSamRevision(), ByteArrayUtil
-                                    .toHex(currentSamResource.getMatchingSe().getSerialNumber()));
+        synchronized (localSamResources) {
+            ListIterator<SamResource> iterator = localSamResources.listIterator();
+            while (iterator.hasNext()) {
+                SamResource currentSamResource = iterator.next();
+                SeReader resourceReader = currentSamResource.getSeReader();
+                if (resourceReader.equals(samReader)
+                        || (resourceReader instanceof LogicalChannelReader
+                                && ((LogicalChannelReader) resourceReader).getLocalReader()
+                                        .equals(samReader))) {
+                    if (logger.isInfoEnabled()) {
+                        logger.trace(
+                                "Freed SAM resource: READER = {}, SAM_REVISION = {}, SAM_SERIAL_NUMBER = {}",
+                                samReader.getName(),
+                                currentSamResource.getMatchingSe().getSamRevision(),
+                                ByteArrayUtil.toHex(
+                                        currentSamResource.getMatchingSe().getSerialNumber()));
+                    }
+                    iterator.remove();
+                    samUsages.remove(currentSamResource);
+                    affinities.values().removeAll(Collections.singleton(currentSamResource));
                 }
-                iterator.remove();
             }
+            for (SamResource samResource : localSamResources) {
+                if (samResource.isSamResourceFree()) {
+                    handOver(samResource);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a {@link SamResource} to the current SamResource list and hands it over to the oldest
+     * waiting allocation it matches, if any.
+     * <p>
+     * Must be called while holding the localSamResources lock.
+     *
+     * @param samResource the SAM resource to add
+     */
+    private void addResource(SamResource samResource) {
+        localSamResources.add(samResource);
+        samUsages.put(samResource, new SamUsage());
+        if (!samResource.isSamResourceFree()) {
+            // already allocated (re-inserted while in use)
+            samUsages.get(samResource).busy(System.nanoTime());
+            return;
         }
+        handOver(samResource);
     }
 
+    /**
+     * Adds the {@link SamResource} of the basic channel of a SAM, then the ones of the
+     * supplementary logical channels if requested.
+     * <p>
+     * Must be called while holding the localSamResources lock.
+     *
+     * @param samResource the SAM resource of the basic channel
+     */
+    private void addSamResources(SamResource samResource) {
+        addResource(samResource);
+        if (nbLogicalChannels == 1) {
+            return;
+        }
+        SeReader samReader = samResource.getSeReader();
+        if (!(samReader instanceof AbstractLocalReader)) {
+            logger.warn("[{}] Logical channels not available with this reader.",
+                    samReader.getName());
+            return;
+        }
+        for (int i = 1; i < nbLogicalChannels; i++) {
+            LogicalChannelReader channelReader;
+            try {
+                channelReader = ((AbstractLocalReader) samReader).openSupplementaryChannel();
+            } catch (KeypleReaderIOException e) {
+                logger.error("[{}] Failed to open a logical channel.", samReader.getName(), e);
+                return;
+            }
+            if (channelReader == null) {
+                logger.warn("[{}] The SAM accepted {} logical channel(s) only.",
+                        samReader.getName(), i);
+                return;
+            }
+            logger.trace("Create SAM resource: {}", channelReader.getName());
+            addResource(new SamResource(channelReader, samResource.getMatchingSe()));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The allocations are served in their arrival order: a waiting allocation is handed over the
+     * first matching SAM resource freed or inserted, no polling is involved.
+     */
     @Override
     public SamResource allocateSamResource(AllocationMode allocationMode,
             SamIdentifier samIdentifier) throws CalypsoNoSamResourceAvailableException {
+        return allocateSamResource(allocationMode, samIdentifier, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The allocations are served in their arrival order: the preferred SAM resource is taken only
+     * if it is free when the allocation is requested, a waiting allocation is handed over the
+     * first matching SAM resource freed or inserted.
+     * <p>
+     * The SAM resources of the last 1024 affinity keys used are remembered.
+     */
+    @Override
+    public SamResource allocateSamResource(AllocationMode allocationMode,
+            SamIdentifier samIdentifier, String affinityKey)
+            throws CalypsoNoSamResourceAvailableException {
+        long startTime = System.nanoTime();
         long maxBlockingDate = System.currentTimeMillis() + maxBlockingTime;
-        boolean noSamResourceLogged = false;
         logger.trace("Allocating SAM reader channel...");
-        while (true) {
-            synchronized (localSamResources) {
-                for (SamResource samResource : localSamResources) {
-                    if (samResource.isSamResourceFree()) {
-                        if (samResource.isSamMatching(samIdentifier)) {
-                            samResource.setSamResourceStatus(SamResource.SamResourceStatus.BUSY);
-                            logger.debug("Allocation succeeded. SAM resource created.");
-                            return samResource;
-                        }
+        SamWaiter waiter;
+        synchronized (localSamResources) {
+            /*
+             * a free resource matching a waiting allocation would have been handed over to it, a
+             * free matching resource can thus be taken without overtaking anyone
+             */
+            SamResource preferredSamResource = affinityKey != null ? affinities.get(affinityKey)
+                    : null;
+            if (preferredSamResource != null && samUsages.containsKey(preferredSamResource)
+                    && preferredSamResource.isSamResourceFree()
+                    && preferredSamResource.isSamMatching(samIdentifier)) {
+                allocate(preferredSamResource, startTime);
+                logger.debug("Allocation succeeded. Preferred SAM resource allocated.");
+                return preferredSamResource;
+            }
+            for (SamResource samResource : localSamResources) {
+                if (samResource.isSamResourceFree()) {
+                    if (samResource.isSamMatching(samIdentifier)) {
+                        allocate(samResource, startTime);
+                        setAffinity(affinityKey, samResource);
+                        logger.debug("Allocation succeeded. SAM resource created.");
+                        return samResource;
                     }
                 }
             }
 
-            // loop until MAX_BLOCKING_TIME in blocking mode, only once in non-blocking mode
+            // wait only in blocking mode
             if (allocationMode == AllocationMode.NON_BLOCKING) {
                 logger.trace("No SAM resources available at the moment.");
+                recordFailedAllocation(startTime);
                 throw new CalypsoNoSamResourceAvailableException(
                         "No Sam resource could be allocated for samIdentifier +"
                                 + samIdentifier.getGroupReference());
-            } else {
-                if (!noSamResourceLogged) {
-                    /* log once the first time */
-                    logger.trace("No SAM resources available at the moment.");
-                    noSamResourceLogged = true;
-                }
+            }
+            logger.trace("No SAM resources available at the moment.");
+            waiter = new SamWaiter(samIdentifier, waiterSequence++, startTime);
+            getWaitQueue(samIdentifier.getGroupReference()).add(waiter);
+        }
+
+        boolean interrupted = false;
+        synchronized (waiter) {
+            long remainingTime;
+            while (waiter.samResource == null && !interrupted
+                    && (remainingTime = maxBlockingDate - System.currentTimeMillis()) >= 0) {
                 try {
-                    Thread.sleep(sleepTime);
+                    waiter.wait(remainingTime + 1);
                 } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt(); // set interrupt flag
-                    logger.error("Interrupt exception in Thread.sleep.");
+                    interrupted = true;
                 }
-                if (System.currentTimeMillis() >= maxBlockingDate) {
-                    logger.error("The allocation process failed. Timeout {} sec exceeded .",
-                            (maxBlockingTime / 1000.0));
-                    throw new CalypsoNoSamResourceAvailableException(
-                            "No Sam resource could be allocated within timeout of "
-                                    + maxBlockingTime + "ms for samIdentifier "
-                                    + samIdentifier.getGroupReference());
+            }
+        }
+
+        synchronized (localSamResources) {
+            if (waiter.samResource == null) {
+                // not handed over in the meantime: give up
+                Queue<SamWaiter> waitQueue = waitQueues.get(waiter.groupKey);
+                waitQueue.remove(waiter);
+                if (waitQueue.isEmpty()) {
+                    waitQueues.remove(waiter.groupKey);
                 }
+            } else {
+                setAffinity(affinityKey, waiter.samResource);
             }
         }
+        if (interrupted) {
+            Thread.currentThread().interrupt(); // set interrupt flag
+        }
+        if (waiter.samResource != null) {
+            logger.debug("Allocation succeeded. SAM resource created.");
+            return waiter.samResource;
+        }
+        recordFailedAllocation(startTime);
+        if (interrupted) {
+            logger.error("The allocation process was interrupted.");
+            throw new CalypsoNoSamResourceAvailableException(
+                    "The allocation was interrupted for samIdentifier "
+                            + samIdentifier.getGroupReference());
+        }
+        logger.error("The allocation process failed. Timeout {} sec exceeded .",
+                (maxBlockingTime / 1000.0));
+        throw new CalypsoNoSamResourceAvailableException(
+                "No Sam resource could be allocated within timeout of " + maxBlockingTime
+                        + "ms for samIdentifier " + samIdentifier.getGroupReference());
     }
 
     @Override
@@ -178,6 +367,215 @@ public class SamResourceManagerDefault extends SamResourceManager {
         synchronized (localSamResources) {
             logger.trace("Freeing local SAM resource.");
             samResource.setSamResourceStatus(SamResource.SamResourceStatus.FREE);
+            SamUsage samUsage = samUsages.get(samResource);
+            if (samUsage != null) {
+                // still present: give it to the next waiting allocation
+                samUsage.free(System.nanoTime());
+                handOver(samResource);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of allocations currently waiting for a SAM resource.
+     *
+     * @return the total number of waiting allocations
+     */
+    public int getWaitQueueDepth() {
+        synchronized (localSamResources) {
+            int depth = 0;
+            for (Queue<SamWaiter> waitQueue : waitQueues.values()) {
+                depth += waitQueue.size();
+            }
+            return depth;
+        }
+    }
+
+    /**
+     * Gets the number of allocations currently waiting for a SAM resource of the provided group.
+     *
+     * @param groupReference the group reference of the {@link SamIdentifier} (null or empty for
+     *        the allocations without group reference)
+     * @return the number of waiting allocations
+     */
+    public int getWaitQueueDepth(String groupReference) {
+        synchronized (localSamResources) {
+            Queue<SamWaiter> waitQueue = waitQueues.get(getGroupKey(groupReference));
+            return waitQueue == null ? 0 : waitQueue.size();
+        }
+    }
+
+    /**
+     * Gets the distribution of the time spent waiting for a SAM resource by the successful
+     * allocations (immediate allocations included).
+     *
+     * @return the live histogram of the wait times, in microseconds
+     */
+    public LatencyHistogram getWaitTimeHistogram() {
+        return waitTimeHistogram;
+    }
+
+    /**
+     * Gets the utilisation of each SAM resource, i.e. the ratio of time during which the resource
+     * was allocated since it was added to the manager.
+     *
+     * @return a map of the utilisation ratio (between 0 and 1) by SAM reader name
+     */
+    public Map<String, Double> getSamUtilisation() {
+        Map<String, Double> samUtilisation = new TreeMap<String, Double>();
+        long now = System.nanoTime();
+        synchronized (localSamResources) {
+            for (Map.Entry<SamResource, SamUsage> entry : samUsages.entrySet()) {
+                samUtilisation.put(entry.getKey().getSeReader().getName(),
+                        entry.getValue().getUtilisation(now));
+            }
+        }
+        return samUtilisation;
+    }
+
+    /**
+     * Marks a resource as allocated.
+     * <p>
+     * Must be called while holding the localSamResources lock.
+     */
+    private void allocate(SamResource samResource, long requestTime) {
+        long now = System.nanoTime();
+        samResource.setSamResourceStatus(SamResource.SamResourceStatus.BUSY);
+        samUsages.get(samResource).busy(now);
+        waitTimeHistogram.record((now - requestTime) / 1000);
+        MetricsProvider.getMetrics().recordSamAllocation((now - requestTime) / 1000, true);
+    }
+
+    /**
+     * Remembers the resource allocated for an affinity key.
+     * <p>
+     * Must be called while holding the localSamResources lock.
+     */
+    private void setAffinity(String affinityKey, SamResource samResource) {
+        if (affinityKey != null) {
+            affinities.put(affinityKey, samResource);
+        }
+    }
+
+    private static void recordFailedAllocation(long requestTime) {
+        MetricsProvider.getMetrics()
+                .recordSamAllocation((System.nanoTime() - requestTime) / 1000, false);
+    }
+
+    /**
+     * Hands a free resource over to the oldest waiting allocation it matches, if any.
+     * <p>
+     * Must be called while holding the localSamResources lock.
+     */
+    private void handOver(SamResource samResource) {
+        SamWaiter oldestWaiter = null;
+        Queue<SamWaiter> oldestWaiterQueue = null;
+        for (Queue<SamWaiter> waitQueue : waitQueues.values()) {
+            // the first matching waiter of each group is the oldest one of the group
+            for (SamWaiter waiter : waitQueue) {
+                if (oldestWaiter != null && waiter.sequence > oldestWaiter.sequence) {
+                    break;
+                }
+                if (samResource.isSamMatching(waiter.samIdentifier)) {
+                    oldestWaiter = waiter;
+                    oldestWaiterQueue = waitQueue;
+                    break;
+                }
+            }
+        }
+        if (oldestWaiter == null) {
+            return;
+        }
+        oldestWaiterQueue.remove(oldestWaiter);
+        if (oldestWaiterQueue.isEmpty()) {
+            waitQueues.remove(oldestWaiter.groupKey);
+        }
+        allocate(samResource, oldestWaiter.requestTime);
+        synchronized (oldestWaiter) {
+            oldestWaiter.samResource = samResource;
+            oldestWaiter.notify();
+        }
+    }
+
+    private Queue<SamWaiter> getWaitQueue(String groupReference) {
+        String groupKey = getGroupKey(groupReference);
+        Queue<SamWaiter> waitQueue = waitQueues.get(groupKey);
+        if (waitQueue == null) {
+            waitQueue = new LinkedList<SamWaiter>();
+            waitQueues.put(groupKey, waitQueue);
+        }
+        return waitQueue;
+    }
+
+    private static String getGroupKey(String groupReference) {
+        return groupReference == null ? "" : groupReference;
+    }
+
+    /**
+     * An allocation waiting for a SAM resource
+     */
+    private static final class SamWaiter {
+        final SamIdentifier samIdentifier;
+        final String groupKey;
+        final long sequence;
+        final long requestTime;
+        /* the resource handed over (guarded by this) */
+        SamResource samResource;
+
+        SamWaiter(SamIdentifier samIdentifier, long sequence, long requestTime) {
+            this.samIdentifier = samIdentifier;
+            this.groupKey = getGroupKey(samIdentifier.getGroupReference());
+            this.sequence = sequence;
+            this.requestTime = requestTime;
+        }
+    }
+
+    /**
+     * Busy time accounting of a SAM resource
+     */
+    private static final class SamUsage {
+        final long creationTime = System.nanoTime();
+        long busySince = -1;
+        long busyTime;
+
+        void busy(long now) {
+            if (busySince < 0) {
+                busySince = now;
+            }
+        }
+
+        void free(long now) {
+            if (busySince >= 0) {
+                busyTime += now - busySince;
+                busySince = -1;
+            }
+        }
+
+        double getUtilisation(long now) {
+            long totalTime = now - creationTime;
+            if (totalTime <= 0) {
+                return 0;
+            }
+            long currentBusyTime = busyTime + (busySince >= 0 ? now - busySince : 0);
+            return Math.min(1.0, (double) currentBusyTime / totalTime);
+        }
+    }
+
+    /**
+     * Affinity keys in access order, the least recently used one is dropped beyond
+     * {@link #MAX_AFFINITY_KEYS}
+     */
+    private static final class AffinityMap extends LinkedHashMap<String, SamResource> {
+
+        private static final long serialVersionUID = 1L;
+
+        AffinityMap() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SamResource> eldest) {
+            return size() > MAX_AFFINITY_KEYS;
         }
     }
 
@@ -353,7 +751,7 @@ public class SamResourceManagerDefault extends SamResourceManager {
                                         ByteArrayUtil.toHex(
                                                 newSamResource.getMatchingSe().getSerialNumber()));
                             }
-                            localSamResources.add(newSamResource);
+                            addSamResources(newSamResource);
                         }
                         break;
                     case SE_REMOVED:
@@ -394,7 +792,7 @@ public class SamResourceManagerDefault extends SamResourceManager {
             if (samReader.isSePresent()) {
                 logger.trace("Create SAM resource: {}", samReader.getName());
                 synchronized (localSamResources) {
-                    localSamResources.add(createSamResource(samReader));
+                    addSamResources(createSamResource(samReader));
                 }
             }
         } catch (KeypleException e) {
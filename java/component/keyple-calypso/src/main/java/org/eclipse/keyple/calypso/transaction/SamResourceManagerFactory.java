@@ -46,6 +46,32 @@ public abstract class SamResourceManagerFactory {
                 sleepTime);
     }
 
+    /**
+     * Instantiate a new SamResourceManager sharing each SAM between several transactions.
+     * <p>
+     * The samReaderPlugin is used to retrieve the available SAM according to the provided filter.
+     * <p>
+     * Up to nbLogicalChannels SAM resources are created for each SAM of a local reader: one on the
+     * basic channel, the others on supplementary logical channels (as far as the SAM accepts to
+     * open them). Each resource can be allocated to a different transaction.
+     *
+     * @param readerPlugin the plugin through which SAM readers are accessible
+     * @param samReaderFilter the regular expression defining how to identify SAM readers among
+     *        others.
+     * @param maxBlockingTime the maximum duration for which the allocateSamResource method will
+     *        attempt to allocate a new reader by retrying (in milliseconds).
+     * @param sleepTime the duration to wait between two retries
+     * @param nbLogicalChannels the maximum number of logical channels used on each SAM
+     * @throws KeypleReaderException throw if an error occurs while getting the readers list.
+     * @return SamResourceManager working with a default plugin
+     */
+    public static SamResourceManager instantiate(ReaderPlugin readerPlugin, String samReaderFilter,
+            int maxBlockingTime, int sleepTime, int nbLogicalChannels)
+            throws KeypleReaderException {
+        return new SamResourceManagerDefault(readerPlugin, samReaderFilter, maxBlockingTime,
+                sleepTime, nbLogicalChannels);
+    }
+
     static public SamResourceManager instantiate(ReaderPlugin readerPlugin, String samReaderFilter)
             throws KeypleReaderException {
         return new SamResourceManagerDefault(readerPlugin, samReaderFilter, MAX_BLOCKING_TIME,
@@ -12,6 +12,7 @@
 package org.eclipse.keyple.calypso.transaction;
 
 import org.eclipse.keyple.calypso.exception.CalypsoNoSamResourceAvailableException;
+import org.eclipse.keyple.core.metrics.MetricsProvider;
 import org.eclipse.keyple.core.seproxy.ReaderPlugin;
 import org.eclipse.keyple.core.seproxy.ReaderPoolPlugin;
 import org.eclipse.keyple.core.seproxy.SeReader;
@@ -59,6 +60,7 @@ public class SamResourceManagerPool extends SamResourceManager {
     public SamResource allocateSamResource(AllocationMode allocationMode,
             SamIdentifier samIdentifier) throws KeypleReaderException,
             CalypsoNoSamResourceAvailableException, KeypleAllocationReaderException {
+        long startTime = System.nanoTime();
         long maxBlockingDate = System.currentTimeMillis() + maxBlockingTime;
         boolean noSamResourceLogged = false;
         logger.debug("Allocating SAM reader channel...");
@@ -70,12 +72,16 @@ public class SamResourceManagerPool extends SamResourceManager {
                 if (samReader != null) {
                     SamResource samResource = createSamResource(samReader);
                     logger.debug("Allocation succeeded. SAM resource created.");
+                    MetricsProvider.getMetrics()
+                            .recordSamAllocation((System.nanoTime() - startTime) / 1000, true);
                     return samResource;
                 }
 
                 // loop until MAX_BLOCKING_TIME in blocking mode, only once in non-blocking mode
                 if (allocationMode == AllocationMode.NON_BLOCKING) {
                     logger.trace("No SAM resources available at the moment.");
+                    MetricsProvider.getMetrics()
+                            .recordSamAllocation((System.nanoTime() - startTime) / 1000, false);
                     throw new CalypsoNoSamResourceAvailableException(
                             "No Sam resource could be allocated for samIdentifier +"
                                     + samIdentifier.getGroupReference());
@@ -94,6 +100,8 @@ public class SamResourceManagerPool extends SamResourceManager {
                     if (System.currentTimeMillis() >= maxBlockingDate) {
                         logger.error("The allocation process failed. Timeout {} sec exceeded .",
                                 (maxBlockingTime / 1000.0));
+                        MetricsProvider.getMetrics().recordSamAllocation(
+                                (System.nanoTime() - startTime) / 1000, false);
                         throw new CalypsoNoSamResourceAvailableException(
                                 "No Sam resource could be allocated within timeout of "
                                         + maxBlockingTime + "ms for samIdentifier "
@@ -11,6 +11,7 @@
  ********************************************************************************/
 package org.eclipse.keyple.calypso.transaction;
 
+import org.eclipse.keyple.core.selection.AbstractMatchingSe;
 import org.eclipse.keyple.core.selection.AbstractSeSelectionRequest;
 import org.eclipse.keyple.core.seproxy.message.SeResponse;
 
@@ -37,4 +38,15 @@ public class SamSelectionRequest extends AbstractSeSelectionRequest {
     protected CalypsoSam parse(SeResponse seResponse) {
         return new CalypsoSam(seResponse, seSelector.getSeProtocol().getTransmissionMode());
     }
+
+    /**
+     * A CalypsoSam is immutable, it is returned as is
+     *
+     * @param matchingSe a {@link CalypsoSam} previously returned by {@link #parse(SeResponse)}
+     * @return the provided {@link CalypsoSam}
+     */
+    @Override
+    protected CalypsoSam copy(AbstractMatchingSe matchingSe) {
+        return (CalypsoSam) matchingSe;
+    }
 }
@@ -454,4 +454,22 @@ public class CalypsoPoTest {
         content = po.getFileBySfi((byte) 1).getData().getContent(1);
         assertThat(content).isEqualTo(contentV1);
     }
+
+    @Test
+    public void copy_sharesSelectionData_and_clonesFiles() {
+        po.setContent((byte) 1, 1, new byte[1]);
+
+        CalypsoPo copy = new CalypsoPo(po);
+
+        assertThat(copy.getRevision()).isEqualTo(po.getRevision());
+        assertThat(copy.getApplicationSerialNumber()).isEqualTo(po.getApplicationSerialNumber());
+        assertThat(copy.getModificationsCounter()).isEqualTo(po.getModificationsCounter());
+        assertThat(copy.getFciBytes()).isEqualTo(po.getFciBytes());
+        assertThat(copy.getFileBySfi((byte) 1).getData().getContent(1)).isEqualTo(new byte[1]);
+
+        copy.setContent((byte) 1, 1, new byte[2]);
+        copy.setContent((byte) 2, 1, new byte[1]);
+        assertThat(po.getFileBySfi((byte) 1).getData().getContent(1)).isEqualTo(new byte[1]);
+        assertThat(po.getAllFiles()).hasSize(1);
+    }
 }
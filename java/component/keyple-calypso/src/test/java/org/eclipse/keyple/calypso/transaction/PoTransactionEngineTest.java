@@ -0,0 +1,270 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.calypso.transaction;
+
+import static org.eclipse.keyple.calypso.transaction.PoTransaction.SessionSetting.AccessLevel;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.eclipse.keyple.calypso.transaction.exception.CalypsoSamIOException;
+import org.eclipse.keyple.core.seproxy.ChannelControl;
+import org.eclipse.keyple.core.seproxy.SeReader;
+import org.eclipse.keyple.core.seproxy.exception.KeypleException;
+import org.eclipse.keyple.core.seproxy.exception.KeypleReaderIOException;
+import org.eclipse.keyple.core.seproxy.message.AnswerToReset;
+import org.eclipse.keyple.core.seproxy.message.ApduRequest;
+import org.eclipse.keyple.core.seproxy.message.ApduResponse;
+import org.eclipse.keyple.core.seproxy.message.ProxyReader;
+import org.eclipse.keyple.core.seproxy.message.SeRequest;
+import org.eclipse.keyple.core.seproxy.message.SeResponse;
+import org.eclipse.keyple.core.seproxy.message.SelectionStatus;
+import org.eclipse.keyple.core.seproxy.protocol.TransmissionMode;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatcher;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class PoTransactionEngineTest {
+    final byte DEFAULT_KIF_DEBIT = (byte) 0x30;
+    final byte DEFAULT_KEY_RECORD_NUMBER_DEBIT = (byte) 0x03;
+    final String FCI_REV31 =
+            "6F238409315449432E49434131A516BF0C13C708 0000000011223344 53070A3C23121410019000";
+
+    private SeReader poReader;
+    private PoSecuritySettings poSecuritySettings;
+    private PoTransactionEngine engine;
+
+    private final Map<String, String> poCommandsTestSet = new HashMap<String, String>();
+    private final Map<String, String> samCommandsTestSet = new HashMap<String, String>();
+
+    @Before
+    public void setUp() throws Exception {
+        poCommandsTestSet.clear();
+        samCommandsTestSet.clear();
+        poReader = createMockReader("PO", TransmissionMode.CONTACTLESS, poCommandsTestSet);
+        SeReader samReader = createMockReader("SAM", TransmissionMode.CONTACTS, samCommandsTestSet);
+        poSecuritySettings = new PoSecuritySettings.PoSecuritySettingsBuilder(
+                new SamResource(samReader, createCalypsoSam())) //
+                        .sessionDefaultKif(AccessLevel.SESSION_LVL_DEBIT, DEFAULT_KIF_DEBIT) //
+                        .sessionDefaultKeyRecordNumber(AccessLevel.SESSION_LVL_DEBIT,
+                                DEFAULT_KEY_RECORD_NUMBER_DEBIT)
+                        .build();
+        engine = new PoTransactionEngine(2);
+
+        // Select Diversifier
+        samCommandsTestSet.put("80140000080000000011223344", "9000");
+        // Get Challenge
+        samCommandsTestSet.put("8084000004", "C1C2C3C49000");
+        // Digest Init
+        samCommandsTestSet.put(
+                "808A00FF273079030490980030791D7111111111111111111111111111111111111111111111111111111111",
+                "9000");
+        // Digest Close
+        samCommandsTestSet.put("808E000004", "112233449000");
+        // Digest Authenticate
+        samCommandsTestSet.put("808200000455667788", "9000");
+
+        // Open Secure Session V3.1 + read sfi 7 / rec 1
+        poCommandsTestSet.put("008A0B3904C1C2C3C400",
+                "030490980030791D71111111111111111111111111111111111111111111111111111111119000");
+        // Read Record sfi 8 / rec 1
+        poCommandsTestSet.put("00B2014400",
+                "81111111111111111111111111111111111111111111111111111111119000");
+        // Close Session
+        poCommandsTestSet.put("008E8000041122334400", "556677889000");
+        // Ratification command
+        poCommandsTestSet.put("00B2000000", "6B00");
+    }
+
+    @After
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    /* Open a session, read a record in session, close the session */
+    private PoTransactionEngine.TransactionTask<byte[]> openReadCloseTask(
+            final CalypsoPo calypsoPo) {
+        return new PoTransactionEngine.TransactionTask<byte[]>() {
+            @Override
+            public byte[] execute(PoTransaction poTransaction) throws KeypleException {
+                poTransaction.prepareReadRecordFile((byte) 0x07, 1);
+                poTransaction.processOpening(AccessLevel.SESSION_LVL_DEBIT);
+                poTransaction.prepareReadRecordFile((byte) 0x08, 1);
+                poTransaction.processPoCommandsInSession();
+                poTransaction.processClosing(ChannelControl.CLOSE_AFTER);
+                return calypsoPo.getFileBySfi((byte) 0x08).getData().getContent(1);
+            }
+        };
+    }
+
+    @Test
+    public void submit_nominal_case() throws Exception {
+        // Digest Update: Read Record sfi 8 / rec 1 command and response
+        samCommandsTestSet.put("808C00000500B2014400", "9000");
+        samCommandsTestSet.put(
+                "808C00001F81111111111111111111111111111111111111111111111111111111119000",
+                "9000");
+
+        CalypsoPo calypsoPo = createCalypsoPo(FCI_REV31);
+        final CountDownLatch callbackLatch = new CountDownLatch(1);
+        final AtomicReference<byte[]> callbackResult = new AtomicReference<byte[]>();
+
+        PoTransactionEngine.TransactionFuture<byte[]> future = engine
+                .submit(new PoResource(poReader, calypsoPo), poSecuritySettings,
+                        openReadCloseTask(calypsoPo))
+                .whenComplete(new PoTransactionEngine.TransactionCallback<byte[]>() {
+                    @Override
+                    public void onSuccess(byte[] result) {
+                        callbackResult.set(result);
+                        callbackLatch.countDown();
+                    }
+
+                    @Override
+                    public void onFailure(Throwable cause) {
+                        callbackLatch.countDown();
+                    }
+                });
+
+        byte[] expected =
+                ByteArrayUtil.fromHex("8111111111111111111111111111111111111111111111111111111111");
+        Assert.assertArrayEquals(expected, future.get(5, TimeUnit.SECONDS));
+        Assert.assertTrue(callbackLatch.await(5, TimeUnit.SECONDS));
+        Assert.assertArrayEquals(expected, callbackResult.get());
+    }
+
+    @Test
+    public void submit_sam_digest_update_failure() throws Exception {
+        // no response from the SAM to the Digest Update commands
+
+        CalypsoPo calypsoPo = createCalypsoPo(FCI_REV31);
+        PoTransactionEngine.TransactionFuture<byte[]> future =
+                engine.submit(new PoResource(poReader, calypsoPo), poSecuritySettings,
+                        openReadCloseTask(calypsoPo));
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            Assert.fail("An exception was expected");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof CalypsoSamIOException);
+        }
+        // the session has not been closed
+        verify((ProxyReader) poReader, never()).transmitSeRequest(
+                argThat(new ArgumentMatcher<SeRequest>() {
+                    @Override
+                    public boolean matches(SeRequest seRequest) {
+                        return seRequest != null && ByteArrayUtil
+                                .toHex(seRequest.getApduRequests().get(0).getBytes())
+                                .startsWith("008E");
+                    }
+                }), any(ChannelControl.class));
+    }
+
+    @Test
+    public void whenComplete_after_completion() throws Exception {
+        PoTransactionEngine.TransactionFuture<String> future =
+                engine.submit(new PoResource(poReader, createCalypsoPo(FCI_REV31)),
+                        poSecuritySettings, new PoTransactionEngine.TransactionTask<String>() {
+                            @Override
+                            public String execute(PoTransaction poTransaction) {
+                                return "done";
+                            }
+                        });
+        Assert.assertEquals("done", future.get(5, TimeUnit.SECONDS));
+
+        final List<String> results = new ArrayList<String>();
+        future.whenComplete(new PoTransactionEngine.TransactionCallback<String>() {
+            @Override
+            public void onSuccess(String result) {
+                results.add(result);
+            }
+
+            @Override
+            public void onFailure(Throwable cause) {}
+        });
+        // notified on the calling thread
+        Assert.assertEquals(1, results.size());
+        Assert.assertEquals("done", results.get(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void submit_null_task() {
+        engine.submit(new PoResource(poReader, createCalypsoPo(FCI_REV31)), poSecuritySettings,
+                null);
+    }
+
+    private CalypsoPo createCalypsoPo(String FCI) {
+        SeResponse selectionData = new SeResponse(true, false,
+                new SelectionStatus(null, new ApduResponse(ByteArrayUtil.fromHex(FCI), null), true),
+                null);
+        return new CalypsoPo(selectionData, TransmissionMode.CONTACTLESS);
+    }
+
+    private CalypsoSam createCalypsoSam() {
+        final String ATR1 = "3B3F9600805A0080C120000012345678829000";
+
+        SelectionStatus selectionStatus =
+                new SelectionStatus(new AnswerToReset(ByteArrayUtil.fromHex(ATR1)), null, true);
+        return new CalypsoSam(new SeResponse(true, true, selectionStatus, null),
+                TransmissionMode.CONTACTS);
+    }
+
+    private ProxyReader createMockReader(final String name, TransmissionMode transmissionMode,
+            final Map<String, String> commandTestSet) throws KeypleReaderIOException {
+
+        // configure mock native reader
+        ProxyReader mockReader = Mockito.spy(ProxyReader.class);
+        doReturn(name).when(mockReader).getName();
+        doReturn(transmissionMode).when(mockReader).getTransmissionMode();
+
+        doAnswer(new Answer<SeResponse>() {
+            @Override
+            public SeResponse answer(InvocationOnMock invocation) throws KeypleReaderIOException {
+                Object[] args = invocation.getArguments();
+                SeRequest seRequest = (SeRequest) args[0];
+                List<ApduRequest> apduRequests = seRequest.getApduRequests();
+                List<ApduResponse> apduResponses = new ArrayList<ApduResponse>();
+                try {
+                    for (ApduRequest apduRequest : apduRequests) {
+                        apduResponses.add(getResponses(commandTestSet, apduRequest));
+                    }
+                } catch (KeypleReaderIOException ex) {
+                    ex.setSeResponse(new SeResponse(true, true, null, apduResponses));
+                    throw ex;
+                }
+                return new SeResponse(true, true, null, apduResponses);
+            }
+        }).when(mockReader).transmitSeRequest(any(SeRequest.class), any(ChannelControl.class));
+        return mockReader;
+    }
+
+    private ApduResponse getResponses(Map<String, String> hexCommands, ApduRequest apduRequest)
+            throws KeypleReaderIOException {
+        String hexApdu = ByteArrayUtil.toHex(apduRequest.getBytes());
+        // return matching hexa response if found
+        if (hexCommands.containsKey(hexApdu)) {
+            return new ApduResponse(ByteArrayUtil.fromHex(hexCommands.get(hexApdu)), null);
+        }
+        // throw a KeypleReaderIOException if not found
+        throw new KeypleReaderIOException("No response available for this request.");
+    }
+}
@@ -18,6 +18,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import org.eclipse.keyple.calypso.SelectFileControl;
 import org.eclipse.keyple.calypso.command.po.exception.CalypsoPoCommandException;
 import org.eclipse.keyple.calypso.command.sam.exception.CalypsoSamCommandException;
@@ -1404,6 +1405,242 @@ public class PoTransactionTest {
         Assert.assertTrue(true);
     }
 
+    /* whole session planned in two exchanges: reads with the opening, modifications at closing */
+    @Test
+    public void testProcessSession_nominal_case() throws CalypsoPoTransactionException,
+            CalypsoPoCommandException, CalypsoSamCommandException, KeypleReaderIOException {
+        CalypsoPo calypsoPoRev31 = createCalypsoPo(FCI_REV31);
+        PoSecuritySettings poSecuritySettings =
+                new PoSecuritySettings.PoSecuritySettingsBuilder(samResource) //
+                        .sessionDefaultKif(AccessLevel.SESSION_LVL_DEBIT, DEFAULT_KIF_DEBIT) //
+                        .sessionDefaultKeyRecordNumber(AccessLevel.SESSION_LVL_DEBIT,
+                                DEFAULT_KEY_RECORD_NUMBER_DEBIT)
+                        .build();
+
+        poTransaction =
+                new PoTransaction(new PoResource(poReader, calypsoPoRev31), poSecuritySettings);
+
+        // Select Diversifier
+        samCommandsTestSet.put("80140000080000000011223344", "9000");
+        // Get Challenge
+        samCommandsTestSet.put("8084000004", "C1C2C3C49000");
+        // Digest Init
+        samCommandsTestSet.put(
+                "808A00FF273079030490980030791D7111111111111111111111111111111111111111111111111111111111",
+                "9000");
+        // Digest update
+        samCommandsTestSet.put("808C00000500B2018400", "9000");
+        // Digest update
+        samCommandsTestSet.put(
+                "808C000024001122000000000000000000000000000000000000000000000000000000000000009000",
+                "9000");
+        // Digest update
+        samCommandsTestSet.put("808C00000500B2018C00", "9000");
+        // Digest update
+        samCommandsTestSet.put(
+                "808C000024002211000000000000000000000000000000000000000000000000000000000000009000",
+                "9000");
+        // Digest update
+        samCommandsTestSet.put("808C0000080030018003000064", "9000");
+        // Digest update
+        samCommandsTestSet.put("808C0000050010BE9000", "9000");
+        // Digest update
+        samCommandsTestSet.put("808C0000080032018803000064", "9000");
+        // Digest update
+        samCommandsTestSet.put("808C0000050022759000", "9000");
+        // Digest update
+        samCommandsTestSet.put("808C00000900DC013C0400112233", "9000");
+        // Digest update
+        samCommandsTestSet.put("808C0000029000", "9000");
+        // Digest update
+        samCommandsTestSet.put("808C00000900D201440444556677", "9000");
+        // Digest update
+        samCommandsTestSet.put("808C00000900E20048048899AABB", "9000");
+        // Digest Close
+        samCommandsTestSet.put("808E000004", "112233449000");
+        // Digest Authenticate
+        samCommandsTestSet.put("808200000455667788", "9000");
+
+        // Open Secure Session V3.1 + read sfi 7 / rec 1
+        poCommandsTestSet.put("008A0B3904C1C2C3C400",
+                "030490980030791D71111111111111111111111111111111111111111111111111111111119000");
+        // Read Record SFI 0x10 counter
+        poCommandsTestSet.put("00B2018400",
+                "001122000000000000000000000000000000000000000000000000000000000000009000");
+        // Read Record SFI 0x11 counter
+        poCommandsTestSet.put("00B2018C00",
+                "002211000000000000000000000000000000000000000000000000000000000000009000");
+        // Decrease SFI 10
+        poCommandsTestSet.put("003001800300006400", "0010BE9000");
+        // Decrease SFI 11
+        poCommandsTestSet.put("003201880300006400", "0022759000");
+        // Update Record SFI 7
+        poCommandsTestSet.put("00DC013C0400112233", "9000");
+        // Write Record SFI 8
+        poCommandsTestSet.put("00D201440444556677", "9000");
+        // Append Record SFI 9
+        poCommandsTestSet.put("00E20048048899AABB", "9000");
+        // Close Session
+        poCommandsTestSet.put("008E8000041122334400", "556677889000");
+        // Ratification command
+        poCommandsTestSet.put("00B2000000", "6B00");
+
+        poTransaction.prepareReadRecordFile((byte) 0x07, 1);
+        poTransaction.prepareReadRecordFile((byte) 0x10, 1);
+        poTransaction.prepareReadRecordFile((byte) 0x11, 1);
+        poTransaction.prepareDecrease((byte) 0x10, (byte) 1, 100);
+        poTransaction.prepareIncrease((byte) 0x11, (byte) 1, 100);
+        poTransaction.prepareUpdateRecord((byte) 0x07, (byte) 1, ByteArrayUtil.fromHex("00112233"));
+        poTransaction.prepareWriteRecord((byte) 0x08, (byte) 1, ByteArrayUtil.fromHex("44556677"));
+        poTransaction.prepareAppendRecord((byte) 0x09, ByteArrayUtil.fromHex("8899AABB"));
+
+        PoSessionPlan sessionPlan = poTransaction.planSession();
+        Assert.assertEquals(1, sessionPlan.getSessionCount());
+        Assert.assertEquals(2, sessionPlan.getExchangeCount());
+        Assert.assertEquals(8, sessionPlan.getCommandCount());
+        Assert.assertEquals(3, sessionPlan.getSessions().get(0).getOpeningCommands().size());
+        Assert.assertEquals(5, sessionPlan.getSessions().get(0).getClosingCommands().size());
+
+        poTransaction.processSession(AccessLevel.SESSION_LVL_DEBIT, ChannelControl.CLOSE_AFTER);
+
+        verify((ProxyReader) poReader, times(2)).transmitSeRequest(any(SeRequest.class),
+                any(ChannelControl.class));
+        Assert.assertEquals(0x1122 - 100,
+                calypsoPoRev31.getFileBySfi((byte) 0x10).getData().getContentAsCounterValue(1));
+        Assert.assertEquals(0x2211 + 100,
+                calypsoPoRev31.getFileBySfi((byte) 0x11).getData().getContentAsCounterValue(1));
+        Assert.assertArrayEquals(ByteArrayUtil.fromHex("00112233"),
+                calypsoPoRev31.getFileBySfi((byte) 0x07).getData().getContent(1));
+        Assert.assertArrayEquals(ByteArrayUtil.fromHex("44556677"),
+                calypsoPoRev31.getFileBySfi((byte) 0x08).getData().getContent(1));
+        Assert.assertArrayEquals(ByteArrayUtil.fromHex("8899AABB"),
+                calypsoPoRev31.getFileBySfi((byte) 0x09).getData().getContent(1));
+    }
+
+    /* counters whose value is unknown at closing are modified with the opening */
+    @Test
+    public void testPlanSession_counter_value_unknown()
+            throws CalypsoPoTransactionException, KeypleReaderIOException {
+        CalypsoPo calypsoPoRev31 = createCalypsoPo(FCI_REV31);
+        PoSecuritySettings poSecuritySettings =
+                new PoSecuritySettings.PoSecuritySettingsBuilder(samResource) //
+                        .sessionDefaultKif(AccessLevel.SESSION_LVL_DEBIT, DEFAULT_KIF_DEBIT) //
+                        .build();
+
+        poTransaction =
+                new PoTransaction(new PoResource(poReader, calypsoPoRev31), poSecuritySettings);
+
+        // counter never read
+        poTransaction.prepareDecrease((byte) 0x10, (byte) 1, 100);
+        poTransaction.prepareUpdateRecord((byte) 0x07, (byte) 1, ByteArrayUtil.fromHex("00112233"));
+        // counter read, then modified twice
+        poTransaction.prepareReadCounterFile((byte) 0x11, 1);
+        poTransaction.prepareIncrease((byte) 0x11, (byte) 1, 100);
+        poTransaction.prepareIncrease((byte) 0x11, (byte) 1, 100);
+
+        PoSessionPlan sessionPlan = poTransaction.planSession();
+        Assert.assertEquals(2, sessionPlan.getExchangeCount());
+        Assert.assertEquals(5, sessionPlan.getSessions().get(0).getOpeningCommands().size());
+        Assert.assertEquals(0, sessionPlan.getSessions().get(0).getClosingCommands().size());
+
+        // counter read then modified, a record read after the counter modification
+        poTransaction =
+                new PoTransaction(new PoResource(poReader, calypsoPoRev31), poSecuritySettings);
+        poTransaction.prepareReadCounterFile((byte) 0x10, 1);
+        poTransaction.prepareDecrease((byte) 0x10, (byte) 1, 100);
+        poTransaction.prepareReadRecordFile((byte) 0x07, 1);
+        poTransaction.prepareIncrease((byte) 0x10, (byte) 1, 100);
+        poTransaction.prepareUpdateRecord((byte) 0x07, (byte) 1, ByteArrayUtil.fromHex("00112233"));
+
+        sessionPlan = poTransaction.planSession();
+        Assert.assertEquals(2, sessionPlan.getExchangeCount());
+        Assert.assertEquals(4, sessionPlan.getSessions().get(0).getOpeningCommands().size());
+        Assert.assertEquals(1, sessionPlan.getSessions().get(0).getClosingCommands().size());
+
+        // nothing has been transmitted
+        verify((ProxyReader) poReader, times(0)).transmitSeRequest(any(SeRequest.class),
+                any(ChannelControl.class));
+    }
+
+    /* Session buffer overflow in multiple mode: the plan is made of several sessions */
+    @Test
+    public void testProcessSession_buffer_overflow_multiple() throws CalypsoPoTransactionException,
+            CalypsoPoCommandException, CalypsoSamCommandException, KeypleReaderIOException {
+        CalypsoPo calypsoPoRev31 = createCalypsoPo(FCI_REV31);
+        PoSecuritySettings poSecuritySettings =
+                new PoSecuritySettings.PoSecuritySettingsBuilder(samResource) //
+                        .sessionDefaultKif(AccessLevel.SESSION_LVL_DEBIT, DEFAULT_KIF_DEBIT) //
+                        .sessionDefaultKeyRecordNumber(AccessLevel.SESSION_LVL_DEBIT,
+                                DEFAULT_KEY_RECORD_NUMBER_DEBIT)//
+                        .sessionModificationMode(
+                                PoTransaction.SessionSetting.ModificationMode.MULTIPLE)//
+                        .build();
+
+        poTransaction =
+                new PoTransaction(new PoResource(poReader, calypsoPoRev31), poSecuritySettings);
+
+        // Select Diversifier
+        samCommandsTestSet.put("80140000080000000011223344", "9000");
+        // Get Challenge
+        samCommandsTestSet.put("8084000004", "C1C2C3C49000");
+        // Digest Init
+        samCommandsTestSet.put("808A00FF0A30790304909800307900", "9000");
+        // Digest update
+        samCommandsTestSet.put(
+                "808C00002200DC01441D8111111111111111111111111111111111111111111111111111111111",
+                "9000");
+        // Digest Update
+        samCommandsTestSet.put("808C0000029000", "9000");
+        // Digest Close
+        samCommandsTestSet.put("808E000004", "112233449000");
+        // Digest Authenticate
+        samCommandsTestSet.put("808200000455667788", "9000");
+
+        // Open Secure Session V3.1
+        poCommandsTestSet.put("008A030104C1C2C3C400", "03049098003079009000");
+        // Update Record SFI 8 rec 1 29 bytes
+        poCommandsTestSet.put(
+                "00DC01441D8111111111111111111111111111111111111111111111111111111111", "9000");
+        // Close Session
+        poCommandsTestSet.put("008E8000041122334400", "556677889000");
+        poCommandsTestSet.put("008E0000041122334400", "556677889000");
+
+        // 28 x update (29 b) = 28 x (29 + 6) = 980 consumed in the session buffer
+        for (int i = 0; i < 28; i++) {
+            poTransaction.prepareUpdateRecord((byte) 0x08, (byte) 1, ByteArrayUtil
+                    .fromHex("8111111111111111111111111111111111111111111111111111111111"));
+        }
+
+        PoSessionPlan sessionPlan = poTransaction.planSession();
+        Assert.assertEquals(3, sessionPlan.getSessionCount());
+        Assert.assertEquals(6, sessionPlan.getExchangeCount());
+        Assert.assertEquals(28, sessionPlan.getCommandCount());
+
+        poTransaction.processSession(AccessLevel.SESSION_LVL_DEBIT, ChannelControl.CLOSE_AFTER);
+
+        verify((ProxyReader) poReader, times(6)).transmitSeRequest(any(SeRequest.class),
+                any(ChannelControl.class));
+    }
+
+    /* Session buffer overflow in atomic mode: the session can't be planned */
+    @Test(expected = CalypsoAtomicTransactionException.class)
+    public void testPlanSession_buffer_overflow_atomic() throws CalypsoPoTransactionException {
+        CalypsoPo calypsoPoRev31 = createCalypsoPo(FCI_REV31);
+        PoSecuritySettings poSecuritySettings =
+                new PoSecuritySettings.PoSecuritySettingsBuilder(samResource) //
+                        .sessionDefaultKif(AccessLevel.SESSION_LVL_DEBIT, DEFAULT_KIF_DEBIT) //
+                        .build();
+
+        poTransaction =
+                new PoTransaction(new PoResource(poReader, calypsoPoRev31), poSecuritySettings);
+
+        for (int i = 0; i < 28; i++) {
+            poTransaction.prepareUpdateRecord((byte) 0x08, (byte) 1, ByteArrayUtil
+                    .fromHex("8111111111111111111111111111111111111111111111111111111111"));
+        }
+        poTransaction.planSession();
+    }
+
     /* open, cancel and reopen */
     @Test
     public void testProcessCancel_open_cancel_open() throws CalypsoPoTransactionException,
@@ -1598,6 +1835,114 @@ public class PoTransactionTest {
         poTransaction.processPoCommands(ChannelControl.KEEP_OPEN);
     }
 
+    /* streaming read: 5 records of 123 bytes, 2 records per command */
+    @Test
+    public void testProcessReadRecords_nominal_case() throws CalypsoPoCommandException,
+            CalypsoPoTransactionException, KeypleReaderIOException {
+        CalypsoPo calypsoPoRev31 = createCalypsoPo(FCI_REV31);
+        poTransaction = new PoTransaction(new PoResource(poReader, calypsoPoRev31));
+
+        poCommandsTestSet.put("00B2013DFA", "017B" + record(1) + "027B" + record(2) + "9000");
+        poCommandsTestSet.put("00B2033DFA", "037B" + record(3) + "047B" + record(4) + "9000");
+        poCommandsTestSet.put("00B2053C7B", record(5) + "9000");
+
+        final List<Integer> recordNumbers = new ArrayList<Integer>();
+        int nbRecords = poTransaction.processReadRecords((byte) 0x07, 1, 5, 123,
+                new PoTransaction.RecordHandler() {
+                    @Override
+                    public boolean onRecord(byte sfi, int recordNumber, byte[] data) {
+                        Assert.assertArrayEquals(ByteArrayUtil.fromHex(record(recordNumber)),
+                                data);
+                        recordNumbers.add(recordNumber);
+                        return true;
+                    }
+                }, true, ChannelControl.CLOSE_AFTER);
+
+        Assert.assertEquals(5, nbRecords);
+        Assert.assertEquals(5, recordNumbers.size());
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(i + 1, (int) recordNumbers.get(i));
+        }
+        Assert.assertArrayEquals(ByteArrayUtil.fromHex(record(4)),
+                calypsoPoRev31.getFileBySfi((byte) 0x07).getData().getContent(4));
+        verify((ProxyReader) poReader, times(2)).transmitSeRequest(any(SeRequest.class),
+                eq(ChannelControl.KEEP_OPEN));
+        verify((ProxyReader) poReader, times(1)).transmitSeRequest(any(SeRequest.class),
+                eq(ChannelControl.CLOSE_AFTER));
+    }
+
+    /* streaming read stopped by the handler, without caching */
+    @Test
+    public void testProcessReadRecords_stoppedByHandler() throws CalypsoPoCommandException,
+            CalypsoPoTransactionException, KeypleReaderIOException {
+        CalypsoPo calypsoPoRev31 = createCalypsoPo(FCI_REV31);
+        poTransaction = new PoTransaction(new PoResource(poReader, calypsoPoRev31));
+
+        poCommandsTestSet.put("00B2013DFA", "017B" + record(1) + "027B" + record(2) + "9000");
+
+        int nbRecords = poTransaction.processReadRecords((byte) 0x07, 1, 5, 123,
+                new PoTransaction.RecordHandler() {
+                    @Override
+                    public boolean onRecord(byte sfi, int recordNumber, byte[] data) {
+                        return recordNumber < 2;
+                    }
+                }, false, ChannelControl.CLOSE_AFTER);
+
+        Assert.assertEquals(2, nbRecords);
+        // the channel is closed with an empty request
+        verify((ProxyReader) poReader, times(1)).transmitSeRequest(any(SeRequest.class),
+                eq(ChannelControl.KEEP_OPEN));
+        verify((ProxyReader) poReader, times(1)).transmitSeRequest(any(SeRequest.class),
+                eq(ChannelControl.CLOSE_AFTER));
+        try {
+            calypsoPoRev31.getFileBySfi((byte) 0x07);
+            Assert.fail("Records should not have been cached");
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+    }
+
+    /* streaming read ended by a record not found status */
+    @Test
+    public void testProcessReadRecords_endOfFile()
+            throws CalypsoPoCommandException, CalypsoPoTransactionException {
+        CalypsoPo calypsoPoRev31 = createCalypsoPo(FCI_REV31);
+        poTransaction = new PoTransaction(new PoResource(poReader, calypsoPoRev31));
+
+        poCommandsTestSet.put("00B2013DFA", "017B" + record(1) + "027B" + record(2) + "9000");
+        poCommandsTestSet.put("00B2033DFA", "6A83");
+
+        int nbRecords = poTransaction.processReadRecords((byte) 0x07, 1, 10, 123,
+                new PoTransaction.RecordHandler() {
+                    @Override
+                    public boolean onRecord(byte sfi, int recordNumber, byte[] data) {
+                        return true;
+                    }
+                }, true, ChannelControl.KEEP_OPEN);
+
+        Assert.assertEquals(2, nbRecords);
+        Assert.assertArrayEquals(ByteArrayUtil.fromHex(record(2)),
+                calypsoPoRev31.getFileBySfi((byte) 0x07).getData().getContent(2));
+    }
+
+    /* no record at all: the record not found status is reported */
+    @Test(expected = CalypsoPoCommandException.class)
+    public void testProcessReadRecords_recordNotFound()
+            throws CalypsoPoCommandException, CalypsoPoTransactionException {
+        CalypsoPo calypsoPoRev31 = createCalypsoPo(FCI_REV31);
+        poTransaction = new PoTransaction(new PoResource(poReader, calypsoPoRev31));
+
+        poCommandsTestSet.put("00B2013DFA", "6A83");
+
+        poTransaction.processReadRecords((byte) 0x07, 1, 10, 123,
+                new PoTransaction.RecordHandler() {
+                    @Override
+                    public boolean onRecord(byte sfi, int recordNumber, byte[] data) {
+                        return true;
+                    }
+                }, true, ChannelControl.KEEP_OPEN);
+    }
+
     @Test
     public void testAccessLevel() {
         Assert.assertEquals("perso", AccessLevel.SESSION_LVL_PERSO.getName());
@@ -1608,6 +1953,15 @@ public class PoTransactionTest {
         Assert.assertEquals((byte) 0x03, AccessLevel.SESSION_LVL_DEBIT.getSessionKey());
     }
 
+    /* content of a 123 bytes record filled with its number */
+    private static String record(int recordNumber) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 123; i++) {
+            sb.append(String.format("%02X", recordNumber));
+        }
+        return sb.toString();
+    }
+
     private CalypsoPo createCalypsoPo(String FCI) {
         SeResponse selectionData = new SeResponse(true, false,
                 new SelectionStatus(null, new ApduResponse(ByteArrayUtil.fromHex(FCI), null), true),
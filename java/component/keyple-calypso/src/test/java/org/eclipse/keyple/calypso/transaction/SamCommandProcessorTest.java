@@ -0,0 +1,378 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.calypso.transaction;
+
+import static org.eclipse.keyple.calypso.transaction.PoTransaction.SessionSetting.AccessLevel;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import java.io.ByteArrayOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.eclipse.keyple.calypso.command.sam.exception.CalypsoSamAccessForbiddenException;
+import org.eclipse.keyple.calypso.transaction.exception.CalypsoSamIOException;
+import org.eclipse.keyple.core.seproxy.ChannelControl;
+import org.eclipse.keyple.core.seproxy.exception.KeypleReaderIOException;
+import org.eclipse.keyple.core.seproxy.message.AnswerToReset;
+import org.eclipse.keyple.core.seproxy.message.ApduRequest;
+import org.eclipse.keyple.core.seproxy.message.ApduResponse;
+import org.eclipse.keyple.core.seproxy.message.ProxyReader;
+import org.eclipse.keyple.core.seproxy.message.SeRequest;
+import org.eclipse.keyple.core.seproxy.message.SeResponse;
+import org.eclipse.keyple.core.seproxy.message.SelectionStatus;
+import org.eclipse.keyple.core.seproxy.protocol.TransmissionMode;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class SamCommandProcessorTest {
+    final String FCI_REV31 =
+            "6F238409315449432E49434131A516BF0C13C708 0000000011223344 53070A3C23121410019000";
+    final String FCI_REV31_OTHER_PO =
+            "6F238409315449432E49434131A516BF0C13C708 0000000055667788 53070A3C23121410019000";
+    final String OPEN_SESSION_DATA =
+            "030490980030791D7111111111111111111111111111111111111111111111111111111111";
+
+    private final List<ApduRequest> poRequests = new ArrayList<ApduRequest>();
+    private final List<ApduResponse> poResponses = new ArrayList<ApduResponse>();
+
+    @Before
+    public void setUp() {
+        poRequests.clear();
+        poResponses.clear();
+        // Read Record SFI 8
+        addPoExchange("00B2014400", true,
+                "81111111111111111111111111111111111111111111111111111111119000");
+        // Decrease SFI 10
+        addPoExchange("003001800300006400", true, "0010BE9000");
+        // Update Record SFI 7
+        addPoExchange("00DC013C0400112233", false, "9000");
+        // Update Record SFI 8 with a large record
+        addPoExchange(
+                "00DC01441D8111111111111111111111111111111111111111111111111111111111",
+                false, "9000");
+        // Append Record SFI 9
+        addPoExchange("00E20048048899AABB", false, "9000");
+        // Read Record SFI 0x10 counter
+        addPoExchange("00B2018400", true,
+                "001122000000000000000000000000000000000000000000000000000000000000009000");
+    }
+
+    /* The signature computed with Digest Update Multiple is the same as with Digest Update */
+    @Test
+    public void getTerminalSignature_digestUpdateMultiple_sameSignature() throws Exception {
+        DigestingSam singleSam = new DigestingSam(CalypsoSamTest.ATR4);
+        byte[] singleSignature = computeSignature(singleSam, false, false);
+
+        DigestingSam multipleSam = new DigestingSam(CalypsoSamTest.ATR4);
+        byte[] multipleSignature = computeSignature(multipleSam, true, false);
+
+        Assert.assertArrayEquals(singleSignature, multipleSignature);
+        Assert.assertEquals(0, singleSam.nbDigestUpdateMultiple);
+        // init + 12 updates + close
+        Assert.assertEquals(14, singleSam.nbApdus);
+        Assert.assertTrue(multipleSam.nbDigestUpdateMultiple > 0);
+        Assert.assertTrue(multipleSam.nbApdus < 5);
+    }
+
+    /* Digest Update Multiple is not used with SAM S1D */
+    @Test
+    public void getTerminalSignature_digestUpdateMultiple_notSupported() throws Exception {
+        DigestingSam samC1 = new DigestingSam(CalypsoSamTest.ATR4);
+        byte[] signatureC1 = computeSignature(samC1, true, false);
+
+        DigestingSam samS1D = new DigestingSam(CalypsoSamTest.ATR1);
+        byte[] signatureS1D = computeSignature(samS1D, true, false);
+
+        Assert.assertArrayEquals(signatureC1, signatureS1D);
+        Assert.assertEquals(0, samS1D.nbDigestUpdateMultiple);
+        Assert.assertEquals(14, samS1D.nbApdus);
+    }
+
+    /* Digest Update Multiple is not used in encrypted sessions */
+    @Test
+    public void getTerminalSignature_digestUpdateMultiple_encryptedSession() throws Exception {
+        DigestingSam sam = new DigestingSam(CalypsoSamTest.ATR4);
+        computeSignature(sam, true, true);
+
+        Assert.assertEquals(0, sam.nbDigestUpdateMultiple);
+        Assert.assertEquals(14, sam.nbApdus);
+    }
+
+    /* The Select Diversifier command is sent only when the PO changes */
+    @Test
+    public void getSessionTerminalChallenge_diversificationKeptBySamResource() throws Exception {
+        DigestingSam digestingSam = new DigestingSam(CalypsoSamTest.ATR4);
+        SamResource samResource =
+                new SamResource(digestingSam.createReader(), digestingSam.calypsoSam);
+        PoSecuritySettings poSecuritySettings =
+                new PoSecuritySettings.PoSecuritySettingsBuilder(samResource).build();
+
+        // two transactions with the same PO
+        new SamCommandProcessor(new PoResource(mock(ProxyReader.class), createCalypsoPo(FCI_REV31)),
+                poSecuritySettings).getSessionTerminalChallenge();
+        new SamCommandProcessor(new PoResource(mock(ProxyReader.class), createCalypsoPo(FCI_REV31)),
+                poSecuritySettings).getSessionTerminalChallenge();
+        Assert.assertEquals(1, digestingSam.nbSelectDiversifier);
+        Assert.assertEquals(3, digestingSam.nbApdus);
+
+        // another PO
+        new SamCommandProcessor(
+                new PoResource(mock(ProxyReader.class), createCalypsoPo(FCI_REV31_OTHER_PO)),
+                poSecuritySettings).getSessionTerminalChallenge();
+        Assert.assertEquals(2, digestingSam.nbSelectDiversifier);
+
+        // SAM reset
+        samResource.resetDiversifier();
+        new SamCommandProcessor(
+                new PoResource(mock(ProxyReader.class), createCalypsoPo(FCI_REV31_OTHER_PO)),
+                poSecuritySettings).getSessionTerminalChallenge();
+        Assert.assertEquals(3, digestingSam.nbSelectDiversifier);
+    }
+
+    /* The diversification is forgotten when the transmission of the digest data fails */
+    @Test
+    public void getTerminalSignature_ioError_diversificationReset() throws Exception {
+        DigestingSam digestingSam = new DigestingSam(CalypsoSamTest.ATR4);
+        SamResource samResource = createDiversifiedSamResource(digestingSam);
+        digestingSam.ioErrorIns = (byte) 0x8A;
+
+        try {
+            computeSignature(samResource, false, false);
+            Assert.fail("CalypsoSamIOException expected");
+        } catch (CalypsoSamIOException e) {
+            // expected
+        }
+
+        assertDiversifiedAgain(digestingSam, samResource);
+    }
+
+    /* The diversification is forgotten when the SAM rejects the Digest Init command */
+    @Test
+    public void getTerminalSignature_digestInitRejected_diversificationReset() throws Exception {
+        DigestingSam digestingSam = new DigestingSam(CalypsoSamTest.ATR4);
+        SamResource samResource = createDiversifiedSamResource(digestingSam);
+        digestingSam.rejectedIns = (byte) 0x8A;
+
+        try {
+            computeSignature(samResource, false, false);
+            Assert.fail("CalypsoSamAccessForbiddenException expected");
+        } catch (CalypsoSamAccessForbiddenException e) {
+            // expected
+        }
+
+        assertDiversifiedAgain(digestingSam, samResource);
+    }
+
+    /* The diversification is forgotten when the SAM rejects the Digest Close command */
+    @Test
+    public void getTerminalSignature_digestCloseRejected_diversificationReset() throws Exception {
+        DigestingSam digestingSam = new DigestingSam(CalypsoSamTest.ATR4);
+        SamResource samResource = createDiversifiedSamResource(digestingSam);
+        digestingSam.rejectedIns = (byte) 0x8E;
+
+        try {
+            computeSignature(samResource, false, false);
+            Assert.fail("CalypsoSamAccessForbiddenException expected");
+        } catch (CalypsoSamAccessForbiddenException e) {
+            // expected
+        }
+
+        assertDiversifiedAgain(digestingSam, samResource);
+    }
+
+    /* The diversification is forgotten when the transmission of Digest Authenticate fails */
+    @Test
+    public void authenticatePoSignature_ioError_diversificationReset() throws Exception {
+        DigestingSam digestingSam = new DigestingSam(CalypsoSamTest.ATR4);
+        SamResource samResource = createDiversifiedSamResource(digestingSam);
+        digestingSam.ioErrorIns = (byte) 0x82;
+
+        try {
+            createProcessor(samResource, false)
+                    .authenticatePoSignature(ByteArrayUtil.fromHex("11223344"));
+            Assert.fail("CalypsoSamIOException expected");
+        } catch (CalypsoSamIOException e) {
+            // expected
+        }
+
+        assertDiversifiedAgain(digestingSam, samResource);
+    }
+
+    /* returns a SAM resource diversified with the PO of FCI_REV31 */
+    private SamResource createDiversifiedSamResource(DigestingSam digestingSam)
+            throws Exception {
+        SamResource samResource =
+                new SamResource(digestingSam.createReader(), digestingSam.calypsoSam);
+        createProcessor(samResource, false).getSessionTerminalChallenge();
+        Assert.assertEquals(1, digestingSam.nbSelectDiversifier);
+        return samResource;
+    }
+
+    /* checks that the next transaction with the same PO sends Select Diversifier again */
+    private void assertDiversifiedAgain(DigestingSam digestingSam, SamResource samResource)
+            throws Exception {
+        digestingSam.ioErrorIns = 0;
+        digestingSam.rejectedIns = 0;
+        createProcessor(samResource, false).getSessionTerminalChallenge();
+        Assert.assertEquals(2, digestingSam.nbSelectDiversifier);
+    }
+
+    private byte[] computeSignature(DigestingSam digestingSam, boolean digestUpdateMultiple,
+            boolean sessionEncryption) throws Exception {
+        return computeSignature(
+                new SamResource(digestingSam.createReader(), digestingSam.calypsoSam),
+                digestUpdateMultiple, sessionEncryption);
+    }
+
+    private byte[] computeSignature(SamResource samResource, boolean digestUpdateMultiple,
+            boolean sessionEncryption) throws Exception {
+        SamCommandProcessor samCommandProcessor =
+                createProcessor(samResource, digestUpdateMultiple);
+        samCommandProcessor.initializeDigester(AccessLevel.SESSION_LVL_DEBIT, sessionEncryption,
+                false, (byte) 0x30, (byte) 0x79, ByteArrayUtil.fromHex(OPEN_SESSION_DATA));
+        samCommandProcessor.pushPoExchangeDataList(poRequests.subList(0, 2),
+                poResponses.subList(0, 2), 0);
+        samCommandProcessor.pushPoExchangeDataList(poRequests, poResponses, 2);
+        return samCommandProcessor.getTerminalSignature();
+    }
+
+    private SamCommandProcessor createProcessor(SamResource samResource,
+            boolean digestUpdateMultiple) {
+        PoSecuritySettings poSecuritySettings =
+                new PoSecuritySettings.PoSecuritySettingsBuilder(samResource) //
+                        .sessionDefaultKif(AccessLevel.SESSION_LVL_DEBIT, (byte) 0x30) //
+                        .sessionDefaultKeyRecordNumber(AccessLevel.SESSION_LVL_DEBIT,
+                                (byte) 0x03) //
+                        .digestUpdateMultipleEnabled(digestUpdateMultiple) //
+                        .build();
+        return new SamCommandProcessor(
+                new PoResource(mock(ProxyReader.class), createCalypsoPo(FCI_REV31)),
+                poSecuritySettings);
+    }
+
+    private void addPoExchange(String request, boolean case4, String response) {
+        poRequests.add(new ApduRequest(ByteArrayUtil.fromHex(request), case4));
+        poResponses.add(new ApduResponse(ByteArrayUtil.fromHex(response), null));
+    }
+
+    private CalypsoPo createCalypsoPo(String FCI) {
+        SeResponse selectionData = new SeResponse(true, false,
+                new SelectionStatus(null, new ApduResponse(ByteArrayUtil.fromHex(FCI), null), true),
+                null);
+        return new CalypsoPo(selectionData, TransmissionMode.CONTACTLESS);
+    }
+
+    /**
+     * Mock SAM computing a digest (SHA-1) of all the data received through Digest Init, Digest
+     * Update and Digest Update Multiple, the 4 first bytes being returned as signature. It also
+     * accepts the Select Diversifier and Get Challenge commands.
+     * <p>
+     * A command can be made to fail with an I/O error or to be rejected (status 6985).
+     */
+    private static class DigestingSam {
+        final CalypsoSam calypsoSam;
+        final ByteArrayOutputStream digestedData = new ByteArrayOutputStream();
+        int nbApdus;
+        int nbDigestUpdateMultiple;
+        int nbSelectDiversifier;
+        /* instruction of the commands failing with an I/O error, 0 if none */
+        byte ioErrorIns;
+        /* instruction of the commands rejected by the SAM, 0 if none */
+        byte rejectedIns;
+
+        DigestingSam(String atr) {
+            SelectionStatus selectionStatus =
+                    new SelectionStatus(new AnswerToReset(ByteArrayUtil.fromHex(atr)), null, true);
+            calypsoSam = new CalypsoSam(new SeResponse(true, true, selectionStatus, null),
+                    TransmissionMode.CONTACTS);
+        }
+
+        ProxyReader createReader() throws KeypleReaderIOException {
+            ProxyReader mockReader = Mockito.spy(ProxyReader.class);
+            doReturn("SAM").when(mockReader).getName();
+            doReturn(TransmissionMode.CONTACTS).when(mockReader).getTransmissionMode();
+            doAnswer(new Answer<SeResponse>() {
+                @Override
+                public SeResponse answer(InvocationOnMock invocation) throws Exception {
+                    SeRequest seRequest = (SeRequest) invocation.getArguments()[0];
+                    for (ApduRequest apduRequest : seRequest.getApduRequests()) {
+                        if (ioErrorIns != 0 && apduRequest.getBytes()[1] == ioErrorIns) {
+                            throw new KeypleReaderIOException("SAM removed");
+                        }
+                    }
+                    List<ApduResponse> apduResponses = new ArrayList<ApduResponse>();
+                    for (ApduRequest apduRequest : seRequest.getApduRequests()) {
+                        apduResponses.add(new ApduResponse(process(apduRequest.getBytes()), null));
+                    }
+                    return new SeResponse(true, true, null, apduResponses);
+                }
+            }).when(mockReader).transmitSeRequest(any(SeRequest.class), any(ChannelControl.class));
+            return mockReader;
+        }
+
+        private byte[] process(byte[] apdu) throws Exception {
+            nbApdus++;
+            byte ins = apdu[1];
+            byte p1 = apdu[2];
+            byte[] data = apdu.length > 5 ? Arrays.copyOfRange(apdu, 5, 5 + (apdu[4] & 0xFF))
+                    : new byte[0];
+            if (ins == rejectedIns) {
+                return ByteArrayUtil.fromHex("6985");
+            }
+            switch (ins) {
+                case (byte) 0x14: // Select Diversifier
+                    nbSelectDiversifier++;
+                    return ByteArrayUtil.fromHex("9000");
+                case (byte) 0x84: // Get Challenge
+                    return ByteArrayUtil.fromHex("C1C2C3C49000");
+                case (byte) 0x8A: // Digest Init
+                    digestedData.reset();
+                    digest(data);
+                    return ByteArrayUtil.fromHex("9000");
+                case (byte) 0x8C:
+                    if (p1 == (byte) 0x80) {
+                        // Digest Update Multiple
+                        nbDigestUpdateMultiple++;
+                        int offset = 0;
+                        while (offset < data.length) {
+                            int length = data[offset] & 0xFF;
+                            digest(Arrays.copyOfRange(data, offset + 1, offset + 1 + length));
+                            offset += 1 + length;
+                        }
+                    } else {
+                        digest(data);
+                    }
+                    return ByteArrayUtil.fromHex("9000");
+                case (byte) 0x8E: // Digest Close
+                    byte[] sha1 =
+                            MessageDigest.getInstance("SHA-1").digest(digestedData.toByteArray());
+                    byte[] response = Arrays.copyOf(sha1, 6);
+                    response[4] = (byte) 0x90;
+                    response[5] = (byte) 0x00;
+                    return response;
+                default:
+                    return ByteArrayUtil.fromHex("6D00");
+            }
+        }
+
+        private void digest(byte[] data) {
+            digestedData.write(data.length);
+            digestedData.write(data, 0, data.length);
+        }
+    }
+}
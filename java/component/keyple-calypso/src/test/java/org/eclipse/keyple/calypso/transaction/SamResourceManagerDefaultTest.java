@@ -23,6 +23,10 @@ import org.eclipse.keyple.calypso.exception.CalypsoNoSamResourceAvailableExcepti
 import org.eclipse.keyple.core.seproxy.*;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
 import org.eclipse.keyple.core.seproxy.message.*;
+import org.eclipse.keyple.core.seproxy.plugin.local.AbstractLocalReader;
+import org.eclipse.keyple.core.seproxy.plugin.local.LogicalChannelReader;
+import org.eclipse.keyple.core.seproxy.protocol.SeProtocol;
+import org.eclipse.keyple.core.seproxy.protocol.TransmissionMode;
 import org.eclipse.keyple.core.util.ByteArrayUtil;
 import org.junit.Assert;
 import org.junit.Before;
@@ -96,6 +100,153 @@ public class SamResourceManagerDefaultTest extends CalypsoBaseTest {
     }
 
 
+    @Test(expected = CalypsoNoSamResourceAvailableException.class)
+    public void allocate_nonBlocking_busy() throws Exception {
+        SamResourceManagerDefault srm = srmSpy(".*");
+        srm.allocateSamResource(SamResourceManager.AllocationMode.NON_BLOCKING, anySam());
+        // the only SAM is busy
+        srm.allocateSamResource(SamResourceManager.AllocationMode.NON_BLOCKING, anySam());
+    }
+
+    @Test
+    public void allocate_blocking_wokenUpByFree() throws Exception {
+        SamResourceManagerDefault srm = srmSpy(".*");
+        SamResource samResource =
+                srm.allocateSamResource(SamResourceManager.AllocationMode.BLOCKING, anySam());
+
+        AllocationThread waiting = new AllocationThread(srm);
+        waiting.start();
+        waitForQueueDepth(srm, 1);
+        Assert.assertEquals(1, srm.getWaitQueueDepth(""));
+        Assert.assertEquals(0, srm.getWaitQueueDepth("other"));
+
+        long start = System.currentTimeMillis();
+        srm.freeSamResource(samResource);
+        waiting.join(MAX_BLOCKING_TIME);
+        long stop = System.currentTimeMillis();
+
+        // handed over at once, without waiting for the next polling
+        Assert.assertSame(samResource, waiting.samResource);
+        Assert.assertTrue(stop - start < MAX_BLOCKING_TIME / 2);
+        Assert.assertEquals(0, srm.getWaitQueueDepth());
+        Assert.assertFalse(samResource.isSamResourceFree());
+    }
+
+    @Test
+    public void allocate_blocking_fifoOrder() throws Exception {
+        SamResourceManagerDefault srm = srmSpy(".*");
+        SamResource samResource =
+                srm.allocateSamResource(SamResourceManager.AllocationMode.BLOCKING, anySam());
+
+        AllocationThread first = new AllocationThread(srm);
+        first.start();
+        waitForQueueDepth(srm, 1);
+        AllocationThread second = new AllocationThread(srm);
+        second.start();
+        waitForQueueDepth(srm, 2);
+
+        srm.freeSamResource(samResource);
+        first.join(MAX_BLOCKING_TIME);
+        Assert.assertSame(samResource, first.samResource);
+        Assert.assertTrue(second.isAlive());
+
+        srm.freeSamResource(samResource);
+        second.join(MAX_BLOCKING_TIME);
+        Assert.assertSame(samResource, second.samResource);
+    }
+
+    @Test
+    public void allocate_affinity_preferredSam() throws Exception {
+        SamResourceManagerDefault srm =
+                srmSpy(".*", SAM_READER_NAME + "1", SAM_READER_NAME + "2");
+        SamResource samResource1 = srm.allocateSamResource(
+                SamResourceManager.AllocationMode.NON_BLOCKING, anySam(), "lane1");
+        SamResource samResource2 = srm.allocateSamResource(
+                SamResourceManager.AllocationMode.NON_BLOCKING, anySam(), "lane2");
+        Assert.assertNotSame(samResource1, samResource2);
+        srm.freeSamResource(samResource1);
+        srm.freeSamResource(samResource2);
+
+        // each lane goes back to its SAM, though the first free SAM is the one of lane 1
+        Assert.assertSame(samResource2, srm.allocateSamResource(
+                SamResourceManager.AllocationMode.NON_BLOCKING, anySam(), "lane2"));
+        Assert.assertSame(samResource1, srm.allocateSamResource(
+                SamResourceManager.AllocationMode.NON_BLOCKING, anySam(), "lane1"));
+    }
+
+    @Test
+    public void allocate_affinity_preferredSamBusy() throws Exception {
+        SamResourceManagerDefault srm =
+                srmSpy(".*", SAM_READER_NAME + "1", SAM_READER_NAME + "2");
+        SamResource samResource1 = srm.allocateSamResource(
+                SamResourceManager.AllocationMode.NON_BLOCKING, anySam(), "lane1");
+        srm.freeSamResource(samResource1);
+        // the preferred SAM of lane 1 is taken by an allocation without affinity
+        Assert.assertSame(samResource1, srm
+                .allocateSamResource(SamResourceManager.AllocationMode.NON_BLOCKING, anySam()));
+
+        SamResource samResource2 = srm.allocateSamResource(
+                SamResourceManager.AllocationMode.NON_BLOCKING, anySam(), "lane1");
+        Assert.assertNotSame(samResource1, samResource2);
+        srm.freeSamResource(samResource1);
+        srm.freeSamResource(samResource2);
+
+        // the affinity follows the last allocated SAM
+        Assert.assertSame(samResource2, srm.allocateSamResource(
+                SamResourceManager.AllocationMode.NON_BLOCKING, anySam(), "lane1"));
+    }
+
+    @Test
+    public void logicalChannels_oneResourcePerChannel() throws Exception {
+        SamResourceManagerDefault srm = srmMultiChannelSam(3, 3);
+        Set<SeReader> samReaders = new HashSet<SeReader>();
+        for (int i = 0; i < 3; i++) {
+            samReaders.add(srm
+                    .allocateSamResource(SamResourceManager.AllocationMode.NON_BLOCKING, anySam())
+                    .getSeReader());
+        }
+
+        Assert.assertEquals(3, samReaders.size());
+        Assert.assertEquals(3, srm.getSamUtilisation().size());
+        for (SeReader samReader : samReaders) {
+            if (samReader instanceof LogicalChannelReader) {
+                Assert.assertEquals(SAM_READER_NAME,
+                        ((LogicalChannelReader) samReader).getLocalReader().getName());
+            } else {
+                Assert.assertEquals(SAM_READER_NAME, samReader.getName());
+            }
+        }
+        try {
+            srm.allocateSamResource(SamResourceManager.AllocationMode.NON_BLOCKING, anySam());
+            Assert.fail("All the logical channels should be busy");
+        } catch (CalypsoNoSamResourceAvailableException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void logicalChannels_limitedBySam() throws Exception {
+        SamResourceManagerDefault srm = srmMultiChannelSam(4, 1);
+        Assert.assertEquals(2, srm.getSamUtilisation().size());
+    }
+
+    @Test
+    public void metrics() throws Exception {
+        SamResourceManagerDefault srm = srmSpy(".*");
+        SamResource samResource =
+                srm.allocateSamResource(SamResourceManager.AllocationMode.BLOCKING, anySam());
+        Thread.sleep(20);
+
+        Map<String, Double> samUtilisation = srm.getSamUtilisation();
+        Assert.assertEquals(1, samUtilisation.size());
+        Assert.assertTrue(samUtilisation.get(SAM_READER_NAME) > 0);
+
+        srm.freeSamResource(samResource);
+        Assert.assertEquals(1, srm.getWaitTimeHistogram().getCount());
+        Assert.assertEquals(0, srm.getWaitQueueDepth());
+    }
+
+
 
     /*
      * Helpers
@@ -117,20 +268,32 @@ public class SamResourceManagerDefaultTest extends CalypsoBaseTest {
 
     // get a sam manager spy with a selectable sam
     SamResourceManagerDefault srmSpy(String samFilter) throws KeypleReaderException {
+        return srmSpy(samFilter, SAM_READER_NAME);
+    }
 
-        List<SeResponse> selectionResponses = new ArrayList<SeResponse>();
-        selectionResponses.add(samSelectionSuccess());
-
-        // create a mock reader
-        ProxyReader reader = Mockito.mock(ProxyReader.class);
-        when(reader.getName()).thenReturn(SAM_READER_NAME);
-        when(reader.isSePresent()).thenReturn(true);
-        doReturn(selectionResponses).when(reader).transmitSeRequests(any(List.class),
-                any(MultiSeRequestProcessing.class), any(ChannelControl.class));
+    // get a sam manager spy with a selectable sam in each reader
+    SamResourceManagerDefault srmSpy(String samFilter, String... samReaderNames)
+            throws KeypleReaderException {
 
         // create a list of mock readers
-        SortedSet<SeReader> readers = new TreeSet<SeReader>();
-        readers.add(reader);
+        SortedSet<SeReader> readers = new TreeSet<SeReader>(new Comparator<SeReader>() {
+            @Override
+            public int compare(SeReader reader1, SeReader reader2) {
+                return reader1.getName().compareTo(reader2.getName());
+            }
+        });
+        for (String samReaderName : samReaderNames) {
+            List<SeResponse> selectionResponses = new ArrayList<SeResponse>();
+            selectionResponses.add(samSelectionSuccess());
+
+            // create a mock reader
+            ProxyReader reader = Mockito.mock(ProxyReader.class);
+            when(reader.getName()).thenReturn(samReaderName);
+            when(reader.isSePresent()).thenReturn(true);
+            doReturn(selectionResponses).when(reader).transmitSeRequests(any(List.class),
+                    any(MultiSeRequestProcessing.class), any(ChannelControl.class));
+            readers.add(reader);
+        }
 
         // create the mock plugin
         ReaderPlugin plugin = Mockito.mock(ReaderPlugin.class);
@@ -140,6 +303,116 @@ public class SamResourceManagerDefaultTest extends CalypsoBaseTest {
                 DEFAULT_SLEEP_TIME));
     }
 
+    // get a sam manager with a SAM accepting nbSamChannels supplementary logical channels
+    SamResourceManagerDefault srmMultiChannelSam(int nbLogicalChannels, int nbSamChannels)
+            throws KeypleReaderException {
+        SortedSet<SeReader> readers = new TreeSet<SeReader>();
+        readers.add(new MultiChannelSamReader(nbSamChannels));
+        ReaderPlugin plugin = Mockito.mock(ReaderPlugin.class);
+        when(plugin.getReaders()).thenReturn(readers);
+        return new SamResourceManagerDefault(plugin, ".*", MAX_BLOCKING_TIME, DEFAULT_SLEEP_TIME,
+                nbLogicalChannels);
+    }
+
+    SamIdentifier anySam() {
+        return SamIdentifier.builder().samRevision(SamRevision.AUTO).build();
+    }
+
+    void waitForQueueDepth(SamResourceManagerDefault srm, int depth)
+            throws InterruptedException {
+        long maxDate = System.currentTimeMillis() + MAX_BLOCKING_TIME;
+        while (srm.getWaitQueueDepth() != depth) {
+            if (System.currentTimeMillis() > maxDate) {
+                Assert.fail("Queue depth " + depth + " not reached");
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    /* Blocking allocation performed in a separate thread */
+    class AllocationThread extends Thread {
+        final SamResourceManagerDefault srm;
+        volatile SamResource samResource;
+
+        AllocationThread(SamResourceManagerDefault srm) {
+            this.srm = srm;
+        }
+
+        @Override
+        public void run() {
+            try {
+                samResource = srm.allocateSamResource(SamResourceManager.AllocationMode.BLOCKING,
+                        anySam());
+            } catch (CalypsoNoSamResourceAvailableException e) {
+                logger.error("Allocation failed", e);
+            }
+        }
+    }
+
+    /* Local reader of a SAM accepting a limited number of supplementary logical channels */
+    static class MultiChannelSamReader extends AbstractLocalReader {
+        private final boolean[] openChannels;
+
+        MultiChannelSamReader(int nbSamChannels) {
+            super("MultiChannelSamPlugin", SAM_READER_NAME);
+            openChannels = new boolean[nbSamChannels + 1];
+        }
+
+        @Override
+        protected boolean checkSePresence() {
+            return true;
+        }
+
+        @Override
+        protected byte[] getATR() {
+            return ByteArrayUtil.fromHex(CalypsoSamTest.ATR1);
+        }
+
+        @Override
+        protected void openPhysicalChannel() {}
+
+        @Override
+        protected void closePhysicalChannel() {}
+
+        @Override
+        protected boolean isPhysicalChannelOpen() {
+            return true;
+        }
+
+        @Override
+        protected boolean protocolFlagMatches(SeProtocol protocolFlag) {
+            return true;
+        }
+
+        @Override
+        protected synchronized byte[] transmitApdu(byte[] apduIn) {
+            if (apduIn[1] == (byte) 0x70 && apduIn[2] == (byte) 0x00) {
+                // MANAGE CHANNEL (open)
+                for (int i = 1; i < openChannels.length; i++) {
+                    if (!openChannels[i]) {
+                        openChannels[i] = true;
+                        return new byte[] {(byte) i, (byte) 0x90, (byte) 0x00};
+                    }
+                }
+                return ByteArrayUtil.fromHex("6A81");
+            }
+            return ByteArrayUtil.fromHex("9000");
+        }
+
+        @Override
+        public TransmissionMode getTransmissionMode() {
+            return TransmissionMode.CONTACTS;
+        }
+
+        @Override
+        public Map<String, String> getParameters() {
+            return new HashMap<String, String>();
+        }
+
+        @Override
+        public void setParameter(String key, String value) {}
+    }
+
     SamResource samResourceMock() {
         SamResource mock = Mockito.mock(SamResource.class);
         doReturn(true).when(mock).isSamMatching(any(SamIdentifier.class));
@@ -0,0 +1,182 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.keyple.core.util.LatencyHistogram;
+
+/**
+ * {@link KeypleMetrics} keeping the measurements in memory, in {@link LatencyHistogram}s from
+ * which the percentiles can be read at any time:
+ * <ul>
+ * <li>APDU exchanges by command name (the sub-names added by the command builders, such as the
+ * record number, are ignored),</li>
+ * <li>SE requests by reader name,</li>
+ * <li>SAM allocation waits,</li>
+ * <li>transaction phases by phase name.</li>
+ * </ul>
+ * The selection outcomes, the failed SE requests, SAM allocations and transaction phases are
+ * counted.
+ */
+public final class InMemoryKeypleMetrics implements KeypleMetrics {
+
+    /** name of the APDU commands without name */
+    public static final String UNNAMED_COMMAND = "UNNAMED";
+
+    private static final String SUB_NAME_SEPARATOR = " - ";
+
+    private final ConcurrentMap<String, LatencyHistogram> apduHistograms =
+            new ConcurrentHashMap<String, LatencyHistogram>();
+    private final ConcurrentMap<String, LatencyHistogram> seRequestHistograms =
+            new ConcurrentHashMap<String, LatencyHistogram>();
+    private final ConcurrentMap<String, LatencyHistogram> transactionPhaseHistograms =
+            new ConcurrentHashMap<String, LatencyHistogram>();
+    private final LatencyHistogram samAllocationHistogram = new LatencyHistogram();
+    private final AtomicLong failedSeRequestCount = new AtomicLong();
+    private final AtomicLong failedSamAllocationCount = new AtomicLong();
+    private final AtomicLong failedTransactionPhaseCount = new AtomicLong();
+    private final AtomicLong matchedSelectionCount = new AtomicLong();
+    private final AtomicLong unmatchedSelectionCount = new AtomicLong();
+
+    @Override
+    public void recordApduExchange(String readerName, String commandName, long durationMicros) {
+        String command;
+        if (commandName == null) {
+            command = UNNAMED_COMMAND;
+        } else {
+            int subNameIndex = commandName.indexOf(SUB_NAME_SEPARATOR);
+            command = subNameIndex < 0 ? commandName : commandName.substring(0, subNameIndex);
+        }
+        getOrCreate(apduHistograms, command).record(durationMicros);
+    }
+
+    @Override
+    public void recordSeRequest(String readerName, long durationMicros, boolean successful) {
+        getOrCreate(seRequestHistograms, readerName).record(durationMicros);
+        if (!successful) {
+            failedSeRequestCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void recordSelection(String readerName, boolean matched) {
+        if (matched) {
+            matchedSelectionCount.incrementAndGet();
+        } else {
+            unmatchedSelectionCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void recordSamAllocation(long waitMicros, boolean successful) {
+        samAllocationHistogram.record(waitMicros);
+        if (!successful) {
+            failedSamAllocationCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void recordTransactionPhase(String phase, long durationMicros, boolean successful) {
+        getOrCreate(transactionPhaseHistograms, phase).record(durationMicros);
+        if (!successful) {
+            failedTransactionPhaseCount.incrementAndGet();
+        }
+    }
+
+    private static LatencyHistogram getOrCreate(ConcurrentMap<String, LatencyHistogram> histograms,
+            String key) {
+        LatencyHistogram histogram = histograms.get(key);
+        if (histogram == null) {
+            histogram = new LatencyHistogram();
+            LatencyHistogram existing = histograms.putIfAbsent(key, histogram);
+            if (existing != null) {
+                histogram = existing;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * @return the live histograms of the APDU exchange durations by command name
+     */
+    public Map<String, LatencyHistogram> getApduHistograms() {
+        return Collections.unmodifiableMap(apduHistograms);
+    }
+
+    /**
+     * @return the live histograms of the SE request transmission durations by reader name
+     */
+    public Map<String, LatencyHistogram> getSeRequestHistograms() {
+        return Collections.unmodifiableMap(seRequestHistograms);
+    }
+
+    /**
+     * @return the live histograms of the transaction phase durations by phase name
+     */
+    public Map<String, LatencyHistogram> getTransactionPhaseHistograms() {
+        return Collections.unmodifiableMap(transactionPhaseHistograms);
+    }
+
+    /**
+     * @return the live histogram of the SAM allocation waits
+     */
+    public LatencyHistogram getSamAllocationHistogram() {
+        return samAllocationHistogram;
+    }
+
+    public long getFailedSeRequestCount() {
+        return failedSeRequestCount.get();
+    }
+
+    public long getFailedSamAllocationCount() {
+        return failedSamAllocationCount.get();
+    }
+
+    public long getFailedTransactionPhaseCount() {
+        return failedTransactionPhaseCount.get();
+    }
+
+    public long getMatchedSelectionCount() {
+        return matchedSelectionCount.get();
+    }
+
+    public long getUnmatchedSelectionCount() {
+        return unmatchedSelectionCount.get();
+    }
+
+    /**
+     * Clears all the measurements
+     */
+    public void reset() {
+        apduHistograms.clear();
+        seRequestHistograms.clear();
+        transactionPhaseHistograms.clear();
+        samAllocationHistogram.reset();
+        failedSeRequestCount.set(0);
+        failedSamAllocationCount.set(0);
+        failedTransactionPhaseCount.set(0);
+        matchedSelectionCount.set(0);
+        unmatchedSelectionCount.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "InMemoryKeypleMetrics{" + "apdus=" + apduHistograms + ", seRequests="
+                + seRequestHistograms + ", transactionPhases=" + transactionPhaseHistograms
+                + ", samAllocations=" + samAllocationHistogram + ", matchedSelections="
+                + matchedSelectionCount + ", unmatchedSelections=" + unmatchedSelectionCount + '}';
+    }
+}
@@ -0,0 +1,69 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.metrics;
+
+/**
+ * Receiver of the measurements taken on the hot paths of Keyple: APDU exchanges, SE requests,
+ * selections, SAM allocations and transaction phases.
+ * <p>
+ * The implementation in use is provided by {@link MetricsProvider}, {@link NoOpKeypleMetrics} by
+ * default. The methods are called on the threads processing the exchanges: they must be
+ * thread-safe and return quickly.
+ * <p>
+ * The durations are in microseconds.
+ */
+public interface KeypleMetrics {
+
+    /**
+     * Records the exchange of an APDU with a SE (including the internal get response, if any)
+     *
+     * @param readerName the name of the reader
+     * @param commandName the name of the command (see
+     *        {@link org.eclipse.keyple.core.seproxy.message.ApduRequest#getName()}), may be null
+     * @param durationMicros the duration of the exchange
+     */
+    void recordApduExchange(String readerName, String commandName, long durationMicros);
+
+    /**
+     * Records the transmission of a SE request, or of a set of SE requests, by a reader
+     *
+     * @param readerName the name of the reader
+     * @param durationMicros the duration of the transmission
+     * @param successful false if the transmission failed
+     */
+    void recordSeRequest(String readerName, long durationMicros, boolean successful);
+
+    /**
+     * Records the outcome of a selection performed by a reader
+     *
+     * @param readerName the name of the reader
+     * @param matched true if the SE matched the selector
+     */
+    void recordSelection(String readerName, boolean matched);
+
+    /**
+     * Records an allocation of a SAM resource
+     *
+     * @param waitMicros the time spent waiting for the resource
+     * @param successful false if no resource could be allocated
+     */
+    void recordSamAllocation(long waitMicros, boolean successful);
+
+    /**
+     * Records a phase of a transaction (e.g. the opening or the closing of a secure session)
+     *
+     * @param phase the name of the phase
+     * @param durationMicros the duration of the phase
+     * @param successful false if the phase failed
+     */
+    void recordTransactionPhase(String phase, long durationMicros, boolean successful);
+}
@@ -0,0 +1,45 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.metrics;
+
+/**
+ * Provides the {@link KeypleMetrics} in use.
+ * <p>
+ * The measurements are ignored until an implementation is installed with
+ * {@link #setMetrics(KeypleMetrics)}, e.g. an {@link InMemoryKeypleMetrics} at the start of the
+ * application.
+ */
+public final class MetricsProvider {
+
+    private static volatile KeypleMetrics metrics = NoOpKeypleMetrics.INSTANCE;
+
+    private MetricsProvider() {}
+
+    /**
+     * @return the metrics in use
+     */
+    public static KeypleMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Replaces the metrics in use
+     *
+     * @param keypleMetrics the new metrics ({@link NoOpKeypleMetrics#INSTANCE} to disable them)
+     */
+    public static void setMetrics(KeypleMetrics keypleMetrics) {
+        if (keypleMetrics == null) {
+            throw new IllegalArgumentException("Metrics must not be null");
+        }
+        metrics = keypleMetrics;
+    }
+}
@@ -0,0 +1,48 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.metrics;
+
+/**
+ * {@link KeypleMetrics} ignoring all the measurements, used by default
+ */
+public final class NoOpKeypleMetrics implements KeypleMetrics {
+
+    /** the unique instance */
+    public static final NoOpKeypleMetrics INSTANCE = new NoOpKeypleMetrics();
+
+    private NoOpKeypleMetrics() {}
+
+    @Override
+    public void recordApduExchange(String readerName, String commandName, long durationMicros) {
+        // nothing to do
+    }
+
+    @Override
+    public void recordSeRequest(String readerName, long durationMicros, boolean successful) {
+        // nothing to do
+    }
+
+    @Override
+    public void recordSelection(String readerName, boolean matched) {
+        // nothing to do
+    }
+
+    @Override
+    public void recordSamAllocation(long waitMicros, boolean successful) {
+        // nothing to do
+    }
+
+    @Override
+    public void recordTransactionPhase(String phase, long durationMicros, boolean successful) {
+        // nothing to do
+    }
+}
@@ -50,6 +50,17 @@ public abstract class AbstractMatchingSe {
         this.transmissionMode = transmissionMode;
     }
 
+    /**
+     * Copy constructor.
+     *
+     * @param matchingSe the matching SE to copy
+     */
+    protected AbstractMatchingSe(AbstractMatchingSe matchingSe) {
+        this.fciBytes = matchingSe.fciBytes;
+        this.atrBytes = matchingSe.atrBytes;
+        this.transmissionMode = matchingSe.transmissionMode;
+    }
+
     /**
      * @return the SE {@link TransmissionMode} (contacts or contactless)
      */
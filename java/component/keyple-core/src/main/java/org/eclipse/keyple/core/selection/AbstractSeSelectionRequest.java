@@ -82,4 +82,20 @@ public abstract class AbstractSeSelectionRequest<T extends AbstractApduCommandBu
      * @throws KeypleException if an error occurs while parsing the SE response
      */
     protected abstract AbstractMatchingSe parse(SeResponse seResponse) throws KeypleException;
+
+    /**
+     * Copies a matching SE previously returned by {@link #parse(SeResponse)}.
+     * <p>
+     * Used by the {@link SelectionCache} to provide a new matching SE to each presentation of the
+     * same SE. The copy must not share any mutable state with the provided matching SE.
+     * <p>
+     * The default implementation returns null: the matching SEs of this selection request are not
+     * cached.
+     *
+     * @param matchingSe a matching SE returned by {@link #parse(SeResponse)}
+     * @return a copy of the matching SE or null if it can't be copied
+     */
+    protected AbstractMatchingSe copy(AbstractMatchingSe matchingSe) {
+        return null;
+    }
 }
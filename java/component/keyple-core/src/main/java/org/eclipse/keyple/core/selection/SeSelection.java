@@ -41,6 +41,7 @@ public final class SeSelection {
             new ArrayList<AbstractSeSelectionRequest<? extends AbstractApduCommandBuilder>>();
     private final MultiSeRequestProcessing multiSeRequestProcessing;
     private final ChannelControl channelControl;
+    private final SelectionCache selectionCache;
 
     /**
      * Constructor.
@@ -50,8 +51,21 @@ public final class SeSelection {
      */
     public SeSelection(MultiSeRequestProcessing multiSeRequestProcessing,
             ChannelControl channelControl) {
+        this(multiSeRequestProcessing, channelControl, null);
+    }
+
+    /**
+     * Constructor with a cache of the parsed matching SEs.
+     *
+     * @param multiSeRequestProcessing the multi se processing mode
+     * @param channelControl indicates if the channel has to be closed at the end of the processing
+     * @param selectionCache the cache of the matching SEs (null to parse every selection response)
+     */
+    public SeSelection(MultiSeRequestProcessing multiSeRequestProcessing,
+            ChannelControl channelControl, SelectionCache selectionCache) {
         this.multiSeRequestProcessing = multiSeRequestProcessing;
         this.channelControl = channelControl;
+        this.selectionCache = selectionCache;
     }
 
     /**
@@ -110,7 +124,13 @@ public final class SeSelection {
                  * create a AbstractMatchingSe with the class deduced from the selection request
                  * during the selection preparation
                  */
-                AbstractMatchingSe matchingSe = seSelectionRequests.get(index).parse(seResponse);
+                AbstractMatchingSe matchingSe;
+                if (selectionCache != null) {
+                    matchingSe = selectionCache.getMatchingSe(seSelectionRequests.get(index),
+                            seResponse);
+                } else {
+                    matchingSe = seSelectionRequests.get(index).parse(seResponse);
+                }
 
                 // determine if the current matching SE is selected
                 SelectionStatus selectionStatus = seResponse.getSelectionStatus();
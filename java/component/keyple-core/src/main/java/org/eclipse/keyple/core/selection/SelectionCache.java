@@ -0,0 +1,263 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.selection;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.keyple.core.command.AbstractApduCommandBuilder;
+import org.eclipse.keyple.core.seproxy.SeSelector;
+import org.eclipse.keyple.core.seproxy.exception.KeypleException;
+import org.eclipse.keyple.core.seproxy.message.AnswerToReset;
+import org.eclipse.keyple.core.seproxy.message.ApduResponse;
+import org.eclipse.keyple.core.seproxy.message.SeResponse;
+import org.eclipse.keyple.core.seproxy.protocol.SeProtocol;
+
+/**
+ * Cache of the {@link AbstractMatchingSe}s parsed by the {@link SeSelection}s.
+ * <p>
+ * The same SE presented again gives the same selection response: its {@link AbstractMatchingSe}
+ * can be obtained from the one parsed at the previous presentation instead of parsing the FCI
+ * again. The entries are keyed by the selection request (type, protocol, AID and additional
+ * commands) and by the bytes of the selection response (ATR, FCI and responses to the additional
+ * commands), the least recently used entry is evicted when the cache is full.
+ * <p>
+ * Only the selection requests able to copy their matching SEs (see
+ * {@link AbstractSeSelectionRequest#copy(AbstractMatchingSe)}) use the cache: a matching SE is
+ * usually updated by the transaction processed afterwards, the cache thus keeps its own copy.
+ * <p>
+ * A cache can be shared by several {@link SeSelection}s, it is thread-safe.
+ */
+public final class SelectionCache {
+
+    /** default maximum number of entries */
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    private final int maxEntries;
+    private final Map<Key, AbstractMatchingSe> entries;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * Creates a cache of {@link #DEFAULT_MAX_ENTRIES} entries
+     */
+    public SelectionCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Creates a cache
+     *
+     * @param maxEntries the maximum number of entries
+     */
+    public SelectionCache(final int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("The maximum number of entries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.entries = new LruEntries(maxEntries, evictionCount);
+    }
+
+    /**
+     * Gets the matching SE corresponding to a selection response, from the cache if the same
+     * response has already been parsed, otherwise by parsing it.
+     *
+     * @param seSelectionRequest the selection request
+     * @param seResponse the matching selection response
+     * @return the matching SE
+     * @throws KeypleException if an error occurs while parsing the SE response
+     */
+    AbstractMatchingSe getMatchingSe(
+            AbstractSeSelectionRequest<? extends AbstractApduCommandBuilder> seSelectionRequest,
+            SeResponse seResponse) throws KeypleException {
+        Key key = new Key(seSelectionRequest, seResponse);
+        AbstractMatchingSe cachedMatchingSe;
+        synchronized (entries) {
+            cachedMatchingSe = entries.get(key);
+        }
+        if (cachedMatchingSe != null) {
+            hitCount.incrementAndGet();
+            return seSelectionRequest.copy(cachedMatchingSe);
+        }
+        missCount.incrementAndGet();
+        AbstractMatchingSe matchingSe = seSelectionRequest.parse(seResponse);
+        AbstractMatchingSe copy = matchingSe != null ? seSelectionRequest.copy(matchingSe) : null;
+        if (copy != null) {
+            synchronized (entries) {
+                entries.put(key, copy);
+            }
+        }
+        return matchingSe;
+    }
+
+    /**
+     * @return the number of matching SEs obtained from the cache
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return the number of selection responses parsed
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return the number of entries evicted to make room for new ones
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * @return the current number of entries
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Removes all the entries, the counters are kept
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SelectionCache{" + "size=" + size() + ", maxEntries=" + maxEntries + ", hits="
+                + hitCount.get() + ", misses=" + missCount.get() + ", evictions="
+                + evictionCount.get() + '}';
+    }
+
+    /**
+     * Entries in access order, the least recently used one is evicted when the cache is full
+     */
+    private static final class LruEntries extends LinkedHashMap<Key, AbstractMatchingSe> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxEntries;
+        private final AtomicLong evictionCount;
+
+        private LruEntries(int maxEntries, AtomicLong evictionCount) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+            this.evictionCount = evictionCount;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, AbstractMatchingSe> eldest) {
+            if (size() > maxEntries) {
+                evictionCount.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Key of an entry: the selection request and the bytes of the selection response
+     */
+    private static final class Key {
+        private final Class<?> requestType;
+        private final SeProtocol seProtocol;
+        private final byte[] bytes;
+        private final int hash;
+
+        private Key(
+                AbstractSeSelectionRequest<? extends AbstractApduCommandBuilder> seSelectionRequest,
+                SeResponse seResponse) {
+            SeSelector seSelector = seSelectionRequest.getSeSelector();
+            byte[] aid = seSelector.getAidSelector() != null
+                    ? seSelector.getAidSelector().getAidToSelect()
+                    : null;
+            List<? extends AbstractApduCommandBuilder> commandBuilders =
+                    seSelectionRequest.getCommandBuilders();
+            AnswerToReset atr = seResponse.getSelectionStatus().getAtr();
+            ApduResponse fci = seResponse.getSelectionStatus().getFci();
+            List<ApduResponse> apduResponses = seResponse.getApduResponses();
+
+            /* each field is preceded by its length (2 bytes), FFFFh if absent */
+            int length = lengthOf(aid) + lengthOf(atr != null ? atr.getBytes() : null)
+                    + lengthOf(fci != null ? fci.getBytes() : null);
+            for (AbstractApduCommandBuilder commandBuilder : commandBuilders) {
+                length += lengthOf(commandBuilder.getApduRequest().getBytes());
+            }
+            for (ApduResponse apduResponse : apduResponses) {
+                length += lengthOf(apduResponse != null ? apduResponse.getBytes() : null);
+            }
+            byte[] keyBytes = new byte[length];
+            int offset = put(keyBytes, 0, aid);
+            offset = put(keyBytes, offset, atr != null ? atr.getBytes() : null);
+            offset = put(keyBytes, offset, fci != null ? fci.getBytes() : null);
+            for (AbstractApduCommandBuilder commandBuilder : commandBuilders) {
+                offset = put(keyBytes, offset, commandBuilder.getApduRequest().getBytes());
+            }
+            for (ApduResponse apduResponse : apduResponses) {
+                offset = put(keyBytes, offset,
+                        apduResponse != null ? apduResponse.getBytes() : null);
+            }
+
+            this.requestType = seSelectionRequest.getClass();
+            this.seProtocol = seSelector.getSeProtocol();
+            this.bytes = keyBytes;
+            int h = requestType.hashCode();
+            h = 31 * h + (seProtocol != null ? seProtocol.hashCode() : 0);
+            this.hash = 31 * h + Arrays.hashCode(keyBytes);
+        }
+
+        private static int lengthOf(byte[] field) {
+            return 2 + (field != null ? field.length : 0);
+        }
+
+        private static int put(byte[] keyBytes, int offset, byte[] field) {
+            int fieldLength = field != null ? field.length : 0xFFFF;
+            keyBytes[offset] = (byte) (fieldLength >> 8);
+            keyBytes[offset + 1] = (byte) fieldLength;
+            if (field == null) {
+                return offset + 2;
+            }
+            System.arraycopy(field, 0, keyBytes, offset + 2, field.length);
+            return offset + 2 + field.length;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return hash == key.hash && requestType == key.requestType
+                    && (seProtocol != null ? seProtocol.equals(key.seProtocol)
+                            : key.seProtocol == null)
+                    && Arrays.equals(bytes, key.bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,343 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.keyple.core.seproxy.exception.KeypleReaderNotFoundException;
+import org.eclipse.keyple.core.util.LatencyHistogram;
+import org.eclipse.keyple.core.util.SerialExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs selection and transaction jobs on several readers concurrently.
+ * <p>
+ * The jobs submitted for a given reader are run one after the other, in their submission order,
+ * while the jobs of different readers run in parallel on a shared pool of threads. A host driving
+ * many readers can thus submit the processing of each reader without managing threads, and keep
+ * all its readers busy with a pool sized according to the number of readers.
+ * <p>
+ * The aggregate statistics (number of jobs, throughput, durations) are available at any time.
+ */
+public final class MultiReaderExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(MultiReaderExecutor.class);
+
+    /**
+     * Processing of a reader (typically a selection followed by a transaction)
+     *
+     * @param <T> the type of the result of the job
+     */
+    public interface ReaderJob<T> {
+        /**
+         * Runs the job, on a thread of the executor
+         *
+         * @param seReader the reader for which the job has been submitted
+         * @return the result of the job, provided by the future returned at the submission
+         * @throws Exception if the job failed, provided by the future returned at the submission
+         */
+        T run(SeReader seReader) throws Exception;
+    }
+
+    private final ExecutorService executorService;
+    private final ConcurrentMap<String, SerialExecutor> serialExecutors =
+            new ConcurrentHashMap<String, SerialExecutor>();
+
+    /* durations of the jobs, in microseconds */
+    private final LatencyHistogram durationHistogram = new LatencyHistogram();
+    private final AtomicLong submittedJobCount = new AtomicLong();
+    private final AtomicLong failedJobCount = new AtomicLong();
+    private final AtomicInteger pendingJobCount = new AtomicInteger();
+    private volatile long statsStartTime = System.nanoTime();
+    private volatile boolean shutdown;
+
+    /**
+     * Creates an executor with its own pool of threads (daemon threads)
+     *
+     * @param nbThreads the maximum number of jobs run in parallel, i.e. the maximum number of
+     *        readers processed at the same time
+     */
+    public MultiReaderExecutor(int nbThreads) {
+        if (nbThreads <= 0) {
+            throw new IllegalArgumentException("The number of threads must be positive");
+        }
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(nbThreads, nbThreads, 60,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    private final AtomicInteger threadNumber = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r,
+                                "MultiReaderExecutor-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        this.executorService = threadPoolExecutor;
+    }
+
+    /**
+     * Creates an executor on top of the provided executor service (e.g. a pool of lightweight
+     * threads)
+     *
+     * @param executorService the executor service running the jobs
+     */
+    public MultiReaderExecutor(ExecutorService executorService) {
+        if (executorService == null) {
+            throw new IllegalArgumentException("Executor service must not be null");
+        }
+        this.executorService = executorService;
+    }
+
+    /**
+     * Submits a job for a reader: it will be run once the jobs previously submitted for the same
+     * reader are completed.
+     *
+     * @param seReader the reader
+     * @param job the job
+     * @param <T> the type of the result of the job
+     * @return a future providing the result of the job
+     * @throws RejectedExecutionException if the executor is shut down
+     */
+    public <T> Future<T> submit(final SeReader seReader, final ReaderJob<T> job) {
+        if (seReader == null || job == null) {
+            throw new IllegalArgumentException("Reader and job must not be null");
+        }
+        if (shutdown) {
+            throw new RejectedExecutionException("The executor is shut down");
+        }
+        FutureTask<T> futureTask = new FutureTask<T>(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                long start = System.nanoTime();
+                try {
+                    return job.run(seReader);
+                } catch (Exception e) {
+                    failedJobCount.incrementAndGet();
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("[{}] Job failed: {}", seReader.getName(), e.getMessage());
+                    }
+                    throw e;
+                } finally {
+                    durationHistogram.record((System.nanoTime() - start) / 1000);
+                }
+            }
+        }) {
+            private final AtomicBoolean ended = new AtomicBoolean();
+
+            /* counted before the result is published, so that it is up to date for the waiters */
+            @Override
+            protected void set(T result) {
+                jobEnded();
+                super.set(result);
+            }
+
+            @Override
+            protected void setException(Throwable t) {
+                jobEnded();
+                super.setException(t);
+            }
+
+            @Override
+            protected void done() {
+                /* cancelled */
+                jobEnded();
+            }
+
+            private void jobEnded() {
+                if (ended.compareAndSet(false, true) && pendingJobCount.decrementAndGet() == 0
+                        && shutdown) {
+                    executorService.shutdown();
+                }
+            }
+        };
+        submittedJobCount.incrementAndGet();
+        pendingJobCount.incrementAndGet();
+        try {
+            getSerialExecutor(seReader.getName()).execute(futureTask);
+        } catch (RuntimeException e) {
+            submittedJobCount.decrementAndGet();
+            // no-op if already cancelled by the serial executor, the pending count is updated once
+            futureTask.cancel(false);
+            throw e;
+        }
+        return futureTask;
+    }
+
+    /**
+     * Submits a job for the reader whose name is provided, among the readers of the plugins
+     * registered in the {@link SeProxyService}.
+     *
+     * @param readerName the name of the reader
+     * @param job the job
+     * @param <T> the type of the result of the job
+     * @return a future providing the result of the job
+     * @throws KeypleReaderNotFoundException if no registered plugin has a reader with this name
+     */
+    public <T> Future<T> submit(String readerName, ReaderJob<T> job)
+            throws KeypleReaderNotFoundException {
+        for (ReaderPlugin plugin : SeProxyService.getInstance().getPlugins()) {
+            try {
+                return submit(plugin.getReader(readerName), job);
+            } catch (KeypleReaderNotFoundException e) {
+                // not in this plugin
+            }
+        }
+        throw new KeypleReaderNotFoundException(readerName);
+    }
+
+    /**
+     * Submits the same job for each of the provided readers
+     *
+     * @param seReaders the readers
+     * @param job the job
+     * @param <T> the type of the result of the job
+     * @return the futures providing the results of the job, in the order of the readers
+     */
+    public <T> List<Future<T>> submitAll(Collection<? extends SeReader> seReaders,
+            ReaderJob<T> job) {
+        List<Future<T>> futures = new ArrayList<Future<T>>(seReaders.size());
+        for (SeReader seReader : seReaders) {
+            futures.add(submit(seReader, job));
+        }
+        return futures;
+    }
+
+    private SerialExecutor getSerialExecutor(String readerName) {
+        SerialExecutor serialExecutor = serialExecutors.get(readerName);
+        if (serialExecutor == null) {
+            serialExecutor = new SerialExecutor(executorService);
+            SerialExecutor existing = serialExecutors.putIfAbsent(readerName, serialExecutor);
+            if (existing != null) {
+                serialExecutor = existing;
+            }
+        }
+        return serialExecutor;
+    }
+
+    /**
+     * @return the number of jobs submitted since the creation or the last reset of the statistics
+     */
+    public long getSubmittedJobCount() {
+        return submittedJobCount.get();
+    }
+
+    /**
+     * @return the number of jobs completed (successfully or not) since the creation or the last
+     *         reset of the statistics
+     */
+    public long getCompletedJobCount() {
+        return durationHistogram.getCount();
+    }
+
+    /**
+     * @return the number of jobs that threw an exception since the creation or the last reset of
+     *         the statistics
+     */
+    public long getFailedJobCount() {
+        return failedJobCount.get();
+    }
+
+    /**
+     * @return the number of jobs submitted and not yet completed
+     */
+    public int getPendingJobCount() {
+        return pendingJobCount.get();
+    }
+
+    /**
+     * @return the number of jobs completed per second since the creation or the last reset of the
+     *         statistics
+     */
+    public double getThroughput() {
+        long elapsed = System.nanoTime() - statsStartTime;
+        return elapsed <= 0 ? 0 : getCompletedJobCount() * 1e9 / elapsed;
+    }
+
+    /**
+     * @return the live histogram of the durations of the jobs, in microseconds
+     */
+    public LatencyHistogram getDurationHistogram() {
+        return durationHistogram;
+    }
+
+    /**
+     * Resets the statistics (the number of pending jobs is kept)
+     */
+    public void resetStats() {
+        durationHistogram.reset();
+        submittedJobCount.set(0);
+        failedJobCount.set(0);
+        statsStartTime = System.nanoTime();
+    }
+
+    /**
+     * Stops accepting new jobs, the jobs already submitted are run then the underlying executor
+     * service is shut down
+     */
+    public void shutdown() {
+        shutdown = true;
+        if (pendingJobCount.get() == 0) {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * Stops accepting new jobs and interrupts the running ones, the waiting jobs are not run: their
+     * futures are cancelled
+     */
+    public void shutdownNow() {
+        shutdown = true;
+        // the jobs dropped by the executor service are the first waiting jobs of their readers
+        executorService.shutdownNow();
+        for (SerialExecutor serialExecutor : serialExecutors.values()) {
+            serialExecutor.cancelPendingTasks();
+        }
+    }
+
+    /**
+     * Waits for the completion of the jobs after a shutdown
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return true if all the jobs are completed, false if the timeout elapsed before
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executorService.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    public String toString() {
+        return "MultiReaderExecutor{" + "submitted=" + getSubmittedJobCount() + ", completed="
+                + getCompletedJobCount() + ", failed=" + getFailedJobCount() + ", pending="
+                + getPendingJobCount() + ", throughput=" + getThroughput() + "/s, durations="
+                + durationHistogram + '}';
+    }
+}
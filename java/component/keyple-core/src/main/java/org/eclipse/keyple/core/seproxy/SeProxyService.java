@@ -14,6 +14,8 @@ package org.eclipse.keyple.core.seproxy;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.eclipse.keyple.core.seproxy.exception.KeyplePluginInstantiationException;
 import org.eclipse.keyple.core.seproxy.exception.KeyplePluginNotFoundException;
 import org.slf4j.Logger;
@@ -31,8 +33,9 @@ public final class SeProxyService {
     /** singleton instance of SeProxyService */
     private static SeProxyService uniqueInstance = new SeProxyService();
 
-    /** the list of readers’ plugins interfaced with the SE Proxy Service */
-    private final Set<ReaderPlugin> plugins = new HashSet<ReaderPlugin>();
+    /** the readers’ plugins interfaced with the SE Proxy Service, by name */
+    private final ConcurrentMap<String, ReaderPlugin> plugins =
+            new ConcurrentHashMap<String, ReaderPlugin>();
 
     // this is the object we will be synchronizing on ("the monitor")
     private final Object MONITOR = new Object();
@@ -74,7 +77,7 @@ public final class SeProxyService {
                 logger.info("Registering a new Plugin to the platform : {}",
                         pluginFactory.getPluginName());
                 ReaderPlugin newPlugin = pluginFactory.getPluginInstance();
-                this.plugins.add(newPlugin);
+                this.plugins.put(newPlugin.getName(), newPlugin);
                 return newPlugin;
             }
         }
@@ -95,7 +98,7 @@ public final class SeProxyService {
                 readerPlugin = this.getPlugin(pluginName);
                 logger.info("Unregistering a plugin from the platform : {}",
                         readerPlugin.getName());
-                return plugins.remove(readerPlugin);
+                return plugins.remove(readerPlugin.getName(), readerPlugin);
             } catch (KeyplePluginNotFoundException e) {
                 logger.info("Plugin is not registered to the platform : {}", pluginName);
                 return false;
@@ -109,16 +112,8 @@ public final class SeProxyService {
      * @param pluginName : name of the plugin to be checked
      * @return true if a plugin with matching name has been registered
      */
-    public synchronized boolean isRegistered(String pluginName) {
-        synchronized (MONITOR) {
-            for (ReaderPlugin registeredPlugin : plugins) {
-                if (registeredPlugin.getName().equals(pluginName)) {
-                    return true;
-                }
-            }
-            return false;
-        }
-
+    public boolean isRegistered(String pluginName) {
+        return pluginName != null && plugins.containsKey(pluginName);
     }
 
 
@@ -128,8 +123,8 @@ public final class SeProxyService {
      *
      * @return the plugins the list of interfaced reader’s plugins.
      */
-    public synchronized SortedSet<ReaderPlugin> getPlugins() {
-        return new TreeSet<ReaderPlugin>(plugins);
+    public SortedSet<ReaderPlugin> getPlugins() {
+        return new TreeSet<ReaderPlugin>(plugins.values());
     }
 
     /**
@@ -139,15 +134,12 @@ public final class SeProxyService {
      * @return the plugin
      * @throws KeyplePluginNotFoundException if the wanted plugin is not found
      */
-    public synchronized ReaderPlugin getPlugin(String name) throws KeyplePluginNotFoundException {
-        synchronized (MONITOR) {
-            for (ReaderPlugin plugin : plugins) {
-                if (plugin.getName().equals(name)) {
-                    return plugin;
-                }
-            }
+    public ReaderPlugin getPlugin(String name) throws KeyplePluginNotFoundException {
+        ReaderPlugin plugin = name == null ? null : plugins.get(name);
+        if (plugin == null) {
             throw new KeyplePluginNotFoundException(name);
         }
+        return plugin;
     }
 
     /**
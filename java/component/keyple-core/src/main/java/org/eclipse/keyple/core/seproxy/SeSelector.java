@@ -12,9 +12,9 @@
 package org.eclipse.keyple.core.seproxy;
 
 import java.util.*;
-import java.util.regex.Pattern;
 import org.eclipse.keyple.core.seproxy.protocol.SeProtocol;
 import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.eclipse.keyple.core.util.HexPattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -257,6 +257,11 @@ public class SeSelector {
          */
         private String atrRegex;
 
+        /**
+         * The compiled regular expression (not serialized)
+         */
+        private transient volatile HexPattern atrPattern;
+
         /**
          * Regular expression based filter
          *
@@ -264,6 +269,7 @@ public class SeSelector {
          */
         public AtrFilter(String atrRegex) {
             this.atrRegex = atrRegex;
+            this.atrPattern = compile(atrRegex);
         }
 
         /**
@@ -273,6 +279,7 @@ public class SeSelector {
          */
         public void setAtrRegex(String atrRegex) {
             this.atrRegex = atrRegex;
+            this.atrPattern = compile(atrRegex);
         }
 
         /**
@@ -288,20 +295,29 @@ public class SeSelector {
          * Tells if the provided ATR matches the registered regular expression
          *
          * If the registered regular expression is empty, the ATR is always matching.
+         * <p>
+         * The regular expression is compiled when it is set, the simple masks are matched without
+         * converting the ATR to an hex string (see {@link HexPattern}).
          *
          * @param atr a buffer containing the ATR to be checked
          * @return a boolean true the ATR matches the current regex
          */
         public boolean atrMatches(byte[] atr) {
-            boolean m;
-            if (atrRegex.length() != 0) {
-                Pattern p = Pattern.compile(atrRegex);
-                String atrString = ByteArrayUtil.toHex(atr);
-                m = p.matcher(atrString).matches();
-            } else {
-                m = true;
+            if (atrRegex.length() == 0) {
+                return true;
             }
-            return m;
+            HexPattern pattern = atrPattern;
+            if (pattern == null) {
+                // not compiled yet (deserialized filter)
+                pattern = compile(atrRegex);
+                atrPattern = pattern;
+            }
+            return pattern.matches(atr);
+        }
+
+        private static HexPattern compile(String atrRegex) {
+            return atrRegex == null || atrRegex.length() == 0 ? null
+                    : HexPattern.compile(atrRegex);
         }
 
         /**
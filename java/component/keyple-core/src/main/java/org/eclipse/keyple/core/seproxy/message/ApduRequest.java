@@ -12,6 +12,7 @@
 package org.eclipse.keyple.core.seproxy.message;
 
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.Set;
 import org.eclipse.keyple.core.util.ByteArrayUtil;
@@ -149,6 +150,15 @@ public final class ApduRequest implements Serializable {
         return this.bytes;
     }
 
+    /**
+     * Get a read-only view of the buffer of this APDU, without copying it
+     *
+     * @return a buffer whose position is 0 and whose limit is the length of the APDU
+     */
+    public ByteBuffer getBuffer() {
+        return ByteBuffer.wrap(this.bytes).asReadOnlyBuffer();
+    }
+
     @Override
     public String toString() {
         StringBuilder string;
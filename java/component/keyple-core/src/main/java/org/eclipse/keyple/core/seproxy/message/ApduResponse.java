@@ -12,6 +12,7 @@
 package org.eclipse.keyple.core.seproxy.message;
 
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Set;
 import org.eclipse.keyple.core.util.ByteArrayUtil;
@@ -108,6 +109,27 @@ public final class ApduResponse implements Serializable {
         return Arrays.copyOfRange(this.bytes, 0, this.bytes.length - 2);
     }
 
+    /**
+     * Get the length of the data before the statusCode, without copying them
+     *
+     * @return the length of the outgoing data
+     */
+    public int getDataOutLength() {
+        return this.bytes.length - 2;
+    }
+
+    /**
+     * Get a read-only view of the data before the statusCode
+     * <p>
+     * Unlike {@link #getDataOut()}, the data are not copied: the returned buffer shares the content
+     * of the response, its position is 0 and its limit is the length of the data.
+     *
+     * @return slice of the buffer before the status code
+     */
+    public ByteBuffer getDataOutBuffer() {
+        return ByteBuffer.wrap(this.bytes, 0, this.bytes.length - 2).slice().asReadOnlyBuffer();
+    }
+
     @Override
     public String toString() {
         String prefix;
@@ -11,8 +11,6 @@
  ********************************************************************************/
 package org.eclipse.keyple.core.seproxy.plugin;
 
-import java.util.ArrayList;
-import java.util.List;
 import org.eclipse.keyple.core.seproxy.event.ObservablePlugin;
 import org.eclipse.keyple.core.seproxy.event.PluginEvent;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
@@ -27,13 +25,14 @@ public abstract class AbstractObservablePlugin extends AbstractPlugin
         implements ObservablePluginNotifier {
     private static final Logger logger = LoggerFactory.getLogger(AbstractObservablePlugin.class);
 
-    /* The observers of this object */
-    private List<ObservablePlugin.PluginObserver> observers;
-    /*
-     * this object will be used to synchronize the access to the observers list in order to be
-     * thread safe
-     */
-    private final Object sync = new Object();
+    /* The observers of this object and the delivery of their events */
+    private final ObserverRegistry<PluginObserver, PluginEvent> observers =
+            new ObserverRegistry<PluginObserver, PluginEvent>(getName()) {
+                @Override
+                protected void update(PluginObserver observer, PluginEvent event) {
+                    observer.update(event);
+                }
+            };
 
     /**
      * Instantiates a observable plugin.
@@ -64,12 +63,7 @@ public abstract class AbstractObservablePlugin extends AbstractPlugin
                     getName());
         }
 
-        synchronized (sync) {
-            if (observers == null) {
-                observers = new ArrayList<PluginObserver>(1);
-            }
-            observers.add(observer);
-        }
+        observers.add(observer);
     }
 
     /**
@@ -87,11 +81,7 @@ public abstract class AbstractObservablePlugin extends AbstractPlugin
         if (logger.isTraceEnabled()) {
             logger.trace("[{}] Deleting a plugin observer", getName());
         }
-        synchronized (sync) {
-            if (observers != null) {
-                observers.remove(observer);
-            }
-        }
+        observers.remove(observer);
     }
 
     /**
@@ -101,16 +91,14 @@ public abstract class AbstractObservablePlugin extends AbstractPlugin
      */
     @Deprecated
     public void clearObservers() {
-        if (observers != null) {
-            this.observers.clear();
-        }
+        observers.clear();
     }
 
     /**
      * @return the number of observers
      */
     public final int countObservers() {
-        return observers == null ? 0 : observers.size();
+        return observers.size();
     }
 
     /**
@@ -126,17 +114,29 @@ public abstract class AbstractObservablePlugin extends AbstractPlugin
             logger.trace("[{}] Notifying a plugin event to {} observers. EVENTNAME = {} ",
                     this.getName(), countObservers(), event.getEventType().getName());
         }
-        List<PluginObserver> observersCopy;
+        observers.notify(event);
+    }
 
-        synchronized (sync) {
-            if (observers == null) {
-                return;
-            }
-            observersCopy = new ArrayList<PluginObserver>(observers);
-        }
+    /**
+     * Sets the dispatcher delivering the events to the observers.
+     * <p>
+     * With a dispatcher, the notifications do not wait for the observers: the events are queued
+     * and delivered in order to each observer by the threads of the dispatcher. Without dispatcher
+     * (default), the observers are called by the thread notifying the event.
+     * <p>
+     * The events pending in the queues of the previous dispatcher are discarded.
+     *
+     * @param observerDispatcher the dispatcher, null to call the observers synchronously
+     */
+    public final void setObserverDispatcher(AsyncObserverDispatcher observerDispatcher) {
+        observers.setDispatcher(observerDispatcher);
+    }
 
-        for (ObservablePlugin.PluginObserver observer : observersCopy) {
-            observer.update(event);
-        }
+    /**
+     * @return the dispatcher delivering the events to the observers, null if they are called
+     *         synchronously
+     */
+    public final AsyncObserverDispatcher getObserverDispatcher() {
+        return observers.getDispatcher();
     }
 }
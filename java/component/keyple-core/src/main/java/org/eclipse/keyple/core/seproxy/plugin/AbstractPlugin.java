@@ -23,9 +23,9 @@ import org.eclipse.keyple.core.seproxy.exception.*;
 public abstract class AbstractPlugin extends AbstractSeProxyComponent implements ReaderPlugin {
 
     /**
-     * The list of readers
+     * The list of readers, indexed by name
      */
-    protected ConcurrentSkipListSet<SeReader> readers = new ConcurrentSkipListSet<SeReader>();
+    protected ConcurrentSkipListSet<SeReader> readers = new IndexedReaderSet();
 
     /**
      * Instantiates a new ReaderPlugin. Retrieve the current readers list.
@@ -105,10 +105,18 @@ public abstract class AbstractPlugin extends AbstractSeProxyComponent implements
      */
     @Override
     public final SeReader getReader(String name) throws KeypleReaderNotFoundException {
-        for (SeReader reader : readers) {
-            if (reader.getName().equals(name)) {
+        if (readers instanceof IndexedReaderSet) {
+            SeReader reader = ((IndexedReaderSet) readers).get(name);
+            if (reader != null) {
                 return reader;
             }
+        } else {
+            // the list of readers has been replaced by the plugin
+            for (SeReader reader : readers) {
+                if (reader.getName().equals(name)) {
+                    return reader;
+                }
+            }
         }
         throw new KeypleReaderNotFoundException(name);
     }
@@ -12,6 +12,7 @@
 package org.eclipse.keyple.core.seproxy.plugin;
 
 import java.util.List;
+import org.eclipse.keyple.core.metrics.MetricsProvider;
 import org.eclipse.keyple.core.seproxy.ChannelControl;
 import org.eclipse.keyple.core.seproxy.MultiSeRequestProcessing;
 import org.eclipse.keyple.core.seproxy.SeReader;
@@ -36,9 +37,6 @@ public abstract class AbstractReader extends AbstractSeProxyComponent implements
     /** logger */
     private static final Logger logger = LoggerFactory.getLogger(AbstractReader.class);
 
-    /** Timestamp recorder */
-    private long before;
-
     /** Contains the name of the plugin */
     private final String pluginName;
 
@@ -55,8 +53,6 @@ public abstract class AbstractReader extends AbstractSeProxyComponent implements
 
     /**
      * Reader constructor
-     * <p>
-     * Initialize the time measurement
      *
      * @param pluginName the name of the plugin that instantiated the reader
      * @param name the name of the reader
@@ -64,11 +60,6 @@ public abstract class AbstractReader extends AbstractSeProxyComponent implements
     protected AbstractReader(String pluginName, String name) {
         super(name);
         this.pluginName = pluginName;
-        this.before = System.nanoTime(); /*
-                                          * provides an initial value for measuring the
-                                          * inter-exchange time. The first measurement gives the
-                                          * time elapsed since the plugin was loaded.
-                                          */
     }
 
     /**
@@ -105,8 +96,9 @@ public abstract class AbstractReader extends AbstractSeProxyComponent implements
      * The {@link ChannelControl} parameter specifies whether the physical channel should be closed
      * (CLOSE_AFTER) or not (KEEP_OPEN) after all requests have been transmitted.
      * <p>
-     * The global execution time (inter-exchange and communication) and the Set of SeRequest content
-     * is logged (DEBUG level).
+     * The global execution time and the Set of SeRequest content are logged (DEBUG level), the
+     * execution time is recorded in the {@link org.eclipse.keyple.core.metrics.KeypleMetrics} in
+     * use.
      * <p>
      * As the method is final, it cannot be extended.
      *
@@ -130,31 +122,26 @@ public abstract class AbstractReader extends AbstractSeProxyComponent implements
         List<SeResponse> seResponses;
 
         if (logger.isDebugEnabled()) {
-            long timeStamp = System.nanoTime();
-            long elapsed10ms = (timeStamp - before) / 100000;
-            this.before = timeStamp;
-            logger.debug("[{}] transmit => SEREQUESTLIST = {}, elapsed {} ms.", this.getName(),
-                    seRequests, elapsed10ms / 10.0);
+            logger.debug("[{}] transmit => SEREQUESTLIST = {}", this.getName(), seRequests);
         }
 
+        long start = System.nanoTime();
         try {
             seResponses = processSeRequests(seRequests, multiSeRequestProcessing, channelControl);
         } catch (KeypleReaderIOException ex) {
-            long timeStamp = System.nanoTime();
-            long elapsed10ms = (timeStamp - before) / 100000;
-            this.before = timeStamp;
+            long elapsed = System.nanoTime() - start;
+            MetricsProvider.getMetrics().recordSeRequest(getName(), elapsed / 1000, false);
             logger.debug("[{}] transmit => SEREQUESTLIST IO failure. elapsed {}", this.getName(),
-                    elapsed10ms / 10.0);
+                    elapsed / 100000 / 10.0);
             /* Throw an exception with the responses collected so far. */
             throw ex;
         }
+        long elapsed = System.nanoTime() - start;
+        MetricsProvider.getMetrics().recordSeRequest(getName(), elapsed / 1000, true);
 
         if (logger.isDebugEnabled()) {
-            long timeStamp = System.nanoTime();
-            long elapsed10ms = (timeStamp - before) / 100000;
-            this.before = timeStamp;
             logger.debug("[{}] transmit => SERESPONSELIST = {}, elapsed {} ms.", this.getName(),
-                    seResponses, elapsed10ms / 10.0);
+                    seResponses, elapsed / 100000 / 10.0);
         }
 
         return seResponses;
@@ -178,8 +165,8 @@ public abstract class AbstractReader extends AbstractSeProxyComponent implements
     /**
      * Execute the transmission of a {@link SeRequest} and returns a {@link SeResponse}
      * <p>
-     * The individual execution time (inter-exchange and communication) and the {@link SeRequest}
-     * content is logged (DEBUG level).
+     * The execution time and the {@link SeRequest} content are logged (DEBUG level), the execution
+     * time is recorded in the {@link org.eclipse.keyple.core.metrics.KeypleMetrics} in use.
      * <p>
      * As the method is final, it cannot be extended.
      *
@@ -201,31 +188,26 @@ public abstract class AbstractReader extends AbstractSeProxyComponent implements
         SeResponse seResponse;
 
         if (logger.isDebugEnabled()) {
-            long timeStamp = System.nanoTime();
-            long elapsed10ms = (timeStamp - before) / 100000;
-            this.before = timeStamp;
-            logger.debug("[{}] transmit => SEREQUEST = {}, elapsed {} ms.", this.getName(),
-                    seRequest, elapsed10ms / 10.0);
+            logger.debug("[{}] transmit => SEREQUEST = {}", this.getName(), seRequest);
         }
 
+        long start = System.nanoTime();
         try {
             seResponse = processSeRequest(seRequest, channelControl);
         } catch (KeypleReaderIOException ex) {
-            long timeStamp = System.nanoTime();
-            long elapsed10ms = (timeStamp - before) / 100000;
-            this.before = timeStamp;
+            long elapsed = System.nanoTime() - start;
+            MetricsProvider.getMetrics().recordSeRequest(getName(), elapsed / 1000, false);
             logger.debug("[{}] transmit => SEREQUEST IO failure. elapsed {}", this.getName(),
-                    elapsed10ms / 10.0);
+                    elapsed / 100000 / 10.0);
             /* Throw an exception with the responses collected so far (ex.getSeResponse()). */
             throw ex;
         }
+        long elapsed = System.nanoTime() - start;
+        MetricsProvider.getMetrics().recordSeRequest(getName(), elapsed / 1000, true);
 
         if (logger.isDebugEnabled()) {
-            long timeStamp = System.nanoTime();
-            long elapsed10ms = (timeStamp - before) / 100000;
-            this.before = timeStamp;
             logger.debug("[{}] transmit => SERESPONSE = {}, elapsed {} ms.", this.getName(),
-                    seResponse, elapsed10ms / 10.0);
+                    seResponse, elapsed / 100000 / 10.0);
         }
 
         return seResponse;
@@ -20,6 +20,7 @@ import org.eclipse.keyple.core.seproxy.event.PluginEvent;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderIOException;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderNotFoundException;
+import org.eclipse.keyple.core.seproxy.plugin.local.PollingPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -157,6 +158,84 @@ public abstract class AbstractThreadedObservablePlugin extends AbstractObservabl
      */
     private final SortedSet<String> nativeReadersNames = new ConcurrentSkipListSet<String>();
 
+    /* monitor signaled by notifyNativeReadersChanged */
+    private final Object readersChangeMonitor = new Object();
+    private boolean readersChangeNotified;
+
+    /**
+     * Gets the policy of the successive waits between two fetches of the native readers names.
+     * <p>
+     * The default policy has a fixed interval of {@link #threadWaitTimeout} ms. A plugin can
+     * return a policy with a backoff: the interval is then reset each time a reader is connected
+     * or disconnected, and increased after each fetch without change.
+     *
+     * @return the polling policy of the monitoring thread
+     */
+    protected PollingPolicy getReadersPollingPolicy() {
+        return new PollingPolicy(threadWaitTimeout);
+    }
+
+    /**
+     * Waits before the next fetch of the native readers names.
+     * <p>
+     * The default implementation waits until the timeout expires or
+     * {@link #notifyNativeReadersChanged()} is called, and always requests a fetch. A plugin whose
+     * native library is able to block until its readers list changes can override this method to
+     * return false when the timeout expires without change, the fetch is then skipped.
+     *
+     * @param timeout the maximum waiting time (in ms)
+     * @return true if the native readers names have to be fetched
+     * @throws KeypleReaderIOException if the communication with the native library has failed
+     * @throws InterruptedException if the monitoring thread is interrupted
+     */
+    protected boolean waitForNativeReadersChange(long timeout)
+            throws KeypleReaderIOException, InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        synchronized (readersChangeMonitor) {
+            while (!readersChangeNotified) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    break;
+                }
+                readersChangeMonitor.wait(remaining);
+            }
+            readersChangeNotified = false;
+        }
+        return true;
+    }
+
+    /**
+     * Signals that the native readers list may have changed.
+     * <p>
+     * The monitoring thread, if any, fetches the native readers names without waiting for the end
+     * of its current wait. Intended to be called by plugins notified of the readers changes by
+     * their native library.
+     */
+    protected void notifyNativeReadersChanged() {
+        synchronized (readersChangeMonitor) {
+            readersChangeNotified = true;
+            readersChangeMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * Compares two sorted sets of names without allocating a copy of one of them
+     *
+     * @param names the first set
+     * @param otherNames the second set
+     * @return true if both sets iterate over the same names
+     */
+    private static boolean sameNames(SortedSet<String> names, SortedSet<String> otherNames) {
+        Iterator<String> it = names.iterator();
+        Iterator<String> otherIt = otherNames.iterator();
+        while (it.hasNext()) {
+            if (!otherIt.hasNext() || !it.next().equals(otherIt.next())) {
+                return false;
+            }
+        }
+        return !otherIt.hasNext();
+    }
+
     /**
      * Thread in charge of reporting live events
      */
@@ -180,93 +259,119 @@ public abstract class AbstractThreadedObservablePlugin extends AbstractObservabl
             return running;
         }
 
+        /**
+         * Synchronizes the readers list with the current native readers names and notifies the
+         * disconnections and connections.
+         * <p>
+         * This algorithm favors cases where nothing change: the names are compared in a single
+         * pass, the readers are scanned once only if they differ.
+         *
+         * @param actualNativeReadersNames the current native readers names
+         * @return true if the native readers names have changed
+         * @throws KeypleReaderException if a new reader can not be fetched
+         */
+        private boolean updateReaders(SortedSet<String> actualNativeReadersNames)
+                throws KeypleReaderException {
+            if (sameNames(nativeReadersNames, actualNativeReadersNames)) {
+                return false;
+            }
+            /*
+             * forget the names of the disappeared readers (before the notification of their
+             * disconnection, so that a reader plugged again in the meantime is seen as new)
+             */
+            nativeReadersNames.retainAll(actualNativeReadersNames);
+            /* build the list of disappeared readers */
+            List<SeReader> removedReaders = null;
+            for (SeReader reader : readers) {
+                if (!actualNativeReadersNames.contains(reader.getName())) {
+                    if (removedReaders == null) {
+                        removedReaders = new ArrayList<SeReader>();
+                    }
+                    removedReaders.add(reader);
+                }
+            }
+            /* notify disconnections if any and update the reader list */
+            if (removedReaders != null) {
+                SortedSet<String> removedReaderNames = new TreeSet<String>();
+                for (SeReader reader : removedReaders) {
+                    removedReaderNames.add(reader.getName());
+                }
+                /* grouped notification */
+                if (logger.isTraceEnabled()) {
+                    logger.trace("Notifying disconnection(s): {}", removedReaderNames);
+                }
+                notifyObservers(new PluginEvent(this.pluginName, removedReaderNames,
+                        PluginEvent.EventType.READER_DISCONNECTED));
+                /* list update */
+                for (SeReader reader : removedReaders) {
+                    /* removes any possible observers before removing the reader */
+                    if (reader instanceof ObservableReader) {
+                        ((ObservableReader) reader).clearObservers();
+
+                        /*
+                         * In case where Reader was detected SE
+                         */
+                        ((ObservableReader) reader).stopSeDetection();
+                    }
+                    readers.remove(reader);
+                    if (logger.isTraceEnabled()) {
+                        logger.trace(
+                                "[{}][{}] Plugin thread => Remove unplugged reader from readers list.",
+                                this.pluginName, reader.getName());
+                    }
+                }
+            }
+            /*
+             * parse the new readers list, notify for readers appearance, update readers list
+             */
+            SortedSet<String> addedReaderNames = null;
+            for (String readerName : actualNativeReadersNames) {
+                if (!nativeReadersNames.contains(readerName)) {
+                    SeReader reader = fetchNativeReader(readerName);
+                    readers.add(reader);
+                    /* add to the notification list */
+                    if (addedReaderNames == null) {
+                        addedReaderNames = new TreeSet<String>();
+                    }
+                    addedReaderNames.add(readerName);
+                    if (logger.isTraceEnabled()) {
+                        logger.trace(
+                                "[{}][{}] Plugin thread => Add plugged reader to readers list.",
+                                this.pluginName, reader.getName());
+                    }
+                    /* add reader name to the current list */
+                    nativeReadersNames.add(readerName);
+                }
+            }
+            /* notify connections if any */
+            if (addedReaderNames != null) {
+                if (logger.isTraceEnabled()) {
+                    logger.trace("Notifying connection(s): {}", addedReaderNames);
+                }
+                notifyObservers(new PluginEvent(this.pluginName, addedReaderNames,
+                        PluginEvent.EventType.READER_CONNECTED));
+            }
+            return true;
+        }
+
         @Override
         public void run() {
-            SortedSet<String> changedReaderNames = new ConcurrentSkipListSet<String>();
+            PollingPolicy pollingPolicy = getReadersPollingPolicy();
+            long delay = pollingPolicy.getInterval();
+            boolean fetch = true;
             try {
                 while (running) {
-                    /* retrieves the current readers names list */
-                    SortedSet<String> actualNativeReadersNames =
-                            AbstractThreadedObservablePlugin.this.fetchNativeReadersNames();
-                    /*
-                     * checks if it has changed this algorithm favors cases where nothing change
-                     */
-                    if (!nativeReadersNames.equals(actualNativeReadersNames)) {
-                        /*
-                         * parse the current readers list, notify for disappeared readers, update
-                         * readers list
-                         */
-                        /* build changed reader names list */
-                        changedReaderNames.clear();
-                        for (SeReader reader : readers) {
-                            if (!actualNativeReadersNames.contains(reader.getName())) {
-                                changedReaderNames.add(reader.getName());
-                            }
-                        }
-                        /* notify disconnections if any and update the reader list */
-                        if (!changedReaderNames.isEmpty()) {
-                            /* grouped notification */
-                            if (logger.isTraceEnabled()) {
-                                logger.trace("Notifying disconnection(s): {}", changedReaderNames);
-                            }
-                            notifyObservers(new PluginEvent(this.pluginName, changedReaderNames,
-                                    PluginEvent.EventType.READER_DISCONNECTED));
-                            /* list update */
-                            for (SeReader reader : readers) {
-                                if (!actualNativeReadersNames.contains(reader.getName())) {
-                                    /* removes any possible observers before removing the reader */
-                                    if (reader instanceof ObservableReader) {
-                                        ((ObservableReader) reader).clearObservers();
-
-                                        /*
-                                         * In case where Reader was detected SE
-                                         */
-                                        ((ObservableReader) reader).stopSeDetection();
-                                    }
-                                    readers.remove(reader);
-                                    if (logger.isTraceEnabled()) {
-                                        logger.trace(
-                                                "[{}][{}] Plugin thread => Remove unplugged reader from readers list.",
-                                                this.pluginName, reader.getName());
-                                    }
-                                    /* remove reader name from the current list */
-                                    nativeReadersNames.remove(reader.getName());
-
-                                }
-                            }
-                            /* clean the list for a possible connection notification */
-                            changedReaderNames.clear();
-                        }
-                        /*
-                         * parse the new readers list, notify for readers appearance, update readers
-                         * list
-                         */
-                        for (String readerName : actualNativeReadersNames) {
-                            if (!nativeReadersNames.contains(readerName)) {
-                                SeReader reader = fetchNativeReader(readerName);
-                                readers.add(reader);
-                                /* add to the notification list */
-                                changedReaderNames.add(readerName);
-                                if (logger.isTraceEnabled()) {
-                                    logger.trace(
-                                            "[{}][{}] Plugin thread => Add plugged reader to readers list.",
-                                            this.pluginName, reader.getName());
-                                }
-                                /* add reader name to the current list */
-                                nativeReadersNames.add(readerName);
-                            }
-                        }
-                        /* notify connections if any */
-                        if (!changedReaderNames.isEmpty()) {
-                            if (logger.isTraceEnabled()) {
-                                logger.trace("Notifying connection(s): {}", changedReaderNames);
-                            }
-                            notifyObservers(new PluginEvent(this.pluginName, changedReaderNames,
-                                    PluginEvent.EventType.READER_CONNECTED));
+                    if (fetch) {
+                        /* retrieves the current readers names list and updates the readers */
+                        if (updateReaders(
+                                AbstractThreadedObservablePlugin.this.fetchNativeReadersNames())) {
+                            delay = pollingPolicy.getInterval();
+                        } else {
+                            delay = pollingPolicy.nextInterval(delay);
                         }
                     }
-                    /* sleep for a while. */
-                    Thread.sleep(threadWaitTimeout);
+                    /* wait for a change or for a while. */
+                    fetch = waitForNativeReadersChange(delay);
                 }
             } catch (InterruptedException e) {
                 logger.warn("[{}] An exception occurred while monitoring plugin: {}",
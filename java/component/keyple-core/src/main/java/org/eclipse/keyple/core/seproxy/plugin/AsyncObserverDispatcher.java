@@ -0,0 +1,358 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy.plugin;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.keyple.core.util.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Asynchronous delivery of the reader and plugin events to their observers.
+ * <p>
+ * When a dispatcher is set on an observable reader or plugin, the notification of an event only
+ * puts it in a bounded queue per observer: the monitoring thread of the reader or plugin is not
+ * blocked by a slow observer. Each queue is drained by a single task at a time on the executor of
+ * the dispatcher, the events of a reader (or plugin) are thus delivered to each of its observers
+ * in the order of their notification.
+ * <p>
+ * The {@link OverflowPolicy} defines what happens when the queue of an observer is full. The lag
+ * between the notification of an event and its delivery is measured, along with the number of
+ * delivered and dropped events.
+ * <p>
+ * A dispatcher can be shared between several readers and plugins.
+ */
+public final class AsyncObserverDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncObserverDispatcher.class);
+
+    /** default capacity of the queue of each observer */
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+    private static final long IDLE_THREAD_TIMEOUT = 60;
+
+    /** Behavior of the notification when the queue of an observer is full */
+    public enum OverflowPolicy {
+        /** the notifying thread waits until the observer has consumed an event */
+        BLOCK,
+        /** the oldest pending event of the observer is dropped */
+        DROP_OLDEST,
+        /** the notified event is dropped for this observer */
+        DROP_NEWEST
+    }
+
+    /**
+     * Delivery of an event to an observer
+     *
+     * @param <E> the type of event
+     */
+    public interface EventHandler<E> {
+        /**
+         * Delivers the event
+         *
+         * @param event the event
+         */
+        void handle(E event);
+    }
+
+    private final Executor executor;
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
+
+    private final LatencyHistogram lagHistogram = new LatencyHistogram();
+    private final AtomicLong droppedEventCount = new AtomicLong();
+    private final AtomicInteger pendingEventCount = new AtomicInteger();
+
+    /**
+     * Creates a dispatcher with its own pool of daemon threads, the idle threads are released
+     * after one minute
+     *
+     * @param queueCapacity the capacity of the queue of each observer
+     * @param overflowPolicy the behavior when the queue of an observer is full
+     */
+    public AsyncObserverDispatcher(int queueCapacity, OverflowPolicy overflowPolicy) {
+        this(new ThreadPoolExecutor(0, Integer.MAX_VALUE, IDLE_THREAD_TIMEOUT, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), new DaemonThreadFactory()), queueCapacity,
+                overflowPolicy);
+    }
+
+    /**
+     * Creates a dispatcher delivering the events on the provided executor
+     *
+     * @param executor the executor draining the queues
+     * @param queueCapacity the capacity of the queue of each observer
+     * @param overflowPolicy the behavior when the queue of an observer is full
+     */
+    public AsyncObserverDispatcher(Executor executor, int queueCapacity,
+            OverflowPolicy overflowPolicy) {
+        if (executor == null || overflowPolicy == null) {
+            throw new IllegalArgumentException("Executor and overflow policy must not be null");
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("The queue capacity must be positive");
+        }
+        this.executor = executor;
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Creates the queue of an observer
+     *
+     * @param name the name of the queue, used in the logs
+     * @param handler the delivery of the events to the observer
+     * @param <E> the type of event
+     * @return a new queue
+     */
+    public <E> EventQueue<E> newQueue(String name, EventHandler<E> handler) {
+        if (handler == null) {
+            throw new IllegalArgumentException("Handler must not be null");
+        }
+        return new EventQueue<E>(name, handler);
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * @return the live histogram of the delays between the notification of the events and the
+     *         beginning of their delivery, in microseconds
+     */
+    public LatencyHistogram getLagHistogram() {
+        return lagHistogram;
+    }
+
+    /**
+     * @return the number of events delivered (or being delivered) to the observers
+     */
+    public long getDeliveredEventCount() {
+        return lagHistogram.getCount();
+    }
+
+    /**
+     * @return the number of events dropped because of full queues
+     */
+    public long getDroppedEventCount() {
+        return droppedEventCount.get();
+    }
+
+    /**
+     * @return the number of events waiting in the queues
+     */
+    public int getPendingEventCount() {
+        return pendingEventCount.get();
+    }
+
+    /**
+     * Resets the delivered and dropped event counts and the lag histogram
+     */
+    public void resetStats() {
+        lagHistogram.reset();
+        droppedEventCount.set(0);
+    }
+
+    /**
+     * Shuts the executor down if it is an {@link ExecutorService}, the pending events are not
+     * delivered.
+     */
+    public void shutdown() {
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdownNow();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncObserverDispatcher{" + "queueCapacity=" + queueCapacity + ", overflowPolicy="
+                + overflowPolicy + ", delivered=" + getDeliveredEventCount() + ", dropped="
+                + getDroppedEventCount() + ", pending=" + getPendingEventCount() + ", lag="
+                + lagHistogram + '}';
+    }
+
+    /**
+     * Queue of the events of an observer
+     *
+     * @param <E> the type of event
+     */
+    public final class EventQueue<E> implements Runnable {
+
+        private final String name;
+        private final EventHandler<E> handler;
+        private final BlockingQueue<PendingEvent<E>> queue =
+                new ArrayBlockingQueue<PendingEvent<E>>(queueCapacity);
+        /* true while a drain task is submitted or running */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private EventQueue(String name, EventHandler<E> handler) {
+            this.name = name;
+            this.handler = handler;
+        }
+
+        /**
+         * Queues an event for the observer, according to the overflow policy of the dispatcher
+         *
+         * @param event the event
+         */
+        public void offer(E event) {
+            if (closed) {
+                return;
+            }
+            PendingEvent<E> pendingEvent = new PendingEvent<E>(event, System.nanoTime());
+            switch (overflowPolicy) {
+                case BLOCK:
+                    try {
+                        queue.put(pendingEvent);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        drop(pendingEvent);
+                        return;
+                    }
+                    break;
+                case DROP_OLDEST:
+                    while (!queue.offer(pendingEvent)) {
+                        PendingEvent<E> oldest = queue.poll();
+                        if (oldest != null) {
+                            pendingEventCount.decrementAndGet();
+                            drop(oldest);
+                        }
+                    }
+                    break;
+                default:
+                    if (!queue.offer(pendingEvent)) {
+                        drop(pendingEvent);
+                        return;
+                    }
+                    break;
+            }
+            pendingEventCount.incrementAndGet();
+            if (closed) {
+                /* closed while the event was queued: it must not remain in the queue */
+                discardPendingEvents();
+                return;
+            }
+            schedule();
+        }
+
+        /**
+         * Discards the pending events, the next events are ignored
+         */
+        public void close() {
+            closed = true;
+            discardPendingEvents();
+        }
+
+        /* each event is counted down by the thread which removes it from the queue */
+        private void discardPendingEvents() {
+            int nbDiscarded = 0;
+            while (queue.poll() != null) {
+                nbDiscarded++;
+            }
+            pendingEventCount.addAndGet(-nbDiscarded);
+        }
+
+        /**
+         * @return the number of events waiting in this queue
+         */
+        public int size() {
+            return queue.size();
+        }
+
+        private void drop(PendingEvent<E> pendingEvent) {
+            droppedEventCount.incrementAndGet();
+            if (logger.isDebugEnabled()) {
+                logger.debug("[{}] Queue full, event dropped: {}", name, pendingEvent.event);
+            }
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                    logger.warn("[{}] Dispatcher is shut down, events not delivered", name);
+                }
+            }
+        }
+
+        /**
+         * Delivers the pending events in order
+         */
+        @Override
+        public void run() {
+            while (true) {
+                PendingEvent<E> pendingEvent = queue.poll();
+                if (pendingEvent == null) {
+                    scheduled.set(false);
+                    /* an event queued after the poll and before the reset must not be left */
+                    if (queue.isEmpty() || !scheduled.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                pendingEventCount.decrementAndGet();
+                lagHistogram.record((System.nanoTime() - pendingEvent.timestamp) / 1000);
+                if (closed) {
+                    continue;
+                }
+                try {
+                    handler.handle(pendingEvent.event);
+                } catch (RuntimeException e) {
+                    logger.error("[{}] Observer failed to process the event {}", name,
+                            pendingEvent.event, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Event waiting in a queue, with the time of its notification
+     */
+    private static final class PendingEvent<E> {
+        private final E event;
+        private final long timestamp;
+
+        private PendingEvent(E event, long timestamp) {
+            this.event = event;
+            this.timestamp = timestamp;
+        }
+    }
+
+    /**
+     * Creates daemon threads with a numbered name
+     */
+    private static final class DaemonThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread =
+                    new Thread(r, "AsyncObserverDispatcher-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
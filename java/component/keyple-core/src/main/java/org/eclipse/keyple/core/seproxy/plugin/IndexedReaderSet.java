@@ -0,0 +1,150 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy.plugin;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import org.eclipse.keyple.core.seproxy.SeReader;
+
+/**
+ * Sorted set of the readers of a plugin, indexed by reader name.
+ * <p>
+ * The index is maintained by the mutation methods of the set and of its iterator, so that
+ * {@link #get(String)} does not scan the readers. The views of the set (subSet, headSet, ...) must
+ * not be used to add or remove readers.
+ */
+final class IndexedReaderSet extends ConcurrentSkipListSet<SeReader> {
+
+    private static final long serialVersionUID = 1L;
+
+    private ConcurrentMap<String, SeReader> readersByName =
+            new ConcurrentHashMap<String, SeReader>();
+
+    /**
+     * Gets a reader by its name
+     *
+     * @param name the name of the reader
+     * @return the reader or null if there is no reader with this name
+     */
+    SeReader get(String name) {
+        if (name == null) {
+            return null;
+        }
+        SeReader reader = readersByName.get(name);
+        if (reader == null) {
+            // a reader added through a view of the set is found and indexed anyway
+            for (SeReader candidate : this) {
+                if (candidate.getName().equals(name)) {
+                    readersByName.putIfAbsent(name, candidate);
+                    return candidate;
+                }
+            }
+        }
+        return reader;
+    }
+
+    @Override
+    public boolean add(SeReader reader) {
+        if (super.add(reader)) {
+            readersByName.put(reader.getName(), reader);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends SeReader> readers) {
+        boolean modified = false;
+        for (SeReader reader : readers) {
+            if (add(reader)) {
+                modified = true;
+            }
+        }
+        return modified;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (super.remove(o)) {
+            unindex((SeReader) o);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public SeReader pollFirst() {
+        SeReader reader = super.pollFirst();
+        if (reader != null) {
+            unindex(reader);
+        }
+        return reader;
+    }
+
+    @Override
+    public SeReader pollLast() {
+        SeReader reader = super.pollLast();
+        if (reader != null) {
+            unindex(reader);
+        }
+        return reader;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        readersByName.clear();
+    }
+
+    @Override
+    public Iterator<SeReader> iterator() {
+        final Iterator<SeReader> iterator = super.iterator();
+        return new Iterator<SeReader>() {
+            private SeReader current;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public SeReader next() {
+                current = iterator.next();
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                unindex(current);
+            }
+        };
+    }
+
+    /* the readers are compared by name: the removed reader may be another instance */
+    private void unindex(SeReader reader) {
+        SeReader indexed = readersByName.get(reader.getName());
+        if (indexed != null && !contains(indexed)) {
+            readersByName.remove(reader.getName(), indexed);
+        }
+    }
+
+    @Override
+    public IndexedReaderSet clone() {
+        IndexedReaderSet clone = (IndexedReaderSet) super.clone();
+        clone.readersByName = new ConcurrentHashMap<String, SeReader>(readersByName);
+        return clone;
+    }
+}
@@ -0,0 +1,179 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy.plugin;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.eclipse.keyple.core.seproxy.plugin.AsyncObserverDispatcher.EventQueue;
+
+/**
+ * Observers of an observable reader or plugin, and delivery of their events.
+ * <p>
+ * The events are delivered to the observers by the notifying thread, or through a queue per
+ * observer when an {@link AsyncObserverDispatcher} is set. The notifications iterate over the
+ * observers without locking, the modifications of the observers and of their queues are
+ * serialized.
+ *
+ * @param <O> the type of observer
+ * @param <E> the type of event
+ */
+public abstract class ObserverRegistry<O, E> {
+
+    private final String name;
+    private final List<O> observers = new CopyOnWriteArrayList<O>();
+    /* this object is used to synchronize the modifications of the observers and of their queues */
+    private final Object sync = new Object();
+
+    /* The dispatcher of the events when they are delivered asynchronously, null otherwise */
+    private volatile AsyncObserverDispatcher dispatcher;
+    /* The event queue of each observer when the events are delivered asynchronously */
+    private final ConcurrentMap<O, EventQueue<E>> queues =
+            new ConcurrentHashMap<O, EventQueue<E>>();
+
+    /**
+     * Constructor
+     *
+     * @param name the name of the observed reader or plugin, used in the logs
+     */
+    protected ObserverRegistry(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Delivers an event to an observer
+     *
+     * @param observer the observer
+     * @param event the event
+     */
+    protected abstract void update(O observer, E event);
+
+    /**
+     * Adds an observer
+     *
+     * @param observer the observer
+     */
+    public final void add(O observer) {
+        synchronized (sync) {
+            if (dispatcher != null && !queues.containsKey(observer)) {
+                queues.put(observer, newQueue(dispatcher, observer));
+            }
+            observers.add(observer);
+        }
+    }
+
+    /**
+     * Removes an observer, its pending events are discarded
+     *
+     * @param observer the observer
+     */
+    public final void remove(O observer) {
+        synchronized (sync) {
+            observers.remove(observer);
+            if (!observers.contains(observer)) {
+                EventQueue<E> queue = queues.remove(observer);
+                if (queue != null) {
+                    queue.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all the observers, their pending events are discarded
+     */
+    public final void clear() {
+        synchronized (sync) {
+            observers.clear();
+            closeQueues();
+        }
+    }
+
+    /**
+     * @return the number of observers
+     */
+    public final int size() {
+        return observers.size();
+    }
+
+    /**
+     * Delivers an event to all the observers, or queues it for each of them when a dispatcher is
+     * set
+     *
+     * @param event the event
+     */
+    public final void notify(E event) {
+        if (dispatcher == null) {
+            for (O observer : observers) {
+                update(observer, event);
+            }
+        } else {
+            for (O observer : observers) {
+                /* a queue closed concurrently discards the event */
+                EventQueue<E> queue = queues.get(observer);
+                if (queue != null) {
+                    queue.offer(event);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the dispatcher delivering the events to the observers, the events pending in the queues
+     * of the previous dispatcher are discarded
+     *
+     * @param dispatcher the dispatcher, null to call the observers synchronously
+     */
+    public final void setDispatcher(AsyncObserverDispatcher dispatcher) {
+        synchronized (sync) {
+            if (dispatcher == null) {
+                this.dispatcher = null;
+                closeQueues();
+                return;
+            }
+            closeQueues();
+            for (O observer : observers) {
+                if (!queues.containsKey(observer)) {
+                    queues.put(observer, newQueue(dispatcher, observer));
+                }
+            }
+            /* set once the queues exist */
+            this.dispatcher = dispatcher;
+        }
+    }
+
+    /**
+     * @return the dispatcher delivering the events to the observers, null if they are called
+     *         synchronously
+     */
+    public final AsyncObserverDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    private EventQueue<E> newQueue(AsyncObserverDispatcher dispatcher, final O observer) {
+        return dispatcher.newQueue(name, new AsyncObserverDispatcher.EventHandler<E>() {
+            @Override
+            public void handle(E event) {
+                update(observer, event);
+            }
+        });
+    }
+
+    /* must be called with the lock held */
+    private void closeQueues() {
+        for (EventQueue<E> queue : queues.values()) {
+            queue.close();
+        }
+        queues.clear();
+    }
+}
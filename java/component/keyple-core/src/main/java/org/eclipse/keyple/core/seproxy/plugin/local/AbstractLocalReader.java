@@ -11,7 +11,11 @@
  ********************************************************************************/
 package org.eclipse.keyple.core.seproxy.plugin.local;
 
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import org.eclipse.keyple.core.metrics.MetricsProvider;
 import org.eclipse.keyple.core.seproxy.ChannelControl;
 import org.eclipse.keyple.core.seproxy.MultiSeRequestProcessing;
 import org.eclipse.keyple.core.seproxy.SeSelector;
@@ -21,6 +25,7 @@ import org.eclipse.keyple.core.seproxy.message.*;
 import org.eclipse.keyple.core.seproxy.plugin.AbstractReader;
 import org.eclipse.keyple.core.seproxy.protocol.SeProtocol;
 import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.eclipse.keyple.core.util.HexPatternClassifier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,9 +40,22 @@ public abstract class AbstractLocalReader extends AbstractReader {
     /** logger */
     private static final Logger logger = LoggerFactory.getLogger(AbstractLocalReader.class);
 
+    /** maximum length of an APDU response: extended length data and status word */
+    public static final int MAX_RESPONSE_LENGTH = 65538;
+
     /** predefined "get response" byte array */
     private static final byte[] getResponseHackRequestBytes = ByteArrayUtil.fromHex("00C0000000");
 
+    /** predefined "get data" (FCI) byte array */
+    private static final byte[] getDataFciRequestBytes = ByteArrayUtil.fromHex("00CA006F00");
+
+    /** predefined "manage channel" (open) byte array */
+    private static final byte[] manageChannelOpenRequestBytes =
+            ByteArrayUtil.fromHex("0070000001");
+
+    /** highest logical channel number (ISO/IEC 7816-4) */
+    public static final int MAX_CHANNEL_NUMBER = 19;
+
     /** logical channel status flag */
     private boolean logicalChannelIsOpen = false;
 
@@ -47,8 +65,22 @@ public abstract class AbstractLocalReader extends AbstractReader {
     /** current selection status */
     private SelectionStatus currentSelectionStatus;
 
-    /** Timestamp recorder */
-    private long before;
+    /** last select application command, reused while the selected AID does not change */
+    private volatile byte[] selectApplicationCommand;
+
+    /**
+     * lock of the APDU exchanges with the SE, shared by the basic channel and the supplementary
+     * logical channels
+     */
+    private final Object exchangeLock = new Object();
+
+    /** the supplementary logical channels currently open */
+    private final List<LogicalChannelReader> supplementaryChannels =
+            new CopyOnWriteArrayList<LogicalChannelReader>();
+
+    /** response buffer of the BufferedTransmitReaders, taken from the pool during an exchange */
+    private final AtomicReference<ByteBuffer> transmitBufferPool =
+            new AtomicReference<ByteBuffer>();
 
     /** ==== Constructor =================================================== */
 
@@ -56,19 +88,12 @@ public abstract class AbstractLocalReader extends AbstractReader {
      * Reader constructor
      * <p>
      * Force the definition of a name through the use of super method.
-     * <p>
-     * Initialize the time measurement
      *
      * @param pluginName the name of the plugin that instantiated the reader
      * @param readerName the name of the reader
      */
     public AbstractLocalReader(String pluginName, String readerName) {
         super(pluginName, readerName);
-        this.before = System.nanoTime(); /*
-                                          * provides an initial value for measuring the
-                                          * inter-exchange time. The first measurement gives the
-                                          * time elapsed since the plugin was loaded.
-                                          */
     }
 
     /** ==== Card presence management ====================================== */
@@ -113,6 +138,7 @@ public abstract class AbstractLocalReader extends AbstractReader {
     protected void closeLogicalAndPhysicalChannels() {
         closeLogicalChannel();
         try {
+            closeSupplementaryChannels();
             closePhysicalChannel();
         } catch (KeypleReaderIOException e) {
             logger.debug("[{}] Exception occurred in closeLogicalAndPhysicalChannels. Message: {}",
@@ -139,19 +165,20 @@ public abstract class AbstractLocalReader extends AbstractReader {
      * <p>
      *
      * @param aidSelector used to retrieve the successful status codes from the main AidSelector
+     * @param channelNumber the number of the logical channel
      * @return a ApduResponse containing the FCI
      */
-    private ApduResponse recoverSelectionFciData(SeSelector.AidSelector aidSelector)
-            throws KeypleReaderIOException {
+    private ApduResponse recoverSelectionFciData(SeSelector.AidSelector aidSelector,
+            int channelNumber) throws KeypleReaderIOException {
         ApduResponse fciResponse;
         // Get Data APDU: CLA, INS, P1: always 0, P2: 0x6F FCI for the current DF, LC: 0
-        byte[] getDataCommand = {(byte) 0x00, (byte) 0xCA, (byte) 0x00, (byte) 0x6F, (byte) 0x00};
-
         /*
          * The successful status codes list for this command is provided.
          */
-        fciResponse = processApduRequest(new ApduRequest("Internal Get Data", getDataCommand, false,
-                aidSelector.getSuccessfulSelectionStatusCodes()));
+        fciResponse = processApduRequest(
+                new ApduRequest("Internal Get Data", getDataFciRequestBytes, false,
+                        aidSelector.getSuccessfulSelectionStatusCodes()),
+                channelNumber);
 
         if (!fciResponse.isSuccessful()) {
             logger.debug("[{}] selectionGetData => Get data failed. SELECTOR = {}", this.getName(),
@@ -165,11 +192,12 @@ public abstract class AbstractLocalReader extends AbstractReader {
      * AidSelector attributes.
      *
      * @param aidSelector the selection parameters
+     * @param channelNumber the number of the logical channel
      * @return the response to the select application command
      * @throws KeypleReaderIOException if the communication with the reader or the SE has failed
      */
-    private ApduResponse processExplicitAidSelection(SeSelector.AidSelector aidSelector)
-            throws KeypleReaderIOException {
+    private ApduResponse processExplicitAidSelection(SeSelector.AidSelector aidSelector,
+            int channelNumber) throws KeypleReaderIOException {
         ApduResponse fciResponse;
         final byte[] aid = aidSelector.getAidToSelect();
         if (aid == null) {
@@ -179,28 +207,19 @@ public abstract class AbstractLocalReader extends AbstractReader {
             logger.debug("[{}] openLogicalChannel => Select Application with AID = {}",
                     this.getName(), ByteArrayUtil.toHex(aid));
         }
-        /*
-         * build a get response command the actual length expected by the SE in the get response
-         * command is handled in transmitApdu
-         */
-        byte[] selectApplicationCommand = new byte[6 + aid.length];
-        selectApplicationCommand[0] = (byte) 0x00; // CLA
-        selectApplicationCommand[1] = (byte) 0xA4; // INS
-        selectApplicationCommand[2] = (byte) 0x04; // P1: select by name
         // P2: b0,b1 define the File occurrence, b2,b3 define the File control information
         // we use the bitmask defined in the respective enums
-        selectApplicationCommand[3] = (byte) (aidSelector.getFileOccurrence().getIsoBitMask()
+        byte p2 = (byte) (aidSelector.getFileOccurrence().getIsoBitMask()
                 | aidSelector.getFileControlInformation().getIsoBitMask());
-        selectApplicationCommand[4] = (byte) (aid.length); // Lc
-        System.arraycopy(aid, 0, selectApplicationCommand, 5, aid.length); // data
-        selectApplicationCommand[5 + aid.length] = (byte) 0x00; // Le
 
         /*
          * we use here processApduRequest to manage case 4 hack. The successful status codes list
          * for this command is provided.
          */
-        fciResponse = processApduRequest(new ApduRequest("Internal Select Application",
-                selectApplicationCommand, true, aidSelector.getSuccessfulSelectionStatusCodes()));
+        fciResponse = processApduRequest(
+                new ApduRequest("Internal Select Application", getSelectApplicationCommand(aid, p2),
+                        true, aidSelector.getSuccessfulSelectionStatusCodes()),
+                channelNumber);
 
         if (!fciResponse.isSuccessful()) {
             logger.debug("[{}] openLogicalChannel => Application Selection failed. SELECTOR = {}",
@@ -209,6 +228,43 @@ public abstract class AbstractLocalReader extends AbstractReader {
         return fciResponse;
     }
 
+    /**
+     * Gets the select application command for the provided AID.
+     * <p>
+     * The command of the previous selection is reused when it selects the same AID, which is
+     * usually the case from one SE to the next. A command is never modified once built.
+     *
+     * @param aid the AID to select
+     * @param p2 the P2 parameter (file occurrence and file control information)
+     * @return the command
+     */
+    private byte[] getSelectApplicationCommand(byte[] aid, byte p2) {
+        byte[] command = selectApplicationCommand;
+        if (command != null && command.length == 6 + aid.length && command[3] == p2) {
+            int i = 0;
+            while (i < aid.length && command[5 + i] == aid[i]) {
+                i++;
+            }
+            if (i == aid.length) {
+                return command;
+            }
+        }
+        /*
+         * build a select application command the actual length expected by the SE in the get
+         * response command is handled in transmitApdu
+         */
+        command = new byte[6 + aid.length];
+        command[0] = (byte) 0x00; // CLA
+        command[1] = (byte) 0xA4; // INS
+        command[2] = (byte) 0x04; // P1: select by name
+        command[3] = p2;
+        command[4] = (byte) (aid.length); // Lc
+        System.arraycopy(aid, 0, command, 5, aid.length); // data
+        command[5 + aid.length] = (byte) 0x00; // Le
+        selectApplicationCommand = command;
+        return command;
+    }
+
     /*
      * This abstract method must be implemented by the derived class in order to provide a selection
      * and ATR filtering mechanism. <p> The Selector provided in argument holds all the needed data
@@ -234,6 +290,20 @@ public abstract class AbstractLocalReader extends AbstractReader {
     @Deprecated
     protected SelectionStatus openLogicalChannel(SeSelector seSelector)
             throws KeypleReaderIOException {
+        return processSelection(seSelector, 0);
+    }
+
+    /**
+     * Performs the ATR filtering and the application selection on a logical channel
+     *
+     * @param seSelector the targeted application SE selector
+     * @param channelNumber the number of the logical channel (0 for the basic channel)
+     * @return the SelectionStatus containing the actual selection result (ATR and/or FCI and the
+     *         matching status flag).
+     * @throws KeypleReaderIOException if the communication with the reader or the SE has failed
+     */
+    final SelectionStatus processSelection(SeSelector seSelector, int channelNumber)
+            throws KeypleReaderIOException {
         byte[] atr = getATR();
         boolean selectionHasMatched = true;
         SelectionStatus selectionStatus;
@@ -265,14 +335,15 @@ public abstract class AbstractLocalReader extends AbstractReader {
         if (selectionHasMatched && seSelector.getAidSelector() != null) {
             ApduResponse fciResponse;
 
-            if (this instanceof SmartSelectionReader) {
+            if (this instanceof SmartSelectionReader && channelNumber == 0) {
                 fciResponse = ((SmartSelectionReader) this)
                         .openChannelForAid(seSelector.getAidSelector());
             } else {
-                fciResponse = processExplicitAidSelection(seSelector.getAidSelector());
+                fciResponse =
+                        processExplicitAidSelection(seSelector.getAidSelector(), channelNumber);
             }
 
-            if (fciResponse.isSuccessful() && fciResponse.getDataOut().length == 0) {
+            if (fciResponse.isSuccessful() && fciResponse.getDataOutLength() == 0) {
                 /*
                  * The selection didn't provide data (e.g. OMAPI), we get the FCI using a Get Data
                  * command.
@@ -280,7 +351,8 @@ public abstract class AbstractLocalReader extends AbstractReader {
                  * The AID selector is provided to handle successful status word in the Get Data
                  * command.
                  */
-                fciResponse = recoverSelectionFciData(seSelector.getAidSelector());
+                fciResponse =
+                        recoverSelectionFciData(seSelector.getAidSelector(), channelNumber);
             }
 
             /*
@@ -396,6 +468,127 @@ public abstract class AbstractLocalReader extends AbstractReader {
         currentSelectionStatus = null;
     }
 
+    /**
+     * Opens a supplementary logical channel on the SE, in addition to the basic channel.
+     * <p>
+     * The channel is opened natively when the reader implements {@link SmartLogicalChannelReader},
+     * with a MANAGE CHANNEL command sent on the basic channel otherwise.
+     * <p>
+     * The returned reader transmits its requests on the new logical channel, with its own
+     * selection state: the default application of the SE is selected when the channel is opened.
+     * The exchanges of the different channels can be interleaved, each APDU exchange (including
+     * the Get Response command possibly needed) is performed atomically.
+     * <p>
+     * The supplementary channels are closed with {@link LogicalChannelReader#close()}, or when the
+     * physical channel is closed.
+     *
+     * @return the reader of the new logical channel, null if the SE refused to open a channel (no
+     *         more channel available or logical channels not supported)
+     * @throws KeypleReaderIOException if the communication with the reader or the SE has failed
+     */
+    public final LogicalChannelReader openSupplementaryChannel() throws KeypleReaderIOException {
+        if (!isPhysicalChannelOpen()) {
+            openPhysicalChannel();
+        }
+        if (!isPhysicalChannelOpen()) {
+            throw new KeypleReaderIOException("Fail to open physical channel.");
+        }
+        int channelNumber;
+        if (this instanceof SmartLogicalChannelReader) {
+            synchronized (exchangeLock) {
+                channelNumber = ((SmartLogicalChannelReader) this).openLogicalChannelNative();
+            }
+        } else {
+            ApduResponse response = processApduRequest(
+                    new ApduRequest("Internal Manage Channel", manageChannelOpenRequestBytes,
+                            false),
+                    0);
+            channelNumber = response.isSuccessful() && response.getDataOut().length == 1
+                    ? response.getDataOut()[0] & 0xFF
+                    : -1;
+        }
+        if (channelNumber < 1 || channelNumber > MAX_CHANNEL_NUMBER) {
+            logger.debug("[{}] openSupplementaryChannel => No logical channel available.",
+                    this.getName());
+            return null;
+        }
+        LogicalChannelReader channelReader = new LogicalChannelReader(this, channelNumber);
+        supplementaryChannels.add(channelReader);
+        logger.debug("[{}] openSupplementaryChannel => Logical channel {} open.", this.getName(),
+                channelNumber);
+        return channelReader;
+    }
+
+    /**
+     * Closes a supplementary logical channel on the SE
+     *
+     * @param channelReader the reader of the channel
+     * @throws KeypleReaderIOException if the communication with the reader or the SE has failed
+     */
+    final void closeSupplementaryChannel(LogicalChannelReader channelReader)
+            throws KeypleReaderIOException {
+        if (!supplementaryChannels.remove(channelReader)) {
+            return;
+        }
+        int channelNumber = channelReader.getChannelNumber();
+        if (this instanceof SmartLogicalChannelReader) {
+            synchronized (exchangeLock) {
+                ((SmartLogicalChannelReader) this).closeLogicalChannelNative(channelNumber);
+            }
+        } else {
+            // MANAGE CHANNEL (close): CLA, INS, P1: 80h, P2: channel number
+            processApduRequest(new ApduRequest("Internal Manage Channel",
+                    new byte[] {(byte) 0x00, (byte) 0x70, (byte) 0x80, (byte) channelNumber},
+                    false), 0);
+        }
+        logger.debug("[{}] closeSupplementaryChannel => Logical channel {} closed.",
+                this.getName(), channelNumber);
+    }
+
+    /**
+     * Gets the supplementary logical channels currently open
+     *
+     * @return the readers of the channels
+     */
+    public final List<LogicalChannelReader> getSupplementaryChannels() {
+        return new ArrayList<LogicalChannelReader>(supplementaryChannels);
+    }
+
+    /**
+     * Forgets the supplementary logical channels when the physical channel is about to be closed
+     */
+    private void closeSupplementaryChannels() {
+        for (LogicalChannelReader channelReader : supplementaryChannels) {
+            channelReader.invalidate();
+        }
+        supplementaryChannels.clear();
+    }
+
+    /**
+     * Sets the logical channel number in the class byte of an APDU (ISO/IEC 7816-4 first and
+     * further interindustry class encodings, also applied to the proprietary classes)
+     *
+     * @param apdu the APDU (not modified)
+     * @param channelNumber the logical channel number (0 to {@value #MAX_CHANNEL_NUMBER})
+     * @return a copy of the APDU with the updated class byte, the APDU itself for channel 0 if its
+     *         class byte is already set for the basic channel
+     */
+    static byte[] setChannelNumber(byte[] apdu, int channelNumber) {
+        int cla = apdu[0] & 0xFF;
+        byte newCla;
+        if (channelNumber <= 3) {
+            newCla = (byte) ((cla & 0xBC) | channelNumber);
+        } else {
+            newCla = (byte) ((cla & 0xB0) | 0x40 | (channelNumber - 4));
+        }
+        if (newCla == apdu[0]) {
+            return apdu;
+        }
+        byte[] command = apdu.clone();
+        command[0] = newCla;
+        return command;
+    }
+
     /* ==== Protocol management =========================================== */
 
     /**
@@ -407,6 +600,18 @@ public abstract class AbstractLocalReader extends AbstractReader {
      */
     protected final Map<SeProtocol, String> protocolsMap = new HashMap<SeProtocol, String>();
 
+    /**
+     * All the protocol rules of protocolsMap compiled together, null until needed or after a change
+     * of the protocol setting.
+     */
+    private volatile HexPatternClassifier<SeProtocol> protocolClassifier;
+
+    /* guards the protocol setting updates and the compilation of the classifier */
+    private final Object protocolSettingLock = new Object();
+
+    /** The last classification, reused as long as the same value is classified */
+    private volatile ProtocolClassification lastClassification;
+
     /**
      * Defines the protocol setting Map to allow SE to be differentiated according to their
      * communication protocol.
@@ -416,7 +621,10 @@ public abstract class AbstractLocalReader extends AbstractReader {
      */
     @Override
     public void addSeProtocolSetting(SeProtocol seProtocol, String protocolRule) {
-        this.protocolsMap.put(seProtocol, protocolRule);
+        synchronized (protocolSettingLock) {
+            this.protocolsMap.put(seProtocol, protocolRule);
+            this.protocolClassifier = null;
+        }
     }
 
     /**
@@ -426,7 +634,87 @@ public abstract class AbstractLocalReader extends AbstractReader {
      */
     @Override
     public void setSeProtocolSetting(Map<SeProtocol, String> protocolSetting) {
-        this.protocolsMap.putAll(protocolSetting);
+        synchronized (protocolSettingLock) {
+            this.protocolsMap.putAll(protocolSetting);
+            this.protocolClassifier = null;
+        }
+    }
+
+    /**
+     * Gets the protocols whose rule is matched by the hexadecimal representation of the provided
+     * bytes (e.g. the ATR of the current SE).
+     * <p>
+     * All the rules of protocolsMap are evaluated at once (see {@link HexPatternClassifier}), the
+     * result is kept until another value is classified: the successive protocol checks of a
+     * multiple selection only cost a lookup.
+     *
+     * @param value the bytes to classify
+     * @return the matching protocols (empty if none)
+     */
+    protected final Set<SeProtocol> getMatchingProtocols(byte[] value) {
+        ProtocolClassification classification = lastClassification;
+        HexPatternClassifier<SeProtocol> classifier = getProtocolClassifier();
+        if (classification == null || classification.classifier != classifier
+                || !(classification.value instanceof byte[])
+                || !Arrays.equals((byte[]) classification.value, value)) {
+            classification = new ProtocolClassification(classifier, value.clone(),
+                    classifier.classify(value));
+            lastClassification = classification;
+        }
+        return classification.protocols;
+    }
+
+    /**
+     * Gets the protocols whose rule is matched by the provided value (e.g. a protocol or
+     * technology name provided by the reader).
+     * <p>
+     * Same as {@link #getMatchingProtocols(byte[])} for non hexadecimal values.
+     *
+     * @param value the value to classify
+     * @return the matching protocols (empty if none)
+     */
+    protected final Set<SeProtocol> getMatchingProtocols(String value) {
+        ProtocolClassification classification = lastClassification;
+        HexPatternClassifier<SeProtocol> classifier = getProtocolClassifier();
+        if (classification == null || classification.classifier != classifier
+                || !value.equals(classification.value)) {
+            classification =
+                    new ProtocolClassification(classifier, value, classifier.classify(value));
+            lastClassification = classification;
+        }
+        return classification.protocols;
+    }
+
+    private HexPatternClassifier<SeProtocol> getProtocolClassifier() {
+        HexPatternClassifier<SeProtocol> classifier = protocolClassifier;
+        if (classifier == null) {
+            /* compiled under the lock: a concurrent setting update can not be missed */
+            synchronized (protocolSettingLock) {
+                classifier = protocolClassifier;
+                if (classifier == null) {
+                    classifier = HexPatternClassifier
+                            .compile(new HashMap<SeProtocol, String>(protocolsMap));
+                    protocolClassifier = classifier;
+                }
+            }
+        }
+        return classifier;
+    }
+
+    /**
+     * Protocols matched by a value, with the classifier used
+     */
+    private static final class ProtocolClassification {
+        private final HexPatternClassifier<SeProtocol> classifier;
+        private final Object value;
+        private final Set<SeProtocol> protocols;
+
+        private ProtocolClassification(HexPatternClassifier<SeProtocol> classifier, Object value,
+                Set<SeProtocol> protocols) {
+            this.classifier = classifier;
+            this.value = value;
+            this.protocols = Collections.unmodifiableSet(protocols);
+        }
     }
 
     /**
@@ -559,6 +847,7 @@ public abstract class AbstractLocalReader extends AbstractReader {
                          * Not observable/observed: close immediately the physical channel if
                          * requested
                          */
+                        closeSupplementaryChannels();
                         closePhysicalChannel();
                     }
 
@@ -608,6 +897,7 @@ public abstract class AbstractLocalReader extends AbstractReader {
             if (!(this instanceof ObservableReader)
                     || (((ObservableReader) this).countObservers() == 0)) {
                 /* Not observable/observed: close immediately the physical channel if requested */
+                closeSupplementaryChannels();
                 closePhysicalChannel();
             }
 
@@ -728,6 +1018,8 @@ public abstract class AbstractLocalReader extends AbstractReader {
                     return null;
                 }
 
+                MetricsProvider.getMetrics().recordSelection(getName(),
+                        selectionStatus.hasMatched());
                 if (selectionStatus.hasMatched()) {
                     /* The selection process succeeded, the logical channel is open */
                     logicalChannelIsOpen = true;
@@ -780,7 +1072,8 @@ public abstract class AbstractLocalReader extends AbstractReader {
      * Transmits an ApduRequest and receives the ApduResponse
      * <p>
      * The time measurement is carried out and logged with the detailed information of the exchanges
-     * (TRACE level).
+     * (DEBUG level), it is recorded in the {@link org.eclipse.keyple.core.metrics.KeypleMetrics} in
+     * use.
      *
      * @param apduRequest APDU request
      * @return APDU response
@@ -788,31 +1081,49 @@ public abstract class AbstractLocalReader extends AbstractReader {
      */
     private ApduResponse processApduRequest(ApduRequest apduRequest)
             throws KeypleReaderIOException {
+        return processApduRequest(apduRequest, 0);
+    }
+
+    /**
+     * Transmits an ApduRequest on a logical channel and receives the ApduResponse
+     * <p>
+     * The class byte of the command is set according to the channel number, the exchange is
+     * performed atomically with respect to the other logical channels.
+     *
+     * @param apduRequest APDU request
+     * @param channelNumber the number of the logical channel (0 for the basic channel)
+     * @return APDU response
+     * @throws KeypleReaderIOException if the communication with the reader or the SE has failed
+     */
+    final ApduResponse processApduRequest(ApduRequest apduRequest, int channelNumber)
+            throws KeypleReaderIOException {
         ApduResponse apduResponse;
         if (logger.isDebugEnabled()) {
-            long timeStamp = System.nanoTime();
-            long elapsed10ms = (timeStamp - before) / 100000;
-            this.before = timeStamp;
-            logger.debug("[{}] processApduRequest => {}, elapsed {} ms.", this.getName(),
-                    apduRequest, elapsed10ms / 10.0);
+            logger.debug("[{}] processApduRequest => {}", this.getName(), apduRequest);
         }
 
+        long start = System.nanoTime();
         byte[] buffer = apduRequest.getBytes();
-        apduResponse =
-                new ApduResponse(transmitApdu(buffer), apduRequest.getSuccessfulStatusCodes());
-
-        if (apduRequest.isCase4() && apduResponse.getDataOut().length == 0
-                && apduResponse.isSuccessful()) {
-            // do the get response command but keep the original status code
-            apduResponse = case4HackGetResponse(apduResponse.getStatusCode());
+        if (channelNumber != 0) {
+            buffer = setChannelNumber(buffer, channelNumber);
+        }
+        synchronized (exchangeLock) {
+            apduResponse = new ApduResponse(transmit(buffer, channelNumber),
+                    apduRequest.getSuccessfulStatusCodes());
+
+            if (apduRequest.isCase4() && apduResponse.getDataOutLength() == 0
+                    && apduResponse.isSuccessful()) {
+                // do the get response command but keep the original status code
+                apduResponse = case4HackGetResponse(apduResponse.getStatusCode(), channelNumber);
+            }
         }
+        long elapsed = System.nanoTime() - start;
+        MetricsProvider.getMetrics().recordApduExchange(getName(), apduRequest.getName(),
+                elapsed / 1000);
 
         if (logger.isDebugEnabled()) {
-            long timeStamp = System.nanoTime();
-            long elapsed10ms = (timeStamp - before) / 100000;
-            this.before = timeStamp;
             logger.debug("[{}] processApduRequest => {}, elapsed {} ms.", this.getName(),
-                    apduResponse, elapsed10ms / 10.0);
+                    apduResponse, elapsed / 100000 / 10.0);
         }
         return apduResponse;
     }
@@ -823,34 +1134,31 @@ public abstract class AbstractLocalReader extends AbstractReader {
      * right get response management by transmitApdu
      *
      * @param originalStatusCode the status code of the command that didn't returned data
+     * @param channelNumber the number of the logical channel
      * @return ApduResponse the response to the get response command
      * @throws KeypleReaderIOException if the communication with the reader or the SE has failed
      */
-    private ApduResponse case4HackGetResponse(int originalStatusCode)
+    private ApduResponse case4HackGetResponse(int originalStatusCode, int channelNumber)
             throws KeypleReaderIOException {
         /*
          * build a get response command the actual length expected by the SE in the get response
          * command is handled in transmitApdu
          */
         if (logger.isDebugEnabled()) {
-            long timeStamp = System.nanoTime();
-            long elapsed10ms = (timeStamp - before) / 100000;
-            this.before = timeStamp;
             logger.debug(
-                    "[{}] case4HackGetResponse => ApduRequest: NAME = \"Internal Get Response\", RAWDATA = {}, elapsed = {}",
-                    this.getName(), ByteArrayUtil.toHex(getResponseHackRequestBytes),
-                    elapsed10ms / 10.0);
+                    "[{}] case4HackGetResponse => ApduRequest: NAME = \"Internal Get Response\", RAWDATA = {}",
+                    this.getName(), ByteArrayUtil.toHex(getResponseHackRequestBytes));
         }
 
-        byte[] getResponseHackResponseBytes = transmitApdu(getResponseHackRequestBytes);
+        long start = System.nanoTime();
+        byte[] getResponseHackResponseBytes = transmit(
+                setChannelNumber(getResponseHackRequestBytes, channelNumber), channelNumber);
 
         /* we expect here a 0x9000 status code */
         ApduResponse getResponseHackResponse = new ApduResponse(getResponseHackResponseBytes, null);
 
         if (logger.isDebugEnabled()) {
-            long timeStamp = System.nanoTime();
-            long elapsed10ms = (timeStamp - before) / 100000;
-            this.before = timeStamp;
+            long elapsed10ms = (System.nanoTime() - start) / 100000;
             logger.debug("[{}] case4HackGetResponse => Internal {}, elapsed {} ms.", this.getName(),
                     getResponseHackResponseBytes, elapsed10ms / 10.0);
         }
@@ -865,12 +1173,49 @@ public abstract class AbstractLocalReader extends AbstractReader {
         return getResponseHackResponse;
     }
 
+    /**
+     * Transmits a single APDU through the {@link BufferedTransmitReader} interface when the reader
+     * implements it, with {@link #transmitApdu(byte[])} otherwise.
+     * <p>
+     * The APDUs of the supplementary logical channels are transmitted through the
+     * {@link SmartLogicalChannelReader} interface when the reader implements it.
+     *
+     * @param apduIn byte buffer containing the ingoing data
+     * @param channelNumber the number of the logical channel
+     * @return apduResponse byte buffer containing the outgoing data.
+     * @throws KeypleReaderIOException if the communication with the reader or the SE has failed
+     */
+    private byte[] transmit(byte[] apduIn, int channelNumber) throws KeypleReaderIOException {
+        if (channelNumber != 0 && this instanceof SmartLogicalChannelReader) {
+            return ((SmartLogicalChannelReader) this).transmitApdu(channelNumber, apduIn);
+        }
+        if (!(this instanceof BufferedTransmitReader)) {
+            return transmitApdu(apduIn);
+        }
+        ByteBuffer apduOut = transmitBufferPool.getAndSet(null);
+        if (apduOut == null) {
+            // first exchange, or concurrent exchange on the reader
+            apduOut = ByteBuffer.allocate(MAX_RESPONSE_LENGTH);
+        }
+        try {
+            apduOut.clear();
+            int length = ((BufferedTransmitReader) this).transmitApdu(ByteBuffer.wrap(apduIn),
+                    apduOut);
+            byte[] apduResponse = new byte[length];
+            System.arraycopy(apduOut.array(), apduOut.arrayOffset(), apduResponse, 0, length);
+            return apduResponse;
+        } finally {
+            transmitBufferPool.set(apduOut);
+        }
+    }
+
     /**
      * Transmits a single APDU and receives its response.
      * <p>
      * This abstract method must be implemented by the ProxyReader plugin (e.g. Pcsc, Nfc). The
      * implementation must handle the case where the SE response is 61xy and execute the appropriate
-     * get response command.
+     * get response command (with the class byte of the command, which carries the logical channel
+     * number).
      *
      * @param apduIn byte buffer containing the ingoing data
      * @return apduResponse byte buffer containing the outgoing data.
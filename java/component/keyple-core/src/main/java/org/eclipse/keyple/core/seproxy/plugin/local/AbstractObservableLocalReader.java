@@ -11,7 +11,6 @@
  ********************************************************************************/
 package org.eclipse.keyple.core.seproxy.plugin.local;
 
-import java.util.ArrayList;
 import java.util.List;
 import org.eclipse.keyple.core.seproxy.ChannelControl;
 import org.eclipse.keyple.core.seproxy.event.AbstractDefaultSelectionsRequest;
@@ -22,7 +21,9 @@ import org.eclipse.keyple.core.seproxy.exception.KeypleReaderIOException;
 import org.eclipse.keyple.core.seproxy.message.DefaultSelectionsRequest;
 import org.eclipse.keyple.core.seproxy.message.DefaultSelectionsResponse;
 import org.eclipse.keyple.core.seproxy.message.SeResponse;
+import org.eclipse.keyple.core.seproxy.plugin.AsyncObserverDispatcher;
 import org.eclipse.keyple.core.seproxy.plugin.ObservableReaderNotifier;
+import org.eclipse.keyple.core.seproxy.plugin.ObserverRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -62,6 +63,7 @@ import org.slf4j.LoggerFactory;
  * The notification consists in calling the "update" methods of the defined observers. In the case
  * where several observers have been defined, it is up to the application developer to ensure that
  * there is no long processing in these methods, by making their execution asynchronous for example.
+ * An {@link AsyncObserverDispatcher} can also be set to deliver the events from other threads.
  * <li>WAIT_FOR_SE_PROCESSING
  * <p>
  * Waiting for the end of processing by the application. The end signal is triggered either by a
@@ -113,13 +115,14 @@ public abstract class AbstractObservableLocalReader extends AbstractLocalReader
         TIME_OUT
     }
 
-    /* The observers of this object */
-    private List<ObservableReader.ReaderObserver> observers;
-    /*
-     * this object will be used to synchronize the access to the observers list in order to be
-     * thread safe
-     */
-    private final Object sync = new Object();
+    /* The observers of this object and the delivery of their events */
+    private final ObserverRegistry<ReaderObserver, ReaderEvent> observers =
+            new ObserverRegistry<ReaderObserver, ReaderEvent>(getName()) {
+                @Override
+                protected void update(ReaderObserver observer, ReaderEvent event) {
+                    observer.update(event);
+                }
+            };
 
     /* Service that handles Internal Events and their impact on the current state of the reader */
     protected ObservableReaderStateService stateService;
@@ -173,12 +176,7 @@ public abstract class AbstractObservableLocalReader extends AbstractLocalReader
                     getName());
         }
 
-        synchronized (sync) {
-            if (observers == null) {
-                observers = new ArrayList<ReaderObserver>(1);
-            }
-            observers.add(observer);
-        }
+        observers.add(observer);
     }
 
     /**
@@ -199,11 +197,7 @@ public abstract class AbstractObservableLocalReader extends AbstractLocalReader
             logger.trace("[{}] Deleting a reader observer", getName());
         }
 
-        synchronized (sync) {
-            if (observers != null) {
-                observers.remove(observer);
-            }
-        }
+        observers.remove(observer);
     }
 
     /**
@@ -219,32 +213,42 @@ public abstract class AbstractObservableLocalReader extends AbstractLocalReader
                     this.countObservers(), event.getEventType().getName());
         }
 
-        List<ObservableReader.ReaderObserver> observersCopy;
-
-        synchronized (sync) {
-            if (observers == null) {
-                return;
-            }
-            observersCopy = new ArrayList<ReaderObserver>(observers);
-        }
-
-        for (ObservableReader.ReaderObserver observer : observersCopy) {
-            observer.update(event);
-        }
+        observers.notify(event);
     }
 
     /** @return the number of observers */
     @Override
     public final int countObservers() {
-        return observers == null ? 0 : observers.size();
+        return observers.size();
     }
 
     /** Remove all observers at once */
     @Override
     public final void clearObservers() {
-        if (observers != null) {
-            this.observers.clear();
-        }
+        observers.clear();
+    }
+
+    /**
+     * Sets the dispatcher delivering the events to the observers.
+     * <p>
+     * With a dispatcher, the notifications do not wait for the observers: the events are queued
+     * and delivered in order to each observer by the threads of the dispatcher. Without dispatcher
+     * (default), the observers are called by the thread notifying the event.
+     * <p>
+     * The events pending in the queues of the previous dispatcher are discarded.
+     *
+     * @param observerDispatcher the dispatcher, null to call the observers synchronously
+     */
+    public final void setObserverDispatcher(AsyncObserverDispatcher observerDispatcher) {
+        observers.setDispatcher(observerDispatcher);
+    }
+
+    /**
+     * @return the dispatcher delivering the events to the observers, null if they are called
+     *         synchronously
+     */
+    public final AsyncObserverDispatcher getObserverDispatcher() {
+        return observers.getDispatcher();
     }
 
     /**
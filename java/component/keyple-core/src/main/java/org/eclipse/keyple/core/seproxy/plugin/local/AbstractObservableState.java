@@ -53,7 +53,8 @@ public abstract class AbstractObservableState {
      * @param reader the current reader
      * @param monitoringJob the job to be executed in background (may be null if no background job
      *        is required)
-     * @param executorService the executor service
+     * @param executorService the executor service (a {@link MonitoringScheduler} allows to share
+     *        the threads between readers)
      */
     protected AbstractObservableState(MonitoringState state, AbstractObservableLocalReader reader,
             MonitoringJob monitoringJob, ExecutorService executorService) {
@@ -110,7 +111,14 @@ public abstract class AbstractObservableState {
             if (executorService == null) {
                 throw new AssertionError("ExecutorService must be set");
             }
-            monitoringEvent = executorService.submit(monitoringJob.getMonitoringJob(this));
+            if (monitoringJob instanceof PollingMonitoringJob
+                    && executorService instanceof MonitoringScheduler) {
+                // the polls are multiplexed with the ones of the other readers
+                monitoringEvent = ((MonitoringScheduler) executorService)
+                        .schedulePolling((PollingMonitoringJob) monitoringJob, this);
+            } else {
+                monitoringEvent = executorService.submit(monitoringJob.getMonitoringJob(this));
+            }
         }
     }
 
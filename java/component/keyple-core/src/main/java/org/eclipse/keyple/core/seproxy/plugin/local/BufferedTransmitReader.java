@@ -0,0 +1,40 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy.plugin.local;
+
+import java.nio.ByteBuffer;
+import org.eclipse.keyple.core.seproxy.SeReader;
+import org.eclipse.keyple.core.seproxy.exception.KeypleReaderIOException;
+
+/**
+ * Interface implemented by readers able to transmit the APDUs from and to {@link ByteBuffer}s
+ * (e.g. PC/SC readers).
+ * <p>
+ * The {@link AbstractLocalReader} then receives the responses in a buffer of its own, reused from
+ * one APDU to the next, instead of getting a new byte array from the reader for each response.
+ */
+public interface BufferedTransmitReader extends SeReader {
+
+    /**
+     * Transmits a single APDU and receives its response.
+     * <p>
+     * As for {@link AbstractLocalReader#transmitApdu(byte[])}, the implementation must handle the
+     * case where the SE response is 61xy and execute the appropriate get response command.
+     *
+     * @param apduIn buffer containing the ingoing data between its position and its limit
+     * @param apduOut buffer receiving the outgoing data from its position, with at least
+     *        {@link AbstractLocalReader#MAX_RESPONSE_LENGTH} bytes remaining
+     * @return the length of the outgoing data
+     * @throws KeypleReaderIOException if the communication with the reader or the SE has failed
+     */
+    int transmitApdu(ByteBuffer apduIn, ByteBuffer apduOut) throws KeypleReaderIOException;
+}
@@ -0,0 +1,277 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy.plugin.local;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.keyple.core.seproxy.ChannelControl;
+import org.eclipse.keyple.core.seproxy.MultiSeRequestProcessing;
+import org.eclipse.keyple.core.seproxy.SeSelector;
+import org.eclipse.keyple.core.seproxy.exception.KeypleReaderIOException;
+import org.eclipse.keyple.core.seproxy.message.*;
+import org.eclipse.keyple.core.seproxy.plugin.AbstractReader;
+import org.eclipse.keyple.core.seproxy.protocol.SeProtocol;
+import org.eclipse.keyple.core.seproxy.protocol.TransmissionMode;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reader transmitting its requests on a supplementary logical channel of the SE of a local reader
+ * (see {@link AbstractLocalReader#openSupplementaryChannel()}).
+ * <p>
+ * Each channel has its own selection state: the requests with a selector select an application on
+ * this channel only, the requests without selector are sent to the application currently selected
+ * on this channel (the default application of the SE when the channel has just been opened).
+ * <p>
+ * The {@link ChannelControl#CLOSE_AFTER} control only resets the selection state of the channel:
+ * the logical channel itself is closed with {@link #close()}, the physical channel is managed by
+ * the local reader.
+ * <p>
+ * Several channels of the same SE can be used concurrently, a channel must be used by only one
+ * thread at a time.
+ */
+public final class LogicalChannelReader extends AbstractReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogicalChannelReader.class);
+
+    private final AbstractLocalReader localReader;
+    private final int channelNumber;
+
+    /* false once the channel is closed */
+    private volatile boolean open = true;
+    /* true if an application is selected on the channel */
+    private boolean applicationSelected = true;
+    /* the AID currently selected, null for the default application */
+    private byte[] aidCurrentlySelected;
+    /* the current selection status, null for the default application */
+    private SelectionStatus currentSelectionStatus;
+
+    /**
+     * Constructor, see {@link AbstractLocalReader#openSupplementaryChannel()}
+     *
+     * @param localReader the reader of the SE
+     * @param channelNumber the number of the logical channel
+     */
+    LogicalChannelReader(AbstractLocalReader localReader, int channelNumber) {
+        super(localReader.getPluginName(), localReader.getName() + "#" + channelNumber);
+        this.localReader = localReader;
+        this.channelNumber = channelNumber;
+    }
+
+    /**
+     * @return the reader of the SE
+     */
+    public AbstractLocalReader getLocalReader() {
+        return localReader;
+    }
+
+    /**
+     * @return the number of the logical channel
+     */
+    public int getChannelNumber() {
+        return channelNumber;
+    }
+
+    /**
+     * @return true until the logical channel is closed
+     */
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Closes the logical channel on the SE (does nothing if already closed)
+     *
+     * @throws KeypleReaderIOException if the communication with the reader or the SE has failed
+     */
+    public synchronized void close() throws KeypleReaderIOException {
+        if (open) {
+            open = false;
+            deselect();
+            localReader.closeSupplementaryChannel(this);
+        }
+    }
+
+    /**
+     * Marks the channel as closed, when the physical channel is closed
+     */
+    void invalidate() {
+        open = false;
+    }
+
+    @Override
+    protected synchronized List<SeResponse> processSeRequests(List<SeRequest> seRequests,
+            MultiSeRequestProcessing multiSeRequestProcessing, ChannelControl channelControl)
+            throws KeypleReaderIOException {
+        List<SeResponse> responses = new ArrayList<SeResponse>();
+        for (SeRequest seRequest : seRequests) {
+            SeResponse response;
+            try {
+                response = processSeRequestOnChannel(seRequest);
+            } catch (KeypleReaderIOException ex) {
+                /* Build a List of SeResponse with the available data. */
+                responses.add(ex.getSeResponse());
+                ex.setSeResponses(responses);
+                throw ex;
+            }
+            responses.add(response);
+            if (multiSeRequestProcessing == MultiSeRequestProcessing.PROCESS_ALL) {
+                // go on with the next selection
+                deselect();
+            } else if (response != null && response.isLogicalChannelOpen()) {
+                // the SE matches the selection case, we stop here.
+                break;
+            }
+        }
+        if (channelControl != ChannelControl.KEEP_OPEN) {
+            deselect();
+        }
+        return responses;
+    }
+
+    @Override
+    protected synchronized SeResponse processSeRequest(SeRequest seRequest,
+            ChannelControl channelControl) throws KeypleReaderIOException {
+        SeResponse seResponse = processSeRequestOnChannel(seRequest);
+        if (channelControl != ChannelControl.KEEP_OPEN) {
+            deselect();
+        }
+        return seResponse;
+    }
+
+    /**
+     * Processes a request on the logical channel, selects the application first if needed
+     *
+     * @param seRequest the request
+     * @return the response, null if the selection failed
+     * @throws KeypleReaderIOException if the communication with the reader or the SE has failed
+     */
+    private SeResponse processSeRequestOnChannel(SeRequest seRequest)
+            throws KeypleReaderIOException {
+        if (!open) {
+            throw new IllegalStateException(
+                    "[" + this.getName() + "] processSeRequest => Logical channel closed!");
+        }
+        boolean previouslyOpen = true;
+        SelectionStatus selectionStatus = null;
+        SeSelector seSelector = seRequest.getSeSelector();
+        if (seSelector != null) {
+            SeSelector.AidSelector aidSelector = seSelector.getAidSelector();
+            if (applicationSelected && aidSelector != null && (aidCurrentlySelected == null
+                    || aidSelector.getFileOccurrence() == SeSelector.AidSelector.FileOccurrence.NEXT
+                    || !startsWith(aidCurrentlySelected, aidSelector.getAidToSelect()))) {
+                // another application is requested
+                deselect();
+            }
+            if (applicationSelected && currentSelectionStatus != null) {
+                /* keep the current selection status */
+                selectionStatus = currentSelectionStatus;
+            } else {
+                previouslyOpen = false;
+                try {
+                    selectionStatus = localReader.processSelection(seSelector, channelNumber);
+                } catch (IllegalArgumentException e) {
+                    logger.debug("[{}] processSeRequest => Selection failure", this.getName());
+                    deselect();
+                    /* return a null SeResponse when the selection failed */
+                    return null;
+                }
+                applicationSelected = selectionStatus.hasMatched();
+                if (applicationSelected) {
+                    if (aidSelector != null && selectionStatus.getFci().isSuccessful()) {
+                        aidCurrentlySelected = aidSelector.getAidToSelect();
+                    }
+                    currentSelectionStatus = selectionStatus;
+                }
+            }
+        } else if (!applicationSelected) {
+            throw new IllegalStateException("[" + this.getName()
+                    + "] processSeRequest => No application selected on the logical channel!");
+        }
+
+        List<ApduResponse> apduResponses = new ArrayList<ApduResponse>();
+        if (seRequest.getApduRequests() != null && applicationSelected) {
+            for (ApduRequest apduRequest : seRequest.getApduRequests()) {
+                try {
+                    apduResponses.add(localReader.processApduRequest(apduRequest, channelNumber));
+                } catch (KeypleReaderIOException ex) {
+                    /* keep the Apdu responses collected so far */
+                    deselect();
+                    ex.setSeResponse(
+                            new SeResponse(false, previouslyOpen, selectionStatus, apduResponses));
+                    throw ex;
+                }
+            }
+        }
+        return new SeResponse(applicationSelected, previouslyOpen, selectionStatus,
+                apduResponses);
+    }
+
+    /**
+     * Resets the selection state of the channel
+     */
+    private void deselect() {
+        applicationSelected = false;
+        aidCurrentlySelected = null;
+        currentSelectionStatus = null;
+    }
+
+    private static boolean startsWith(byte[] source, byte[] match) {
+        if (match.length > source.length) {
+            return false;
+        }
+        for (int i = 0; i < match.length; i++) {
+            if (source[i] != match[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isSePresent() throws KeypleReaderIOException {
+        return open && localReader.isSePresent();
+    }
+
+    @Override
+    public void addSeProtocolSetting(SeProtocol seProtocol, String protocolRule) {
+        localReader.addSeProtocolSetting(seProtocol, protocolRule);
+    }
+
+    @Override
+    public void setSeProtocolSetting(Map<SeProtocol, String> protocolSetting) {
+        localReader.setSeProtocolSetting(protocolSetting);
+    }
+
+    @Override
+    public TransmissionMode getTransmissionMode() {
+        return localReader.getTransmissionMode();
+    }
+
+    @Override
+    public Map<String, String> getParameters() {
+        return localReader.getParameters();
+    }
+
+    @Override
+    public void setParameter(String key, String value) throws KeypleReaderIOException {
+        localReader.setParameter(key, value);
+    }
+
+    @Override
+    public String toString() {
+        return "LogicalChannelReader{" + "name=" + getName() + ", open=" + open
+                + ", aidCurrentlySelected=" + ByteArrayUtil.toHex(aidCurrentlySelected) + '}';
+    }
+}
@@ -0,0 +1,389 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy.plugin.local;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.keyple.core.util.SerialExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executor service shared by the observable readers to run their {@link MonitoringJob}s.
+ * <p>
+ * It can be provided to the states of the readers in place of a dedicated executor service:
+ * <ul>
+ * <li>the {@link PollingMonitoringJob}s do not hold a thread, their polls are multiplexed on a
+ * small pool of scheduling threads, according to the {@link PollingPolicy} of each job,</li>
+ * <li>the other (blocking) jobs are run on a shared pool of bounded size whose idle threads are
+ * reused from one reader to another.</li>
+ * </ul>
+ * Each reader must use its own view of the scheduler, obtained with {@link #forReader()}: the
+ * blocking jobs of a reader are then run one at a time, the job of a new state only starts once
+ * the job of the previous state is over.
+ * <p>
+ * A default instance, with daemon threads, is available with {@link #getDefault()}. It can be
+ * replaced with {@link #setDefault(MonitoringScheduler)} before the creation of the readers.
+ */
+public final class MonitoringScheduler extends AbstractExecutorService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MonitoringScheduler.class);
+
+    /** default number of threads performing the polls */
+    public static final int DEFAULT_POLLING_THREADS = 2;
+
+    /**
+     * default maximum number of threads running the blocking jobs, i.e. of readers monitored at
+     * the same time with a blocking job
+     */
+    public static final int DEFAULT_BLOCKING_THREADS = 64;
+
+    private static final long IDLE_THREAD_TIMEOUT = 60;
+
+    private static MonitoringScheduler defaultScheduler;
+
+    private final ScheduledExecutorService pollingExecutor;
+    private final ExecutorService blockingExecutor;
+    /* runs the blocking jobs: the shared pool, or a serial executor on top of it for a reader */
+    private final Executor jobExecutor;
+    private final AtomicInteger activePollings;
+
+    /**
+     * Creates a scheduler with its own thread pools (daemon threads), running at most
+     * {@link #DEFAULT_BLOCKING_THREADS} blocking jobs at the same time
+     *
+     * @param nbPollingThreads the number of threads performing the polls
+     */
+    public MonitoringScheduler(int nbPollingThreads) {
+        this(nbPollingThreads, DEFAULT_BLOCKING_THREADS);
+    }
+
+    /**
+     * Creates a scheduler with its own thread pools (daemon threads).
+     * <p>
+     * The blocking jobs started while all the blocking threads are busy wait for one of them to
+     * be released.
+     *
+     * @param nbPollingThreads the number of threads performing the polls
+     * @param nbBlockingThreads the maximum number of threads running the blocking jobs
+     */
+    public MonitoringScheduler(int nbPollingThreads, int nbBlockingThreads) {
+        if (nbPollingThreads <= 0 || nbBlockingThreads <= 0) {
+            throw new IllegalArgumentException("The number of threads must be positive");
+        }
+        this.pollingExecutor = new ScheduledThreadPoolExecutor(nbPollingThreads,
+                new DaemonThreadFactory("MonitoringScheduler-polling"));
+        ThreadPoolExecutor blockingPool = new ThreadPoolExecutor(nbBlockingThreads,
+                nbBlockingThreads, IDLE_THREAD_TIMEOUT, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new DaemonThreadFactory("MonitoringScheduler-blocking"));
+        blockingPool.allowCoreThreadTimeOut(true);
+        this.blockingExecutor = blockingPool;
+        this.jobExecutor = blockingPool;
+        this.activePollings = new AtomicInteger();
+    }
+
+    /**
+     * Creates a scheduler on top of the provided executors
+     *
+     * @param pollingExecutor the executor performing the polls
+     * @param blockingExecutor the executor running the blocking monitoring jobs
+     */
+    public MonitoringScheduler(ScheduledExecutorService pollingExecutor,
+            ExecutorService blockingExecutor) {
+        if (pollingExecutor == null || blockingExecutor == null) {
+            throw new IllegalArgumentException("Executors must not be null");
+        }
+        this.pollingExecutor = pollingExecutor;
+        this.blockingExecutor = blockingExecutor;
+        this.jobExecutor = blockingExecutor;
+        this.activePollings = new AtomicInteger();
+    }
+
+    /**
+     * Creates the view of a scheduler for a reader
+     *
+     * @param scheduler the shared scheduler
+     */
+    private MonitoringScheduler(MonitoringScheduler scheduler) {
+        this.pollingExecutor = scheduler.pollingExecutor;
+        this.blockingExecutor = scheduler.blockingExecutor;
+        this.jobExecutor = new SerialExecutor(scheduler.blockingExecutor);
+        this.activePollings = scheduler.activePollings;
+    }
+
+    /**
+     * Gets a view of this scheduler for a single reader: it shares the threads of this scheduler
+     * but runs the blocking jobs it is given one at a time, in their submission order.
+     * <p>
+     * A monitoring job stopped by a state change may still be running for a while (e.g. until the
+     * next check of its stop flag): the job of the next state does not start, and thus cannot
+     * poll the reader at the same time, before it is over.
+     * <p>
+     * The view has the same lifecycle as this scheduler: shutting it down shuts down the shared
+     * threads.
+     *
+     * @return a new view of this scheduler
+     */
+    public MonitoringScheduler forReader() {
+        return new MonitoringScheduler(this);
+    }
+
+    /**
+     * Gets the scheduler shared by default between the readers, creates it if necessary
+     *
+     * @return the default scheduler
+     */
+    public static synchronized MonitoringScheduler getDefault() {
+        if (defaultScheduler == null) {
+            defaultScheduler = new MonitoringScheduler(DEFAULT_POLLING_THREADS);
+        }
+        return defaultScheduler;
+    }
+
+    /**
+     * Replaces the default scheduler.
+     * <p>
+     * The readers already created keep the previous one, which is not shut down.
+     *
+     * @param scheduler the new default scheduler
+     */
+    public static synchronized void setDefault(MonitoringScheduler scheduler) {
+        if (scheduler == null) {
+            throw new IllegalArgumentException("Scheduler must not be null");
+        }
+        defaultScheduler = scheduler;
+    }
+
+    /**
+     * Starts a polling monitoring job: the first poll is performed immediately, the next ones are
+     * scheduled according to the polling policy of the job until a poll returns true or the
+     * returned future is cancelled.
+     *
+     * @param job the monitoring job
+     * @param state the state the monitoring job in running against
+     * @return a future completed when the polling is over
+     */
+    public Future<?> schedulePolling(PollingMonitoringJob job, AbstractObservableState state) {
+        if (job == null || state == null) {
+            throw new IllegalArgumentException("Job and state must not be null");
+        }
+        PollingTask pollingTask = new PollingTask(job, state);
+        pollingTask.start();
+        return pollingTask;
+    }
+
+    /**
+     * @return the number of polling jobs currently scheduled
+     */
+    public int getActivePollingCount() {
+        return activePollings.get();
+    }
+
+    /**
+     * Runs a blocking monitoring job on the shared pool, after the previous jobs of the reader if
+     * this scheduler is the view of a reader
+     *
+     * @param command the job
+     */
+    @Override
+    public void execute(Runnable command) {
+        jobExecutor.execute(command);
+    }
+
+    @Override
+    public void shutdown() {
+        pollingExecutor.shutdown();
+        blockingExecutor.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> pending = pollingExecutor.shutdownNow();
+        pending.addAll(blockingExecutor.shutdownNow());
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return pollingExecutor.isShutdown() && blockingExecutor.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return pollingExecutor.isTerminated() && blockingExecutor.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        if (!pollingExecutor.awaitTermination(timeout, unit)) {
+            return false;
+        }
+        return blockingExecutor.awaitTermination(deadline - System.nanoTime(),
+                TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Polling of a job: each poll reschedules the next one until the end of the monitoring.
+     */
+    private final class PollingTask implements Runnable, Future<Object> {
+
+        private final PollingMonitoringJob job;
+        private final AbstractObservableState state;
+        private final PollingPolicy pollingPolicy;
+
+        /* delay before the next poll, increased at each unsuccessful poll */
+        private long delay;
+        private ScheduledFuture<?> nextPoll;
+        private boolean done;
+        private boolean cancelled;
+
+        private PollingTask(PollingMonitoringJob job, AbstractObservableState state) {
+            this.job = job;
+            this.state = state;
+            this.pollingPolicy = job.getPollingPolicy();
+            this.delay = pollingPolicy.getInterval();
+        }
+
+        private synchronized void start() {
+            activePollings.incrementAndGet();
+            scheduleNextPoll(0);
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+            }
+            boolean completed;
+            try {
+                completed = job.poll(state);
+            } catch (RuntimeException e) {
+                logger.error("[{}] Monitoring job failed, polling is stopped",
+                        state.reader.getName(), e);
+                completed = true;
+            }
+            synchronized (this) {
+                if (done) {
+                    // cancelled during the poll (e.g. by the state change it triggered)
+                    return;
+                }
+                if (completed) {
+                    complete();
+                } else {
+                    scheduleNextPoll(delay);
+                    delay = pollingPolicy.nextInterval(delay);
+                }
+            }
+        }
+
+        /* must be called with the lock held */
+        private void scheduleNextPoll(long pollDelay) {
+            try {
+                nextPoll = pollingExecutor.schedule(this, pollDelay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                logger.warn("[{}] Monitoring scheduler is shut down, polling is stopped",
+                        state.reader.getName());
+                complete();
+            }
+        }
+
+        /* must be called with the lock held */
+        private void complete() {
+            done = true;
+            activePollings.decrementAndGet();
+            notifyAll();
+        }
+
+        @Override
+        public synchronized boolean cancel(boolean mayInterruptIfRunning) {
+            if (done) {
+                return false;
+            }
+            cancelled = true;
+            if (nextPoll != null) {
+                nextPoll.cancel(false);
+            }
+            complete();
+            return true;
+        }
+
+        @Override
+        public synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public synchronized boolean isDone() {
+            return done;
+        }
+
+        @Override
+        public synchronized Object get() throws InterruptedException, ExecutionException {
+            while (!done) {
+                wait();
+            }
+            return null;
+        }
+
+        @Override
+        public synchronized Object get(long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (!done) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new TimeoutException();
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Creates daemon threads with a numbered name
+     */
+    private static final class DaemonThreadFactory implements ThreadFactory {
+
+        private final String name;
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        private DaemonThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, name + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy.plugin.local;
+
+/**
+ * Monitoring job made of non-blocking polls.
+ * <p>
+ * When the state is given a {@link MonitoringScheduler}, the job does not hold a thread: each
+ * poll is scheduled on the shared pool of the scheduler according to the {@link PollingPolicy} of
+ * the job. With any other executor service, the {@link Runnable} returned by
+ * {@link #getMonitoringJob(AbstractObservableState)} is used as before.
+ */
+public interface PollingMonitoringJob extends MonitoringJob {
+
+    /**
+     * Performs a single poll.
+     * <p>
+     * The internal event, if any, is fired on the provided state before returning true.
+     *
+     * @param state reference to the state the monitoring job in running against
+     * @return true if the monitoring is completed, false if an other poll is required
+     */
+    boolean poll(AbstractObservableState state);
+
+    /**
+     * @return the polling intervals of this job
+     */
+    PollingPolicy getPollingPolicy();
+}
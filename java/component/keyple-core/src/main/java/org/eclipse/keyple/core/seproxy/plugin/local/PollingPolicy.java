@@ -0,0 +1,103 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy.plugin.local;
+
+/**
+ * Polling intervals of a {@link PollingMonitoringJob}.
+ * <p>
+ * The first poll is performed immediately, the following ones are spaced by the initial interval.
+ * When a backoff factor greater than 1 is set, the interval is multiplied by this factor after
+ * each unsuccessful poll, up to the maximum interval. The interval is reset each time the
+ * monitoring job is started.
+ * <p>
+ * Immutable, a policy can be shared between several readers.
+ */
+public final class PollingPolicy {
+
+    private final long interval;
+    private final long maxInterval;
+    private final double backoffFactor;
+
+    /**
+     * Creates a policy with a fixed interval
+     *
+     * @param interval the interval between two polls (in ms)
+     */
+    public PollingPolicy(long interval) {
+        this(interval, interval, 1);
+    }
+
+    /**
+     * Creates a policy with an exponential backoff
+     *
+     * @param interval the initial interval between two polls (in ms)
+     * @param maxInterval the maximum interval between two polls (in ms)
+     * @param backoffFactor the factor applied to the interval after each unsuccessful poll (1 for
+     *        a fixed interval)
+     */
+    public PollingPolicy(long interval, long maxInterval, double backoffFactor) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Interval must be positive");
+        }
+        if (maxInterval < interval) {
+            throw new IllegalArgumentException(
+                    "Max interval must be greater than or equal to the interval");
+        }
+        if (backoffFactor < 1) {
+            throw new IllegalArgumentException(
+                    "Backoff factor must be greater than or equal to 1");
+        }
+        this.interval = interval;
+        this.maxInterval = maxInterval;
+        this.backoffFactor = backoffFactor;
+    }
+
+    /**
+     * @return the initial interval between two polls (in ms)
+     */
+    public long getInterval() {
+        return interval;
+    }
+
+    /**
+     * @return the maximum interval between two polls (in ms)
+     */
+    public long getMaxInterval() {
+        return maxInterval;
+    }
+
+    /**
+     * @return the factor applied to the interval after each unsuccessful poll
+     */
+    public double getBackoffFactor() {
+        return backoffFactor;
+    }
+
+    /**
+     * Computes the interval following an unsuccessful poll
+     *
+     * @param currentInterval the current interval (in ms)
+     * @return the next interval (in ms)
+     */
+    public long nextInterval(long currentInterval) {
+        if (currentInterval >= maxInterval) {
+            return maxInterval;
+        }
+        return Math.min(maxInterval, (long) Math.ceil(currentInterval * backoffFactor));
+    }
+
+    @Override
+    public String toString() {
+        return "PollingPolicy{" + "interval=" + interval + ", maxInterval=" + maxInterval
+                + ", backoffFactor=" + backoffFactor + '}';
+    }
+}
@@ -0,0 +1,54 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy.plugin.local;
+
+import org.eclipse.keyple.core.seproxy.SeReader;
+import org.eclipse.keyple.core.seproxy.exception.KeypleReaderIOException;
+
+/**
+ * Interface implemented by readers whose native API manages the supplementary logical channels
+ * (e.g. PC/SC readers, whose API does not accept the MANAGE CHANNEL commands).
+ * <p>
+ * The methods are called while the exchanges with the SE are locked.
+ */
+public interface SmartLogicalChannelReader extends SeReader {
+
+    /**
+     * Opens a supplementary logical channel on the SE
+     *
+     * @return the number of the channel, -1 if the SE refused to open a channel
+     * @throws KeypleReaderIOException if the communication with the reader or the SE has failed
+     */
+    int openLogicalChannelNative() throws KeypleReaderIOException;
+
+    /**
+     * Closes a supplementary logical channel previously opened
+     *
+     * @param channelNumber the number of the channel
+     * @throws KeypleReaderIOException if the communication with the reader or the SE has failed
+     */
+    void closeLogicalChannelNative(int channelNumber) throws KeypleReaderIOException;
+
+    /**
+     * Transmits a single APDU on a supplementary logical channel and receives its response.
+     * <p>
+     * The class byte of the APDU already carries the channel number. As for
+     * {@link AbstractLocalReader#transmitApdu(byte[])}, the implementation must handle the case
+     * where the SE response is 61xy.
+     *
+     * @param channelNumber the number of the channel
+     * @param apduIn byte buffer containing the ingoing data
+     * @return apduResponse byte buffer containing the outgoing data.
+     * @throws KeypleReaderIOException if the communication with the reader or the SE has failed
+     */
+    byte[] transmitApdu(int channelNumber, byte[] apduIn) throws KeypleReaderIOException;
+}
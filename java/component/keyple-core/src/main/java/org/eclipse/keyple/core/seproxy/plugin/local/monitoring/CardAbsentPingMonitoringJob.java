@@ -14,7 +14,9 @@ package org.eclipse.keyple.core.seproxy.plugin.local.monitoring;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.eclipse.keyple.core.seproxy.plugin.local.AbstractObservableLocalReader;
 import org.eclipse.keyple.core.seproxy.plugin.local.AbstractObservableState;
-import org.eclipse.keyple.core.seproxy.plugin.local.MonitoringJob;
+import org.eclipse.keyple.core.seproxy.plugin.local.MonitoringScheduler;
+import org.eclipse.keyple.core.seproxy.plugin.local.PollingMonitoringJob;
+import org.eclipse.keyple.core.seproxy.plugin.local.PollingPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,15 +32,20 @@ import org.slf4j.LoggerFactory;
  * SE_REMOVED event is fired when the SE is no longer responding.
  * <p>
  * By default a delay of 200 ms is inserted between each APDU sending .
+ * <p>
+ * When run by a {@link MonitoringScheduler}, the pings are scheduled according to the
+ * {@link PollingPolicy} of the job, without holding a thread between two pings.
  */
-public class CardAbsentPingMonitoringJob implements MonitoringJob {
+public class CardAbsentPingMonitoringJob implements PollingMonitoringJob {
 
     private static final Logger logger = LoggerFactory.getLogger(CardAbsentPingMonitoringJob.class);
 
+    private static final long DEFAULT_REMOVAL_WAIT = 200;
+
     private final AbstractObservableLocalReader reader;
     private Runnable job;
     final private AtomicBoolean loop = new AtomicBoolean();
-    private long removalWait = 200;
+    private final PollingPolicy pollingPolicy;
 
     /**
      * Create a job monitor job that ping the SE with the method isSePresentPing()
@@ -46,7 +53,7 @@ public class CardAbsentPingMonitoringJob implements MonitoringJob {
      * @param reader : reference to the reader
      */
     public CardAbsentPingMonitoringJob(AbstractObservableLocalReader reader) {
-        this.reader = reader;
+        this(reader, DEFAULT_REMOVAL_WAIT);
     }
 
     /**
@@ -56,8 +63,37 @@ public class CardAbsentPingMonitoringJob implements MonitoringJob {
      * @param removalWait : delay between between each APDU sending
      */
     public CardAbsentPingMonitoringJob(AbstractObservableLocalReader reader, long removalWait) {
+        this(reader, new PollingPolicy(removalWait));
+    }
+
+    /**
+     * Create a job monitor job that ping the SE with the method isSePresentPing()
+     *
+     * @param reader : reference to the reader
+     * @param pollingPolicy : delays between each APDU sending (backoff included)
+     */
+    public CardAbsentPingMonitoringJob(AbstractObservableLocalReader reader,
+            PollingPolicy pollingPolicy) {
+        if (pollingPolicy == null) {
+            throw new IllegalArgumentException("Polling policy must not be null");
+        }
         this.reader = reader;
-        this.removalWait = removalWait;
+        this.pollingPolicy = pollingPolicy;
+    }
+
+    @Override
+    public PollingPolicy getPollingPolicy() {
+        return pollingPolicy;
+    }
+
+    @Override
+    public boolean poll(AbstractObservableState state) {
+        if (!reader.isSePresentPing()) {
+            logger.debug("[{}] The SE stopped responding", reader.getName());
+            state.onEvent(AbstractObservableLocalReader.InternalEvent.SE_REMOVED);
+            return true;
+        }
+        return false;
     }
 
     @Override
@@ -70,6 +106,7 @@ public class CardAbsentPingMonitoringJob implements MonitoringJob {
          */
         job = new Runnable() {
             long retries = 0;
+            long delay = pollingPolicy.getInterval();
 
             @Override
             public void run() {
@@ -78,10 +115,8 @@ public class CardAbsentPingMonitoringJob implements MonitoringJob {
                 // re-init loop value to true
                 loop.set(true);
                 while (loop.get()) {
-                    if (!reader.isSePresentPing()) {
-                        logger.debug("[{}] The SE stopped responding", reader.getName());
+                    if (poll(state)) {
                         loop.set(false);
-                        state.onEvent(AbstractObservableLocalReader.InternalEvent.SE_REMOVED);
                         return;
                     }
                     retries++;
@@ -91,7 +126,8 @@ public class CardAbsentPingMonitoringJob implements MonitoringJob {
                     }
                     try {
                         // wait a bit
-                        Thread.sleep(removalWait);
+                        Thread.sleep(delay);
+                        delay = pollingPolicy.nextInterval(delay);
                     } catch (InterruptedException ignored) {
                         // Restore interrupted state...      
                         Thread.currentThread().interrupt();
@@ -16,19 +16,24 @@ import org.eclipse.keyple.core.seproxy.SeReader;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderIOException;
 import org.eclipse.keyple.core.seproxy.plugin.local.AbstractObservableLocalReader;
 import org.eclipse.keyple.core.seproxy.plugin.local.AbstractObservableState;
-import org.eclipse.keyple.core.seproxy.plugin.local.MonitoringJob;
+import org.eclipse.keyple.core.seproxy.plugin.local.MonitoringScheduler;
+import org.eclipse.keyple.core.seproxy.plugin.local.PollingMonitoringJob;
+import org.eclipse.keyple.core.seproxy.plugin.local.PollingPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * This monitoring job polls the {@link SeReader#isSePresent()} method to detect
  * SE_INSERTED/SE_REMOVED
+ * <p>
+ * When run by a {@link MonitoringScheduler}, the polls are scheduled according to the
+ * {@link PollingPolicy} of the job, without holding a thread between two polls.
  */
-public class CardPresentMonitoringJob implements MonitoringJob {
+public class CardPresentMonitoringJob implements PollingMonitoringJob {
 
     private static final Logger logger = LoggerFactory.getLogger(CardPresentMonitoringJob.class);
 
-    private final long waitTimeout;
+    private final PollingPolicy pollingPolicy;
     private final boolean monitorInsertion;
     private final SeReader reader;
     final private AtomicBoolean loop = new AtomicBoolean();
@@ -41,15 +46,58 @@ public class CardPresentMonitoringJob implements MonitoringJob {
      * @param monitorInsertion : if true, polls for SE_INSERTED, else SE_REMOVED
      */
     public CardPresentMonitoringJob(SeReader reader, long waitTimeout, boolean monitorInsertion) {
-        this.waitTimeout = waitTimeout;
+        this(reader, new PollingPolicy(waitTimeout), monitorInsertion);
+    }
+
+    /**
+     * Build a monitoring job to detect the card insertion with the provided polling intervals
+     *
+     * @param reader : reader that will be polled with the method isSePresent()
+     * @param pollingPolicy : intervals between two hits of the polling (backoff included)
+     * @param monitorInsertion : if true, polls for SE_INSERTED, else SE_REMOVED
+     */
+    public CardPresentMonitoringJob(SeReader reader, PollingPolicy pollingPolicy,
+            boolean monitorInsertion) {
+        if (pollingPolicy == null) {
+            throw new IllegalArgumentException("Polling policy must not be null");
+        }
+        this.pollingPolicy = pollingPolicy;
         this.reader = reader;
         this.monitorInsertion = monitorInsertion;
     }
 
+    @Override
+    public PollingPolicy getPollingPolicy() {
+        return pollingPolicy;
+    }
+
+    @Override
+    public boolean poll(AbstractObservableState state) {
+        try {
+            // polls for SE_INSERTED
+            if (monitorInsertion && reader.isSePresent()) {
+                logger.debug("[{}] The SE is present ", reader.getName());
+                state.onEvent(AbstractObservableLocalReader.InternalEvent.SE_INSERTED);
+                return true;
+            }
+            // polls for SE_REMOVED
+            if (!monitorInsertion && !reader.isSePresent()) {
+                logger.debug("[{}] The SE is not present ", reader.getName());
+                state.onEvent(AbstractObservableLocalReader.InternalEvent.SE_REMOVED);
+                return true;
+            }
+        } catch (KeypleReaderIOException e) {
+            // what do do here
+            return true;
+        }
+        return false;
+    }
+
     @Override
     public Runnable getMonitoringJob(final AbstractObservableState state) {
         return new Runnable() {
             long retries = 0;
+            long delay = pollingPolicy.getInterval();
 
             @Override
             public void run() {
@@ -58,25 +106,9 @@ public class CardPresentMonitoringJob implements MonitoringJob {
                 // re-init loop value to true
                 loop.set(true);
                 while (loop.get()) {
-                    try {
-                        // polls for SE_INSERTED
-                        if (monitorInsertion && reader.isSePresent()) {
-                            logger.debug("[{}] The SE is present ", reader.getName());
-                            loop.set(false);
-                            state.onEvent(AbstractObservableLocalReader.InternalEvent.SE_INSERTED);
-                            return;
-                        }
-                        // polls for SE_REMOVED
-                        if (!monitorInsertion && !reader.isSePresent()) {
-                            logger.debug("[{}] The SE is not present ", reader.getName());
-                            loop.set(false);
-                            state.onEvent(AbstractObservableLocalReader.InternalEvent.SE_REMOVED);
-                            return;
-                        }
-
-                    } catch (KeypleReaderIOException e) {
+                    if (poll(state)) {
                         loop.set(false);
-                        // what do do here
+                        return;
                     }
                     retries++;
 
@@ -86,7 +118,8 @@ public class CardPresentMonitoringJob implements MonitoringJob {
                     }
                     try {
                         // wait a bit
-                        Thread.sleep(waitTimeout);
+                        Thread.sleep(delay);
+                        delay = pollingPolicy.nextInterval(delay);
                     } catch (InterruptedException ignored) {
                         // Restore interrupted state...      
                         Thread.currentThread().interrupt();
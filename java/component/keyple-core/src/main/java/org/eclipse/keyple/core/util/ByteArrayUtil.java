@@ -11,38 +11,33 @@
  ********************************************************************************/
 package org.eclipse.keyple.core.util;
 
-import java.util.regex.Pattern;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 
 
 /**
  * Utils around byte arrays
+ * <p>
+ * The hexadecimal conversions are table driven and do not allocate anything else than their
+ * result. Variants writing into caller supplied buffers (char arrays, byte arrays and
+ * {@link ByteBuffer}s) allow to avoid even these allocations on the hot paths.
  */
 public final class ByteArrayUtil {
-    /* byte to hex string conversion table */
-    private static final String[] byteToHex = new String[] {"00", "01", "02", "03", "04", "05",
-            "06", "07", "08", "09", "0A", "0B", "0C", "0D", "0E", "0F", "10", "11", "12", "13",
-            "14", "15", "16", "17", "18", "19", "1A", "1B", "1C", "1D", "1E", "1F", "20", "21",
-            "22", "23", "24", "25", "26", "27", "28", "29", "2A", "2B", "2C", "2D", "2E", "2F",
-            "30", "31", "32", "33", "34", "35", "36", "37", "38", "39", "3A", "3B", "3C", "3D",
-            "3E", "3F", "40", "41", "42", "43", "44", "45", "46", "47", "48", "49", "4A", "4B",
-            "4C", "4D", "4E", "4F", "50", "51", "52", "53", "54", "55", "56", "57", "58", "59",
-            "5A", "5B", "5C", "5D", "5E", "5F", "60", "61", "62", "63", "64", "65", "66", "67",
-            "68", "69", "6A", "6B", "6C", "6D", "6E", "6F", "70", "71", "72", "73", "74", "75",
-            "76", "77", "78", "79", "7A", "7B", "7C", "7D", "7E", "7F", "80", "81", "82", "83",
-            "84", "85", "86", "87", "88", "89", "8A", "8B", "8C", "8D", "8E", "8F", "90", "91",
-            "92", "93", "94", "95", "96", "97", "98", "99", "9A", "9B", "9C", "9D", "9E", "9F",
-            "A0", "A1", "A2", "A3", "A4", "A5", "A6", "A7", "A8", "A9", "AA", "AB", "AC", "AD",
-            "AE", "AF", "B0", "B1", "B2", "B3", "B4", "B5", "B6", "B7", "B8", "B9", "BA", "BB",
-            "BC", "BD", "BE", "BF", "C0", "C1", "C2", "C3", "C4", "C5", "C6", "C7", "C8", "C9",
-            "CA", "CB", "CC", "CD", "CE", "CF", "D0", "D1", "D2", "D3", "D4", "D5", "D6", "D7",
-            "D8", "D9", "DA", "DB", "DC", "DD", "DE", "DF", "E0", "E1", "E2", "E3", "E4", "E5",
-            "E6", "E7", "E8", "E9", "EA", "EB", "EC", "ED", "EE", "EF", "F0", "F1", "F2", "F3",
-            "F4", "F5", "F6", "F7", "F8", "F9", "FA", "FB", "FC", "FD", "FE", "FF"};
+    /* nibble to hex char conversion table */
+    private static final char[] HEX_CHARS = "0123456789ABCDEF".toCharArray();
 
-    /**
-     * Chars we will ignore when loading a sample HEX string. It allows to copy/paste the specs APDU
-     */
-    private static final Pattern HEX_IGNORED_CHARS = Pattern.compile(" |h");
+    /* hex char to nibble conversion table (-1 for the non hexadecimal chars) */
+    private static final byte[] HEX_VALUES = new byte[128];
+
+    static {
+        for (int i = 0; i < HEX_VALUES.length; i++) {
+            HEX_VALUES[i] = -1;
+        }
+        for (int i = 0; i < HEX_CHARS.length; i++) {
+            HEX_VALUES[HEX_CHARS[i]] = (byte) i;
+            HEX_VALUES[Character.toLowerCase(HEX_CHARS[i])] = (byte) i;
+        }
+    }
 
     private ByteArrayUtil() {
         throw new IllegalStateException("ByteArray utility class");
@@ -55,19 +50,68 @@ public final class ByteArrayUtil {
      * @return byte array
      */
     public static byte[] fromHex(String hex) {
-        hex = HEX_IGNORED_CHARS.matcher(hex).replaceAll("").toUpperCase();
+        byte[] byteArray = new byte[getHexByteLength(hex)];
+        decodeHex(hex, byteArray, 0);
+        return byteArray;
+    }
 
-        if (hex.length() % 2 != 0) {
-            throw new IllegalArgumentException("Odd numbered hex array");
+    /**
+     * Decodes an hexa string into the provided byte array. Spaces and "h" are ignored as in
+     * {@link #fromHex(String)}.
+     *
+     * @param hex Hexa string
+     * @param dest the destination array
+     * @param destOffset the offset in the destination array
+     * @return the number of bytes written
+     * @throws IllegalArgumentException if the hexa string has an odd number of digits
+     * @throws IndexOutOfBoundsException if the destination array is too small
+     */
+    public static int fromHex(CharSequence hex, byte[] dest, int destOffset) {
+        int length = getHexByteLength(hex);
+        if (destOffset < 0 || destOffset + length > dest.length) {
+            throw new IndexOutOfBoundsException("Destination array too small: " + dest.length
+                    + " bytes, offset " + destOffset + ", " + length + " bytes to write");
         }
+        decodeHex(hex, dest, destOffset);
+        return length;
+    }
 
-        byte[] byteArray = new byte[hex.length() / 2];
-        for (int i = 0; i < hex.length(); i += 2) {
-            byteArray[i / 2] = (byte) ((Character.digit(hex.charAt(i), 16) << 4)
-                    + Character.digit(hex.charAt(i + 1), 16));
+    /**
+     * Decodes an hexa string into the provided buffer, starting at its current position. Spaces
+     * and "h" are ignored as in {@link #fromHex(String)}.
+     * <p>
+     * The position of the buffer is advanced by the number of bytes written.
+     *
+     * @param hex Hexa string
+     * @param dest the destination buffer
+     * @return the number of bytes written
+     * @throws IllegalArgumentException if the hexa string has an odd number of digits
+     * @throws BufferOverflowException if the remaining space of the buffer is too small
+     */
+    public static int fromHex(CharSequence hex, ByteBuffer dest) {
+        int length = getHexByteLength(hex);
+        if (dest.remaining() < length) {
+            throw new BufferOverflowException();
         }
-
-        return byteArray;
+        if (dest.hasArray()) {
+            int position = dest.position();
+            decodeHex(hex, dest.array(), dest.arrayOffset() + position);
+            dest.position(position + length);
+        } else {
+            int i = 0;
+            while (i < hex.length()) {
+                char high = hex.charAt(i++);
+                if (isIgnoredHexChar(high)) {
+                    continue;
+                }
+                char low = hex.charAt(i++);
+                while (isIgnoredHexChar(low)) {
+                    low = hex.charAt(i++);
+                }
+                dest.put(toByte(hexValue(high), hexValue(low)));
+            }
+        }
+        return length;
     }
 
     /**
@@ -80,11 +124,139 @@ public final class ByteArrayUtil {
         if (byteArray == null) {
             return "";
         }
-        StringBuilder hexStringBuilder = new StringBuilder();
-        for (int i = 0; i < byteArray.length; i++) {
-            hexStringBuilder.append(byteToHex[byteArray[i] & 0xFF]);
+        return toHex(byteArray, 0, byteArray.length);
+    }
+
+    /**
+     * Represents a part of the byte array in a hexadecimal string.
+     *
+     * @param byteArray byte array to represent to hex
+     * @param offset the offset of the first byte to represent
+     * @param length the number of bytes to represent
+     * @return Hex representation of the bytes
+     */
+    public static String toHex(byte[] byteArray, int offset, int length) {
+        char[] hexChars = new char[length * 2];
+        toHex(byteArray, offset, length, hexChars, 0);
+        return new String(hexChars);
+    }
+
+    /**
+     * Represents the remaining bytes of the buffer in a hexadecimal string. The position of the
+     * buffer is left unchanged.
+     *
+     * @param buffer the bytes to represent to hex
+     * @return Hex representation of the remaining bytes
+     */
+    public static String bufferToHex(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            return toHex(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                    buffer.remaining());
+        }
+        char[] hexChars = new char[buffer.remaining() * 2];
+        int j = 0;
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            int b = buffer.get(i) & 0xFF;
+            hexChars[j++] = HEX_CHARS[b >>> 4];
+            hexChars[j++] = HEX_CHARS[b & 0x0F];
+        }
+        return new String(hexChars);
+    }
+
+    /**
+     * Writes the hexadecimal representation of a part of the byte array into the provided char
+     * array.
+     *
+     * @param byteArray byte array to represent to hex
+     * @param offset the offset of the first byte to represent
+     * @param length the number of bytes to represent
+     * @param dest the destination array (2 chars per byte)
+     * @param destOffset the offset in the destination array
+     * @return the number of chars written
+     * @throws IndexOutOfBoundsException if a range is outside of its array
+     */
+    public static int toHex(byte[] byteArray, int offset, int length, char[] dest,
+            int destOffset) {
+        if (offset < 0 || length < 0 || offset + length > byteArray.length) {
+            throw new IndexOutOfBoundsException("Bad range: offset " + offset + ", length "
+                    + length + ", array length " + byteArray.length);
+        }
+        if (destOffset < 0 || destOffset + length * 2 > dest.length) {
+            throw new IndexOutOfBoundsException("Destination array too small: " + dest.length
+                    + " chars, offset " + destOffset + ", " + length * 2 + " chars to write");
+        }
+        int j = destOffset;
+        for (int i = offset; i < offset + length; i++) {
+            int b = byteArray[i] & 0xFF;
+            dest[j++] = HEX_CHARS[b >>> 4];
+            dest[j++] = HEX_CHARS[b & 0x0F];
+        }
+        return length * 2;
+    }
+
+    /**
+     * Appends the hexadecimal representation of the byte array to the provided builder.
+     *
+     * @param builder the destination
+     * @param byteArray byte array to represent to hex (nothing is appended if null)
+     * @return the builder
+     */
+    public static StringBuilder appendHex(StringBuilder builder, byte[] byteArray) {
+        if (byteArray == null) {
+            return builder;
+        }
+        builder.ensureCapacity(builder.length() + byteArray.length * 2);
+        for (byte value : byteArray) {
+            int b = value & 0xFF;
+            builder.append(HEX_CHARS[b >>> 4]).append(HEX_CHARS[b & 0x0F]);
+        }
+        return builder;
+    }
+
+    /* spaces and "h" are accepted in the hexa strings to allow to copy/paste the specs APDU */
+    private static boolean isIgnoredHexChar(char c) {
+        return c == ' ' || c == 'h';
+    }
+
+    private static int hexValue(char c) {
+        return c < HEX_VALUES.length ? HEX_VALUES[c] : -1;
+    }
+
+    /* same arithmetic as the former Character.digit based conversion, even for bad digits */
+    private static byte toByte(int high, int low) {
+        return (byte) ((high << 4) + low);
+    }
+
+    /* number of bytes encoded in the hexa string, ignored chars excluded */
+    private static int getHexByteLength(CharSequence hex) {
+        int nbDigits = 0;
+        for (int i = 0; i < hex.length(); i++) {
+            if (!isIgnoredHexChar(hex.charAt(i))) {
+                nbDigits++;
+            }
+        }
+        if (nbDigits % 2 != 0) {
+            throw new IllegalArgumentException("Odd numbered hex array");
+        }
+        return nbDigits / 2;
+    }
+
+    /* decodes the hexa string, the destination is expected to be large enough */
+    private static void decodeHex(CharSequence hex, byte[] dest, int destOffset) {
+        int j = destOffset;
+        int i = 0;
+        int length = hex.length();
+        while (i < length) {
+            char high = hex.charAt(i++);
+            if (isIgnoredHexChar(high)) {
+                continue;
+            }
+            char low = hex.charAt(i++);
+            while (isIgnoredHexChar(low)) {
+                low = hex.charAt(i++);
+            }
+            dest[j++] = toByte(hexValue(high), hexValue(low));
         }
-        return hexStringBuilder.toString();
     }
 
     /**
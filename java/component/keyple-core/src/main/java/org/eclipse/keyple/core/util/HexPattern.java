@@ -0,0 +1,272 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.util;
+
+import java.util.regex.Pattern;
+
+/**
+ * Compiled form of a regular expression intended to be matched against hexadecimal strings (e.g.
+ * an ATR mask).
+ * <p>
+ * The expression is compiled once. The simple expressions are turned into nibble masks and
+ * matched directly against the bytes, without any hexadecimal conversion nor allocation. An
+ * expression is simple when it is an alternation (|) of masks made only of uppercase hexadecimal
+ * digits and dots (any nibble), each optionally starting and/or ending with ".*" (any prefix, any
+ * suffix). The other expressions are handled by a precompiled {@link Pattern}.
+ * <p>
+ * In all cases, the result is the same as
+ * {@code Pattern.compile(regex).matcher(ByteArrayUtil.toHex(bytes)).matches()}.
+ */
+public final class HexPattern {
+
+    private static final String ANY_SEQUENCE = ".*";
+    static final int ANY_NIBBLE = -1;
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private final String regex;
+    /** compiled pattern (null when the expression is handled as nibble masks) */
+    private final Pattern pattern;
+    /** alternatives of the expression (nibble masks only) */
+    private final NibbleMask[] masks;
+
+    private HexPattern(String regex, Pattern pattern, NibbleMask[] masks) {
+        this.regex = regex;
+        this.pattern = pattern;
+        this.masks = masks;
+    }
+
+    /**
+     * Compiles the provided regular expression
+     *
+     * @param regex the regular expression
+     * @return the compiled expression
+     * @throws java.util.regex.PatternSyntaxException if the expression is not valid
+     */
+    public static HexPattern compile(String regex) {
+        if (regex == null) {
+            throw new IllegalArgumentException("Regex must not be null");
+        }
+        String[] alternatives = regex.split("\\|", -1);
+        NibbleMask[] masks = new NibbleMask[alternatives.length];
+        for (int i = 0; i < alternatives.length; i++) {
+            masks[i] = NibbleMask.parse(alternatives[i]);
+            if (masks[i] == null) {
+                // not a simple mask: use a regular expression
+                return new HexPattern(regex, Pattern.compile(regex), null);
+            }
+        }
+        return new HexPattern(regex, null, masks);
+    }
+
+    /**
+     * @return the regular expression provided at compilation time
+     */
+    public String getRegex() {
+        return regex;
+    }
+
+    /**
+     * @return true if the expression is handled as nibble masks (no regular expression involved)
+     */
+    public boolean isNibbleMask() {
+        return pattern == null;
+    }
+
+    /**
+     * @return the alternatives of the expression, null if it is handled by a regular expression
+     */
+    NibbleMask[] getMasks() {
+        return masks;
+    }
+
+    /**
+     * Tells if the hexadecimal representation of the provided bytes matches the expression
+     *
+     * @param bytes the bytes to check
+     * @return true if the bytes are matching
+     */
+    public boolean matches(byte[] bytes) {
+        if (pattern != null) {
+            return pattern.matcher(ByteArrayUtil.toHex(bytes)).matches();
+        }
+        for (NibbleMask mask : masks) {
+            if (mask.matches(bytes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tells if the provided string matches the expression
+     *
+     * @param input the string to check (typically an hexadecimal string)
+     * @return true if the string is matching
+     */
+    public boolean matches(CharSequence input) {
+        if (pattern != null) {
+            return pattern.matcher(input).matches();
+        }
+        // the characters of a simple mask (digits or dots) never match line terminators
+        for (int i = 0; i < input.length(); i++) {
+            if (isLineTerminator(input.charAt(i))) {
+                return false;
+            }
+        }
+        for (NibbleMask mask : masks) {
+            if (mask.matches(input)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    /**
+     * Gets a nibble of an array of bytes
+     *
+     * @param bytes the bytes
+     * @param index the index of the nibble (two nibbles per byte, high nibble first)
+     * @return the value of the nibble
+     */
+    static int nibbleAt(byte[] bytes, int index) {
+        return (index & 1) == 0 ? (bytes[index >> 1] >> 4) & 0x0F : bytes[index >> 1] & 0x0F;
+    }
+
+    @Override
+    public String toString() {
+        return "HexPattern{" + "regex='" + regex + '\'' + '}';
+    }
+
+    /**
+     * Alternative of a simple expression: expected nibbles, possibly preceded and/or followed by
+     * any sequence
+     */
+    static final class NibbleMask {
+        /** expected value of each nibble, ANY_NIBBLE for a dot */
+        final int[] nibbles;
+        /** true if any prefix is accepted before the nibbles */
+        final boolean anyPrefix;
+        /** true if any suffix is accepted after the nibbles */
+        final boolean anySuffix;
+
+        private NibbleMask(int[] nibbles, boolean anyPrefix, boolean anySuffix) {
+            this.nibbles = nibbles;
+            this.anyPrefix = anyPrefix;
+            this.anySuffix = anySuffix;
+        }
+
+        /**
+         * Parses an alternative
+         *
+         * @param expression the alternative
+         * @return the mask or null if the alternative is not simple
+         */
+        private static NibbleMask parse(String expression) {
+            String mask = expression;
+            boolean anySuffix = mask.endsWith(ANY_SEQUENCE);
+            if (anySuffix) {
+                mask = mask.substring(0, mask.length() - ANY_SEQUENCE.length());
+            }
+            boolean anyPrefix = mask.startsWith(ANY_SEQUENCE);
+            if (anyPrefix) {
+                mask = mask.substring(ANY_SEQUENCE.length());
+            }
+            int[] nibbles = new int[mask.length()];
+            for (int i = 0; i < mask.length(); i++) {
+                char c = mask.charAt(i);
+                if (c == '.') {
+                    nibbles[i] = ANY_NIBBLE;
+                } else if ((c >= '0' && c <= '9') || (c >= 'A' && c <= 'F')) {
+                    nibbles[i] = Character.digit(c, 16);
+                } else {
+                    return null;
+                }
+            }
+            return new NibbleMask(nibbles, anyPrefix, anySuffix);
+        }
+
+        /**
+         * @param length the number of nibbles (or characters) of the input
+         * @return the first offset at which the nibbles may be found, -1 if the length does not
+         *         fit
+         */
+        int firstOffset(int length) {
+            int free = length - nibbles.length;
+            if (free < 0 || (free > 0 && !anyPrefix && !anySuffix)) {
+                return -1;
+            }
+            return anyPrefix && !anySuffix ? free : 0;
+        }
+
+        /**
+         * @param length the number of nibbles (or characters) of the input
+         * @return the last offset at which the nibbles may be found
+         */
+        int lastOffset(int length) {
+            return anyPrefix ? length - nibbles.length : firstOffset(length);
+        }
+
+        boolean matches(byte[] bytes) {
+            int length = bytes.length * 2;
+            int first = firstOffset(length);
+            if (first < 0) {
+                return false;
+            }
+            int last = lastOffset(length);
+            for (int offset = first; offset <= last; offset++) {
+                if (matchesAt(bytes, offset)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean matchesAt(byte[] bytes, int offset) {
+            for (int i = 0; i < nibbles.length; i++) {
+                if (nibbles[i] != ANY_NIBBLE && nibbleAt(bytes, offset + i) != nibbles[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /* the input is known to be free of line terminators */
+        boolean matches(CharSequence input) {
+            int length = input.length();
+            int first = firstOffset(length);
+            if (first < 0) {
+                return false;
+            }
+            int last = lastOffset(length);
+            for (int offset = first; offset <= last; offset++) {
+                if (matchesAt(input, offset)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean matchesAt(CharSequence input, int offset) {
+            for (int i = 0; i < nibbles.length; i++) {
+                if (nibbles[i] != ANY_NIBBLE
+                        && input.charAt(offset + i) != HEX_DIGITS[nibbles[i]]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Set of {@link HexPattern}s compiled together to classify an input (e.g. an ATR) against all of
+ * them at once.
+ * <p>
+ * The nibble masks anchored at the beginning of the input (the most common form of ATR masks) are
+ * compiled into a table of bit sets indexed by nibble position and nibble value: the input is read
+ * once, each nibble eliminating at once all the masks it does not fit. The other masks are matched
+ * one by one, and the expressions which are not simple are matched with their regular expression
+ * against an hexadecimal string computed once.
+ * <p>
+ * The rules consisting of a plain word (letters, digits and underscores only) are also indexed by
+ * value to classify non-hexadecimal strings (e.g. protocol names) with a single lookup.
+ * <p>
+ * Immutable and thread-safe.
+ *
+ * @param <K> the type of the keys identifying the rules (e.g. the protocols)
+ */
+public final class HexPatternClassifier<K> {
+
+    private static final Pattern PLAIN_WORD = Pattern.compile("\\w*");
+
+    /** all the rules, in the order of registration */
+    private final List<Rule<K>> rules = new ArrayList<Rule<K>>();
+
+    /** keys of the masks of the table, indexed by bit number */
+    private final List<Rule<K>> tableRules = new ArrayList<Rule<K>>();
+    private final List<HexPattern.NibbleMask> tableMasks = new ArrayList<HexPattern.NibbleMask>();
+    /** bits of the masks accepting each value of each nibble: [position][value][word] */
+    private final long[][][] acceptedNibbles;
+    private final int nbWords;
+
+    /** masks not anchored at the beginning of the input, matched one by one */
+    private final List<Rule<K>> floatingRules = new ArrayList<Rule<K>>();
+    private final List<HexPattern.NibbleMask> floatingMasks =
+            new ArrayList<HexPattern.NibbleMask>();
+
+    /** rules handled by a regular expression */
+    private final List<Rule<K>> regexRules = new ArrayList<Rule<K>>();
+
+    /** keys of the plain word rules, by word */
+    private final Map<String, List<K>> plainWords = new HashMap<String, List<K>>();
+
+    private HexPatternClassifier(Map<K, String> rulesByKey) {
+        for (Map.Entry<K, String> entry : rulesByKey.entrySet()) {
+            boolean plainWord = PLAIN_WORD.matcher(entry.getValue()).matches();
+            Rule<K> rule = new Rule<K>(entry.getKey(), HexPattern.compile(entry.getValue()),
+                    plainWord);
+            rules.add(rule);
+            if (plainWord) {
+                List<K> keys = plainWords.get(entry.getValue());
+                if (keys == null) {
+                    keys = new ArrayList<K>(1);
+                    plainWords.put(entry.getValue(), keys);
+                }
+                keys.add(entry.getKey());
+            }
+            HexPattern.NibbleMask[] masks = rule.pattern.getMasks();
+            if (masks == null) {
+                /* a plain word which is not a mask never matches an hexadecimal string */
+                if (!plainWord) {
+                    regexRules.add(rule);
+                }
+                continue;
+            }
+            for (HexPattern.NibbleMask mask : masks) {
+                if (mask.anyPrefix) {
+                    floatingRules.add(rule);
+                    floatingMasks.add(mask);
+                } else {
+                    tableRules.add(rule);
+                    tableMasks.add(mask);
+                }
+            }
+        }
+        /* build the table */
+        nbWords = (tableMasks.size() + 63) / 64;
+        int maxLength = 0;
+        for (HexPattern.NibbleMask mask : tableMasks) {
+            maxLength = Math.max(maxLength, mask.nibbles.length);
+        }
+        acceptedNibbles = new long[maxLength][16][nbWords];
+        for (int bit = 0; bit < tableMasks.size(); bit++) {
+            int[] nibbles = tableMasks.get(bit).nibbles;
+            for (int position = 0; position < maxLength; position++) {
+                for (int value = 0; value < 16; value++) {
+                    /* beyond its length, a mask accepts everything (the length is checked apart) */
+                    if (position >= nibbles.length || nibbles[position] == HexPattern.ANY_NIBBLE
+                            || nibbles[position] == value) {
+                        acceptedNibbles[position][value][bit >> 6] |= 1L << (bit & 63);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Compiles a set of rules
+     *
+     * @param rules the regular expressions, by key
+     * @param <K> the type of the keys
+     * @return the compiled rules
+     * @throws java.util.regex.PatternSyntaxException if an expression is not valid
+     */
+    public static <K> HexPatternClassifier<K> compile(Map<K, String> rules) {
+        if (rules == null) {
+            throw new IllegalArgumentException("Rules must not be null");
+        }
+        return new HexPatternClassifier<K>(rules);
+    }
+
+    /**
+     * Gets the keys of the rules matched by the hexadecimal representation of the provided bytes
+     *
+     * @param bytes the bytes to classify
+     * @return the keys of the matching rules (empty if none)
+     */
+    public Set<K> classify(byte[] bytes) {
+        Set<K> keys = new HashSet<K>();
+        int length = bytes.length * 2;
+        /* masks of the table */
+        long[] candidates = new long[nbWords];
+        boolean anyCandidate = false;
+        for (int bit = 0; bit < tableMasks.size(); bit++) {
+            HexPattern.NibbleMask mask = tableMasks.get(bit);
+            if (mask.firstOffset(length) == 0) {
+                candidates[bit >> 6] |= 1L << (bit & 63);
+                anyCandidate = true;
+            }
+        }
+        int end = Math.min(length, acceptedNibbles.length);
+        for (int position = 0; position < end && anyCandidate; position++) {
+            long[] accepted = acceptedNibbles[position][HexPattern.nibbleAt(bytes, position)];
+            anyCandidate = false;
+            for (int word = 0; word < nbWords; word++) {
+                candidates[word] &= accepted[word];
+                anyCandidate |= candidates[word] != 0;
+            }
+        }
+        if (anyCandidate) {
+            for (int bit = 0; bit < tableMasks.size(); bit++) {
+                if ((candidates[bit >> 6] & (1L << (bit & 63))) != 0) {
+                    keys.add(tableRules.get(bit).key);
+                }
+            }
+        }
+        /* other masks */
+        for (int i = 0; i < floatingMasks.size(); i++) {
+            Rule<K> rule = floatingRules.get(i);
+            if (!keys.contains(rule.key) && floatingMasks.get(i).matches(bytes)) {
+                keys.add(rule.key);
+            }
+        }
+        /* regular expressions */
+        if (!regexRules.isEmpty()) {
+            String hex = ByteArrayUtil.toHex(bytes);
+            for (Rule<K> rule : regexRules) {
+                if (!keys.contains(rule.key) && rule.pattern.matches(hex)) {
+                    keys.add(rule.key);
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Gets the keys of the rules matched by the provided string
+     *
+     * @param input the string to classify (an hexadecimal string or any other value)
+     * @return the keys of the matching rules (empty if none)
+     */
+    public Set<K> classify(CharSequence input) {
+        String value = input.toString();
+        boolean hexDigitsOnly = isHexString(value);
+        if (hexDigitsOnly && (value.length() & 1) == 0) {
+            return classify(ByteArrayUtil.fromHex(value));
+        }
+        Set<K> keys = new HashSet<K>();
+        List<K> plainWordKeys = plainWords.get(value);
+        if (plainWordKeys != null) {
+            keys.addAll(plainWordKeys);
+        }
+        for (Rule<K> rule : rules) {
+            /*
+             * a plain word only matches itself, a mask made of digits only does not match a string
+             * containing other characters
+             */
+            if (keys.contains(rule.key) || rule.plainWord
+                    || (!hexDigitsOnly && rule.digitsOnly)) {
+                continue;
+            }
+            if (rule.pattern.matches(value)) {
+                keys.add(rule.key);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * @return the keys of the compiled rules
+     */
+    public Set<K> getKeys() {
+        Set<K> keys = new HashSet<K>();
+        for (Rule<K> rule : rules) {
+            keys.add(rule.key);
+        }
+        return Collections.unmodifiableSet(keys);
+    }
+
+    private static boolean isHexString(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'A' && c <= 'F'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "HexPatternClassifier{" + "rules=" + rules.size() + ", tableMasks="
+                + tableMasks.size() + ", floatingMasks=" + floatingMasks.size() + ", regexRules="
+                + regexRules.size() + '}';
+    }
+
+    private static final class Rule<K> {
+        private final K key;
+        private final HexPattern pattern;
+        /* the expression is a plain word */
+        private final boolean plainWord;
+        /* the expression is made of hexadecimal digits only (no dots nor any sequences) */
+        private final boolean digitsOnly;
+
+        private Rule(K key, HexPattern pattern, boolean plainWord) {
+            this.key = key;
+            this.pattern = pattern;
+            this.plainWord = plainWord;
+            this.digitsOnly = isDigitsOnly(pattern);
+        }
+
+        private static boolean isDigitsOnly(HexPattern pattern) {
+            if (!pattern.isNibbleMask()) {
+                return false;
+            }
+            for (HexPattern.NibbleMask mask : pattern.getMasks()) {
+                if (mask.anyPrefix || mask.anySuffix) {
+                    return false;
+                }
+                for (int nibble : mask.nibbles) {
+                    if (nibble == HexPattern.ANY_NIBBLE) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe histogram of durations with exponential buckets.
+ * <p>
+ * The bucket n holds the values v such that 2^(n-1) &lt;= v &lt; 2^n (the bucket 0 holds the value
+ * 0), the percentiles are thus given with a relative precision of a factor 2, which is enough to
+ * follow latencies. Recording a value does not allocate and does not lock.
+ * <p>
+ * The unit of the values is left to the caller (typically microseconds).
+ */
+public final class LatencyHistogram {
+
+    private static final int NB_BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(NB_BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value
+     *
+     * @param value the value (negative values are recorded as 0)
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        buckets.incrementAndGet(NB_BUCKETS - Long.numberOfLeadingZeros(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return the greatest recorded value, 0 if no value was recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return the mean of the recorded values, 0 if no value was recorded
+     */
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    /**
+     * Gets an upper bound of the provided percentile.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the upper bound of the bucket containing the percentile (capped to the max recorded
+     *         value), 0 if no value was recorded
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile / 100 * n);
+        long cumulated = 0;
+        for (int i = 0; i < NB_BUCKETS; i++) {
+            cumulated += buckets.get(i);
+            if (cumulated >= rank && cumulated > 0) {
+                // (1 << 63) - 1 overflows to Long.MAX_VALUE as expected
+                return Math.min((1L << i) - 1, max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Clears all the recorded values
+     */
+    public void reset() {
+        for (int i = 0; i < NB_BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogram{count=" + getCount() + ", mean=" + getMean() + ", p50="
+                + getPercentile(50) + ", p99=" + getPercentile(99) + ", max=" + getMax() + "}";
+    }
+}
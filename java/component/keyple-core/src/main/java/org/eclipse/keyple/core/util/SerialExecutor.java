@@ -0,0 +1,134 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.util;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Executor running the submitted tasks one after the other, in the submission order, on top of a
+ * shared {@link Executor}.
+ * <p>
+ * It allows to serialize the operations targeting a single resource (e.g. a reader) while sharing
+ * a pool of threads between several resources. No thread is held while the queue is empty.
+ * <p>
+ * If the underlying executor rejects a task (e.g. once it is shut down), the pending tasks are
+ * dropped: those which are {@link Future}s are cancelled, so that no caller waits for them.
+ */
+public final class SerialExecutor implements Executor {
+
+    private final Queue<SerialTask> tasks = new ArrayDeque<SerialTask>();
+    private final Executor executor;
+    private SerialTask active;
+
+    /**
+     * Constructor
+     *
+     * @param executor the underlying executor actually running the tasks
+     */
+    public SerialExecutor(Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor must not be null");
+        }
+        this.executor = executor;
+    }
+
+    /**
+     * Queue a task, it will be run once all the previously submitted tasks are completed
+     *
+     * @param command the task to run
+     */
+    @Override
+    public synchronized void execute(final Runnable command) {
+        tasks.add(new SerialTask(command));
+        if (active == null) {
+            scheduleNext();
+        }
+    }
+
+    private synchronized void scheduleNext() {
+        active = tasks.poll();
+        if (active != null) {
+            try {
+                executor.execute(active);
+            } catch (RejectedExecutionException e) {
+                // the underlying executor is shut down, drop the pending tasks
+                active.cancel();
+                for (SerialTask task : tasks) {
+                    task.cancel();
+                }
+                tasks.clear();
+                active = null;
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Drops the tasks not started yet, to be called once the underlying executor has been shut
+     * down with {@link java.util.concurrent.ExecutorService#shutdownNow()}: the tasks waiting for
+     * their turn, and the one handed over to the underlying executor but not started (i.e. dropped
+     * by shutdownNow), will never be run. Those which are {@link Future}s are cancelled.
+     * <p>
+     * A running task is not affected.
+     */
+    public synchronized void cancelPendingTasks() {
+        for (SerialTask task : tasks) {
+            task.cancel();
+        }
+        tasks.clear();
+        if (active != null && !active.started) {
+            active.cancel();
+            active = null;
+        }
+    }
+
+    /**
+     * @return true if no task is running or waiting
+     */
+    public synchronized boolean isIdle() {
+        return active == null;
+    }
+
+    /**
+     * Task run by the underlying executor, schedules the next one once completed
+     */
+    private final class SerialTask implements Runnable {
+
+        private final Runnable command;
+        private volatile boolean started;
+
+        private SerialTask(Runnable command) {
+            this.command = command;
+        }
+
+        @Override
+        public void run() {
+            started = true;
+            try {
+                command.run();
+            } finally {
+                scheduleNext();
+            }
+        }
+
+        /* the task will not be run */
+        private void cancel() {
+            if (command instanceof Future) {
+                ((Future<?>) command).cancel(false);
+            }
+        }
+    }
+}
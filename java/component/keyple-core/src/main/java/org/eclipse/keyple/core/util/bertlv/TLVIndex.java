@@ -0,0 +1,359 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.util.bertlv;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+
+/**
+ * Single pass index of a BER-TLV structure (ITU-T X.690 / ISO 8825).
+ * <p>
+ * All the TLVs of the buffer, including the ones nested in constructed TLVs, are indexed in one
+ * pass: for each TLV, the tag, the offset and length of the value and the index of the enclosing
+ * TLV are recorded in primitive arrays. The values are not copied, they are accessed in place in
+ * the original buffer with the offset and length accessors or with {@link #getValueBuffer(int)}.
+ * <p>
+ * The tags are handled as integers made of their encoded bytes (e.g. 0x6F, 0xBF0C), up to 4
+ * bytes. The lengths can be encoded in short or long form (up to 3 length bytes), the indefinite
+ * form is not supported. The padding bytes (00h or FFh) allowed by ISO 7816-4 between the TLVs
+ * are skipped.
+ * <p>
+ * In lenient mode, the lengths of the constructed TLVs are not enforced, as some SEs return
+ * inconsistent ones: a constructed TLV longer than the data is truncated, and a nested TLV may
+ * extend beyond the end of the enclosing TLV (the enclosing TLV is then considered ended).
+ * <p>
+ * An index can be reused for several buffers with {@link #parse(byte[], int, int)}, its arrays are
+ * then only reallocated when a structure has more TLVs than all the previous ones. It is not
+ * thread-safe.
+ */
+public final class TLVIndex {
+
+    /** value returned when a TLV is not found */
+    public static final int NOT_FOUND = -1;
+
+    private static final int INITIAL_CAPACITY = 8;
+    private static final int MAX_TAG_SIZE = 4;
+    private static final int MAX_LENGTH_SIZE = 3;
+
+    private final boolean lenient;
+    private byte[] buffer;
+    private int size;
+    private int[] tags = new int[INITIAL_CAPACITY];
+    private int[] tagOffsets = new int[INITIAL_CAPACITY];
+    private int[] valueOffsets = new int[INITIAL_CAPACITY];
+    private int[] valueLengths = new int[INITIAL_CAPACITY];
+    private int[] parents = new int[INITIAL_CAPACITY];
+
+    /**
+     * Creates an empty strict index, to be filled with {@link #parse(byte[], int, int)}
+     */
+    public TLVIndex() {
+        this(false);
+    }
+
+    /**
+     * Creates an empty index, to be filled with {@link #parse(byte[], int, int)}
+     *
+     * @param lenient true if the lengths of the constructed TLVs are not enforced
+     */
+    public TLVIndex(boolean lenient) {
+        this.lenient = lenient;
+    }
+
+    /**
+     * Creates the strict index of a buffer containing a BER-TLV structure
+     *
+     * @param buffer the buffer
+     * @throws IllegalArgumentException if the buffer is not a valid BER-TLV structure
+     */
+    public TLVIndex(byte[] buffer) {
+        this(false);
+        parse(buffer, 0, buffer.length);
+    }
+
+    /**
+     * Indexes a part of a buffer, replacing the current content of the index.
+     *
+     * @param buffer the buffer
+     * @param offset the offset of the BER-TLV structure in the buffer
+     * @param length the length of the BER-TLV structure
+     * @return the index itself
+     * @throws IllegalArgumentException if the buffer part is not a valid BER-TLV structure
+     */
+    public TLVIndex parse(byte[] buffer, int offset, int length) {
+        if (buffer == null) {
+            throw new IllegalArgumentException("TLV parsing: buffer can't be null.");
+        }
+        if (offset < 0 || length < 0 || offset + length > buffer.length) {
+            throw new IllegalArgumentException("TLV parsing: index is too large.");
+        }
+        this.buffer = buffer;
+        this.size = 0;
+        int end = offset + length;
+        int position = offset;
+        int parent = NOT_FOUND;
+        int parentEnd = end;
+        while (true) {
+            // leaves the constructed TLVs whose value has been entirely indexed
+            while (parent != NOT_FOUND && position >= parentEnd) {
+                parent = parents[parent];
+                parentEnd = parent == NOT_FOUND ? end
+                        : valueOffsets[parent] + valueLengths[parent];
+            }
+            if (position >= parentEnd) {
+                break;
+            }
+            int first = buffer[position] & 0xFF;
+            if (first == 0x00 || first == 0xFF) {
+                // padding
+                position++;
+                continue;
+            }
+            int tagOffset = position;
+            // the bytes of the current TLV must be in its parent, or only in the buffer if lenient
+            int limit = lenient ? end : parentEnd;
+            // tag
+            int tag = first;
+            position++;
+            if ((first & 0x1F) == 0x1F) {
+                int next;
+                do {
+                    if (position >= limit || position - tagOffset >= MAX_TAG_SIZE) {
+                        throw new IllegalArgumentException(
+                                "TLV parsing: invalid tag at offset " + tagOffset + ".");
+                    }
+                    next = buffer[position++] & 0xFF;
+                    tag = (tag << 8) | next;
+                } while ((next & 0x80) != 0);
+            }
+            // length
+            if (position >= limit) {
+                throw new IllegalArgumentException(
+                        "TLV parsing: missing length at offset " + position + ".");
+            }
+            int valueLength = buffer[position++] & 0xFF;
+            if (valueLength > 0x7F) {
+                int following = valueLength & 0x7F;
+                if (following == 0 || following > MAX_LENGTH_SIZE
+                        || position + following > limit) {
+                    throw new IllegalArgumentException(
+                            "TLV parsing: invalid length at offset " + (position - 1) + ".");
+                }
+                valueLength = 0;
+                while (following > 0) {
+                    valueLength = (valueLength << 8) | (buffer[position++] & 0xFF);
+                    following--;
+                }
+            }
+            boolean constructed = (first & 0x20) != 0;
+            if (valueLength > limit - position) {
+                if (!lenient || !constructed) {
+                    throw new IllegalArgumentException(
+                            "TLV parsing: value too long at offset " + tagOffset + ".");
+                }
+                valueLength = limit - position;
+            }
+            int index = add(tag, tagOffset, position, valueLength, parent);
+            if (constructed) {
+                // constructed: its value is indexed next
+                parent = index;
+                parentEnd = position + valueLength;
+            } else {
+                position += valueLength;
+            }
+        }
+        return this;
+    }
+
+    private int add(int tag, int tagOffset, int valueOffset, int valueLength, int parent) {
+        if (size == tags.length) {
+            int capacity = size * 2;
+            tags = Arrays.copyOf(tags, capacity);
+            tagOffsets = Arrays.copyOf(tagOffsets, capacity);
+            valueOffsets = Arrays.copyOf(valueOffsets, capacity);
+            valueLengths = Arrays.copyOf(valueLengths, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+        }
+        tags[size] = tag;
+        tagOffsets[size] = tagOffset;
+        valueOffsets[size] = valueOffset;
+        valueLengths[size] = valueLength;
+        parents[size] = parent;
+        return size++;
+    }
+
+    /**
+     * @return the indexed buffer
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * @return the number of indexed TLVs
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the index of the first TLV with the provided tag, at any depth
+     *
+     * @param tag the encoded tag (e.g. 0xBF0C)
+     * @return the index of the TLV or {@link #NOT_FOUND}
+     */
+    public int indexOf(int tag) {
+        for (int i = 0; i < size; i++) {
+            if (tags[i] == tag) {
+                return i;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Gets the index of the first TLV with the provided tag directly contained in a constructed
+     * TLV
+     *
+     * @param parentIndex the index of the constructed TLV, {@link #NOT_FOUND} for the top level
+     * @param tag the encoded tag
+     * @return the index of the TLV or {@link #NOT_FOUND}
+     */
+    public int indexOfChild(int parentIndex, int tag) {
+        // the children follow their parent in the index
+        for (int i = parentIndex + 1; i < size; i++) {
+            if (parents[i] == parentIndex && tags[i] == tag) {
+                return i;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Gets the index of a TLV from the tags of its enclosing TLVs, starting from the top level
+     * (e.g. {0x6F, 0xA5, 0xBF0C, 0xC7})
+     *
+     * @param path the encoded tags
+     * @return the index of the TLV or {@link #NOT_FOUND}
+     */
+    public int indexOfPath(int[] path) {
+        int index = NOT_FOUND;
+        for (int tag : path) {
+            index = indexOfChild(index, tag);
+            if (index == NOT_FOUND) {
+                break;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @param index the index of the TLV
+     * @return the encoded tag of the TLV
+     */
+    public int getTag(int index) {
+        checkIndex(index);
+        return tags[index];
+    }
+
+    /**
+     * @param index the index of the TLV
+     * @return true if the TLV is constructed
+     */
+    public boolean isConstructed(int index) {
+        checkIndex(index);
+        return (buffer[tagOffsets[index]] & 0x20) != 0;
+    }
+
+    /**
+     * @param index the index of the TLV
+     * @return the index of the enclosing TLV, {@link #NOT_FOUND} for a top level TLV
+     */
+    public int getParent(int index) {
+        checkIndex(index);
+        return parents[index];
+    }
+
+    /**
+     * @param index the index of the TLV
+     * @return the offset of the TLV (its tag) in the buffer
+     */
+    public int getTlvOffset(int index) {
+        checkIndex(index);
+        return tagOffsets[index];
+    }
+
+    /**
+     * @param index the index of the TLV
+     * @return the offset of the value in the buffer
+     */
+    public int getValueOffset(int index) {
+        checkIndex(index);
+        return valueOffsets[index];
+    }
+
+    /**
+     * @param index the index of the TLV
+     * @return the length of the value
+     */
+    public int getValueLength(int index) {
+        checkIndex(index);
+        return valueLengths[index];
+    }
+
+    /**
+     * Gets a read-only view of the value, without copy
+     *
+     * @param index the index of the TLV
+     * @return a buffer whose position is 0 and limit the length of the value
+     */
+    public ByteBuffer getValueBuffer(int index) {
+        checkIndex(index);
+        return ByteBuffer.wrap(buffer, valueOffsets[index], valueLengths[index]).slice()
+                .asReadOnlyBuffer();
+    }
+
+    /**
+     * Gets a copy of the value
+     *
+     * @param index the index of the TLV
+     * @return a new byte array
+     */
+    public byte[] getValue(int index) {
+        checkIndex(index);
+        return Arrays.copyOfRange(buffer, valueOffsets[index],
+                valueOffsets[index] + valueLengths[index]);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("TLV index " + index + ", size " + size);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("TLVIndex{");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(String.format("%X", tags[i])).append('@').append(valueOffsets[i])
+                    .append('/').append(valueLengths[i]);
+            if (!isConstructed(i)) {
+                sb.append('=').append(ByteArrayUtil.toHex(getValue(i)));
+            }
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -13,7 +13,7 @@ package org.eclipse.keyple.core.util.bertlv;
 
 /**
  * This class represent a TAG as defined by the Basic Encoding Rules for ASN.1 <br>
- * This implementation limits the tag size to 2.<br>
+ * The tag number of a multi-byte tag is made of the 7 low-order bits of its subsequent bytes.<br>
  * (ITU-T X.690 / ISO 8825)
  */
 public class Tag {
@@ -40,7 +40,7 @@ public class Tag {
      * @param tagNumber the tag value.
      * @param tagClass the tag class.
      * @param tagType constructed or primitive
-     * @param tagSize the tag size (1 or 2)
+     * @param tagSize the tag size (1 for a tag number lower than 31)
      */
     public Tag(int tagNumber, byte tagClass, TagType tagType, int tagSize) {
         if (tagType == null) {
@@ -77,14 +77,18 @@ public class Tag {
 
         /* */
         int number = binary[offset] & (byte) 0x1F;
+        int size = 1;
         if (number == (byte) 0x1F) {
-            /* two-byte tag */
-            number = binary[offset + 1];
-            tagSize = 2;
-        } else {
-            /* one-byte tag */
-            tagSize = 1;
+            /* multi-byte tag: b7 of the subsequent bytes is set except in the last one */
+            number = 0;
+            byte next;
+            do {
+                next = binary[offset + size];
+                number = (number << 7) | (next & 0x7F);
+                size++;
+            } while ((next & (byte) 0x80) != 0);
         }
+        tagSize = size;
         tagNumber = number;
     }
 
@@ -0,0 +1,95 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.metrics;
+
+import org.eclipse.keyple.core.CoreBaseTest;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class InMemoryKeypleMetricsTest extends CoreBaseTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryKeypleMetricsTest.class);
+
+    private InMemoryKeypleMetrics metrics;
+
+    @Before
+    public void setUp() {
+        logger.info("------------------------------");
+        logger.info("Test {}", name.getMethodName() + "");
+        logger.info("------------------------------");
+        metrics = new InMemoryKeypleMetrics();
+    }
+
+    @Test
+    public void recordApduExchange_byCommandName() {
+        metrics.recordApduExchange("reader", "Read Records - SFI: 07h, REC: 1", 100);
+        metrics.recordApduExchange("reader", "Read Records - SFI: 08h, REC: 1", 200);
+        metrics.recordApduExchange("reader", "Open Secure Session V3.1", 1000);
+        metrics.recordApduExchange("reader", null, 10);
+
+        Assert.assertEquals(3, metrics.getApduHistograms().size());
+        Assert.assertEquals(2, metrics.getApduHistograms().get("Read Records").getCount());
+        Assert.assertEquals(200, metrics.getApduHistograms().get("Read Records").getMax());
+        Assert.assertEquals(1,
+                metrics.getApduHistograms().get("Open Secure Session V3.1").getCount());
+        Assert.assertEquals(1, metrics.getApduHistograms()
+                .get(InMemoryKeypleMetrics.UNNAMED_COMMAND).getCount());
+    }
+
+    @Test
+    public void record_countsAndHistograms() {
+        metrics.recordSeRequest("reader1", 500, true);
+        metrics.recordSeRequest("reader1", 700, false);
+        metrics.recordSeRequest("reader2", 300, true);
+        metrics.recordSelection("reader1", true);
+        metrics.recordSelection("reader1", false);
+        metrics.recordSelection("reader2", false);
+        metrics.recordSamAllocation(50, true);
+        metrics.recordSamAllocation(5000, false);
+        metrics.recordTransactionPhase("OPENING", 20000, true);
+        metrics.recordTransactionPhase("CLOSING", 30000, false);
+
+        Assert.assertEquals(2, metrics.getSeRequestHistograms().get("reader1").getCount());
+        Assert.assertEquals(1, metrics.getSeRequestHistograms().get("reader2").getCount());
+        Assert.assertEquals(1, metrics.getFailedSeRequestCount());
+        Assert.assertEquals(1, metrics.getMatchedSelectionCount());
+        Assert.assertEquals(2, metrics.getUnmatchedSelectionCount());
+        Assert.assertEquals(2, metrics.getSamAllocationHistogram().getCount());
+        Assert.assertEquals(1, metrics.getFailedSamAllocationCount());
+        Assert.assertEquals(2, metrics.getTransactionPhaseHistograms().size());
+        Assert.assertEquals(1, metrics.getFailedTransactionPhaseCount());
+
+        metrics.reset();
+        Assert.assertTrue(metrics.getSeRequestHistograms().isEmpty());
+        Assert.assertEquals(0, metrics.getSamAllocationHistogram().getCount());
+        Assert.assertEquals(0, metrics.getMatchedSelectionCount());
+    }
+
+    @Test
+    public void metricsProvider_setMetrics() {
+        Assert.assertSame(NoOpKeypleMetrics.INSTANCE, MetricsProvider.getMetrics());
+        MetricsProvider.setMetrics(metrics);
+        try {
+            Assert.assertSame(metrics, MetricsProvider.getMetrics());
+        } finally {
+            MetricsProvider.setMetrics(NoOpKeypleMetrics.INSTANCE);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void metricsProvider_setNullMetrics() {
+        MetricsProvider.setMetrics(null);
+    }
+}
@@ -0,0 +1,182 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.selection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.eclipse.keyple.core.CoreBaseTest;
+import org.eclipse.keyple.core.seproxy.ChannelControl;
+import org.eclipse.keyple.core.seproxy.MultiSeRequestProcessing;
+import org.eclipse.keyple.core.seproxy.SeSelector;
+import org.eclipse.keyple.core.seproxy.message.ApduResponse;
+import org.eclipse.keyple.core.seproxy.message.DefaultSelectionsResponse;
+import org.eclipse.keyple.core.seproxy.message.SeResponse;
+import org.eclipse.keyple.core.seproxy.message.SelectionStatus;
+import org.eclipse.keyple.core.seproxy.protocol.SeCommonProtocols;
+import org.eclipse.keyple.core.seproxy.protocol.TransmissionMode;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class SelectionCacheTest extends CoreBaseTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SelectionCacheTest.class);
+
+    private static final String FCI_1 = "6F0A8408A000000291A000019000";
+    private static final String FCI_2 = "6F0A8408A000000291A000029000";
+    private static final String FCI_3 = "6F0A8408A000000291A000039000";
+
+    private SelectionCache selectionCache;
+    private CopyableSelectionRequest selectionRequest;
+
+    @Before
+    public void setUp() {
+        logger.info("------------------------------");
+        logger.info("Test {}", name.getMethodName() + "");
+        logger.info("------------------------------");
+        selectionCache = new SelectionCache(2);
+        selectionRequest = new CopyableSelectionRequest("A000000291");
+    }
+
+    @Test
+    public void getMatchingSe_sameResponse_copyOfCachedSe() throws Exception {
+        AbstractMatchingSe first = selectionCache.getMatchingSe(selectionRequest, response(FCI_1));
+        AbstractMatchingSe second = selectionCache.getMatchingSe(selectionRequest, response(FCI_1));
+
+        Assert.assertEquals(1, selectionRequest.nbParse);
+        Assert.assertNotSame(first, second);
+        Assert.assertArrayEquals(first.getFciBytes(), second.getFciBytes());
+        Assert.assertEquals(1, selectionCache.getHitCount());
+        Assert.assertEquals(1, selectionCache.getMissCount());
+        Assert.assertEquals(1, selectionCache.size());
+    }
+
+    @Test
+    public void getMatchingSe_differentResponseOrRequest_parsed() throws Exception {
+        selectionCache.getMatchingSe(selectionRequest, response(FCI_1));
+        selectionCache.getMatchingSe(selectionRequest, response(FCI_2));
+        CopyableSelectionRequest otherAidRequest = new CopyableSelectionRequest("A000000292");
+        selectionCache.getMatchingSe(otherAidRequest, response(FCI_1));
+
+        Assert.assertEquals(2, selectionRequest.nbParse);
+        Assert.assertEquals(1, otherAidRequest.nbParse);
+        Assert.assertEquals(0, selectionCache.getHitCount());
+        Assert.assertEquals(3, selectionCache.getMissCount());
+    }
+
+    @Test
+    public void getMatchingSe_leastRecentlyUsedEvicted() throws Exception {
+        selectionCache.getMatchingSe(selectionRequest, response(FCI_1));
+        selectionCache.getMatchingSe(selectionRequest, response(FCI_2));
+        /* FCI_1 becomes the most recently used */
+        selectionCache.getMatchingSe(selectionRequest, response(FCI_1));
+        /* FCI_2 is evicted */
+        selectionCache.getMatchingSe(selectionRequest, response(FCI_3));
+
+        Assert.assertEquals(1, selectionCache.getEvictionCount());
+        Assert.assertEquals(2, selectionCache.size());
+
+        selectionCache.getMatchingSe(selectionRequest, response(FCI_1));
+        Assert.assertEquals(3, selectionRequest.nbParse);
+        selectionCache.getMatchingSe(selectionRequest, response(FCI_2));
+        Assert.assertEquals(4, selectionRequest.nbParse);
+    }
+
+    @Test
+    public void getMatchingSe_notCopyable_notCached() throws Exception {
+        NotCopyableSelectionRequest notCopyableRequest = new NotCopyableSelectionRequest();
+
+        selectionCache.getMatchingSe(notCopyableRequest, response(FCI_1));
+        selectionCache.getMatchingSe(notCopyableRequest, response(FCI_1));
+
+        Assert.assertEquals(0, selectionCache.size());
+        Assert.assertEquals(2, selectionCache.getMissCount());
+    }
+
+    @Test
+    public void processDefaultSelection_withCache() throws Exception {
+        SeSelection seSelection = new SeSelection(MultiSeRequestProcessing.FIRST_MATCH,
+                ChannelControl.KEEP_OPEN, selectionCache);
+        seSelection.prepareSelection(selectionRequest);
+        List<SeResponse> seResponses = Collections.singletonList(response(FCI_1));
+
+        SelectionsResult result1 =
+                seSelection.processDefaultSelection(new DefaultSelectionsResponse(seResponses));
+        SelectionsResult result2 =
+                seSelection.processDefaultSelection(new DefaultSelectionsResponse(seResponses));
+
+        Assert.assertTrue(result2.hasActiveSelection());
+        Assert.assertNotSame(result1.getActiveMatchingSe(), result2.getActiveMatchingSe());
+        Assert.assertEquals(1, selectionRequest.nbParse);
+        Assert.assertEquals(1, selectionCache.getHitCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void create_invalidMaxEntries() {
+        new SelectionCache(0);
+    }
+
+    private static SeResponse response(String fci) {
+        SelectionStatus selectionStatus = new SelectionStatus(null,
+                new ApduResponse(ByteArrayUtil.fromHex(fci), null), true);
+        return new SeResponse(true, true, selectionStatus, new ArrayList<ApduResponse>());
+    }
+
+    private static SeSelector selector(String aid) {
+        return SeSelector.builder().seProtocol(SeCommonProtocols.PROTOCOL_ISO14443_4)
+                .aidSelector(SeSelector.AidSelector.builder().aidToSelect(aid).build()).build();
+    }
+
+    private static final class CopyableSelectionRequest extends AbstractSeSelectionRequest {
+        private int nbParse;
+
+        CopyableSelectionRequest(String aid) {
+            super(selector(aid));
+        }
+
+        @Override
+        protected AbstractMatchingSe parse(SeResponse seResponse) {
+            nbParse++;
+            return new MatchingSe(seResponse);
+        }
+
+        @Override
+        protected AbstractMatchingSe copy(AbstractMatchingSe matchingSe) {
+            return new MatchingSe((MatchingSe) matchingSe);
+        }
+    }
+
+    private static final class NotCopyableSelectionRequest extends AbstractSeSelectionRequest {
+        NotCopyableSelectionRequest() {
+            super(selector("A000000291"));
+        }
+
+        @Override
+        protected AbstractMatchingSe parse(SeResponse seResponse) {
+            return new MatchingSe(seResponse);
+        }
+    }
+
+    private static final class MatchingSe extends AbstractMatchingSe {
+        MatchingSe(SeResponse selectionResponse) {
+            super(selectionResponse, TransmissionMode.CONTACTLESS);
+        }
+
+        MatchingSe(MatchingSe matchingSe) {
+            super(matchingSe);
+        }
+    }
+}
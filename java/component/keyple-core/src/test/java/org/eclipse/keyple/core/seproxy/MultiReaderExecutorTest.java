@@ -0,0 +1,224 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy;
+
+import static org.mockito.Mockito.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.keyple.core.CoreBaseTest;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class MultiReaderExecutorTest extends CoreBaseTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(MultiReaderExecutorTest.class);
+
+    private MultiReaderExecutor executor;
+
+    @Before
+    public void setUp() {
+        logger.info("------------------------------");
+        logger.info("Test {}", name.getMethodName() + "");
+        logger.info("------------------------------");
+        executor = new MultiReaderExecutor(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void submit_sameReader_serialized() throws Exception {
+        SeReader reader = reader("reader");
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+        List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+        for (int i = 0; i < 20; i++) {
+            final int index = i;
+            futures.add(executor.submit(reader, new MultiReaderExecutor.ReaderJob<Integer>() {
+                @Override
+                public Integer run(SeReader seReader) throws Exception {
+                    maxRunning.set(Math.max(maxRunning.get(), running.incrementAndGet()));
+                    Thread.sleep(1);
+                    order.add(index);
+                    running.decrementAndGet();
+                    return index;
+                }
+            }));
+        }
+        for (int i = 0; i < 20; i++) {
+            Assert.assertEquals(Integer.valueOf(i), futures.get(i).get(5, TimeUnit.SECONDS));
+            Assert.assertEquals(Integer.valueOf(i), order.get(i));
+        }
+        Assert.assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    public void submit_differentReaders_parallel() throws Exception {
+        final CountDownLatch allStarted = new CountDownLatch(4);
+        List<SeReader> readers = new ArrayList<SeReader>();
+        for (int i = 0; i < 4; i++) {
+            readers.add(reader("reader" + i));
+        }
+        List<Future<String>> futures =
+                executor.submitAll(readers, new MultiReaderExecutor.ReaderJob<String>() {
+                    @Override
+                    public String run(SeReader seReader) throws Exception {
+                        allStarted.countDown();
+                        /* completes only if the 4 jobs run at the same time */
+                        if (!allStarted.await(5, TimeUnit.SECONDS)) {
+                            throw new IllegalStateException("Jobs not run in parallel");
+                        }
+                        return seReader.getName();
+                    }
+                });
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals("reader" + i, futures.get(i).get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void stats() throws Exception {
+        SeReader reader = reader("reader");
+        Future<String> succeeded =
+                executor.submit(reader, new MultiReaderExecutor.ReaderJob<String>() {
+                    @Override
+                    public String run(SeReader seReader) {
+                        return "ok";
+                    }
+                });
+        Future<String> failed =
+                executor.submit(reader, new MultiReaderExecutor.ReaderJob<String>() {
+                    @Override
+                    public String run(SeReader seReader) {
+                        throw new IllegalStateException("ko");
+                    }
+                });
+        Assert.assertEquals("ok", succeeded.get(5, TimeUnit.SECONDS));
+        try {
+            failed.get(5, TimeUnit.SECONDS);
+            Assert.fail("The job should have failed");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        Assert.assertEquals(2, executor.getSubmittedJobCount());
+        Assert.assertEquals(2, executor.getCompletedJobCount());
+        Assert.assertEquals(1, executor.getFailedJobCount());
+        Assert.assertEquals(0, executor.getPendingJobCount());
+        Assert.assertTrue(executor.getThroughput() > 0);
+
+        executor.resetStats();
+        Assert.assertEquals(0, executor.getCompletedJobCount());
+        Assert.assertEquals(0, executor.getDurationHistogram().getCount());
+    }
+
+    @Test
+    public void shutdown_pendingJobsRun() throws Exception {
+        SeReader reader = reader("reader");
+        final AtomicInteger nbRuns = new AtomicInteger();
+        for (int i = 0; i < 10; i++) {
+            executor.submit(reader, new MultiReaderExecutor.ReaderJob<Void>() {
+                @Override
+                public Void run(SeReader seReader) throws Exception {
+                    Thread.sleep(1);
+                    nbRuns.incrementAndGet();
+                    return null;
+                }
+            });
+        }
+        executor.shutdown();
+
+        Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        Assert.assertEquals(10, nbRuns.get());
+    }
+
+    @Test
+    public void shutdownNow_waitingJobsCancelled() throws Exception {
+        executor.shutdownNow();
+        executor = new MultiReaderExecutor(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        MultiReaderExecutor.ReaderJob<Void> blockingJob =
+                new MultiReaderExecutor.ReaderJob<Void>() {
+                    @Override
+                    public Void run(SeReader seReader) throws Exception {
+                        started.countDown();
+                        new CountDownLatch(1).await();
+                        return null;
+                    }
+                };
+        Future<Void> running = executor.submit(reader("reader1"), blockingJob);
+        /* waiting behind the running job of its reader */
+        Future<Void> waitingForReader = executor.submit(reader("reader1"), blockingJob);
+        /* waiting for a thread of the pool */
+        Future<Void> waitingForThread = executor.submit(reader("reader2"), blockingJob);
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        /* test */
+        executor.shutdownNow();
+
+        /* Assert */
+        for (Future<Void> waiting : Arrays.asList(waitingForReader, waitingForThread)) {
+            try {
+                waiting.get(5, TimeUnit.SECONDS);
+                Assert.fail("The job should have been cancelled");
+            } catch (CancellationException e) {
+                // expected
+            }
+        }
+        try {
+            running.get(5, TimeUnit.SECONDS);
+            Assert.fail("The job should have been interrupted");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof InterruptedException);
+        }
+        Assert.assertEquals(0, executor.getPendingJobCount());
+        Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void submit_afterShutdown() {
+        executor.shutdown();
+        executor.submit(reader("reader"), new MultiReaderExecutor.ReaderJob<Void>() {
+            @Override
+            public Void run(SeReader seReader) {
+                return null;
+            }
+        });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void create_invalidNbThreads() {
+        new MultiReaderExecutor(0);
+    }
+
+    private static SeReader reader(String name) {
+        SeReader reader = mock(SeReader.class);
+        doReturn(name).when(reader).getName();
+        return reader;
+    }
+}
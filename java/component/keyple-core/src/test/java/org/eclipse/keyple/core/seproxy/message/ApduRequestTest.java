@@ -12,6 +12,7 @@
 package org.eclipse.keyple.core.seproxy.message;
 
 import static org.junit.Assert.*;
+import java.nio.ByteBuffer;
 import java.util.HashSet;
 import java.util.Set;
 import org.eclipse.keyple.core.util.ByteArrayUtil;
@@ -54,6 +55,17 @@ public class ApduRequestTest {
                 request.toString());
     }
 
+    @Test
+    public void testBuffer() {
+        ApduRequest request = new ApduRequest(getACommand(), true);
+        ByteBuffer buffer = request.getBuffer();
+        assertTrue(buffer.isReadOnly());
+        assertEquals(getACommand().length, buffer.remaining());
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        assertArrayEquals(getACommand(), bytes);
+    }
+
 
 
     /*
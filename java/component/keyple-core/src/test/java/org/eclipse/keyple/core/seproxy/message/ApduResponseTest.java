@@ -12,6 +12,7 @@
 package org.eclipse.keyple.core.seproxy.message;
 
 import static org.junit.Assert.*;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -75,6 +76,28 @@ public class ApduResponseTest {
         assertFalse(response.isSuccessful());
     }
 
+    @Test
+    public void dataOutBuffer_sharesResponse() {
+        ApduResponse response = new ApduResponse(ByteArrayUtil.fromHex("FEDCBA98 9000h"), null);
+        ByteBuffer dataOut = response.getDataOutBuffer();
+        assertEquals(4, response.getDataOutLength());
+        assertEquals(0, dataOut.position());
+        assertEquals(4, dataOut.limit());
+        assertTrue(dataOut.isReadOnly());
+        assertEquals((byte) 0xFE, dataOut.get(0));
+        assertEquals((byte) 0x98, dataOut.get(3));
+        /* a view, not a copy */
+        response.getBytes()[0] = (byte) 0x01;
+        assertEquals((byte) 0x01, dataOut.get(0));
+    }
+
+    @Test
+    public void dataOutBuffer_statusCodeOnly() {
+        ApduResponse response = getAFCI();
+        assertEquals(0, response.getDataOutLength());
+        assertFalse(response.getDataOutBuffer().hasRemaining());
+    }
+
     @Test
     public void isEqualsTest() {
         assertTrue(getAFCI().equals(getAFCI()));
@@ -11,12 +11,17 @@
  ********************************************************************************/
 package org.eclipse.keyple.core.seproxy.plugin;
 
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import org.eclipse.keyple.core.CoreBaseTest;
 import org.eclipse.keyple.core.seproxy.event.ObservablePlugin;
 import org.eclipse.keyple.core.seproxy.event.PluginEvent;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
 import org.eclipse.keyple.core.seproxy.plugin.mock.BlankFailingPlugin;
+import org.eclipse.keyple.core.seproxy.plugin.local.PollingPolicy;
 import org.eclipse.keyple.core.seproxy.plugin.mock.MockAbstractThreadedPlugin;
+import org.eclipse.keyple.core.seproxy.plugin.mock.MockNativeReadersPlugin;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -102,6 +107,90 @@ public class AbstractThreadedObservablePluginTest extends CoreBaseTest {
     }
 
 
+    @Test
+    public void readersChange_detectedOnNotification() throws Throwable {
+        // the polling alone would detect the changes after 10 s
+        MockNativeReadersPlugin plugin =
+                new MockNativeReadersPlugin("notifyTest", new PollingPolicy(10000));
+        final BlockingQueue<PluginEvent> events = new LinkedBlockingQueue<PluginEvent>();
+        ObservablePlugin.PluginObserver obs = new ObservablePlugin.PluginObserver() {
+            @Override
+            public void update(PluginEvent event) {
+                events.add(event);
+            }
+        };
+        plugin.addObserver(obs);
+
+        plugin.plugReader("reader1", true);
+        PluginEvent event = events.poll(1, TimeUnit.SECONDS);
+        Assert.assertNotNull(event);
+        Assert.assertEquals(PluginEvent.EventType.READER_CONNECTED, event.getEventType());
+        Assert.assertTrue(event.getReaderNames().contains("reader1"));
+        Assert.assertNotNull(plugin.getReader("reader1"));
+
+        plugin.unplugReader("reader1", true);
+        event = events.poll(1, TimeUnit.SECONDS);
+        Assert.assertNotNull(event);
+        Assert.assertEquals(PluginEvent.EventType.READER_DISCONNECTED, event.getEventType());
+        Assert.assertTrue(event.getReaderNames().contains("reader1"));
+        // the reader is removed after the notification
+        Thread.sleep(100);
+        Assert.assertTrue(plugin.getReaders().isEmpty());
+
+        plugin.removeObserver(obs);
+        Assert.assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void readersChange_replugAfterUnplug() throws Throwable {
+        MockNativeReadersPlugin plugin =
+                new MockNativeReadersPlugin("replugTest", new PollingPolicy(10));
+        final BlockingQueue<PluginEvent> events = new LinkedBlockingQueue<PluginEvent>();
+        ObservablePlugin.PluginObserver obs = new ObservablePlugin.PluginObserver() {
+            @Override
+            public void update(PluginEvent event) {
+                events.add(event);
+            }
+        };
+        plugin.plugReader("reader1", false);
+        plugin.plugReader("reader2", false);
+        plugin.addObserver(obs);
+
+        // grouped connection of the readers found at start
+        PluginEvent event = events.poll(1, TimeUnit.SECONDS);
+        Assert.assertEquals(PluginEvent.EventType.READER_CONNECTED, event.getEventType());
+        Assert.assertEquals(2, event.getReaderNames().size());
+
+        plugin.unplugReader("reader1", false);
+        event = events.poll(1, TimeUnit.SECONDS);
+        Assert.assertEquals(PluginEvent.EventType.READER_DISCONNECTED, event.getEventType());
+        Assert.assertEquals(1, event.getReaderNames().size());
+        Assert.assertTrue(event.getReaderNames().contains("reader1"));
+
+        plugin.plugReader("reader1", false);
+        event = events.poll(1, TimeUnit.SECONDS);
+        Assert.assertEquals(PluginEvent.EventType.READER_CONNECTED, event.getEventType());
+        Assert.assertEquals(1, event.getReaderNames().size());
+        Assert.assertTrue(event.getReaderNames().contains("reader1"));
+        Assert.assertEquals(2, plugin.getReaders().size());
+
+        plugin.removeObserver(obs);
+        Assert.assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void readersPolling_backoff() throws Throwable {
+        MockNativeReadersPlugin plugin =
+                new MockNativeReadersPlugin("backoffTest", new PollingPolicy(10, 1000, 2));
+        ObservablePlugin.PluginObserver obs = getOneObserver();
+        plugin.addObserver(obs);
+        Thread.sleep(300);
+        plugin.removeObserver(obs);
+
+        /* fetches at 0, 20, 60, 140 then 300 ms (a fixed interval would fetch 30 times) */
+        Assert.assertTrue(plugin.getFetchCount() <= 6);
+        Assert.assertTrue(plugin.getFetchCount() >= 3);
+    }
 
     /*
      * Helpers
@@ -0,0 +1,227 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy.plugin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.keyple.core.CoreBaseTest;
+import org.eclipse.keyple.core.seproxy.event.ObservablePlugin;
+import org.eclipse.keyple.core.seproxy.event.PluginEvent;
+import org.eclipse.keyple.core.seproxy.plugin.AsyncObserverDispatcher.OverflowPolicy;
+import org.eclipse.keyple.core.seproxy.plugin.mock.MockAbstractThreadedPlugin;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class AsyncObserverDispatcherTest extends CoreBaseTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncObserverDispatcherTest.class);
+
+    /* executor running the drain tasks on demand */
+    private final List<Runnable> tasks = new ArrayList<Runnable>();
+    private final Executor manualExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+    };
+
+    private final List<Integer> delivered = Collections.synchronizedList(new ArrayList<Integer>());
+    private final AsyncObserverDispatcher.EventHandler<Integer> handler =
+            new AsyncObserverDispatcher.EventHandler<Integer>() {
+                @Override
+                public void handle(Integer event) {
+                    delivered.add(event);
+                }
+            };
+
+    @Before
+    public void setUp() {
+        logger.info("------------------------------");
+        logger.info("Test {}", name.getMethodName() + "");
+        logger.info("------------------------------");
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+
+    @Test
+    public void offer_deliveredInOrder_singleDrainTask() {
+        AsyncObserverDispatcher dispatcher =
+                new AsyncObserverDispatcher(manualExecutor, 8, OverflowPolicy.BLOCK);
+        AsyncObserverDispatcher.EventQueue<Integer> queue = dispatcher.newQueue("test", handler);
+        for (int i = 0; i < 5; i++) {
+            queue.offer(i);
+        }
+        Assert.assertEquals(1, tasks.size());
+        Assert.assertEquals(5, dispatcher.getPendingEventCount());
+        Assert.assertTrue(delivered.isEmpty());
+
+        runTasks();
+
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3, 4), delivered);
+        Assert.assertEquals(0, dispatcher.getPendingEventCount());
+        Assert.assertEquals(5, dispatcher.getDeliveredEventCount());
+        Assert.assertEquals(5, dispatcher.getLagHistogram().getCount());
+
+        /* a new drain task is submitted for the next event */
+        queue.offer(5);
+        Assert.assertEquals(1, tasks.size());
+    }
+
+    @Test
+    public void offer_dropNewest() {
+        AsyncObserverDispatcher dispatcher =
+                new AsyncObserverDispatcher(manualExecutor, 2, OverflowPolicy.DROP_NEWEST);
+        AsyncObserverDispatcher.EventQueue<Integer> queue = dispatcher.newQueue("test", handler);
+        for (int i = 0; i < 4; i++) {
+            queue.offer(i);
+        }
+        runTasks();
+
+        Assert.assertEquals(Arrays.asList(0, 1), delivered);
+        Assert.assertEquals(2, dispatcher.getDroppedEventCount());
+    }
+
+    @Test
+    public void offer_dropOldest() {
+        AsyncObserverDispatcher dispatcher =
+                new AsyncObserverDispatcher(manualExecutor, 2, OverflowPolicy.DROP_OLDEST);
+        AsyncObserverDispatcher.EventQueue<Integer> queue = dispatcher.newQueue("test", handler);
+        for (int i = 0; i < 4; i++) {
+            queue.offer(i);
+        }
+        runTasks();
+
+        Assert.assertEquals(Arrays.asList(2, 3), delivered);
+        Assert.assertEquals(2, dispatcher.getDroppedEventCount());
+        Assert.assertEquals(0, dispatcher.getPendingEventCount());
+    }
+
+    @Test
+    public void close_discardsPendingEvents() {
+        AsyncObserverDispatcher dispatcher =
+                new AsyncObserverDispatcher(manualExecutor, 8, OverflowPolicy.BLOCK);
+        AsyncObserverDispatcher.EventQueue<Integer> queue = dispatcher.newQueue("test", handler);
+        queue.offer(1);
+        queue.close();
+        queue.offer(2);
+        runTasks();
+
+        Assert.assertTrue(delivered.isEmpty());
+        Assert.assertEquals(0, dispatcher.getPendingEventCount());
+    }
+
+    @Test
+    public void close_duringBlockedOffer_eventDiscarded() throws Exception {
+        AsyncObserverDispatcher dispatcher =
+                new AsyncObserverDispatcher(manualExecutor, 1, OverflowPolicy.BLOCK);
+        final AsyncObserverDispatcher.EventQueue<Integer> queue =
+                dispatcher.newQueue("test", handler);
+        queue.offer(1);
+        /* the second offer waits for room in the full queue */
+        Thread offering = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                queue.offer(2);
+            }
+        });
+        offering.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (offering.getState() != Thread.State.WAITING
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        /* the close makes room: the blocked event is queued after the close */
+        queue.close();
+        offering.join(5000);
+
+        /* nothing is left in the closed queue, even if it is never drained again */
+        Assert.assertFalse(offering.isAlive());
+        Assert.assertEquals(0, queue.size());
+        Assert.assertEquals(0, dispatcher.getPendingEventCount());
+        runTasks();
+        Assert.assertTrue(delivered.isEmpty());
+    }
+
+    @Test
+    public void observerFailure_nextEventsDelivered() {
+        AsyncObserverDispatcher dispatcher =
+                new AsyncObserverDispatcher(manualExecutor, 8, OverflowPolicy.BLOCK);
+        AsyncObserverDispatcher.EventQueue<Integer> queue = dispatcher.newQueue("test",
+                new AsyncObserverDispatcher.EventHandler<Integer>() {
+                    @Override
+                    public void handle(Integer event) {
+                        if (event == 0) {
+                            throw new IllegalStateException("observer failure");
+                        }
+                        delivered.add(event);
+                    }
+                });
+        queue.offer(0);
+        queue.offer(1);
+        runTasks();
+
+        Assert.assertEquals(Collections.singletonList(1), delivered);
+    }
+
+    @Test
+    public void plugin_slowObserver_notBlockingNotification() throws Throwable {
+        MockAbstractThreadedPlugin plugin = new MockAbstractThreadedPlugin("asyncPlugin");
+        AsyncObserverDispatcher dispatcher =
+                new AsyncObserverDispatcher(16, OverflowPolicy.DROP_NEWEST);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+        ObservablePlugin.PluginObserver slowObserver = new ObservablePlugin.PluginObserver() {
+            @Override
+            public void update(PluginEvent event) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                received.add(event.getReaderNames().first());
+            }
+        };
+        plugin.addObserver(slowObserver);
+        plugin.setObserverDispatcher(dispatcher);
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 3; i++) {
+            plugin.notifyObservers(new PluginEvent("asyncPlugin", "reader" + i,
+                    PluginEvent.EventType.READER_CONNECTED));
+        }
+        Assert.assertTrue(System.currentTimeMillis() - start < 1000);
+        Assert.assertTrue(received.isEmpty());
+
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (received.size() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(Arrays.asList("reader0", "reader1", "reader2"), received);
+
+        plugin.removeObserver(slowObserver);
+        plugin.finalize();
+        dispatcher.shutdown();
+    }
+}
@@ -0,0 +1,145 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy.plugin;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import org.eclipse.keyple.core.CoreBaseTest;
+import org.eclipse.keyple.core.seproxy.SeReader;
+import org.eclipse.keyple.core.seproxy.exception.KeypleReaderNotFoundException;
+import org.eclipse.keyple.core.seproxy.plugin.mock.BlankAbstractPlugin;
+import org.eclipse.keyple.core.seproxy.plugin.mock.BlankAbstractReader;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class IndexedReaderSetTest extends CoreBaseTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexedReaderSetTest.class);
+
+    static final String PLUGIN_NAME = "IndexedReaderSetTestP";
+
+    IndexedReaderSet readers;
+
+    @Before
+    public void setUp() {
+        logger.info("------------------------------");
+        logger.info("Test {}", name.getMethodName() + "");
+        logger.info("------------------------------");
+        readers = new IndexedReaderSet();
+    }
+
+    @Test
+    public void get_addedReaders() {
+        SeReader r1 = new BlankAbstractReader(PLUGIN_NAME, "r1");
+        SeReader r2 = new BlankAbstractReader(PLUGIN_NAME, "r2");
+        readers.add(r1);
+        readers.addAll(Arrays.asList(r2));
+
+        Assert.assertSame(r1, readers.get("r1"));
+        Assert.assertSame(r2, readers.get("r2"));
+        Assert.assertNull(readers.get("r3"));
+        Assert.assertNull(readers.get(null));
+    }
+
+    @Test
+    public void get_removedReaders() {
+        SeReader r1 = new BlankAbstractReader(PLUGIN_NAME, "r1");
+        SeReader r2 = new BlankAbstractReader(PLUGIN_NAME, "r2");
+        SeReader r3 = new BlankAbstractReader(PLUGIN_NAME, "r3");
+        SeReader r4 = new BlankAbstractReader(PLUGIN_NAME, "r4");
+        readers.addAll(Arrays.asList(r1, r2, r3, r4));
+
+        readers.remove(r2);
+        Assert.assertSame(r1, readers.pollFirst());
+        Assert.assertSame(r4, readers.pollLast());
+
+        Assert.assertNull(readers.get("r1"));
+        Assert.assertNull(readers.get("r2"));
+        Assert.assertSame(r3, readers.get("r3"));
+        Assert.assertNull(readers.get("r4"));
+
+        readers.clear();
+        Assert.assertNull(readers.get("r3"));
+    }
+
+    @Test
+    public void get_removedByIterator() {
+        SeReader r1 = new BlankAbstractReader(PLUGIN_NAME, "r1");
+        SeReader r2 = new BlankAbstractReader(PLUGIN_NAME, "r2");
+        readers.addAll(Arrays.asList(r1, r2));
+
+        Iterator<SeReader> iterator = readers.iterator();
+        Assert.assertSame(r1, iterator.next());
+        iterator.remove();
+
+        Assert.assertNull(readers.get("r1"));
+        Assert.assertSame(r2, readers.get("r2"));
+        Assert.assertEquals(1, readers.size());
+    }
+
+    @Test
+    public void get_addedThroughView() {
+        SeReader r1 = new BlankAbstractReader(PLUGIN_NAME, "r1");
+        SeReader r2 = new BlankAbstractReader(PLUGIN_NAME, "r2");
+        readers.add(r1);
+        readers.tailSet(r1).add(r2);
+
+        /* not indexed, found by a scan */
+        Assert.assertSame(r2, readers.get("r2"));
+    }
+
+    @Test
+    public void get_sameNameDifferentInstance() {
+        SeReader r1 = new BlankAbstractReader(PLUGIN_NAME, "r1");
+        SeReader r1bis = new BlankAbstractReader(PLUGIN_NAME, "r1");
+        readers.add(r1);
+
+        /* the readers are compared by name: the second one is not added */
+        Assert.assertFalse(readers.add(r1bis));
+        Assert.assertSame(r1, readers.get("r1"));
+
+        /* but removes the first one */
+        Assert.assertTrue(readers.remove(r1bis));
+        Assert.assertNull(readers.get("r1"));
+    }
+
+    @Test
+    public void clone_hasOwnIndex() {
+        SeReader r1 = new BlankAbstractReader(PLUGIN_NAME, "r1");
+        readers.add(r1);
+        IndexedReaderSet clone = readers.clone();
+        readers.remove(r1);
+
+        Assert.assertNull(readers.get("r1"));
+        Assert.assertSame(r1, clone.get("r1"));
+    }
+
+    @Test
+    public void plugin_getReader() throws Exception {
+        AbstractPlugin plugin = new BlankAbstractPlugin(PLUGIN_NAME);
+        SeReader r1 = new BlankAbstractReader(PLUGIN_NAME, "r1");
+        plugin.getReaders().add(r1);
+
+        Assert.assertSame(r1, plugin.getReader("r1"));
+
+        plugin.getReaders().remove(r1);
+        try {
+            plugin.getReader("r1");
+            Assert.fail("Reader should not be found");
+        } catch (KeypleReaderNotFoundException e) {
+            // expected
+        }
+    }
+}
@@ -280,6 +280,27 @@ public class AbsLocalReaderSelectionTest extends CoreBaseTest {
                 r.protocolsMap.get(SeCommonProtocols.PROTOCOL_ISO14443_4));
     }
 
+    @Test
+    public void getMatchingProtocols_allRulesAtOnce() throws Exception {
+        AbstractLocalReader r = getSpy(PLUGIN_NAME, READER_NAME);
+        r.addSeProtocolSetting(SeCommonProtocols.PROTOCOL_ISO14443_4, "3B8880.*|3B8B80.*");
+        r.addSeProtocolSetting(SeCommonProtocols.PROTOCOL_B_PRIME, "3B8F8001805A0.*");
+        r.addSeProtocolSetting(SeCommonProtocols.PROTOCOL_ISO7816_3, "3.*");
+        byte[] atr = ByteArrayUtil.fromHex("3B8880010000000000718100F9");
+
+        Set<?> protocols = r.getMatchingProtocols(atr);
+        Assert.assertEquals(2, protocols.size());
+        Assert.assertTrue(protocols.contains(SeCommonProtocols.PROTOCOL_ISO14443_4));
+        Assert.assertTrue(protocols.contains(SeCommonProtocols.PROTOCOL_ISO7816_3));
+        /* same ATR: the classification is reused */
+        Assert.assertSame(protocols, r.getMatchingProtocols(atr.clone()));
+
+        /* a change of setting is taken into account */
+        r.addSeProtocolSetting(SeCommonProtocols.PROTOCOL_B_PRIME, "3B88.*");
+        Assert.assertEquals(3, r.getMatchingProtocols(atr).size());
+        Assert.assertTrue(r.getMatchingProtocols("PROTOCOL_B_PRIME").isEmpty());
+    }
+
 
 
     /*
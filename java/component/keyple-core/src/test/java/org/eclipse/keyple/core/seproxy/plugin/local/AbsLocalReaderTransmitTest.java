@@ -13,23 +13,30 @@ package org.eclipse.keyple.core.seproxy.plugin.local;
 
 import static org.eclipse.keyple.core.seproxy.plugin.local.AbsLocalReaderSelectionTest.ATR;
 import static org.mockito.Mockito.*;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import org.eclipse.keyple.core.CoreBaseTest;
+import org.eclipse.keyple.core.metrics.InMemoryKeypleMetrics;
+import org.eclipse.keyple.core.metrics.MetricsProvider;
+import org.eclipse.keyple.core.metrics.NoOpKeypleMetrics;
 import org.eclipse.keyple.core.seproxy.ChannelControl;
 import org.eclipse.keyple.core.seproxy.MultiSeRequestProcessing;
 import org.eclipse.keyple.core.seproxy.SeSelector;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderIOException;
 import org.eclipse.keyple.core.seproxy.message.ApduRequest;
+import org.eclipse.keyple.core.seproxy.message.ApduResponse;
 import org.eclipse.keyple.core.seproxy.message.SeRequest;
 import org.eclipse.keyple.core.seproxy.message.SeResponse;
 import org.eclipse.keyple.core.seproxy.plugin.mock.BlankAbstractLocalReader;
+import org.eclipse.keyple.core.seproxy.plugin.mock.BlankBufferedTransmitReader;
 import org.eclipse.keyple.core.seproxy.protocol.SeCommonProtocols;
 import org.eclipse.keyple.core.util.ByteArrayUtil;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -215,6 +222,65 @@ public class AbsLocalReaderTransmitTest extends CoreBaseTest {
     }
 
 
+    @Test
+    public void transmit_bufferedReader_reusesResponseBuffer() throws Exception {
+        AbstractLocalReader reader =
+                Mockito.spy(new BlankBufferedTransmitReader(PLUGIN_NAME, READER_NAME));
+        configure(reader);
+
+        SeRequest seRequest = getPartialRequest(reader, 3);
+        SeResponse seResponse = reader.processSeRequest(seRequest, ChannelControl.CLOSE_AFTER);
+
+        Assert.assertEquals(3, seResponse.getApduResponses().size());
+        for (ApduResponse apduResponse : seResponse.getApduResponses()) {
+            Assert.assertArrayEquals(RESP_SUCCESS, apduResponse.getBytes());
+        }
+        /* selection + 3 apdus through the same response buffer */
+        ArgumentCaptor<ByteBuffer> apduOut = ArgumentCaptor.forClass(ByteBuffer.class);
+        verify((BufferedTransmitReader) reader, times(4)).transmitApdu(any(ByteBuffer.class),
+                apduOut.capture());
+        for (ByteBuffer buffer : apduOut.getAllValues()) {
+            Assert.assertSame(apduOut.getValue(), buffer);
+        }
+    }
+
+    @Test
+    public void transmit_metricsRecorded() throws Exception {
+        AbstractLocalReader reader = getSpy(PLUGIN_NAME, READER_NAME);
+        InMemoryKeypleMetrics metrics = new InMemoryKeypleMetrics();
+        MetricsProvider.setMetrics(metrics);
+        try {
+            reader.transmitSeRequest(getPartialRequest(reader, 3), ChannelControl.CLOSE_AFTER);
+        } finally {
+            MetricsProvider.setMetrics(NoOpKeypleMetrics.INSTANCE);
+        }
+
+        Assert.assertEquals(3, metrics.getApduHistograms()
+                .get(InMemoryKeypleMetrics.UNNAMED_COMMAND).getCount());
+        Assert.assertEquals(1, metrics.getSeRequestHistograms().get(READER_NAME).getCount());
+        Assert.assertEquals(0, metrics.getFailedSeRequestCount());
+        Assert.assertEquals(1, metrics.getMatchedSelectionCount());
+    }
+
+    @Test
+    public void transmit_selectCommandReused() throws Exception {
+        AbstractLocalReader reader = getSpy(PLUGIN_NAME, READER_NAME);
+
+        reader.processSeRequest(getPartialRequest(reader, 3), ChannelControl.CLOSE_AFTER);
+        reader.processSeRequest(getPartialRequest(reader, 3), ChannelControl.CLOSE_AFTER);
+
+        ArgumentCaptor<byte[]> apduIn = ArgumentCaptor.forClass(byte[].class);
+        verify(reader, times(8)).transmitApdu(apduIn.capture());
+        List<byte[]> selectCommands = new ArrayList<byte[]>();
+        for (byte[] command : apduIn.getAllValues()) {
+            if (command[1] == (byte) 0xA4) {
+                selectCommands.add(command);
+            }
+        }
+        Assert.assertEquals(2, selectCommands.size());
+        Assert.assertSame(selectCommands.get(0), selectCommands.get(1));
+    }
+
 
     /*
      * Partial response set: multiple read records commands, one is not defined in the StubSE
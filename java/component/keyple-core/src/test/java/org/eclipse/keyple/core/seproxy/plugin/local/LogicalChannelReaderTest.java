@@ -0,0 +1,266 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy.plugin.local;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.eclipse.keyple.core.CoreBaseTest;
+import org.eclipse.keyple.core.seproxy.ChannelControl;
+import org.eclipse.keyple.core.seproxy.SeSelector;
+import org.eclipse.keyple.core.seproxy.exception.KeypleReaderIOException;
+import org.eclipse.keyple.core.seproxy.message.ApduRequest;
+import org.eclipse.keyple.core.seproxy.message.SeRequest;
+import org.eclipse.keyple.core.seproxy.message.SeResponse;
+import org.eclipse.keyple.core.seproxy.plugin.mock.BlankAbstractLocalReader;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class LogicalChannelReaderTest extends CoreBaseTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogicalChannelReaderTest.class);
+
+    static final String PLUGIN_NAME = "LogicalChannelReaderTestP";
+    static final String READER_NAME = "LogicalChannelReaderTest";
+
+    static final String AID = "A000000291";
+
+    private MultiChannelSeReader reader;
+
+    @Before
+    public void setUp() {
+        logger.info("------------------------------");
+        logger.info("Test {}", name.getMethodName() + "");
+        logger.info("------------------------------");
+        reader = new MultiChannelSeReader(PLUGIN_NAME, READER_NAME);
+    }
+
+    @Test
+    public void setChannelNumber_classByte() {
+        byte[] apdu = ByteArrayUtil.fromHex("00B2014400");
+        Assert.assertEquals((byte) 0x01, AbstractLocalReader.setChannelNumber(apdu, 1)[0]);
+        Assert.assertEquals((byte) 0x03, AbstractLocalReader.setChannelNumber(apdu, 3)[0]);
+        Assert.assertEquals((byte) 0x40, AbstractLocalReader.setChannelNumber(apdu, 4)[0]);
+        Assert.assertEquals((byte) 0x4F, AbstractLocalReader.setChannelNumber(apdu, 19)[0]);
+        // the command itself is not modified
+        Assert.assertEquals((byte) 0x00, apdu[0]);
+        Assert.assertSame(apdu, AbstractLocalReader.setChannelNumber(apdu, 0));
+
+        byte[] proprietaryApdu = ByteArrayUtil.fromHex("8084000004");
+        Assert.assertEquals((byte) 0x82,
+                AbstractLocalReader.setChannelNumber(proprietaryApdu, 2)[0]);
+        Assert.assertEquals((byte) 0xC1,
+                AbstractLocalReader.setChannelNumber(proprietaryApdu, 5)[0]);
+        // back to the basic channel
+        Assert.assertEquals((byte) 0x80,
+                AbstractLocalReader.setChannelNumber(ByteArrayUtil.fromHex("8384000004"), 0)[0]);
+    }
+
+    @Test
+    public void openSupplementaryChannel_transmitOnChannel() throws Exception {
+        LogicalChannelReader channel1 = reader.openSupplementaryChannel();
+        LogicalChannelReader channel2 = reader.openSupplementaryChannel();
+
+        Assert.assertEquals(1, channel1.getChannelNumber());
+        Assert.assertEquals(2, channel2.getChannelNumber());
+        Assert.assertEquals(READER_NAME + "#2", channel2.getName());
+        Assert.assertEquals(2, reader.getSupplementaryChannels().size());
+
+        SeResponse seResponse = channel2.transmitSeRequest(
+                new SeRequest(Collections.singletonList(
+                        new ApduRequest(ByteArrayUtil.fromHex("8084000004"), false))),
+                ChannelControl.KEEP_OPEN);
+
+        Assert.assertTrue(seResponse.isLogicalChannelOpen());
+        Assert.assertEquals("829000",
+                ByteArrayUtil.toHex(seResponse.getApduResponses().get(0).getBytes()));
+        Assert.assertEquals("8284000004", reader.lastCommand());
+    }
+
+    @Test
+    public void openSupplementaryChannel_refusedBySe() throws Exception {
+        for (int i = 0; i < MultiChannelSeReader.NB_CHANNELS; i++) {
+            Assert.assertNotNull(reader.openSupplementaryChannel());
+        }
+        Assert.assertNull(reader.openSupplementaryChannel());
+        Assert.assertEquals(MultiChannelSeReader.NB_CHANNELS,
+                reader.getSupplementaryChannels().size());
+    }
+
+    @Test
+    public void selection_perChannel() throws Exception {
+        LogicalChannelReader channel = reader.openSupplementaryChannel();
+        SeRequest selectionRequest = new SeRequest(
+                SeSelector.builder()
+                        .aidSelector(SeSelector.AidSelector.builder()
+                                .aidToSelect(ByteArrayUtil.fromHex(AID)).build())
+                        .build(),
+                Collections.singletonList(
+                        new ApduRequest(ByteArrayUtil.fromHex("00B2014400"), false)));
+
+        SeResponse seResponse = channel.transmitSeRequest(selectionRequest,
+                ChannelControl.KEEP_OPEN);
+
+        Assert.assertTrue(seResponse.isLogicalChannelOpen());
+        Assert.assertFalse(seResponse.wasChannelPreviouslyOpen());
+        Assert.assertTrue(seResponse.getSelectionStatus().hasMatched());
+        Assert.assertEquals("01A404000" + "5" + AID + "00", reader.commands.get(1));
+        Assert.assertEquals("01B2014400", reader.lastCommand());
+        // the basic channel is not selected
+        Assert.assertFalse(((AbstractLocalReader) reader).isLogicalChannelOpen());
+
+        // same application: no new selection
+        seResponse = channel.transmitSeRequest(selectionRequest, ChannelControl.CLOSE_AFTER);
+        Assert.assertTrue(seResponse.wasChannelPreviouslyOpen());
+        Assert.assertEquals(4, reader.commands.size());
+
+        // the selection has been reset, a request without selector is refused
+        try {
+            channel.transmitSeRequest(
+                    new SeRequest(Collections.singletonList(
+                            new ApduRequest(ByteArrayUtil.fromHex("00B2014400"), false))),
+                    ChannelControl.KEEP_OPEN);
+            Assert.fail("No application should be selected");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void close_manageChannel() throws Exception {
+        LogicalChannelReader channel = reader.openSupplementaryChannel();
+
+        channel.close();
+
+        Assert.assertFalse(channel.isOpen());
+        Assert.assertEquals("00708001", reader.lastCommand());
+        Assert.assertTrue(reader.getSupplementaryChannels().isEmpty());
+        // the channel number is available again
+        Assert.assertEquals(1, reader.openSupplementaryChannel().getChannelNumber());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void transmit_physicalChannelClosed() throws Exception {
+        LogicalChannelReader channel = reader.openSupplementaryChannel();
+        reader.transmitSeRequest(new SeRequest(new ArrayList<ApduRequest>()),
+                ChannelControl.CLOSE_AFTER);
+        Assert.assertFalse(channel.isOpen());
+
+        channel.transmitSeRequest(
+                new SeRequest(Collections.singletonList(
+                        new ApduRequest(ByteArrayUtil.fromHex("8084000004"), false))),
+                ChannelControl.KEEP_OPEN);
+    }
+
+    @Test
+    public void transmit_concurrentChannels() throws Exception {
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < MultiChannelSeReader.NB_CHANNELS; i++) {
+            final LogicalChannelReader channel = reader.openSupplementaryChannel();
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < 200; j++) {
+                            SeResponse seResponse = channel.transmitSeRequest(
+                                    new SeRequest(Collections.singletonList(new ApduRequest(
+                                            ByteArrayUtil.fromHex("8084000004"), false))),
+                                    ChannelControl.KEEP_OPEN);
+                            Assert.assertEquals(channel.getChannelNumber(),
+                                    seResponse.getApduResponses().get(0).getBytes()[0] & 0x0F);
+                        }
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertTrue(failures.toString(), failures.isEmpty());
+    }
+
+    /**
+     * Reader of a SE supporting {@link #NB_CHANNELS} supplementary logical channels: the responses
+     * to the commands other than MANAGE CHANNEL and SELECT are made of the class byte followed by
+     * 9000.
+     */
+    static class MultiChannelSeReader extends BlankAbstractLocalReader {
+        static final int NB_CHANNELS = 3;
+
+        final List<String> commands = Collections.synchronizedList(new ArrayList<String>());
+        private final boolean[] openChannels = new boolean[NB_CHANNELS + 1];
+        private boolean physicalChannelOpen;
+
+        MultiChannelSeReader(String pluginName, String readerName) {
+            super(pluginName, readerName);
+        }
+
+        String lastCommand() {
+            return commands.get(commands.size() - 1);
+        }
+
+        @Override
+        public byte[] getATR() {
+            return ByteArrayUtil.fromHex("3B8880010000000000718100F9");
+        }
+
+        @Override
+        public void openPhysicalChannel() {
+            physicalChannelOpen = true;
+        }
+
+        @Override
+        public void closePhysicalChannel() {
+            physicalChannelOpen = false;
+        }
+
+        @Override
+        public boolean isPhysicalChannelOpen() {
+            return physicalChannelOpen;
+        }
+
+        @Override
+        public byte[] transmitApdu(byte[] apduIn) throws KeypleReaderIOException {
+            if (!physicalChannelOpen) {
+                throw new KeypleReaderIOException("Physical channel closed");
+            }
+            commands.add(ByteArrayUtil.toHex(apduIn));
+            switch (apduIn[1]) {
+                case (byte) 0x70:
+                    if (apduIn[2] == (byte) 0x80) {
+                        openChannels[apduIn[3]] = false;
+                        return ByteArrayUtil.fromHex("9000");
+                    }
+                    for (int i = 1; i <= NB_CHANNELS; i++) {
+                        if (!openChannels[i]) {
+                            openChannels[i] = true;
+                            return new byte[] {(byte) i, (byte) 0x90, (byte) 0x00};
+                        }
+                    }
+                    return ByteArrayUtil.fromHex("6A81");
+                case (byte) 0xA4:
+                    return ByteArrayUtil.fromHex("6F0784" + "05" + AID + "9000");
+                default:
+                    return new byte[] {apduIn[0], (byte) 0x90, (byte) 0x00};
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy.plugin.local;
+
+import static org.eclipse.keyple.core.seproxy.plugin.local.AbstractObservableState.MonitoringState.WAIT_FOR_START_DETECTION;
+import static org.mockito.Mockito.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.keyple.core.CoreBaseTest;
+import org.eclipse.keyple.core.seproxy.event.ObservableReader;
+import org.eclipse.keyple.core.seproxy.plugin.local.monitoring.CardAbsentPingMonitoringJob;
+import org.eclipse.keyple.core.seproxy.plugin.local.monitoring.SmartInsertionMonitoringJob;
+import org.eclipse.keyple.core.seproxy.plugin.local.monitoring.SmartRemovalMonitoringJob;
+import org.eclipse.keyple.core.seproxy.plugin.local.state.WaitForSeInsertion;
+import org.eclipse.keyple.core.seproxy.plugin.local.state.WaitForSeRemoval;
+import org.eclipse.keyple.core.seproxy.plugin.mock.BlankSmartInsertionTheadedReader;
+import org.eclipse.keyple.core.seproxy.plugin.mock.BlankSmartPresenceTheadedReader;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class MonitoringSchedulerTest extends CoreBaseTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(MonitoringSchedulerTest.class);
+
+    final String PLUGIN_NAME = "MonitoringSchedulerTestP";
+    final String READER_NAME = "MonitoringSchedulerTest";
+
+    final long WAIT = 2000;
+
+    MonitoringScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        logger.info("------------------------------");
+        logger.info("Test {}", name.getMethodName() + "");
+        logger.info("------------------------------");
+        scheduler = new MonitoringScheduler(1);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void polling_untilSeRemoved() throws Exception {
+        AbstractObservableLocalReader r = AbsSmartInsertionTheadedReaderTest.getMock(READER_NAME);
+        doReturn(ObservableReader.PollingMode.SINGLESHOT).when(r).getPollingMode();
+        doReturn(true).doReturn(true).doReturn(false).when(r).isSePresentPing();
+        doNothing().when(r).processSeRemoved();
+        WaitForSeRemoval waitForSeRemoval =
+                new WaitForSeRemoval(r, new CardAbsentPingMonitoringJob(r, 10), scheduler);
+
+        /* test */
+        waitForSeRemoval.onActivate();
+        waitForSeRemoval.monitoringEvent.get(WAIT, TimeUnit.MILLISECONDS);
+
+        /* Assert */
+        verify(r, times(3)).isSePresentPing();
+        verify(r, times(1)).switchState(WAIT_FOR_START_DETECTION);
+        Assert.assertEquals(0, scheduler.getActivePollingCount());
+        Assert.assertFalse(waitForSeRemoval.monitoringEvent.isCancelled());
+    }
+
+    @Test
+    public void polling_manyReaders_singleThread() throws Exception {
+        List<AbstractObservableLocalReader> readers =
+                new ArrayList<AbstractObservableLocalReader>();
+        List<WaitForSeRemoval> states = new ArrayList<WaitForSeRemoval>();
+        for (int i = 0; i < 96; i++) {
+            AbstractObservableLocalReader r =
+                    AbsSmartInsertionTheadedReaderTest.getMock(READER_NAME + i);
+            doReturn(ObservableReader.PollingMode.SINGLESHOT).when(r).getPollingMode();
+            doReturn(true).doReturn(false).when(r).isSePresentPing();
+            doNothing().when(r).processSeRemoved();
+            readers.add(r);
+            states.add(new WaitForSeRemoval(r, new CardAbsentPingMonitoringJob(r, 20), scheduler));
+        }
+
+        /* test */
+        for (WaitForSeRemoval state : states) {
+            state.onActivate();
+        }
+        for (WaitForSeRemoval state : states) {
+            state.monitoringEvent.get(WAIT, TimeUnit.MILLISECONDS);
+        }
+
+        /* Assert */
+        for (AbstractObservableLocalReader r : readers) {
+            verify(r, times(2)).isSePresentPing();
+            verify(r, times(1)).switchState(WAIT_FOR_START_DETECTION);
+        }
+        Assert.assertEquals(0, scheduler.getActivePollingCount());
+    }
+
+    @Test
+    public void polling_stoppedOnDeactivate() throws Exception {
+        AbstractObservableLocalReader r = AbsSmartInsertionTheadedReaderTest.getMock(READER_NAME);
+        final AtomicInteger nbPings = new AtomicInteger();
+        doAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) {
+                nbPings.incrementAndGet();
+                return true;
+            }
+        }).when(r).isSePresentPing();
+        WaitForSeRemoval waitForSeRemoval =
+                new WaitForSeRemoval(r, new CardAbsentPingMonitoringJob(r, 10), scheduler);
+
+        /* test */
+        waitForSeRemoval.onActivate();
+        Thread.sleep(100);
+        Assert.assertEquals(1, scheduler.getActivePollingCount());
+        waitForSeRemoval.onDeactivate();
+        Thread.sleep(50);
+        int nbPingsAfterDeactivation = nbPings.get();
+        Thread.sleep(100);
+
+        /* Assert */
+        Assert.assertTrue(waitForSeRemoval.monitoringEvent.isCancelled());
+        Assert.assertTrue(waitForSeRemoval.monitoringEvent.isDone());
+        Assert.assertEquals(0, scheduler.getActivePollingCount());
+        Assert.assertTrue(nbPingsAfterDeactivation > 1);
+        Assert.assertEquals(nbPingsAfterDeactivation, nbPings.get());
+        verify(r, times(0)).switchState(WAIT_FOR_START_DETECTION);
+    }
+
+    @Test
+    public void polling_backoff() throws Exception {
+        AbstractObservableLocalReader r = AbsSmartInsertionTheadedReaderTest.getMock(READER_NAME);
+        doReturn(true).when(r).isSePresentPing();
+        WaitForSeRemoval waitForSeRemoval = new WaitForSeRemoval(r,
+                new CardAbsentPingMonitoringJob(r, new PollingPolicy(10, 1000, 4)), scheduler);
+
+        /* test */
+        waitForSeRemoval.onActivate();
+        Thread.sleep(300);
+        waitForSeRemoval.onDeactivate();
+
+        /* Assert: polls at 0, 10, 50, 210 ms then 1000 ms */
+        verify(r, times(4)).isSePresentPing();
+    }
+
+    @Test
+    public void blockingJob_runOnSharedPool() throws Exception {
+        BlankSmartPresenceTheadedReader r =
+                AbsSmartPresenceTheadedReaderTest.getSmartSpy(PLUGIN_NAME, READER_NAME);
+        doReturn(ObservableReader.PollingMode.SINGLESHOT).when(r).getPollingMode();
+        doReturn(true).when(r).waitForCardAbsentNative();
+        doNothing().when(r).processSeRemoved();
+        WaitForSeRemoval waitForSeRemoval =
+                new WaitForSeRemoval(r, new SmartRemovalMonitoringJob(r), scheduler);
+
+        /* test */
+        waitForSeRemoval.onActivate();
+
+        /* Assert */
+        verify(r, timeout(WAIT).times(1)).switchState(WAIT_FOR_START_DETECTION);
+        Assert.assertEquals(0, scheduler.getActivePollingCount());
+        waitForSeRemoval.onDeactivate();
+    }
+
+    @Test
+    public void blockingJob_stateSwitchDuringWait_jobsNotOverlapping() throws Exception {
+        BlankSmartInsertionTheadedReader r =
+                AbsSmartInsertionTheadedReaderTest.getSmartSpy(PLUGIN_NAME, READER_NAME, 0);
+        final AtomicBoolean loopWaitSe = new AtomicBoolean();
+        final AtomicInteger runningWaits = new AtomicInteger();
+        final AtomicInteger maxRunningWaits = new AtomicInteger();
+        // like a PC/SC reader: loop until a card is present or the wait is stopped
+        doAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) throws InterruptedException {
+                loopWaitSe.set(true);
+                int running = runningWaits.incrementAndGet();
+                if (running > maxRunningWaits.get()) {
+                    maxRunningWaits.set(running);
+                }
+                try {
+                    while (loopWaitSe.get()) {
+                        Thread.sleep(50);
+                    }
+                    return false;
+                } finally {
+                    runningWaits.decrementAndGet();
+                }
+            }
+        }).when(r).waitForCardPresent();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                loopWaitSe.set(false);
+                return null;
+            }
+        }).when(r).stopWaitForCard();
+        MonitoringScheduler readerScheduler = scheduler.forReader();
+        WaitForSeInsertion firstState =
+                new WaitForSeInsertion(r, new SmartInsertionMonitoringJob(r), readerScheduler);
+        WaitForSeInsertion secondState =
+                new WaitForSeInsertion(r, new SmartInsertionMonitoringJob(r), readerScheduler);
+
+        /* test : switch state while the first wait is in progress */
+        firstState.onActivate();
+        verify(r, timeout(WAIT).times(1)).waitForCardPresent();
+        firstState.onDeactivate();
+        secondState.onActivate();
+        verify(r, timeout(WAIT).times(2)).waitForCardPresent();
+        Thread.sleep(200);
+
+        /* Assert : the second wait started once the first one was over */
+        Assert.assertEquals(1, maxRunningWaits.get());
+        Assert.assertEquals(1, runningWaits.get());
+        secondState.onDeactivate();
+        long deadline = System.currentTimeMillis() + WAIT;
+        while (runningWaits.get() != 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(0, runningWaits.get());
+    }
+
+    @Test
+    public void pollingPolicy_nextInterval() {
+        PollingPolicy fixed = new PollingPolicy(100);
+        Assert.assertEquals(100, fixed.nextInterval(100));
+
+        PollingPolicy backoff = new PollingPolicy(100, 1000, 2);
+        Assert.assertEquals(200, backoff.nextInterval(100));
+        Assert.assertEquals(800, backoff.nextInterval(400));
+        Assert.assertEquals(1000, backoff.nextInterval(800));
+        Assert.assertEquals(1000, backoff.nextInterval(1000));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pollingPolicy_invalidMaxInterval() {
+        new PollingPolicy(100, 50, 2);
+    }
+}
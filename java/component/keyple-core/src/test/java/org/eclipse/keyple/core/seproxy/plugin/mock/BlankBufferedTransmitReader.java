@@ -0,0 +1,38 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy.plugin.mock;
+
+import java.nio.ByteBuffer;
+import org.eclipse.keyple.core.seproxy.exception.KeypleReaderIOException;
+import org.eclipse.keyple.core.seproxy.plugin.local.BufferedTransmitReader;
+
+/**
+ * Local reader transmitting the APDUs through {@link ByteBuffer}s, the byte array responses are
+ * those of {@link #transmitApdu(byte[])}
+ */
+public class BlankBufferedTransmitReader extends BlankAbstractLocalReader
+        implements BufferedTransmitReader {
+
+    public BlankBufferedTransmitReader(String pluginName, String readerName) {
+        super(pluginName, readerName);
+    }
+
+    @Override
+    public int transmitApdu(ByteBuffer apduIn, ByteBuffer apduOut)
+            throws KeypleReaderIOException {
+        byte[] command = new byte[apduIn.remaining()];
+        apduIn.get(command);
+        byte[] response = transmitApdu(command);
+        apduOut.put(response);
+        return response.length;
+    }
+}
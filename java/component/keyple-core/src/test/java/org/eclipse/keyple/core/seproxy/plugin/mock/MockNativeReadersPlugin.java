@@ -0,0 +1,90 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy.plugin.mock;
+
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.keyple.core.seproxy.SeReader;
+import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
+import org.eclipse.keyple.core.seproxy.exception.KeypleReaderIOException;
+import org.eclipse.keyple.core.seproxy.exception.KeypleReaderNotFoundException;
+import org.eclipse.keyple.core.seproxy.plugin.AbstractThreadedObservablePlugin;
+import org.eclipse.keyple.core.seproxy.plugin.local.PollingPolicy;
+
+/**
+ * A threaded plugin whose native readers are plugged and unplugged by the test
+ */
+public class MockNativeReadersPlugin extends AbstractThreadedObservablePlugin {
+
+    private final SortedSet<String> nativeNames = new ConcurrentSkipListSet<String>();
+    private final AtomicInteger fetchCount = new AtomicInteger();
+    private final PollingPolicy pollingPolicy;
+
+    public MockNativeReadersPlugin(String name, PollingPolicy pollingPolicy)
+            throws KeypleReaderException {
+        super(name);
+        this.pollingPolicy = pollingPolicy;
+    }
+
+    public void plugReader(String readerName, boolean notify) {
+        nativeNames.add(readerName);
+        if (notify) {
+            notifyNativeReadersChanged();
+        }
+    }
+
+    public void unplugReader(String readerName, boolean notify) {
+        nativeNames.remove(readerName);
+        if (notify) {
+            notifyNativeReadersChanged();
+        }
+    }
+
+    public int getFetchCount() {
+        return fetchCount.get();
+    }
+
+    @Override
+    protected PollingPolicy getReadersPollingPolicy() {
+        return pollingPolicy;
+    }
+
+    @Override
+    protected SortedSet<String> fetchNativeReadersNames() throws KeypleReaderIOException {
+        fetchCount.incrementAndGet();
+        return nativeNames;
+    }
+
+    @Override
+    protected SortedSet<SeReader> initNativeReaders() throws KeypleReaderIOException {
+        return new TreeSet<SeReader>();
+    }
+
+    @Override
+    protected SeReader fetchNativeReader(String name)
+            throws KeypleReaderNotFoundException, KeypleReaderIOException {
+        return new BlankAbstractReader(getName(), name);
+    }
+
+    @Override
+    public Map<String, String> getParameters() {
+        return null;
+    }
+
+    @Override
+    public void setParameter(String key, String value) throws KeypleReaderIOException {
+
+    }
+}
@@ -12,6 +12,8 @@
 package org.eclipse.keyple.core.util;
 
 import static org.junit.Assert.*;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import org.junit.Test;
 
 public class ByteArrayUtilTest {
@@ -55,6 +57,51 @@ public class ByteArrayUtilTest {
         assertArrayEquals(bytes, BYTEARRAY_GOOD);
     }
 
+    @Test
+    public void fromHex_lower_case_and_ignored_chars() {
+        byte[] bytes = ByteArrayUtil.fromHex("12 34h 56 78 90 ab cd ef fe dc ba 09 87 65 43 21");
+        assertArrayEquals(bytes, BYTEARRAY_GOOD);
+    }
+
+    @Test
+    public void fromHex_into_array() {
+        byte[] dest = new byte[BYTEARRAY_GOOD.length + 2];
+        int length = ByteArrayUtil.fromHex(HEXSTRING_GOOD, dest, 1);
+        assertEquals(length, BYTEARRAY_GOOD.length);
+        assertEquals(dest[0], 0);
+        assertEquals(dest[1], (byte) 0x12);
+        assertEquals(dest[16], (byte) 0x21);
+        assertEquals(dest[17], 0);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void fromHex_into_array_too_small() {
+        ByteArrayUtil.fromHex(HEXSTRING_GOOD, new byte[BYTEARRAY_GOOD.length], 1);
+    }
+
+    @Test
+    public void fromHex_into_buffer() {
+        ByteBuffer heapBuffer = ByteBuffer.allocate(20);
+        ByteBuffer directBuffer = ByteBuffer.allocateDirect(20);
+        heapBuffer.put((byte) 0x55);
+        directBuffer.put((byte) 0x55);
+        assertEquals(ByteArrayUtil.fromHex("12 34", heapBuffer), 2);
+        assertEquals(ByteArrayUtil.fromHex("12 34", directBuffer), 2);
+        assertEquals(heapBuffer.position(), 3);
+        assertEquals(directBuffer.position(), 3);
+        heapBuffer.flip();
+        directBuffer.flip();
+        assertEquals(ByteArrayUtil.bufferToHex(heapBuffer), "551234");
+        assertEquals(ByteArrayUtil.bufferToHex(directBuffer), "551234");
+        // the position is left unchanged
+        assertEquals(heapBuffer.position(), 0);
+    }
+
+    @Test(expected = BufferOverflowException.class)
+    public void fromHex_into_buffer_too_small() {
+        ByteArrayUtil.fromHex(HEXSTRING_GOOD, ByteBuffer.allocate(4));
+    }
+
     @Test
     public void toHex_null() {
         String hex = ByteArrayUtil.toHex(null);
@@ -74,6 +121,47 @@ public class ByteArrayUtilTest {
         assertEquals(hex, HEXSTRING_GOOD);
     }
 
+    @Test
+    public void toHex_range() {
+        assertEquals(ByteArrayUtil.toHex(BYTEARRAY_GOOD, 4, 3), "90ABCD");
+    }
+
+    @Test
+    public void toHex_into_array() {
+        char[] dest = new char[8];
+        int length = ByteArrayUtil.toHex(BYTEARRAY_GOOD, 14, 2, dest, 2);
+        assertEquals(length, 4);
+        assertEquals(new String(dest, 2, 4), "4321");
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void toHex_into_array_too_small() {
+        ByteArrayUtil.toHex(BYTEARRAY_GOOD, 0, 4, new char[7], 0);
+    }
+
+    @Test
+    public void toHex_heap_buffer_slice() {
+        ByteBuffer buffer = ByteBuffer.wrap(BYTEARRAY_GOOD, 2, 4).slice();
+        assertEquals(ByteArrayUtil.bufferToHex(buffer), "567890AB");
+    }
+
+    @Test
+    public void appendHex() {
+        StringBuilder builder = new StringBuilder("APDU=");
+        ByteArrayUtil.appendHex(builder, BYTEARRAY_LEN_2);
+        ByteArrayUtil.appendHex(builder, null);
+        assertEquals(builder.toString(), "APDU=1234");
+    }
+
+    @Test
+    public void toHex_fromHex_all_bytes() {
+        byte[] bytes = new byte[256];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        assertArrayEquals(ByteArrayUtil.fromHex(ByteArrayUtil.toHex(bytes)), bytes);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void threeBytesToInt_null() {
         int value = ByteArrayUtil.threeBytesToInt(null, 0);
@@ -0,0 +1,100 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.util;
+
+import static org.junit.Assert.*;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Test;
+
+public class HexPatternClassifierTest {
+    /* protocol rules of the PC/SC and stub plugins, and a few more complex ones */
+    private static final String[] RULES = {
+            "3B8880....................|3B8B80.*|3B8C800150.*|.*4F4D4141544C4153.*",
+            "3B8F8001805A0...................829000..", "3B8F8001804F0CA0000003060300030000000068",
+            "3B8F8001804F0CA000000306030001000000006A", "3B8180018080",
+            "3B8F8001804F0CA000000306070007D0020C00B6", "3.*", "PROTOCOL_ISO14443_4",
+            "PROTOCOL_B_PRIME", "PROTOCOL_.*", "3B(8|9)880010000000000718100F9", ".*8100F9", "",
+            "3B", "3B8.|3B9.*"};
+    private static final String[] VALUES = {"3B8880010000000000718100F9",
+            "3B8F8001805A0A0102030405060708829000AB", "3B8F8001804F0CA0000003060300030000000068",
+            "3B8180018080", "3B9880010000000000718100F9", "3B14F4D4141544C41530", "3B", "",
+            "3B8", "3B88", "4B", "PROTOCOL_ISO14443_4", "PROTOCOL_B_PRIME", "PROTOCOL_X", "3b88",
+            "3B\n88"};
+
+    private static Map<Integer, String> rules() {
+        Map<Integer, String> rules = new LinkedHashMap<Integer, String>();
+        for (int i = 0; i < RULES.length; i++) {
+            rules.put(i, RULES[i]);
+        }
+        return rules;
+    }
+
+    private static Set<Integer> expected(Map<Integer, String> rules, String value) {
+        Set<Integer> keys = new HashSet<Integer>();
+        for (Map.Entry<Integer, String> rule : rules.entrySet()) {
+            if (value.matches(rule.getValue())) {
+                keys.add(rule.getKey());
+            }
+        }
+        return keys;
+    }
+
+    /* the results are the same as with each regular expression applied to the hex string */
+    @Test
+    public void classify_sameAsRegex() {
+        Map<Integer, String> rules = rules();
+        HexPatternClassifier<Integer> classifier = HexPatternClassifier.compile(rules);
+        for (String value : VALUES) {
+            assertEquals(value, expected(rules, value), classifier.classify(value));
+            if (value.length() % 2 == 0 && value.matches("[0-9A-F]*")) {
+                assertEquals(value, expected(rules, value),
+                        classifier.classify(ByteArrayUtil.fromHex(value)));
+            }
+        }
+    }
+
+    /* more masks than the bits of a word */
+    @Test
+    public void classify_manyMasks() {
+        Map<Integer, String> rules = new HashMap<Integer, String>();
+        for (int i = 0; i < 200; i++) {
+            rules.put(i, String.format("3B%02X..", i & 0xFF) + (i % 2 == 0 ? ".*" : ""));
+        }
+        HexPatternClassifier<Integer> classifier = HexPatternClassifier.compile(rules);
+        for (int i = 0; i < 200; i += 7) {
+            String value = String.format("3B%02X00", i);
+            assertEquals(value, expected(rules, value),
+                    classifier.classify(ByteArrayUtil.fromHex(value)));
+            value = value + "1122";
+            assertEquals(value, expected(rules, value),
+                    classifier.classify(ByteArrayUtil.fromHex(value)));
+        }
+    }
+
+    @Test
+    public void classify_noRules() {
+        HexPatternClassifier<Integer> classifier =
+                HexPatternClassifier.compile(new HashMap<Integer, String>());
+        assertTrue(classifier.classify(ByteArrayUtil.fromHex("3B88")).isEmpty());
+        assertTrue(classifier.classify("PROTOCOL_ISO14443_4").isEmpty());
+        assertTrue(classifier.getKeys().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void compile_null() {
+        HexPatternClassifier.compile(null);
+    }
+}
@@ -0,0 +1,75 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.util;
+
+import static org.junit.Assert.*;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+public class HexPatternTest {
+    private static final String[] REGEXES = {"3B8880010000000000718100F9", "3B888001.*",
+            "3B8.80..000000.*", ".*", "", "3B.*8100F9", "3B(8|9)880010000000000718100F9",
+            "3b8880010000000000718100f9", "3B8880010000000000718100F..*", "3B", "PROTOCOL_.*",
+            "3B8880....................|3B8B80.*|3B8C800150.*|.*4F4D4141544C4153.*", ".*8100F9",
+            ".*0000.*", ".*80..00.*", "3B|", "3B8.|3B9.*", ".*.*", "3B8880.|.*F9|3B9880"};
+    private static final String[] ATRS = {"3B8880010000000000718100F9",
+            "3B8880010000000000718100F900", "3B9880010000000000718100F9", "3B", "", "3B8",
+            "3B3F9600805A0080C120000012345678829000",
+            "3B8F8001804F0CA0000003060300030000000068", "3B8880010000000000718100F", "3B88",
+            "3B14F4D4141544C41530", "PROTOCOL_ISO14443_4"};
+
+    @Test
+    public void compile_nibbleMask() {
+        assertTrue(HexPattern.compile("3B8880010000000000718100F9").isNibbleMask());
+        assertTrue(HexPattern.compile("3B8.80..000000.*").isNibbleMask());
+        assertTrue(HexPattern.compile(".*").isNibbleMask());
+        assertFalse(HexPattern.compile("3B.*8100F9").isNibbleMask());
+        assertFalse(HexPattern.compile("3b88").isNibbleMask());
+        assertFalse(HexPattern.compile("3B(8|9)88").isNibbleMask());
+        assertTrue(HexPattern.compile("3B8B80.*|.*4F4D4141544C4153.*").isNibbleMask());
+        assertTrue(HexPattern.compile(".*8100F9").isNibbleMask());
+        assertFalse(HexPattern.compile("3B8B80.*|PROTOCOL_.*").isNibbleMask());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void compile_null() {
+        HexPattern.compile(null);
+    }
+
+    /* the results are the same as with a regular expression applied to the hex string */
+    @Test
+    public void matches_sameAsRegex() {
+        for (String regex : REGEXES) {
+            HexPattern hexPattern = HexPattern.compile(regex);
+            Pattern pattern = Pattern.compile(regex);
+            assertEquals(regex, hexPattern.getRegex());
+            for (String atr : ATRS) {
+                if (atr.length() % 2 == 0) {
+                    assertEquals(regex + " / " + atr, pattern.matcher(atr).matches(),
+                            hexPattern.matches(ByteArrayUtil.fromHex(atr)));
+                }
+                assertEquals(regex + " / " + atr, pattern.matcher(atr).matches(),
+                        hexPattern.matches(atr));
+            }
+        }
+    }
+
+    @Test
+    public void matches_string() {
+        assertTrue(HexPattern.compile("PROTOCOL_.*").matches("PROTOCOL_ISO14443_4"));
+        assertFalse(HexPattern.compile("3B.*").matches("3B\n00"));
+        assertFalse(HexPattern.compile("3B.").matches("3B\r"));
+        assertFalse(HexPattern.compile("3B").matches("3b"));
+        assertFalse(HexPattern.compile(".*00.*|3B").matches("\n00"));
+        assertTrue(HexPattern.compile(".*00.*|3B").matches("X00Y"));
+    }
+}
@@ -0,0 +1,67 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.util;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void empty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(99));
+        assertEquals(0.0, histogram.getMean(), 0);
+    }
+
+    @Test
+    public void record() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(100, histogram.getMax());
+        assertEquals(50.5, histogram.getMean(), 0.001);
+        // 50 belongs to the bucket [32, 64)
+        assertEquals(63, histogram.getPercentile(50));
+        // capped to the max value
+        assertEquals(100, histogram.getPercentile(99));
+        assertEquals(1, histogram.getPercentile(0));
+    }
+
+    @Test
+    public void record_zero_and_negative() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(0);
+        histogram.record(-5);
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void reset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.getPercentile(50));
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void percentile_out_of_range() {
+        new LatencyHistogram().getPercentile(101);
+    }
+}
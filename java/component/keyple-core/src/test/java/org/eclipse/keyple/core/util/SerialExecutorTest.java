@@ -0,0 +1,157 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SerialExecutorTest {
+
+    private ExecutorService pool;
+
+    @Before
+    public void setUp() {
+        pool = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_null_executor() {
+        new SerialExecutor(null);
+    }
+
+    @Test
+    public void execute_keeps_submission_order() throws InterruptedException {
+        SerialExecutor serialExecutor = new SerialExecutor(pool);
+        final List<Integer> results = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch latch = new CountDownLatch(100);
+        for (int i = 0; i < 100; i++) {
+            final int index = i;
+            serialExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    results.add(index);
+                    latch.countDown();
+                }
+            });
+        }
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(Integer.valueOf(i), results.get(i));
+        }
+    }
+
+    @Test
+    public void execute_goes_on_after_failing_task() throws InterruptedException {
+        SerialExecutor serialExecutor = new SerialExecutor(pool);
+        final CountDownLatch latch = new CountDownLatch(1);
+        serialExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("task failure");
+            }
+        });
+        serialExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = CancellationException.class)
+    public void execute_rejected_pendingFuturesCancelled() throws Exception {
+        SerialExecutor serialExecutor = new SerialExecutor(pool);
+        final CountDownLatch release = new CountDownLatch(1);
+        serialExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        FutureTask<String> pending = newTask();
+        serialExecutor.execute(pending);
+
+        /* test : the pending task is rejected once the first one is over */
+        pool.shutdown();
+        release.countDown();
+
+        /* Assert */
+        pending.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void cancelPendingTasks_afterShutdownNow() throws Exception {
+        ExecutorService singleThread = Executors.newSingleThreadExecutor();
+        SerialExecutor serialExecutor = new SerialExecutor(singleThread);
+        SerialExecutor otherSerialExecutor = new SerialExecutor(singleThread);
+        final CountDownLatch started = new CountDownLatch(1);
+        serialExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    new CountDownLatch(1).await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        FutureTask<String> waitingForTurn = newTask();
+        serialExecutor.execute(waitingForTurn);
+        FutureTask<String> droppedByPool = newTask();
+        otherSerialExecutor.execute(droppedByPool);
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        /* test */
+        Assert.assertEquals(1, singleThread.shutdownNow().size());
+        serialExecutor.cancelPendingTasks();
+        otherSerialExecutor.cancelPendingTasks();
+
+        /* Assert */
+        Assert.assertTrue(waitingForTurn.isCancelled());
+        Assert.assertTrue(droppedByPool.isCancelled());
+        Assert.assertTrue(otherSerialExecutor.isIdle());
+        Assert.assertTrue(singleThread.awaitTermination(5, TimeUnit.SECONDS));
+        Assert.assertTrue(serialExecutor.isIdle());
+    }
+
+    private static FutureTask<String> newTask() {
+        return new FutureTask<String>(new Callable<String>() {
+            @Override
+            public String call() {
+                return "run";
+            }
+        });
+    }
+}
@@ -0,0 +1,141 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.util.bertlv;
+
+import java.nio.ByteBuffer;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TLVIndexTest {
+
+    /* Calypso FCI followed by its status word */
+    private static final String FCI = "6F238409315449432E49434131A516BF0C13C708000000001122334453"
+            + "070A3C23121410019000";
+
+    @Test
+    public void parse_nestedTlvs() {
+        byte[] fci = ByteArrayUtil.fromHex(FCI);
+        TLVIndex index = new TLVIndex().parse(fci, 0, fci.length - 2);
+
+        Assert.assertEquals(6, index.size());
+        int fciTemplate = index.indexOfChild(TLVIndex.NOT_FOUND, 0x6F);
+        Assert.assertEquals(0, fciTemplate);
+        Assert.assertTrue(index.isConstructed(fciTemplate));
+        int dfName = index.indexOfChild(fciTemplate, 0x84);
+        Assert.assertEquals(fciTemplate, index.getParent(dfName));
+        Assert.assertArrayEquals(ByteArrayUtil.fromHex("315449432E49434131"),
+                index.getValue(dfName));
+        int serialNumber = index.indexOfPath(new int[] {0x6F, 0xA5, 0xBF0C, 0xC7});
+        Assert.assertEquals(0xC7, index.getTag(serialNumber));
+        Assert.assertFalse(index.isConstructed(serialNumber));
+        Assert.assertArrayEquals(ByteArrayUtil.fromHex("0000000011223344"),
+                index.getValue(serialNumber));
+        Assert.assertEquals(index.indexOf(0xBF0C), index.getParent(serialNumber));
+        Assert.assertEquals(8, index.getValueLength(serialNumber));
+        Assert.assertEquals(fci[index.getValueOffset(serialNumber) + 7], (byte) 0x44);
+        Assert.assertEquals(TLVIndex.NOT_FOUND, index.indexOfPath(new int[] {0x6F, 0xC7}));
+        Assert.assertEquals(TLVIndex.NOT_FOUND, index.indexOf(0x85));
+    }
+
+    @Test
+    public void getValueBuffer_noCopy() {
+        byte[] fci = ByteArrayUtil.fromHex(FCI);
+        TLVIndex index = new TLVIndex().parse(fci, 0, fci.length - 2);
+        int discretionaryData = index.indexOf(0x53);
+
+        ByteBuffer value = index.getValueBuffer(discretionaryData);
+
+        Assert.assertEquals(0, value.position());
+        Assert.assertEquals(7, value.remaining());
+        Assert.assertEquals((byte) 0x0A, value.get(0));
+        Assert.assertTrue(value.isReadOnly());
+        fci[index.getValueOffset(discretionaryData)] = (byte) 0x55;
+        Assert.assertEquals((byte) 0x55, value.get(0));
+    }
+
+    @Test
+    public void parse_multiByteTagsAndLongLengths() {
+        // three-byte tag, two-byte length form, padding between the TLVs
+        byte[] data = ByteArrayUtil.fromHex("DF8105820003AABBCC0000FF8401DD");
+        TLVIndex index = new TLVIndex(data);
+
+        Assert.assertEquals(2, index.size());
+        Assert.assertEquals(0xDF8105, index.getTag(0));
+        Assert.assertEquals(6, index.getValueOffset(0));
+        Assert.assertEquals(3, index.getValueLength(0));
+        Assert.assertEquals(0x84, index.getTag(1));
+        Assert.assertArrayEquals(ByteArrayUtil.fromHex("DD"), index.getValue(1));
+    }
+
+    @Test
+    public void parse_reused() {
+        TLVIndex index = new TLVIndex();
+        // more TLVs than the initial capacity
+        StringBuilder sb = new StringBuilder("E0" + "30");
+        for (int i = 0; i < 16; i++) {
+            sb.append("8101").append(String.format("%02X", i));
+        }
+        byte[] data = ByteArrayUtil.fromHex(sb.toString());
+        Assert.assertEquals(17, index.parse(data, 0, data.length).size());
+        Assert.assertEquals(15, index.getValue(16)[0]);
+
+        data = ByteArrayUtil.fromHex("8401AA");
+        Assert.assertEquals(1, index.parse(data, 0, data.length).size());
+        Assert.assertEquals(TLVIndex.NOT_FOUND, index.indexOf(0xE0));
+    }
+
+    @Test
+    public void parse_emptyConstructed() {
+        TLVIndex index = new TLVIndex(ByteArrayUtil.fromHex("A5008401AA"));
+        Assert.assertEquals(2, index.size());
+        Assert.assertEquals(TLVIndex.NOT_FOUND, index.getParent(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_valueTooLong() {
+        new TLVIndex(ByteArrayUtil.fromHex("84050011"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_childLongerThanParent() {
+        new TLVIndex(ByteArrayUtil.fromHex("A503840300112233"));
+    }
+
+    @Test
+    public void parse_lenient_childLongerThanParent() {
+        /* A5 declares 3 bytes, its child 4; 6F declares more bytes than available */
+        TLVIndex index = new TLVIndex(true)
+                .parse(ByteArrayUtil.fromHex("6F10A503840300112285015590"), 0, 12);
+        Assert.assertEquals(4, index.size());
+        Assert.assertEquals(10, index.getValueLength(index.indexOf(0x6F)));
+        int child = index.indexOfPath(new int[] {0x6F, 0xA5, 0x84});
+        Assert.assertArrayEquals(ByteArrayUtil.fromHex("001122"), index.getValue(child));
+        int sibling = index.indexOfChild(index.indexOf(0x6F), 0x85);
+        Assert.assertArrayEquals(ByteArrayUtil.fromHex("55"), index.getValue(sibling));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_lenient_primitiveTooLong() {
+        new TLVIndex(true).parse(ByteArrayUtil.fromHex("A5038405001122"), 0, 7);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_indefiniteLength() {
+        new TLVIndex(ByteArrayUtil.fromHex("A580840100"));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getValue_badIndex() {
+        new TLVIndex(ByteArrayUtil.fromHex("8401AA")).getValue(1);
+    }
+}
@@ -27,6 +27,15 @@ public class TagTest {
         Assert.assertEquals(0x55, tag.getTagNumber());
     }
 
+    @Test
+    public void getTagNumber_multiByte() {
+        // three-byte tag: 1h << 7 | 5h
+        Tag tag = new Tag(ByteArrayUtil.fromHex("DF81050100"), 0);
+        Assert.assertEquals(0x85, tag.getTagNumber());
+        Assert.assertEquals(3, tag.getTagSize());
+        Assert.assertEquals(Tag.PRIVATE, tag.getTagClass());
+    }
+
     @Test
     public void getTagClass() {
         Tag tag;
@@ -26,6 +26,7 @@ import org.eclipse.keyple.core.seproxy.exception.KeypleReaderIOException;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderNotFoundException;
 import org.eclipse.keyple.core.seproxy.plugin.AbstractReader;
 import org.eclipse.keyple.core.seproxy.plugin.AbstractThreadedObservablePlugin;
+import org.eclipse.keyple.core.seproxy.plugin.local.PollingPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,6 +34,9 @@ final class PcscPluginImpl extends AbstractThreadedObservablePlugin implements P
 
     private static final Logger logger = LoggerFactory.getLogger(PcscPluginImpl.class);
 
+    /* interval between two fetches of the readers list following a change (in ms) */
+    private static final long MIN_READERS_POLLING_INTERVAL = 250;
+
     private boolean scardNoServiceHackNeeded;
 
     /**
@@ -65,6 +69,19 @@ final class PcscPluginImpl extends AbstractThreadedObservablePlugin implements P
         return instance;
     }
 
+    /**
+     * smartcardio does not notify the changes of the readers list, it is polled: quickly after a
+     * change (readers of a hub are often connected together), then at most every
+     * {@link #threadWaitTimeout} ms.
+     *
+     * @return the polling policy of the monitoring thread
+     */
+    @Override
+    protected PollingPolicy getReadersPollingPolicy() {
+        return new PollingPolicy(MIN_READERS_POLLING_INTERVAL,
+                Math.max(MIN_READERS_POLLING_INTERVAL, threadWaitTimeout), 2);
+    }
+
     @Override
     public Map<String, String> getParameters() {
         return null;
@@ -11,13 +11,13 @@
  ********************************************************************************/
 package org.eclipse.keyple.plugin.pcsc;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.regex.Pattern;
 import javax.smartcardio.*;
 import org.eclipse.keyple.core.seproxy.exception.*;
 import org.eclipse.keyple.core.seproxy.plugin.local.*;
@@ -35,7 +35,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 final class PcscReaderImpl extends AbstractObservableLocalReader
-        implements PcscReader, SmartInsertionReader, SmartRemovalReader {
+        implements PcscReader, SmartInsertionReader, SmartRemovalReader, BufferedTransmitReader,
+        SmartLogicalChannelReader {
 
     private static final Logger logger = LoggerFactory.getLogger(PcscReaderImpl.class);
 
@@ -53,6 +54,14 @@ final class PcscReaderImpl extends AbstractObservableLocalReader
 
     private Card card;
     private CardChannel channel;
+    // the supplementary logical channels opened on the current card, by channel number; they are
+    // used by concurrent transactions and cleared when the physical channel is closed
+    private final Map<Integer, CardChannel> logicalChannels =
+            new ConcurrentHashMap<Integer, CardChannel>();
+
+    // hex string of the ATR of the current card, computed once per card
+    private Card atrHexCard;
+    private String atrHex;
 
     // the latency delay value (in ms) determines the maximum time during which the
     // waitForCardPresent and waitForCardPresent blocking functions will execute.
@@ -62,7 +71,9 @@ final class PcscReaderImpl extends AbstractObservableLocalReader
     private static final long REMOVAL_LATENCY = 500;
 
     private static final long INSERT_WAIT_TIMEOUT = 200;
-    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    // monitoring jobs are run on the threads shared by all the readers, one at a time per reader
+    private final MonitoringScheduler monitoringScheduler =
+            MonitoringScheduler.getDefault().forReader();
 
     private final AtomicBoolean loopWaitSe = new AtomicBoolean();
     private final AtomicBoolean loopWaitSeRemoval = new AtomicBoolean();
@@ -119,22 +130,23 @@ final class PcscReaderImpl extends AbstractObservableLocalReader
             // use the SmartInsertionMonitoringJob
             states.put(AbstractObservableState.MonitoringState.WAIT_FOR_SE_INSERTION,
                     new WaitForSeInsertion(this, new SmartInsertionMonitoringJob(this),
-                            executorService));
+                            monitoringScheduler));
         } else {
             // use the CardPresentMonitoring job (only on Mac due to jvm crash)
             // https://github.com/eclipse/keyple-java/issues/153
             states.put(AbstractObservableState.MonitoringState.WAIT_FOR_SE_INSERTION,
                     new WaitForSeInsertion(this,
                             new CardPresentMonitoringJob(this, INSERT_WAIT_TIMEOUT, true),
-                            executorService));
+                            monitoringScheduler));
         }
 
         states.put(AbstractObservableState.MonitoringState.WAIT_FOR_SE_PROCESSING,
                 new WaitForSeProcessing(this, new SmartRemovalMonitoringJob(this),
-                        executorService));
+                        monitoringScheduler));
 
         states.put(AbstractObservableState.MonitoringState.WAIT_FOR_SE_REMOVAL,
-                new WaitForSeRemoval(this, new SmartRemovalMonitoringJob(this), executorService));
+                new WaitForSeRemoval(this, new SmartRemovalMonitoringJob(this),
+                        monitoringScheduler));
 
 
         return new ObservableReaderStateService(this, states,
@@ -148,6 +160,7 @@ final class PcscReaderImpl extends AbstractObservableLocalReader
                 logger.debug("[{}] closePhysicalChannel => closing the channel.", this.getName());
 
                 channel = null;
+                logicalChannels.clear();
                 card.disconnect(cardReset);
                 card = null;
             } else {
@@ -297,6 +310,95 @@ final class PcscReaderImpl extends AbstractObservableLocalReader
         return apduResponseData.getBytes();
     }
 
+    /**
+     * Opens a supplementary logical channel through the PC/SC API (the MANAGE CHANNEL commands are
+     * not accepted on the basic channel)
+     *
+     * @return the number of the channel
+     * @throws KeypleReaderIOException if the communication with the reader or the SE has failed
+     */
+    @Override
+    public int openLogicalChannelNative() throws KeypleReaderIOException {
+        if (card == null) {
+            // could occur if the SE was removed
+            throw new KeypleReaderIOException(this.getName() + ": null card.");
+        }
+        CardChannel logicalChannel;
+        try {
+            logicalChannel = card.openLogicalChannel();
+        } catch (CardException e) {
+            // the SE refused the channel or the communication failed
+            logger.debug("[{}] openLogicalChannelNative => failure. Message: {}", this.getName(),
+                    e.getMessage());
+            return -1;
+        }
+        logicalChannels.put(logicalChannel.getChannelNumber(), logicalChannel);
+        return logicalChannel.getChannelNumber();
+    }
+
+    @Override
+    public void closeLogicalChannelNative(int channelNumber) throws KeypleReaderIOException {
+        CardChannel logicalChannel = logicalChannels.remove(channelNumber);
+        if (logicalChannel != null) {
+            try {
+                logicalChannel.close();
+            } catch (CardException e) {
+                throw new KeypleReaderIOException(this.getName() + ":" + e.getMessage());
+            } catch (IllegalStateException e) {
+                // card already disconnected
+                logger.debug("[{}] closeLogicalChannelNative => channel already closed.",
+                        this.getName());
+            }
+        }
+    }
+
+    @Override
+    public byte[] transmitApdu(int channelNumber, byte[] apduIn) throws KeypleReaderIOException {
+        CardChannel logicalChannel = logicalChannels.get(channelNumber);
+        if (logicalChannel == null) {
+            throw new KeypleReaderIOException(
+                    this.getName() + ": logical channel " + channelNumber + " not open.");
+        }
+        try {
+            return logicalChannel.transmit(new CommandAPDU(apduIn)).getBytes();
+        } catch (CardException e) {
+            throw new KeypleReaderIOException(this.getName() + ":" + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            // card could have been removed prematurely
+            throw new KeypleReaderIOException(this.getName() + ":" + e.getMessage());
+        } catch (IllegalStateException e) {
+            // card disconnected or channel closed
+            throw new KeypleReaderIOException(this.getName() + ":" + e.getMessage());
+        }
+    }
+
+    /**
+     * Transmission of single APDU without the intermediate CommandAPDU and ResponseAPDU objects
+     *
+     * @param apduIn APDU in buffer
+     * @param apduOut APDU out buffer
+     * @return the length of the response
+     * @throws KeypleReaderIOException if the communication with the reader or the SE has failed
+     */
+    @Override
+    public int transmitApdu(ByteBuffer apduIn, ByteBuffer apduOut) throws KeypleReaderIOException {
+        if (channel != null) {
+            try {
+                return channel.transmit(apduIn, apduOut);
+            } catch (CardException e) {
+                throw new KeypleReaderIOException(this.getName() + ":" + e.getMessage());
+            } catch (IllegalArgumentException e) {
+                // card could have been removed prematurely
+                throw new KeypleReaderIOException(this.getName() + ":" + e.getMessage());
+            } catch (BufferOverflowException e) {
+                throw new KeypleReaderIOException(this.getName() + ": response too long.");
+            }
+        } else {
+            // could occur if the SE was removed
+            throw new KeypleReaderIOException(this.getName() + ": null channel.");
+        }
+    }
+
     /**
      * Tells if the current SE protocol matches the provided protocol flag. If the protocol flag is
      * not defined (null), we consider here that it matches. An exception is returned when the
@@ -319,12 +421,11 @@ final class PcscReaderImpl extends AbstractObservableLocalReader
             if (selectionMask == null) {
                 throw new KeypleReaderIOException("Target selector mask not found!", null);
             }
-            Pattern p = Pattern.compile(selectionMask);
-            String atr = ByteArrayUtil.toHex(card.getATR().getBytes());
-            if (!p.matcher(atr).matches()) {
+            /* all the protocol rules are evaluated once per card */
+            if (!getMatchingProtocols(getATR()).contains(protocolFlag)) {
                 logger.debug(
                         "[{}] protocolFlagMatches => unmatching SE. PROTOCOLFLAG = {}, ATR = {}, MASK = {}",
-                        this.getName(), protocolFlag, atr, selectionMask);
+                        this.getName(), protocolFlag, getAtrHex(), selectionMask);
 
                 result = false;
             } else {
@@ -471,6 +572,19 @@ final class PcscReaderImpl extends AbstractObservableLocalReader
         return card.getATR().getBytes();
     }
 
+    /**
+     * Gets the ATR of the current card as an hex string, computed once per card
+     *
+     * @return the hex string
+     */
+    private String getAtrHex() {
+        if (atrHexCard != card) {
+            atrHex = ByteArrayUtil.toHex(card.getATR().getBytes());
+            atrHexCard = card;
+        }
+        return atrHex;
+    }
+
     /**
      * Tells if a physical channel is open
      * <p>
@@ -14,6 +14,9 @@ package org.eclipse.keyple.plugin.remotese.nativese;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import org.eclipse.keyple.core.seproxy.ReaderPlugin;
@@ -22,6 +25,7 @@ import org.eclipse.keyple.core.seproxy.SeProxyService;
 import org.eclipse.keyple.core.seproxy.SeReader;
 import org.eclipse.keyple.core.seproxy.event.ObservableReader;
 import org.eclipse.keyple.core.seproxy.event.ReaderEvent;
+import org.eclipse.keyple.core.seproxy.exception.KeyplePluginNotFoundException;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderIOException;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderNotFoundException;
@@ -65,6 +69,10 @@ public class SlaveAPI implements INativeReaderService, DtoHandler, ObservableRea
     // used in case of a poolPlugin architecture
     private ReaderPoolPlugin readerPoolPlugin;
 
+    // plugin of the local readers found by findLocalReader, by reader name
+    private final ConcurrentMap<String, ReaderPlugin> readerPlugins =
+            new ConcurrentHashMap<String, ReaderPlugin>();
+
     public static final long DEFAULT_RPC_TIMEOUT = 10000;
 
 
@@ -135,7 +143,9 @@ public class SlaveAPI implements INativeReaderService, DtoHandler, ObservableRea
         KeypleDto keypleDTO = transportDto.getKeypleDTO();
         TransportDto out;
 
-        logger.trace("{} onDto {}", dtoNode.getNodeId(), KeypleDtoHelper.toJson(keypleDTO));
+        if (logger.isTraceEnabled()) {
+            logger.trace("{} onDto {}", dtoNode.getNodeId(), KeypleDtoHelper.toJson(keypleDTO));
+        }
 
         RemoteMethodName method = RemoteMethodName.get(keypleDTO.getAction());
         logger.trace("{} Remote Method called : {} - isRequest : {}", dtoNode.getNodeId(), method,
@@ -232,8 +242,10 @@ public class SlaveAPI implements INativeReaderService, DtoHandler, ObservableRea
                             "a  ERROR - UNRECOGNIZED request has been received by SlaveAPI");
             }
 
-            logger.trace("{} onDto response to be sent {}", dtoNode.getNodeId(),
-                    KeypleDtoHelper.toJson(out.getKeypleDTO()));
+            if (logger.isTraceEnabled()) {
+                logger.trace("{} onDto response to be sent {}", dtoNode.getNodeId(),
+                        KeypleDtoHelper.toJson(out.getKeypleDTO()));
+            }
 
             return out;
 
@@ -342,11 +354,30 @@ public class SlaveAPI implements INativeReaderService, DtoHandler, ObservableRea
      */
     @Override
     public SeReader findLocalReader(String nativeReaderName) throws KeypleReaderNotFoundException {
+        // look first in the plugin which held the reader at the previous call
+        ReaderPlugin lastPlugin =
+                nativeReaderName == null ? null : readerPlugins.get(nativeReaderName);
+        if (lastPlugin != null) {
+            try {
+                if (seProxyService.getPlugin(lastPlugin.getName()) == lastPlugin) {
+                    return lastPlugin.getReader(nativeReaderName);
+                }
+            } catch (KeyplePluginNotFoundException e) {
+                // plugin unregistered, continue
+            } catch (KeypleReaderNotFoundException e) {
+                // reader unplugged, continue
+            }
+            readerPlugins.remove(nativeReaderName, lastPlugin);
+        }
+
+        SortedSet<ReaderPlugin> plugins = seProxyService.getPlugins();
         logger.trace("Find local reader by name {} in {} plugin(s)", nativeReaderName,
-                seProxyService.getPlugins().size());
-        for (ReaderPlugin plugin : seProxyService.getPlugins()) {
+                plugins.size());
+        for (ReaderPlugin plugin : plugins) {
             try {
-                return plugin.getReader(nativeReaderName);
+                SeReader reader = plugin.getReader(nativeReaderName);
+                readerPlugins.put(nativeReaderName, plugin);
+                return reader;
             } catch (KeypleReaderNotFoundException e) {
                 // continue
             }
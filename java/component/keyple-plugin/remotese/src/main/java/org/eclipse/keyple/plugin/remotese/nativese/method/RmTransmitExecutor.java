@@ -21,6 +21,7 @@ import org.eclipse.keyple.plugin.remotese.rm.RemoteMethodName;
 import org.eclipse.keyple.plugin.remotese.transport.json.JsonParser;
 import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
 import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDtoHelper;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDtoPayload;
 import org.eclipse.keyple.plugin.remotese.transport.model.TransportDto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,12 +55,21 @@ public class RmTransmitExecutor implements IRemoteMethodExecutor {
         ChannelControl channelControl;
 
         // Extract info from keypleDto
-        JsonObject bodyJsonO = JsonParser.getGson().fromJson(keypleDto.getBody(), JsonObject.class);
-
-        channelControl = ChannelControl.valueOf(bodyJsonO.get("channelControl").getAsString());
-
-        SeRequest seRequest = JsonParser.getGson()
-                .fromJson(bodyJsonO.get("seRequest").getAsString(), SeRequest.class);
+        SeRequest seRequest;
+        KeypleDtoPayload payload = keypleDto.getPayload();
+        if (payload != null && payload.getType() == KeypleDtoPayload.Type.SE_REQUEST) {
+            channelControl = payload.getChannelControl();
+            seRequest = payload.getSeRequest();
+        } else {
+            JsonObject bodyJsonO =
+                    JsonParser.getGson().fromJson(keypleDto.getBody(), JsonObject.class);
+
+            channelControl =
+                    ChannelControl.valueOf(bodyJsonO.get("channelControl").getAsString());
+
+            seRequest = JsonParser.getGson().fromJson(bodyJsonO.get("seRequest").getAsString(),
+                    SeRequest.class);
+        }
 
 
         String nativeReaderName = keypleDto.getNativeReaderName();
@@ -72,10 +82,10 @@ public class RmTransmitExecutor implements IRemoteMethodExecutor {
             // execute transmitSet
             seResponse = reader.transmitSeRequest(seRequest, channelControl);
 
-            // prepare response
-            String parseBody = JsonParser.getGson().toJson(seResponse, SeResponse.class);
+            // prepare response, serialized by the transport
             out = transportDto.nextTransportDTO(KeypleDtoHelper.buildResponse(
-                    getMethodName().getName(), parseBody, keypleDto.getSessionId(),
+                    getMethodName().getName(), KeypleDtoPayload.seResponse(seResponse),
+                    keypleDto.getSessionId(),
                     nativeReaderName, keypleDto.getVirtualReaderName(), keypleDto.getTargetNodeId(),
                     keypleDto.getRequesterNodeId(), keypleDto.getId()));
 
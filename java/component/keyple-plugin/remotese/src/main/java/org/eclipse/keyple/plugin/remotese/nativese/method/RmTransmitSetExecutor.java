@@ -25,6 +25,7 @@ import org.eclipse.keyple.plugin.remotese.rm.RemoteMethodName;
 import org.eclipse.keyple.plugin.remotese.transport.json.JsonParser;
 import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
 import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDtoHelper;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDtoPayload;
 import org.eclipse.keyple.plugin.remotese.transport.model.TransportDto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -61,18 +62,27 @@ public class RmTransmitSetExecutor implements IRemoteMethodExecutor {
         MultiSeRequestProcessing multiSeRequestProcessing;
         ChannelControl channelControl;
 
-        // parse body
-        JsonObject bodyJsonO = JsonParser.getGson().fromJson(keypleDto.getBody(), JsonObject.class);
-
-        // extract info
-        multiSeRequestProcessing = MultiSeRequestProcessing
-                .valueOf(bodyJsonO.get("multiSeRequestProcessing").getAsString());
-
-        channelControl = ChannelControl.valueOf(bodyJsonO.get("channelControl").getAsString());
-
-        List<SeRequest> seRequests =
-                JsonParser.getGson().fromJson(bodyJsonO.get("seRequests").getAsString(),
-                        new TypeToken<ArrayList<SeRequest>>() {}.getType());
+        List<SeRequest> seRequests;
+        KeypleDtoPayload payload = keypleDto.getPayload();
+        if (payload != null && payload.getType() == KeypleDtoPayload.Type.SE_REQUEST_SET) {
+            multiSeRequestProcessing = payload.getMultiSeRequestProcessing();
+            channelControl = payload.getChannelControl();
+            seRequests = payload.getSeRequests();
+        } else {
+            // parse body
+            JsonObject bodyJsonO =
+                    JsonParser.getGson().fromJson(keypleDto.getBody(), JsonObject.class);
+
+            // extract info
+            multiSeRequestProcessing = MultiSeRequestProcessing
+                    .valueOf(bodyJsonO.get("multiSeRequestProcessing").getAsString());
+
+            channelControl =
+                    ChannelControl.valueOf(bodyJsonO.get("channelControl").getAsString());
+
+            seRequests = JsonParser.getGson().fromJson(bodyJsonO.get("seRequests").getAsString(),
+                    new TypeToken<ArrayList<SeRequest>>() {}.getType());
+        }
 
 
         // prepare transmitSet on nativeReader
@@ -88,11 +98,10 @@ public class RmTransmitSetExecutor implements IRemoteMethodExecutor {
             seResponses =
                     reader.transmitSeRequests(seRequests, multiSeRequestProcessing, channelControl);
 
-            // prepare response
-            String parseBody = JsonParser.getGson().toJson(seResponses,
-                    new TypeToken<ArrayList<SeResponse>>() {}.getType());
+            // prepare response, serialized by the transport
             out = transportDto.nextTransportDTO(KeypleDtoHelper.buildResponse(
-                    getMethodName().getName(), parseBody, keypleDto.getSessionId(),
+                    getMethodName().getName(), KeypleDtoPayload.seResponseSet(seResponses),
+                    keypleDto.getSessionId(),
                     nativeReaderName, keypleDto.getVirtualReaderName(), keypleDto.getTargetNodeId(),
                     keypleDto.getRequesterNodeId(), keypleDto.getId()));
 
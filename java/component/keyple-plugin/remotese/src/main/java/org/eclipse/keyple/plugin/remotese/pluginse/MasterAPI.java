@@ -15,7 +15,6 @@ package org.eclipse.keyple.plugin.remotese.pluginse;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import org.eclipse.keyple.core.seproxy.SeProxyService;
-import org.eclipse.keyple.core.seproxy.SeReader;
 import org.eclipse.keyple.core.seproxy.exception.KeyplePluginInstantiationException;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderNotFoundException;
@@ -200,8 +199,10 @@ public class MasterAPI implements DtoHandler {
 
         KeypleDto keypleDTO = transportDto.getKeypleDTO();
         RemoteMethodName method = RemoteMethodName.get(keypleDTO.getAction());
-        logger.trace("onDTO, Remote Method called : {} - isRequest : {} - keypleDto : {}", method,
-                keypleDTO.isRequest(), KeypleDtoHelper.toJson(keypleDTO));
+        if (logger.isTraceEnabled()) {
+            logger.trace("onDTO, Remote Method called : {} - isRequest : {} - keypleDto : {}",
+                    method, keypleDTO.isRequest(), KeypleDtoHelper.toJson(keypleDTO));
+        }
 
         try {
             switch (method) {
@@ -293,14 +294,7 @@ public class MasterAPI implements DtoHandler {
      * @throws KeypleReaderNotFoundException : if none reader was found
      */
     private VirtualReaderImpl getReaderBySessionId(String sessionId) throws KeypleReaderException {
-        for (SeReader reader : plugin.getReaders()) {
-
-            if (((VirtualReaderImpl) reader).getSession().getSessionId().equals(sessionId)) {
-                return (VirtualReaderImpl) reader;
-            }
-        }
-        throw new KeypleReaderNotFoundException(
-                "Reader session was not found for session : " + sessionId);
+        return plugin.getReaderBySessionId(sessionId);
     }
 
 }
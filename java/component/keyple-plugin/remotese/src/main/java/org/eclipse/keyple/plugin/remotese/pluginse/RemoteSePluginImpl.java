@@ -12,6 +12,7 @@
 package org.eclipse.keyple.plugin.remotese.pluginse;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import org.eclipse.keyple.core.seproxy.SeReader;
 import org.eclipse.keyple.core.seproxy.event.PluginEvent;
@@ -44,6 +45,10 @@ class RemoteSePluginImpl extends AbstractObservablePlugin implements RemoteSePlu
     private final Map<String, String> parameters;
     private ExecutorService executorService;
 
+    // virtual readers by session id, maintained with the list of readers
+    private final Map<String, VirtualReaderImpl> readersBySessionId =
+            new ConcurrentHashMap<String, VirtualReaderImpl>();
+
     /**
      * RemoteSePlugin is wrapped into MasterAPI and instantiated like a standard plugin
      * by @SeProxyService. Use MasterAPI
@@ -63,13 +68,30 @@ class RemoteSePluginImpl extends AbstractObservablePlugin implements RemoteSePlu
 
     public VirtualReaderImpl getReaderByRemoteName(String remoteName, String slaveNodeId)
             throws KeypleReaderNotFoundException {
-        for (SeReader virtualReader : readers) {
-            if (((VirtualReaderImpl) virtualReader).getName()
-                    .equals(RemoteSePluginImpl.generateReaderName(remoteName, slaveNodeId))) {
-                return (VirtualReaderImpl) virtualReader;
-            }
+        try {
+            return (VirtualReaderImpl) getReader(
+                    RemoteSePluginImpl.generateReaderName(remoteName, slaveNodeId));
+        } catch (KeypleReaderNotFoundException e) {
+            throw new KeypleReaderNotFoundException(remoteName);
+        }
+    }
+
+    /**
+     * Retrieve a virtual reader by its session id
+     *
+     * @param sessionId : session id of the virtual reader
+     * @return the virtual reader
+     * @throws KeypleReaderNotFoundException if no virtual reader has this session id
+     */
+    VirtualReaderImpl getReaderBySessionId(String sessionId)
+            throws KeypleReaderNotFoundException {
+        VirtualReaderImpl virtualReader =
+                sessionId == null ? null : readersBySessionId.get(sessionId);
+        if (virtualReader == null) {
+            throw new KeypleReaderNotFoundException(
+                    "Reader session was not found for session : " + sessionId);
         }
-        throw new KeypleReaderNotFoundException(remoteName);
+        return virtualReader;
     }
 
 
@@ -121,6 +143,7 @@ class RemoteSePluginImpl extends AbstractObservablePlugin implements RemoteSePlu
                     transmissionMode, options);
         }
         readers.add(virtualReader);
+        readersBySessionId.put(session.getSessionId(), virtualReader);
 
         notifyObservers(new PluginEvent(getName(), virtualReader.getName(),
                 PluginEvent.EventType.READER_CONNECTED));
@@ -154,6 +177,7 @@ class RemoteSePluginImpl extends AbstractObservablePlugin implements RemoteSePlu
 
         // remove reader
         readers.remove(virtualReader);
+        readersBySessionId.remove(virtualReader.getSession().getSessionId());
 
         notifyObservers(new PluginEvent(getName(), virtualReader.getName(),
                 PluginEvent.EventType.READER_DISCONNECTED));
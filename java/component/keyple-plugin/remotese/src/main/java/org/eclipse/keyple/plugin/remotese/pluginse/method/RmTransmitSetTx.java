@@ -24,9 +24,9 @@ import org.eclipse.keyple.plugin.remotese.rm.RemoteMethodName;
 import org.eclipse.keyple.plugin.remotese.transport.json.JsonParser;
 import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
 import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDtoHelper;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDtoPayload;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import com.google.gson.JsonObject;
 import com.google.gson.reflect.TypeToken;
 
 /**
@@ -57,18 +57,10 @@ public class RmTransmitSetTx extends AbstractRemoteMethodTx<List<SeResponse>> {
 
     @Override
     public KeypleDto dto() {
-
-
-        JsonObject body = new JsonObject();
-
-        body.addProperty("seRequests", JsonParser.getGson().toJson(seRequests,
-                new TypeToken<ArrayList<SeRequest>>() {}.getType()));
-
-        body.addProperty("multiSeRequestProcessing", multiSeRequestProcessing.name());
-
-        body.addProperty("channelControl", channelControl.name());
-
-        return KeypleDtoHelper.buildRequest(getMethodName().getName(), body.toString(),
+        // the json body is only computed if the transport requires it
+        return KeypleDtoHelper.buildRequest(getMethodName().getName(),
+                KeypleDtoPayload.seRequestSet(seRequests, multiSeRequestProcessing,
+                        channelControl),
                 this.sessionId, this.nativeReaderName, this.virtualReaderName, requesterNodeId,
                 targetNodeId, id);
     }
@@ -87,6 +79,10 @@ public class RmTransmitSetTx extends AbstractRemoteMethodTx<List<SeResponse>> {
                     "An exception occurs while calling the remote method transmitSeRequests", ex);
         } else {
             logger.trace("KeypleDto contains a response: {}", keypleDto);
+            KeypleDtoPayload payload = keypleDto.getPayload();
+            if (payload != null && payload.getType() == KeypleDtoPayload.Type.SE_RESPONSE_SET) {
+                return payload.getSeResponses();
+            }
             return JsonParser.getGson().fromJson(keypleDto.getBody(),
                     new TypeToken<ArrayList<SeResponse>>() {}.getType());
         }
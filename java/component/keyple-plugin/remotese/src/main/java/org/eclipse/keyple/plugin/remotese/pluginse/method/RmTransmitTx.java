@@ -22,9 +22,9 @@ import org.eclipse.keyple.plugin.remotese.rm.RemoteMethodName;
 import org.eclipse.keyple.plugin.remotese.transport.json.JsonParser;
 import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
 import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDtoHelper;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDtoPayload;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import com.google.gson.JsonObject;
 
 /**
  * Handle the Transmit keypleDTO serialization and deserialization
@@ -51,15 +51,10 @@ public class RmTransmitTx extends AbstractRemoteMethodTx<SeResponse> {
 
     @Override
     public KeypleDto dto() {
-        JsonObject body = new JsonObject();
-
-        body.addProperty("seRequest", JsonParser.getGson().toJson(seRequest, SeRequest.class));
-
-        body.addProperty("channelControl", channelControl.name());
-
-        return KeypleDtoHelper.buildRequest(getMethodName().getName(), body.toString(),
-                this.sessionId, this.nativeReaderName, this.virtualReaderName, requesterNodeId,
-                targetNodeId, id);
+        // the json body is only computed if the transport requires it
+        return KeypleDtoHelper.buildRequest(getMethodName().getName(),
+                KeypleDtoPayload.seRequest(seRequest, channelControl), this.sessionId,
+                this.nativeReaderName, this.virtualReaderName, requesterNodeId, targetNodeId, id);
     }
 
 
@@ -75,6 +70,10 @@ public class RmTransmitTx extends AbstractRemoteMethodTx<SeResponse> {
                     "An exception occurs while calling the remote method transmit", ex);
         } else {
             logger.trace("KeypleDto contains a response: {}", keypleDto);
+            KeypleDtoPayload payload = keypleDto.getPayload();
+            if (payload != null && payload.getType() == KeypleDtoPayload.Type.SE_RESPONSE) {
+                return payload.getSeResponse();
+            }
             return JsonParser.getGson().fromJson(keypleDto.getBody(), SeResponse.class);
         }
     }
@@ -12,9 +12,11 @@
 package org.eclipse.keyple.plugin.remotese.rm;
 
 import java.util.UUID;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.eclipse.keyple.plugin.remotese.exception.KeypleRemoteException;
 import org.eclipse.keyple.plugin.remotese.transport.DtoSender;
 import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
@@ -39,14 +41,14 @@ public abstract class AbstractRemoteMethodTx<T> {
     protected Boolean isRegistered;
 
     // response
-    private T response;
+    private volatile T response;
 
     // exception thrown if any
-    private KeypleRemoteException remoteException;
+    private volatile KeypleRemoteException remoteException;
 
-    // blocking mechanism
-    private CountDownLatch lock;
-    private IRemoteMethodTxCallback<T> callback;
+    // completion mechanism, the callback and a failure are set under the completion lock
+    private final Object completionLock = new Object();
+    private volatile IRemoteMethodTxCallback<T> callback;
     private long timeout;
 
     private DtoSender sender;
@@ -93,6 +95,9 @@ public abstract class AbstractRemoteMethodTx<T> {
 
     /**
      * Non blocking method to execute results from the remote method call
+     * <p>
+     * If the remote method call has already been completed with an exception (e.g. its deadline
+     * elapsed), the callback receives it at once and nothing is sent.
      * 
      * @param callback get Result from this callback
      * @throws KeypleRemoteException if a problem occurs while sending
@@ -101,7 +106,15 @@ public abstract class AbstractRemoteMethodTx<T> {
         if (logger.isTraceEnabled()) {
             logger.trace("Send asynchronously keypleDto for {}", this);
         }
-        this.callback = callback;
+        KeypleRemoteException failure;
+        synchronized (completionLock) {
+            this.callback = callback;
+            failure = this.remoteException;
+        }
+        if (failure != null) {
+            callback.get(null, failure);
+            return;
+        }
         sender.sendDTO(this.dto());
     }
 
@@ -116,58 +129,32 @@ public abstract class AbstractRemoteMethodTx<T> {
      */
     final public T execute(IRemoteMethodTxEngine rmTxEngine) throws KeypleRemoteException {
 
-        if (logger.isDebugEnabled()) {
-            logger.debug("execute {}", this.toString());
-        }
-        // register this method to receive response
-        rmTxEngine.register(this);
-
-        if (!isRegistered) {
-            throw new IllegalStateException(
-                    "RemoteMethodTx#execute() can not be used until RemoteMethodTx is registered in a RemoteMethodEngine, please call RemoteMethodEngine#register");
-        }
-        // logger.debug("Blocking Get {}", this.getClass().getCanonicalName());
+        Future<T> result = executeAsync(rmTxEngine, null);
 
         try {
-            // define lock
-            lock = new CountDownLatch(1);
-
-            executorService.execute(sendTask(this, new IRemoteMethodTxCallback<T>() {
-                @Override
-                public void get(T response, KeypleRemoteException exception) {
-                    if (logger.isTraceEnabled()) {
-                        logger.trace("Release lock of {}", this.toString());
-                    }
-                    lock.countDown();
-                }
-            }));
-
             if (logger.isTraceEnabled()) {
                 logger.trace("Lock thread for {}", this.toString());
             }
 
             // lock until response is received
-            boolean responseReceived = lock.await(timeout, TimeUnit.MILLISECONDS);
+            T value = result.get(timeout, TimeUnit.MILLISECONDS);
 
-            if (responseReceived) {
-                if (logger.isTraceEnabled()) {
-                    logger.trace("Unlock thread for {}", this.toString());
-                }
-                if (this.remoteException != null) {
-                    throw remoteException;
-                } else {
-                    return response;
-                }
-            } else {
-                /*
-                 * timeout, no answer has been received
-                 */
-                throw new KeypleRemoteException(
-                        "Waiting time elapsed, no answer received from the other node for "
-                                + this.toString());
+            if (logger.isTraceEnabled()) {
+                logger.trace("Unlock thread for {}", this.toString());
             }
-
-
+            return value;
+
+        } catch (TimeoutException e) {
+            /*
+             * timeout, no answer has been received
+             */
+            result.cancel(false);
+            throw new KeypleRemoteException(
+                    "Waiting time elapsed, no answer received from the other node for "
+                            + this.toString());
+        } catch (ExecutionException e) {
+            // the future is only completed exceptionally with a KeypleRemoteException
+            throw (KeypleRemoteException) e.getCause();
         } catch (InterruptedException e) {
             throw new IllegalStateException(
                     "Thread locking has been interrupted while waiting for answer for "
@@ -176,6 +163,45 @@ public abstract class AbstractRemoteMethodTx<T> {
         }
     }
 
+    /**
+     * Non blocking method to execute the remote method call: the request is sent with the
+     * executor service of the engine (or in the calling thread if the engine has none) and no
+     * thread waits for the response.
+     * <p>
+     * The returned future is completed by the response, by the exception sent back by the other
+     * node, or by a {@link KeypleRemoteException} if the request could not be sent or if the engine
+     * reports that no answer was received in time. The waiting time of {@link Future#get()} is not
+     * bounded: use {@link Future#get(long, TimeUnit)} with an engine which does not check the
+     * deadlines of its transactions.
+     *
+     * @param rmTxEngine : local RemoteMethodTxEngine to execute the command into
+     * @param callback : callback called when the future is completed (may be null)
+     * @return a future completed with the result of the command
+     */
+    final public Future<T> executeAsync(IRemoteMethodTxEngine rmTxEngine,
+            IRemoteMethodTxCallback<T> callback) {
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("execute {}", this.toString());
+        }
+        // register this method to receive response
+        rmTxEngine.register(this);
+
+        if (!isRegistered) {
+            throw new IllegalStateException(
+                    "RemoteMethodTx#execute() can not be used until RemoteMethodTx is registered in a RemoteMethodEngine, please call RemoteMethodEngine#register");
+        }
+
+        RemoteMethodTxFuture<T> result = new RemoteMethodTxFuture<T>(callback);
+        Runnable task = sendTask(this, result);
+        if (executorService != null) {
+            executorService.execute(task);
+        } else {
+            task.run();
+        }
+        return result;
+    }
+
     /**
      * Set the response contained in the keypleDto Response Call the callback of the RmMethod
      *
@@ -194,6 +220,29 @@ public abstract class AbstractRemoteMethodTx<T> {
         }
     }
 
+    /**
+     * Complete the remote method call with an exception (e.g. when no response has been received
+     * in time), to be called by the tx manager instead of {@link #setResponse(KeypleDto)}
+     * <p>
+     * The exception is kept, a callback attached later by {@link #send(IRemoteMethodTxCallback)}
+     * receives it at once.
+     *
+     * @param exception the exception to be reported to the caller
+     */
+    void setException(KeypleRemoteException exception) {
+        if (logger.isTraceEnabled()) {
+            logger.trace("Exception {} for {}", exception.getMessage(), this.toString());
+        }
+        IRemoteMethodTxCallback<T> currentCallback;
+        synchronized (completionLock) {
+            this.remoteException = exception;
+            currentCallback = this.callback;
+        }
+        if (currentCallback != null) {
+            currentCallback.get(null, exception);
+        }
+    }
+
     /**
      * Mark or Unmark as registered
      * 
@@ -230,8 +279,8 @@ public abstract class AbstractRemoteMethodTx<T> {
     }
 
 
-    public Runnable sendTask(final AbstractRemoteMethodTx thisInstance,
-            final IRemoteMethodTxCallback callback) {
+    public Runnable sendTask(final AbstractRemoteMethodTx<T> thisInstance,
+            final IRemoteMethodTxCallback<T> callback) {
         return new Runnable() {
             @Override
             public void run() {
@@ -241,7 +290,7 @@ public abstract class AbstractRemoteMethodTx<T> {
                     logger.error("Exception {} while sending Dto {} for {}", e.getMessage(),
                             thisInstance);
                     thisInstance.remoteException = e;
-                    lock.countDown();
+                    callback.get(null, e);
                 }
             }
         };
@@ -11,7 +11,18 @@
  ********************************************************************************/
 package org.eclipse.keyple.plugin.remotese.rm;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.keyple.plugin.remotese.exception.KeypleRemoteException;
 import org.eclipse.keyple.plugin.remotese.transport.*;
 import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
 import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDtoHelper;
@@ -21,15 +32,25 @@ import org.slf4j.LoggerFactory;
 
 
 /**
- * Manages the transaction (request/response) for remote method invocation It holds
- * the @{@link AbstractRemoteMethodTx} untils the answer is received
+ * Manages the transactions (request/response) for remote method invocation. It holds the
+ * {@link AbstractRemoteMethodTx} until their answer is received.
+ * <p>
+ * Several transactions can be pending at the same time (e.g. for different readers sharing the same
+ * {@link DtoSender}): they are identified by the id of their KeypleDto and can be completed in any
+ * order. Each transaction has its own deadline, checked on a timer shared by all the engines: a
+ * transaction without answer is completed with a {@link KeypleRemoteException} and forgotten.
  */
 public class RemoteMethodTxEngine implements IRemoteMethodTxEngine {
 
     private static final Logger logger = LoggerFactory.getLogger(RemoteMethodTxEngine.class);
 
-    // waiting transaction, supports only one at the time
-    private AbstractRemoteMethodTx remoteMethodTx;
+    /* number of cancelled deadlines after which the timer queue is purged */
+    private static final int PURGE_THRESHOLD = 1024;
+
+    private static ScheduledExecutorService defaultTimer;
+
+    // waiting transactions, by id
+    private final ConcurrentMap<String, PendingTx> pendingTxs;
 
     // Executor to run async task required in RemoteMethodTx
     final private ExecutorService executorService;
@@ -40,6 +61,14 @@ public class RemoteMethodTxEngine implements IRemoteMethodTxEngine {
     // timeout to wait for the answer, in milliseconds
     private final long timeout;
 
+    // timeouts of specific remote methods, in milliseconds
+    private final Map<RemoteMethodName, Long> methodTimeouts;
+
+    // timer checking the deadlines of the transactions
+    private final ScheduledExecutorService timer;
+
+    private final AtomicInteger cancelledDeadlines = new AtomicInteger();
+
 
     /**
      *
@@ -48,16 +77,73 @@ public class RemoteMethodTxEngine implements IRemoteMethodTxEngine {
      * @param executorService : executorService required to execute async task in RemoteMethodTx
      */
     public RemoteMethodTxEngine(DtoSender sender, long timeout, ExecutorService executorService) {
-        // this.queue = new Linkers<RemoteMethodTx>();
+        this(sender, timeout, executorService, getDefaultTimer());
+    }
+
+    /**
+     *
+     * @param sender : dtosender used to send the keypleDto
+     * @param timeout : timeout to wait for the answer, in milliseconds
+     * @param executorService : executorService required to execute async task in RemoteMethodTx
+     * @param timer : timer checking the deadlines of the transactions, may be shared between
+     *        engines
+     */
+    public RemoteMethodTxEngine(DtoSender sender, long timeout, ExecutorService executorService,
+            ScheduledExecutorService timer) {
+        if (timer == null) {
+            throw new IllegalArgumentException("Timer must not be null");
+        }
+        this.pendingTxs = new ConcurrentHashMap<String, PendingTx>();
+        this.methodTimeouts = new ConcurrentHashMap<RemoteMethodName, Long>();
         this.sender = sender;
         this.timeout = timeout;
         this.executorService = executorService;
+        this.timer = timer;
+    }
+
+    /*
+     * Timer shared by default between the engines, its single daemon thread only completes the
+     * expired transactions
+     */
+    private static synchronized ScheduledExecutorService getDefaultTimer() {
+        if (defaultTimer == null) {
+            defaultTimer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "RemoteMethodTxEngine-timer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return defaultTimer;
     }
 
     public ExecutorService getExecutorService() {
         return executorService;
     }
 
+    /**
+     * Overrides the timeout of a remote method (e.g. a longer one for the transmission of a set of
+     * requests)
+     *
+     * @param methodName : the remote method
+     * @param methodTimeout : timeout to wait for the answer, in milliseconds
+     */
+    public void setTimeout(RemoteMethodName methodName, long methodTimeout) {
+        if (methodTimeout <= 0) {
+            throw new IllegalArgumentException("Timeout must be positive");
+        }
+        methodTimeouts.put(methodName, methodTimeout);
+    }
+
+    /**
+     * @return the number of transactions waiting for their answer
+     */
+    public int getPendingTxCount() {
+        return pendingTxs.size();
+    }
+
     /**
      * Set Response to a RemoteMethod Invocation
      * 
@@ -78,12 +164,16 @@ public class RemoteMethodTxEngine implements IRemoteMethodTxEngine {
             throw new IllegalArgumentException(
                     "RemoteMethodTxEngine expects a KeypleDto response. " + keypleDto);
         }
+
         /*
-         * Check that a request has been made previously
+         * Find the request of the response, the removal makes sure that a transaction is
+         * completed only once (by its response or by its deadline)
          */
-        if (remoteMethodTx == null) {
+        PendingTx pendingTx =
+                keypleDto.getId() == null ? null : pendingTxs.remove(keypleDto.getId());
+        if (pendingTx == null) {
             /*
-             * Response received does not match a request. Ignore it
+             * Response received does not match a pending request (unknown or expired). Ignore it
              */
             logger.error(
                     "RemoteMethodTxEngine receives a KeypleDto response but no remoteMethodTx is defined : "
@@ -92,30 +182,12 @@ public class RemoteMethodTxEngine implements IRemoteMethodTxEngine {
                     "RemoteMethodTxEngine receives a KeypleDto response but no remoteMethodTx is defined : "
                             + keypleDto);
         }
-
-        /*
-         * Check that ids match
-         */
-        if (!remoteMethodTx.getId().equals(keypleDto.getId())) {
-            logger.error("RemoteMethodTxEngine receives a KeypleDto response but ids don't match : "
-                    + keypleDto);
-            throw new IllegalArgumentException(
-                    "RemoteMethodTxEngine receives a KeypleDto response but ids don't match : "
-                            + keypleDto);
-        }
-
+        pendingTx.cancelDeadline();
 
         /*
          * All checks are successful Set keypleDto as a response to the remote method Tx (request)
          */
-        remoteMethodTx.setResponse(keypleDto);
-
-
-        /*
-         * init remote engine to receive a new request
-         */
-        // re init remoteMethod
-        remoteMethodTx = null;
+        pendingTx.remoteMethodTx.setResponse(keypleDto);
 
         // no dto should be sent back
         return message.nextTransportDTO(KeypleDtoHelper.NoResponse(keypleDto.getId()));
@@ -123,7 +195,7 @@ public class RemoteMethodTxEngine implements IRemoteMethodTxEngine {
     }
 
     /**
-     * Add RemoteMethod to executing stack
+     * Add RemoteMethod to the pending transactions and start its deadline
      * 
      * @param rm : RemoteMethodTx to be executed
      */
@@ -132,10 +204,60 @@ public class RemoteMethodTxEngine implements IRemoteMethodTxEngine {
         if (logger.isTraceEnabled()) {
             logger.trace("Register RemoteMethod to engine : {} ", rm.id);
         }
+        Long methodTimeout = methodTimeouts.get(rm.getMethodName());
+        long txTimeout = methodTimeout != null ? methodTimeout : timeout;
+
         rm.setExecutorService(executorService);
         rm.setRegistered(true);
-        remoteMethodTx = rm;
         rm.setDtoSender(sender);
-        rm.setTimeout(timeout);
+        rm.setTimeout(txTimeout);
+
+        PendingTx pendingTx = new PendingTx(rm);
+        if (pendingTxs.putIfAbsent(rm.getId(), pendingTx) != null) {
+            throw new IllegalStateException(
+                    "RemoteMethodTx is already registered in the RemoteMethodTxEngine : " + rm);
+        }
+        try {
+            pendingTx.deadline = timer.schedule(pendingTx, txTimeout, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // the caller still waits with its own timeout
+            logger.warn("Deadline of {} could not be scheduled : {}", rm, e.getMessage());
+        }
+    }
+
+    /**
+     * Transaction waiting for its answer
+     */
+    private final class PendingTx implements Runnable {
+
+        private final AbstractRemoteMethodTx<?> remoteMethodTx;
+        private volatile ScheduledFuture<?> deadline;
+
+        private PendingTx(AbstractRemoteMethodTx<?> remoteMethodTx) {
+            this.remoteMethodTx = remoteMethodTx;
+        }
+
+        private void cancelDeadline() {
+            ScheduledFuture<?> currentDeadline = deadline;
+            if (currentDeadline != null && currentDeadline.cancel(false)
+                    && cancelledDeadlines.incrementAndGet() % PURGE_THRESHOLD == 0
+                    && timer instanceof ScheduledThreadPoolExecutor) {
+                // the cancelled deadlines stay in the timer queue until their expiration
+                ((ScheduledThreadPoolExecutor) timer).purge();
+            }
+        }
+
+        /**
+         * Deadline reached
+         */
+        @Override
+        public void run() {
+            if (pendingTxs.remove(remoteMethodTx.getId(), this)) {
+                logger.warn("No answer received in time for {}", remoteMethodTx);
+                remoteMethodTx.setException(new KeypleRemoteException(
+                        "Waiting time elapsed, no answer received from the other node for "
+                                + remoteMethodTx.toString()));
+            }
+        }
     }
 }
@@ -0,0 +1,111 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.rm;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor services sending the requests of the remote methods, to be provided to the
+ * {@link RemoteMethodTxEngine}s.
+ * <p>
+ * The executor service of an engine only runs the sending of the requests, the responses complete
+ * the pending transactions without holding any thread (see
+ * {@link AbstractRemoteMethodTx#executeAsync(IRemoteMethodTxEngine, IRemoteMethodTxCallback)}).
+ * Depending on the transport:
+ * <ul>
+ * <li>{@link #directExecutor()} sends in the calling thread, for transports whose sendDTO method
+ * does not block,</li>
+ * <li>{@link #newThreadPerTaskExecutor(ThreadFactory)} sends each request in a new thread created
+ * by the provided factory, e.g. a factory of lightweight (virtual) threads when the runtime
+ * provides one.</li>
+ * </ul>
+ */
+public final class RemoteMethodTxExecutors {
+
+    /**
+     * Creates an executor service running the tasks in the calling thread
+     *
+     * @return a new executor service
+     */
+    public static ExecutorService directExecutor() {
+        return new DirectExecutorService();
+    }
+
+    /**
+     * Creates an executor service running each task in a new thread, the threads are not reused
+     *
+     * @param threadFactory : factory of the threads
+     * @return a new executor service
+     */
+    public static ExecutorService newThreadPerTaskExecutor(ThreadFactory threadFactory) {
+        if (threadFactory == null) {
+            throw new IllegalArgumentException("Thread factory must not be null");
+        }
+        // no core thread and no keep alive: a thread ends with its task
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 0, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<Runnable>(), threadFactory);
+    }
+
+    /**
+     * Executor service running the tasks in the calling thread
+     */
+    private static final class DirectExecutorService extends AbstractExecutorService {
+
+        private volatile boolean shutdown;
+
+        @Override
+        public void execute(Runnable command) {
+            if (shutdown) {
+                throw new RejectedExecutionException("Executor service is shut down");
+            }
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return shutdown;
+        }
+    }
+
+    private RemoteMethodTxExecutors() {
+        throw new IllegalStateException("Utility class");
+    }
+}
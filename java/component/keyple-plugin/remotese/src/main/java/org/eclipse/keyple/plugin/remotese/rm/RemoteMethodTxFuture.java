@@ -0,0 +1,124 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.rm;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.eclipse.keyple.plugin.remotese.exception.KeypleRemoteException;
+
+/**
+ * Result of a remote method call started with
+ * {@link AbstractRemoteMethodTx#executeAsync(IRemoteMethodTxEngine, IRemoteMethodTxCallback)}.
+ * <p>
+ * It is completed, only once, by the response of the other node or by an exception, then calls the
+ * optional callback of the caller. No thread is waiting for the response unless {@link #get()} is
+ * called.
+ *
+ * @param <T> : type of the response
+ */
+final class RemoteMethodTxFuture<T> implements Future<T>, IRemoteMethodTxCallback<T> {
+
+    private final IRemoteMethodTxCallback<T> callback;
+
+    private boolean done;
+    private boolean cancelled;
+    private T response;
+    private KeypleRemoteException exception;
+
+    RemoteMethodTxFuture(IRemoteMethodTxCallback<T> callback) {
+        this.callback = callback;
+    }
+
+    /**
+     * Completes the future, ignored if it is already completed
+     *
+     * @param response : response of the remote method (null if an exception occurred)
+     * @param exception : exception thrown if any
+     */
+    @Override
+    public void get(T response, KeypleRemoteException exception) {
+        synchronized (this) {
+            if (done) {
+                return;
+            }
+            this.response = response;
+            this.exception = exception;
+            this.done = true;
+            notifyAll();
+        }
+        if (callback != null) {
+            callback.get(response, exception);
+        }
+    }
+
+    /**
+     * Cancels the wait of the response, a response received later is ignored
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        synchronized (this) {
+            if (done) {
+                return false;
+            }
+            cancelled = true;
+            done = true;
+            notifyAll();
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public synchronized T get() throws InterruptedException, ExecutionException {
+        while (!done) {
+            wait();
+        }
+        return result();
+    }
+
+    @Override
+    public synchronized T get(long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!done) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new TimeoutException();
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return result();
+    }
+
+    /* must be called with the lock held */
+    private T result() throws ExecutionException {
+        if (cancelled) {
+            throw new CancellationException();
+        }
+        if (exception != null) {
+            throw new ExecutionException(exception);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,481 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.transport.codec;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import org.eclipse.keyple.core.seproxy.ChannelControl;
+import org.eclipse.keyple.core.seproxy.MultiSeRequestProcessing;
+import org.eclipse.keyple.core.seproxy.SeSelector;
+import org.eclipse.keyple.core.seproxy.SeSelector.AidSelector;
+import org.eclipse.keyple.core.seproxy.message.AnswerToReset;
+import org.eclipse.keyple.core.seproxy.message.ApduRequest;
+import org.eclipse.keyple.core.seproxy.message.ApduResponse;
+import org.eclipse.keyple.core.seproxy.message.SeRequest;
+import org.eclipse.keyple.core.seproxy.message.SeResponse;
+import org.eclipse.keyple.core.seproxy.message.SelectionStatus;
+import org.eclipse.keyple.core.seproxy.protocol.SeCommonProtocols;
+import org.eclipse.keyple.core.seproxy.protocol.SeProtocol;
+import org.eclipse.keyple.plugin.remotese.rm.RemoteMethodName;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDtoPayload;
+
+/**
+ * Compact binary codec.
+ * <p>
+ * Layout of an encoded DTO:
+ * <ul>
+ * <li>a magic byte ({@link #MAGIC}, which can not start a json document) and a version byte,</li>
+ * <li>a flag byte (request flag, presence of a payload and of a json body),</li>
+ * <li>the action, as the code of a {@link RemoteMethodName} or as a string for the other
+ * actions,</li>
+ * <li>the length prefixed UTF-8 strings of the header fields and of the error,</li>
+ * <li>either the json body as a string or the payload: the SE requests and responses are encoded
+ * field by field, the APDUs as raw bytes.</li>
+ * </ul>
+ * The exceptions and the bodies of the other remote methods remain json strings, only their
+ * escaping in an enclosing json document is saved.
+ * <p>
+ * As the json codec, this codec only transports the fields of the base classes: a selector is
+ * decoded as a {@link SeSelector}, and an SE protocol as the {@link SeCommonProtocols} of the same
+ * name.
+ */
+public final class BinaryDtoCodec implements KeypleDtoCodec {
+
+    /** name of the codec */
+    public static final String NAME = "binary";
+
+    /** first byte of an encoded DTO */
+    public static final byte MAGIC = (byte) 0xB5;
+
+    private static final int VERSION = 1;
+
+    private static final int FLAG_IS_REQUEST_SET = 0x01;
+    private static final int FLAG_IS_REQUEST = 0x02;
+    private static final int FLAG_PAYLOAD = 0x04;
+    private static final int FLAG_BODY = 0x08;
+
+    /* code of an action which is not a remote method name, the string follows */
+    private static final int ACTION_LITERAL = 0;
+
+    /*
+     * stable codes of the enum constants on the wire, independent from their declaration order: a
+     * new constant must be given a new code, the codes are never reused
+     */
+    private static final BinaryEnumCodes<RemoteMethodName> METHOD_NAMES =
+            new BinaryEnumCodes<RemoteMethodName>(RemoteMethodName.class)//
+                    .code(RemoteMethodName.READER_TRANSMIT_SET, 1)//
+                    .code(RemoteMethodName.READER_TRANSMIT, 2)//
+                    .code(RemoteMethodName.READER_CONNECT, 3)//
+                    .code(RemoteMethodName.READER_DISCONNECT, 4)//
+                    .code(RemoteMethodName.READER_EVENT, 5)//
+                    .code(RemoteMethodName.DEFAULT_SELECTION_REQUEST, 6)//
+                    .code(RemoteMethodName.POOL_ALLOCATE_READER, 7)//
+                    .code(RemoteMethodName.POOL_RELEASE_READER, 8);
+    private static final BinaryEnumCodes<KeypleDtoPayload.Type> PAYLOAD_TYPES =
+            new BinaryEnumCodes<KeypleDtoPayload.Type>(KeypleDtoPayload.Type.class)//
+                    .code(KeypleDtoPayload.Type.SE_REQUEST, 0)//
+                    .code(KeypleDtoPayload.Type.SE_REQUEST_SET, 1)//
+                    .code(KeypleDtoPayload.Type.SE_RESPONSE, 2)//
+                    .code(KeypleDtoPayload.Type.SE_RESPONSE_SET, 3);
+    private static final BinaryEnumCodes<ChannelControl> CHANNEL_CONTROLS =
+            new BinaryEnumCodes<ChannelControl>(ChannelControl.class)//
+                    .code(ChannelControl.KEEP_OPEN, 0)//
+                    .code(ChannelControl.CLOSE_AFTER, 1);
+    private static final BinaryEnumCodes<MultiSeRequestProcessing> MULTI_SE_REQUEST_PROCESSINGS =
+            new BinaryEnumCodes<MultiSeRequestProcessing>(MultiSeRequestProcessing.class)//
+                    .code(MultiSeRequestProcessing.FIRST_MATCH, 0)//
+                    .code(MultiSeRequestProcessing.PROCESS_ALL, 1);
+    private static final BinaryEnumCodes<AidSelector.FileOccurrence> FILE_OCCURRENCES =
+            new BinaryEnumCodes<AidSelector.FileOccurrence>(AidSelector.FileOccurrence.class)//
+                    .code(AidSelector.FileOccurrence.FIRST, 0)//
+                    .code(AidSelector.FileOccurrence.LAST, 1)//
+                    .code(AidSelector.FileOccurrence.NEXT, 2)//
+                    .code(AidSelector.FileOccurrence.PREVIOUS, 3);
+    private static final BinaryEnumCodes<AidSelector.FileControlInformation> FILE_CONTROLS =
+            new BinaryEnumCodes<AidSelector.FileControlInformation>(
+                    AidSelector.FileControlInformation.class)//
+                            .code(AidSelector.FileControlInformation.FCI, 0)//
+                            .code(AidSelector.FileControlInformation.FCP, 1)//
+                            .code(AidSelector.FileControlInformation.FMD, 2)//
+                            .code(AidSelector.FileControlInformation.NO_RESPONSE, 3);
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    BinaryDtoCodec() {}
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] encode(KeypleDto keypleDto) {
+        BinaryDtoWriter writer = new BinaryDtoWriter(INITIAL_CAPACITY);
+        writer.writeByte(MAGIC);
+        writer.writeByte(VERSION);
+
+        KeypleDtoPayload payload = keypleDto.getPayload();
+        // the body is only read when there is no payload, to avoid its json computation
+        String body = payload == null ? keypleDto.getBody() : null;
+        int flags = 0;
+        if (keypleDto.isRequest() != null) {
+            flags |= FLAG_IS_REQUEST_SET;
+            if (keypleDto.isRequest()) {
+                flags |= FLAG_IS_REQUEST;
+            }
+        }
+        if (payload != null) {
+            flags |= FLAG_PAYLOAD;
+        } else if (body != null) {
+            flags |= FLAG_BODY;
+        }
+        writer.writeByte(flags);
+
+        RemoteMethodName methodName =
+                keypleDto.getAction() == null ? null : RemoteMethodName.get(keypleDto.getAction());
+        if (methodName != null) {
+            writer.writeVarInt(METHOD_NAMES.getCode(methodName));
+        } else {
+            writer.writeVarInt(ACTION_LITERAL);
+            writer.writeString(keypleDto.getAction());
+        }
+        writer.writeString(keypleDto.getSessionId());
+        writer.writeString(keypleDto.getNativeReaderName());
+        writer.writeString(keypleDto.getVirtualReaderName());
+        writer.writeString(keypleDto.getRequesterNodeId());
+        writer.writeString(keypleDto.getTargetNodeId());
+        writer.writeString(keypleDto.getId());
+        writer.writeString(keypleDto.getError());
+
+        if (payload != null) {
+            writePayload(writer, payload);
+        } else if (body != null) {
+            writer.writeString(body);
+        }
+        return writer.toByteArray();
+    }
+
+    @Override
+    public KeypleDto decode(byte[] data) {
+        BinaryDtoReader reader = new BinaryDtoReader(data);
+        if (reader.readByte() != (MAGIC & 0xFF)) {
+            throw new IllegalArgumentException("Malformed binary KeypleDto: bad magic");
+        }
+        int version = reader.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException(
+                    "Unsupported binary KeypleDto version: " + version);
+        }
+        int flags = reader.readByte();
+        Boolean isRequest = (flags & FLAG_IS_REQUEST_SET) == 0 ? null
+                : Boolean.valueOf((flags & FLAG_IS_REQUEST) != 0);
+
+        String action;
+        int actionCode = reader.readVarInt();
+        if (actionCode == ACTION_LITERAL) {
+            action = reader.readString();
+        } else {
+            action = METHOD_NAMES.getConstant(actionCode).getName();
+        }
+        String sessionId = reader.readString();
+        String nativeReaderName = reader.readString();
+        String virtualReaderName = reader.readString();
+        String requesterNodeId = reader.readString();
+        String targetNodeId = reader.readString();
+        String id = reader.readString();
+        String error = reader.readString();
+
+        KeypleDto keypleDto;
+        if ((flags & FLAG_PAYLOAD) != 0) {
+            keypleDto = new KeypleDto(action, readPayload(reader), isRequest, sessionId,
+                    nativeReaderName, virtualReaderName, requesterNodeId, targetNodeId, id);
+        } else {
+            String body = (flags & FLAG_BODY) != 0 ? reader.readString() : null;
+            keypleDto = new KeypleDto(action, body, isRequest, sessionId, nativeReaderName,
+                    virtualReaderName, requesterNodeId, targetNodeId, id, error);
+        }
+        if (!reader.isFullyRead()) {
+            throw new IllegalArgumentException("Malformed binary KeypleDto: trailing data");
+        }
+        return keypleDto;
+    }
+
+    /* ----------- payload */
+
+    private static void writePayload(BinaryDtoWriter writer, KeypleDtoPayload payload) {
+        writer.writeByte(PAYLOAD_TYPES.getCode(payload.getType()));
+        switch (payload.getType()) {
+            case SE_REQUEST:
+                writer.writeByte(CHANNEL_CONTROLS.getCode(payload.getChannelControl()));
+                writeSeRequest(writer, payload.getSeRequest());
+                break;
+            case SE_REQUEST_SET:
+                writer.writeByte(MULTI_SE_REQUEST_PROCESSINGS
+                        .getCode(payload.getMultiSeRequestProcessing()));
+                writer.writeByte(CHANNEL_CONTROLS.getCode(payload.getChannelControl()));
+                writer.writeVarInt(payload.getSeRequests().size());
+                for (SeRequest seRequest : payload.getSeRequests()) {
+                    writeSeRequest(writer, seRequest);
+                }
+                break;
+            case SE_RESPONSE:
+                writeSeResponse(writer, payload.getSeResponse());
+                break;
+            case SE_RESPONSE_SET:
+                List<SeResponse> seResponses = payload.getSeResponses();
+                if (seResponses == null) {
+                    writer.writeVarInt(0);
+                } else {
+                    writer.writeVarInt(seResponses.size() + 1);
+                    for (SeResponse seResponse : seResponses) {
+                        writeSeResponse(writer, seResponse);
+                    }
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unexpected payload type " + payload.getType());
+        }
+    }
+
+    private static KeypleDtoPayload readPayload(BinaryDtoReader reader) {
+        KeypleDtoPayload.Type type = PAYLOAD_TYPES.getConstant(reader.readByte());
+        switch (type) {
+            case SE_REQUEST:
+                ChannelControl channelControl = CHANNEL_CONTROLS.getConstant(reader.readByte());
+                return KeypleDtoPayload.seRequest(readSeRequest(reader), channelControl);
+            case SE_REQUEST_SET:
+                MultiSeRequestProcessing multiSeRequestProcessing =
+                        MULTI_SE_REQUEST_PROCESSINGS.getConstant(reader.readByte());
+                channelControl = CHANNEL_CONTROLS.getConstant(reader.readByte());
+                int nbRequests = reader.readVarInt();
+                List<SeRequest> seRequests = new ArrayList<SeRequest>(nbRequests);
+                for (int i = 0; i < nbRequests; i++) {
+                    seRequests.add(readSeRequest(reader));
+                }
+                return KeypleDtoPayload.seRequestSet(seRequests, multiSeRequestProcessing,
+                        channelControl);
+            case SE_RESPONSE:
+                return KeypleDtoPayload.seResponse(readSeResponse(reader));
+            case SE_RESPONSE_SET:
+                int nbResponses = reader.readVarInt() - 1;
+                List<SeResponse> seResponses = null;
+                if (nbResponses >= 0) {
+                    seResponses = new ArrayList<SeResponse>(nbResponses);
+                    for (int i = 0; i < nbResponses; i++) {
+                        seResponses.add(readSeResponse(reader));
+                    }
+                }
+                return KeypleDtoPayload.seResponseSet(seResponses);
+            default:
+                throw new IllegalStateException("Unexpected payload type " + type);
+        }
+    }
+
+    /* ----------- SE request */
+
+    private static void writeSeRequest(BinaryDtoWriter writer, SeRequest seRequest) {
+        writer.writeBoolean(seRequest != null);
+        if (seRequest == null) {
+            return;
+        }
+        writeSeSelector(writer, seRequest.getSeSelector());
+        List<ApduRequest> apduRequests = seRequest.getApduRequests();
+        if (apduRequests == null) {
+            writer.writeVarInt(0);
+            return;
+        }
+        writer.writeVarInt(apduRequests.size() + 1);
+        for (ApduRequest apduRequest : apduRequests) {
+            writer.writeBoolean(apduRequest != null);
+            if (apduRequest != null) {
+                writer.writeBytes(apduRequest.getBytes());
+                writer.writeBoolean(apduRequest.isCase4());
+                writer.writeIntegers(apduRequest.getSuccessfulStatusCodes());
+                writer.writeString(apduRequest.getName());
+            }
+        }
+    }
+
+    private static SeRequest readSeRequest(BinaryDtoReader reader) {
+        if (!reader.readBoolean()) {
+            return null;
+        }
+        SeSelector seSelector = readSeSelector(reader);
+        int nbApduRequests = reader.readVarInt() - 1;
+        List<ApduRequest> apduRequests = null;
+        if (nbApduRequests >= 0) {
+            apduRequests = new ArrayList<ApduRequest>(nbApduRequests);
+            for (int i = 0; i < nbApduRequests; i++) {
+                if (reader.readBoolean()) {
+                    byte[] bytes = reader.readBytes();
+                    boolean case4 = reader.readBoolean();
+                    apduRequests.add(new ApduRequest(bytes, case4, reader.readIntegers()));
+                    apduRequests.get(i).setName(reader.readString());
+                } else {
+                    apduRequests.add(null);
+                }
+            }
+        }
+        return new SeRequest(seSelector, apduRequests);
+    }
+
+    private static void writeSeSelector(BinaryDtoWriter writer, SeSelector seSelector) {
+        writer.writeBoolean(seSelector != null);
+        if (seSelector == null) {
+            return;
+        }
+        SeProtocol seProtocol = seSelector.getSeProtocol();
+        if (seProtocol instanceof SeCommonProtocols) {
+            writer.writeString(((SeCommonProtocols) seProtocol).name());
+        } else {
+            writer.writeString(seProtocol == null ? null : seProtocol.getName());
+        }
+        SeSelector.AtrFilter atrFilter = seSelector.getAtrFilter();
+        writer.writeString(atrFilter == null ? null : atrFilter.getAtrRegex());
+        SeSelector.AidSelector aidSelector = seSelector.getAidSelector();
+        writer.writeBoolean(aidSelector != null);
+        if (aidSelector != null) {
+            writer.writeBytes(aidSelector.getAidToSelect());
+            writer.writeByte(FILE_OCCURRENCES.getCode(aidSelector.getFileOccurrence()));
+            writer.writeByte(
+                    FILE_CONTROLS.getCode(aidSelector.getFileControlInformation()));
+            writer.writeIntegers(aidSelector.getSuccessfulSelectionStatusCodes());
+        }
+    }
+
+    private static SeSelector readSeSelector(BinaryDtoReader reader) {
+        if (!reader.readBoolean()) {
+            return null;
+        }
+        SeSelector.SeSelectorBuilder builder = SeSelector.builder();
+        String protocolName = reader.readString();
+        if (protocolName != null) {
+            builder.seProtocol(findProtocol(protocolName));
+        }
+        String atrRegex = reader.readString();
+        if (atrRegex != null) {
+            builder.atrFilter(new SeSelector.AtrFilter(atrRegex));
+        }
+        if (reader.readBoolean()) {
+            SeSelector.AidSelector.AidSelectorBuilder aidSelectorBuilder =
+                    SeSelector.AidSelector.builder();
+            byte[] aid = reader.readBytes();
+            if (aid != null) {
+                aidSelectorBuilder.aidToSelect(aid);
+            }
+            aidSelectorBuilder
+                    .fileOccurrence(FILE_OCCURRENCES.getConstant(reader.readByte()));
+            aidSelectorBuilder.fileControlInformation(
+                    FILE_CONTROLS.getConstant(reader.readByte()));
+            SeSelector.AidSelector aidSelector = aidSelectorBuilder.build();
+            Set<Integer> statusCodes = reader.readIntegers();
+            if (statusCodes != null) {
+                for (Integer statusCode : statusCodes) {
+                    aidSelector.addSuccessfulStatusCode(statusCode);
+                }
+            }
+            builder.aidSelector(aidSelector);
+        }
+        return builder.build();
+    }
+
+    private static SeProtocol findProtocol(String name) {
+        for (SeCommonProtocols protocol : SeCommonProtocols.values()) {
+            if (protocol.name().equals(name) || protocol.getName().equals(name)) {
+                return protocol;
+            }
+        }
+        throw new IllegalArgumentException("Value of SeProtocol not found : " + name);
+    }
+
+    /* ----------- SE response */
+
+    private static void writeSeResponse(BinaryDtoWriter writer, SeResponse seResponse) {
+        writer.writeBoolean(seResponse != null);
+        if (seResponse == null) {
+            return;
+        }
+        writer.writeBoolean(seResponse.isLogicalChannelOpen());
+        writer.writeBoolean(seResponse.wasChannelPreviouslyOpen());
+        SelectionStatus selectionStatus = seResponse.getSelectionStatus();
+        writer.writeBoolean(selectionStatus != null);
+        if (selectionStatus != null) {
+            AnswerToReset atr = selectionStatus.getAtr();
+            writer.writeBytes(atr == null ? null : atr.getBytes());
+            writeApduResponse(writer, selectionStatus.getFci());
+            writer.writeBoolean(selectionStatus.hasMatched());
+        }
+        List<ApduResponse> apduResponses = seResponse.getApduResponses();
+        if (apduResponses == null) {
+            writer.writeVarInt(0);
+            return;
+        }
+        writer.writeVarInt(apduResponses.size() + 1);
+        for (ApduResponse apduResponse : apduResponses) {
+            writeApduResponse(writer, apduResponse);
+        }
+    }
+
+    private static SeResponse readSeResponse(BinaryDtoReader reader) {
+        if (!reader.readBoolean()) {
+            return null;
+        }
+        boolean logicalChannelIsOpen = reader.readBoolean();
+        boolean channelPreviouslyOpen = reader.readBoolean();
+        SelectionStatus selectionStatus = null;
+        if (reader.readBoolean()) {
+            byte[] atrBytes = reader.readBytes();
+            ApduResponse fci = readApduResponse(reader);
+            selectionStatus = new SelectionStatus(
+                    atrBytes == null ? null : new AnswerToReset(atrBytes), fci,
+                    reader.readBoolean());
+        }
+        int nbApduResponses = reader.readVarInt() - 1;
+        List<ApduResponse> apduResponses = null;
+        if (nbApduResponses >= 0) {
+            apduResponses = new ArrayList<ApduResponse>(nbApduResponses);
+            for (int i = 0; i < nbApduResponses; i++) {
+                apduResponses.add(readApduResponse(reader));
+            }
+        }
+        return new SeResponse(logicalChannelIsOpen, channelPreviouslyOpen, selectionStatus,
+                apduResponses);
+    }
+
+    private static void writeApduResponse(BinaryDtoWriter writer, ApduResponse apduResponse) {
+        writer.writeBoolean(apduResponse != null);
+        if (apduResponse != null) {
+            writer.writeBytes(apduResponse.getBytes());
+            writer.writeBoolean(apduResponse.isSuccessful());
+        }
+    }
+
+    private static ApduResponse readApduResponse(BinaryDtoReader reader) {
+        if (!reader.readBoolean()) {
+            return null;
+        }
+        byte[] bytes = reader.readBytes();
+        boolean successful = reader.readBoolean();
+        if (bytes != null && bytes.length < 2) {
+            throw new IllegalArgumentException("Malformed binary KeypleDto: bad APDU response");
+        }
+        // the successful status is restored by declaring the status code as successful
+        return new ApduResponse(bytes,
+                successful && bytes != null
+                        ? Collections.singleton(((bytes[bytes.length - 2] & 0xFF) << 8)
+                                | (bytes[bytes.length - 1] & 0xFF))
+                        : null);
+    }
+}
@@ -0,0 +1,100 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.transport.codec;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Reader of the fields written by {@link BinaryDtoWriter}.
+ * <p>
+ * All the reads are bounds checked, an {@link IllegalArgumentException} is thrown on truncated or
+ * malformed data.
+ */
+final class BinaryDtoReader {
+
+    private final byte[] data;
+    private int position;
+
+    BinaryDtoReader(byte[] data) {
+        this.data = data;
+    }
+
+    private void require(int length) {
+        if (length < 0 || position + length > data.length) {
+            throw new IllegalArgumentException("Malformed binary KeypleDto: truncated data");
+        }
+    }
+
+    int readByte() {
+        require(1);
+        return data[position++] & 0xFF;
+    }
+
+    boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    int readVarInt() {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) {
+                    break;
+                }
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed binary KeypleDto: bad length");
+    }
+
+    byte[] readBytes() {
+        int length = readVarInt() - 1;
+        if (length < 0) {
+            return null;
+        }
+        require(length);
+        byte[] value = new byte[length];
+        System.arraycopy(data, position, value, 0, length);
+        position += length;
+        return value;
+    }
+
+    String readString() {
+        int length = readVarInt() - 1;
+        if (length < 0) {
+            return null;
+        }
+        require(length);
+        String value = new String(data, position, length, BinaryDtoWriter.UTF8);
+        position += length;
+        return value;
+    }
+
+    Set<Integer> readIntegers() {
+        int count = readVarInt() - 1;
+        if (count < 0) {
+            return null;
+        }
+        Set<Integer> values = new LinkedHashSet<Integer>();
+        for (int i = 0; i < count; i++) {
+            values.add(readVarInt());
+        }
+        return values;
+    }
+
+    boolean isFullyRead() {
+        return position == data.length;
+    }
+}
@@ -0,0 +1,92 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.transport.codec;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Growable buffer writing the fields of the binary codec.
+ * <p>
+ * The lengths and the counts are written as unsigned variable length integers (7 bits per byte,
+ * least significant group first). The nullable fields are prefixed by their length plus one, 0
+ * meaning null.
+ */
+final class BinaryDtoWriter {
+
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private byte[] buffer;
+    private int size;
+
+    BinaryDtoWriter(int initialCapacity) {
+        buffer = new byte[initialCapacity];
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+
+    void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) value;
+    }
+
+    void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    void writeVarInt(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value: " + value);
+        }
+        ensureCapacity(5);
+        while (value >= 0x80) {
+            buffer[size++] = (byte) (value | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte) value;
+    }
+
+    void writeBytes(byte[] value) {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        writeVarInt(value.length + 1);
+        ensureCapacity(value.length);
+        System.arraycopy(value, 0, buffer, size, value.length);
+        size += value.length;
+    }
+
+    void writeString(String value) {
+        writeBytes(value == null ? null : value.getBytes(UTF8));
+    }
+
+    void writeIntegers(Collection<Integer> values) {
+        if (values == null) {
+            writeVarInt(0);
+            return;
+        }
+        writeVarInt(values.size() + 1);
+        for (Integer value : values) {
+            writeVarInt(value);
+        }
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+}
@@ -0,0 +1,82 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.transport.codec;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Table of the stable codes of the constants of an enum in the binary format.
+ * <p>
+ * The codes are explicitly assigned, they do not depend on the declaration order of the constants:
+ * a constant added to the enum has no code until one is assigned, and an unknown code received
+ * from a peer is rejected.
+ *
+ * @param <E> the enum type
+ */
+final class BinaryEnumCodes<E extends Enum<E>> {
+
+    private final Class<E> type;
+    private final Map<E, Integer> codes;
+    private final Map<Integer, E> constants = new HashMap<Integer, E>();
+
+    BinaryEnumCodes(Class<E> type) {
+        this.type = type;
+        this.codes = new EnumMap<E, Integer>(type);
+    }
+
+    /**
+     * Assigns a code to a constant
+     *
+     * @param constant the constant
+     * @param code the code, never reused for another constant
+     * @return the table itself
+     */
+    BinaryEnumCodes<E> code(E constant, int code) {
+        if (codes.containsKey(constant) || constants.containsKey(code)) {
+            throw new IllegalStateException(
+                    "Duplicate binary code " + code + " for " + type.getSimpleName());
+        }
+        codes.put(constant, code);
+        constants.put(code, constant);
+        return this;
+    }
+
+    /**
+     * @param constant the constant
+     * @return the code of the constant
+     * @throws IllegalArgumentException if no code is assigned to the constant
+     */
+    int getCode(E constant) {
+        Integer code = codes.get(constant);
+        if (code == null) {
+            throw new IllegalArgumentException(
+                    "No binary code for " + type.getSimpleName() + "." + constant);
+        }
+        return code;
+    }
+
+    /**
+     * @param code the code
+     * @return the constant with this code
+     * @throws IllegalArgumentException if the code is unknown
+     */
+    E getConstant(int code) {
+        E constant = constants.get(code);
+        if (constant == null) {
+            throw new IllegalArgumentException("Malformed binary KeypleDto: unknown "
+                    + type.getSimpleName() + " code " + code);
+        }
+        return constant;
+    }
+}
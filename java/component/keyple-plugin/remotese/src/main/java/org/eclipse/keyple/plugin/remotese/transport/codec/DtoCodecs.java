@@ -0,0 +1,126 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.transport.codec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
+
+/**
+ * Registry of the {@link KeypleDtoCodec}s.
+ * <p>
+ * The codec is chosen per connection between two
+ * {@link org.eclipse.keyple.plugin.remotese.transport.DtoNode}s: each node advertises the names of
+ * the codecs it accepts (at most {@link #getSupportedNames()}) and calls
+ * {@link #negotiate(List, Collection)} with the names advertised by its peer, json being used with
+ * a peer which does not take part in the negotiation. As a binary frame always starts with
+ * {@link BinaryDtoCodec#MAGIC} and a json frame with '{', a receiving node can also decode any
+ * frame with {@link #decode(byte[])}.
+ */
+public final class DtoCodecs {
+
+    /** json codec, the default one */
+    public static final KeypleDtoCodec JSON = new JsonDtoCodec();
+
+    /** compact binary codec */
+    public static final KeypleDtoCodec BINARY = new BinaryDtoCodec();
+
+    /* codecs by order of preference */
+    private static final List<KeypleDtoCodec> CODECS =
+            Collections.unmodifiableList(Arrays.asList(BINARY, JSON));
+
+    /**
+     * Gets a codec by its name
+     *
+     * @param name the name of the codec
+     * @return the codec
+     * @throws IllegalArgumentException if the codec is unknown
+     */
+    public static KeypleDtoCodec forName(String name) {
+        for (KeypleDtoCodec codec : CODECS) {
+            if (codec.getName().equals(name)) {
+                return codec;
+            }
+        }
+        throw new IllegalArgumentException("Unknown KeypleDto codec : " + name);
+    }
+
+    /**
+     * @return the names of the available codecs, by order of preference
+     */
+    public static List<String> getSupportedNames() {
+        List<String> names = new ArrayList<String>(CODECS.size());
+        for (KeypleDtoCodec codec : CODECS) {
+            names.add(codec.getName());
+        }
+        return names;
+    }
+
+    /**
+     * Selects the codec to use with a peer node: the first codec of the preferred list which is
+     * supported by the peer and known locally.
+     *
+     * @param preferred the names of the codecs accepted by this node, by order of preference
+     * @param peerSupported the names of the codecs supported by the peer (null if unknown)
+     * @return the selected codec, {@link #JSON} if there is no common codec
+     */
+    public static KeypleDtoCodec negotiate(List<String> preferred,
+            Collection<String> peerSupported) {
+        if (preferred == null || peerSupported == null) {
+            return JSON;
+        }
+        for (String name : preferred) {
+            if (peerSupported.contains(name)) {
+                for (KeypleDtoCodec codec : CODECS) {
+                    if (codec.getName().equals(name)) {
+                        return codec;
+                    }
+                }
+            }
+        }
+        return JSON;
+    }
+
+    /**
+     * Detects the codec of an encoded DTO
+     *
+     * @param data the encoded DTO
+     * @return the codec which has encoded the DTO
+     */
+    public static KeypleDtoCodec detect(byte[] data) {
+        if (data != null && data.length > 0 && data[0] == BinaryDtoCodec.MAGIC) {
+            return BINARY;
+        }
+        return JSON;
+    }
+
+    /**
+     * Decodes a DTO encoded with any of the available codecs
+     *
+     * @param data the encoded DTO
+     * @return the decoded DTO
+     * @throws IllegalArgumentException if the data is not a valid encoded DTO
+     */
+    public static KeypleDto decode(byte[] data) {
+        if (data == null || data.length == 0) {
+            throw new IllegalArgumentException("Empty KeypleDto frame");
+        }
+        return detect(data).decode(data);
+    }
+
+    private DtoCodecs() {
+        throw new IllegalStateException("Utility class");
+    }
+}
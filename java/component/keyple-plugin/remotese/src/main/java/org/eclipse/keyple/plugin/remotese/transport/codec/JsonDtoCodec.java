@@ -0,0 +1,50 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.transport.codec;
+
+import java.nio.charset.Charset;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDtoHelper;
+import com.google.gson.JsonParseException;
+
+/**
+ * Json codec: the UTF-8 encoding of {@link KeypleDtoHelper#toJson(KeypleDto)}, i.e. the historical
+ * format of the remote SE plugin.
+ */
+public final class JsonDtoCodec implements KeypleDtoCodec {
+
+    /** name of the codec */
+    public static final String NAME = "json";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    JsonDtoCodec() {}
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] encode(KeypleDto keypleDto) {
+        return KeypleDtoHelper.toJson(keypleDto).getBytes(UTF8);
+    }
+
+    @Override
+    public KeypleDto decode(byte[] data) {
+        try {
+            return KeypleDtoHelper.fromJson(new String(data, UTF8));
+        } catch (JsonParseException e) {
+            throw new IllegalArgumentException("Malformed json KeypleDto", e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.transport.codec;
+
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
+
+/**
+ * Wire format of the {@link KeypleDto}s exchanged by the
+ * {@link org.eclipse.keyple.plugin.remotese.transport.DtoNode}s.
+ * <p>
+ * The codecs are stateless and thread-safe. The available codecs and the negotiation between two
+ * nodes are provided by {@link DtoCodecs}.
+ */
+public interface KeypleDtoCodec {
+
+    /**
+     * @return the name of the codec, used during the negotiation
+     */
+    String getName();
+
+    /**
+     * Encodes a Keyple DTO
+     *
+     * @param keypleDto the DTO to encode
+     * @return the encoded DTO
+     */
+    byte[] encode(KeypleDto keypleDto);
+
+    /**
+     * Decodes a Keyple DTO
+     *
+     * @param data the encoded DTO
+     * @return the decoded DTO
+     * @throws IllegalArgumentException if the data is not a valid encoded DTO
+     */
+    KeypleDto decode(byte[] data);
+}
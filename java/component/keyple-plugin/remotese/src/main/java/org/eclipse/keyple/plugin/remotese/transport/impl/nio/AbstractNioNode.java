@@ -0,0 +1,300 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.transport.impl.nio;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.keyple.core.util.SerialExecutor;
+import org.eclipse.keyple.plugin.remotese.exception.KeypleRemoteException;
+import org.eclipse.keyple.plugin.remotese.transport.DtoHandler;
+import org.eclipse.keyple.plugin.remotese.transport.DtoNode;
+import org.eclipse.keyple.plugin.remotese.transport.codec.DtoCodecs;
+import org.eclipse.keyple.plugin.remotese.transport.codec.KeypleDtoCodec;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDtoHelper;
+import org.eclipse.keyple.plugin.remotese.transport.model.TransportDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Common part of the NIO nodes: encoding of the sent DTOs, decoding and dispatching of the
+ * received ones.
+ * <p>
+ * The received DTOs are processed by the {@link DtoHandler} outside of the I/O threads: the
+ * responses are processed as soon as they are received, as a thread may be waiting for them,
+ * while the requests and notifications of a connection are processed one at a time in their order
+ * of arrival.
+ * <p>
+ * The codec of the sent DTOs is negotiated per connection: once connected, the client advertises
+ * the codecs it accepts ({@link #CODECS_ACTION} request, json encoded) and the server answers with
+ * its own ones, each side then uses the first of its codecs accepted by the peer. Json is used
+ * until then, and with a peer which does not take part in the negotiation.
+ */
+abstract class AbstractNioNode implements DtoNode, NioConnection.Listener {
+
+    private static final Logger logger = LoggerFactory.getLogger(AbstractNioNode.class);
+
+    /** action of the DTOs advertising the codecs of a node, their body is the list of names */
+    static final String CODECS_ACTION = "NIO_CODECS";
+
+    protected final String nodeId;
+    protected final NioTransportSettings settings;
+    /* the names of the codecs accepted by this node, by order of preference */
+    private final List<String> codecNames;
+
+    // executor given by the user, null if the node runs the DTO handler with its own pool
+    private final Executor executor;
+    // pool owned by the node, created when it starts and shut down when it stops
+    private volatile ExecutorService ownExecutor;
+    private final ConcurrentMap<NioConnection, Executor> requestExecutors =
+            new ConcurrentHashMap<NioConnection, Executor>();
+    private volatile DtoHandler dtoHandler;
+
+    /**
+     * @param nodeId the node id
+     * @param settings the transport settings
+     * @param executor the executor running the DTO handler, null to use a dedicated pool (whose
+     *        idle threads are released after a minute, and which is shut down when the node stops)
+     */
+    AbstractNioNode(String nodeId, NioTransportSettings settings, Executor executor) {
+        if (nodeId == null || settings == null) {
+            throw new IllegalArgumentException("Node id and settings must not be null");
+        }
+        this.nodeId = nodeId;
+        this.settings = settings;
+        this.executor = executor;
+        List<String> names = new ArrayList<String>();
+        names.add(settings.getCodec().getName());
+        if (!names.contains(DtoCodecs.JSON.getName())) {
+            names.add(DtoCodecs.JSON.getName());
+        }
+        this.codecNames = Collections.unmodifiableList(names);
+    }
+
+    /**
+     * Creates the dedicated pool of the node if no executor was given, to be called when the node
+     * starts
+     */
+    protected void startOwnExecutor() {
+        if (executor != null || ownExecutor != null) {
+            return;
+        }
+        ownExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger threadNumber = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "NioNode-" + AbstractNioNode.this.nodeId + "-"
+                        + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Shuts down the dedicated pool of the node, if any, to be called when the node stops. The DTOs
+     * already received are still processed.
+     */
+    protected void shutdownOwnExecutor() {
+        ExecutorService currentExecutor = ownExecutor;
+        if (currentExecutor != null) {
+            ownExecutor = null;
+            currentExecutor.shutdown();
+        }
+    }
+
+    /**
+     * @return the executor running the DTO handler, null if the node is stopped
+     */
+    private Executor getExecutor() {
+        return executor != null ? executor : ownExecutor;
+    }
+
+    @Override
+    public void setDtoHandler(DtoHandler handler) {
+        this.dtoHandler = handler;
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void sendDTO(TransportDto transportDto) throws KeypleRemoteException {
+        if (transportDto instanceof NioTransportDto
+                && ((NioTransportDto) transportDto).getConnection().isOpen()) {
+            send(((NioTransportDto) transportDto).getConnection(), transportDto.getKeypleDTO());
+        } else {
+            sendDTO(transportDto.getKeypleDTO());
+        }
+    }
+
+    /**
+     * Encodes and sends a DTO on a connection
+     *
+     * @param connection the connection
+     * @param keypleDto the DTO
+     * @throws KeypleRemoteException if the DTO could not be sent
+     */
+    protected void send(NioConnection connection, KeypleDto keypleDto)
+            throws KeypleRemoteException {
+        if (KeypleDtoHelper.isNoResponse(keypleDto)) {
+            logger.trace("Keyple DTO is empty, do not send it");
+            return;
+        }
+        try {
+            connection.send(connection.getCodec().encode(keypleDto));
+        } catch (IOException e) {
+            throw new KeypleRemoteException(
+                    "Unable to send the Keyple DTO to " + connection + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void onConnected(NioConnection connection) {
+        Executor currentExecutor = getExecutor();
+        if (currentExecutor != null) {
+            requestExecutors.put(connection, new SerialExecutor(currentExecutor));
+        }
+    }
+
+    @Override
+    public void onFrame(final NioConnection connection, byte[] frame) {
+        final KeypleDto keypleDto;
+        try {
+            keypleDto = DtoCodecs.decode(frame);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid Keyple DTO received on {}", connection, e);
+            connection.frameProcessed();
+            return;
+        }
+        onDtoReceived(connection, keypleDto);
+        if (CODECS_ACTION.equals(keypleDto.getAction())) {
+            onCodecsReceived(connection, keypleDto);
+            connection.frameProcessed();
+            return;
+        }
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    processDto(connection, keypleDto);
+                } finally {
+                    connection.frameProcessed();
+                }
+            }
+        };
+        Executor taskExecutor = requestExecutors.get(connection);
+        if (Boolean.FALSE.equals(keypleDto.isRequest()) || taskExecutor == null) {
+            taskExecutor = getExecutor();
+        }
+        if (taskExecutor != null) {
+            try {
+                taskExecutor.execute(task);
+                return;
+            } catch (RejectedExecutionException e) {
+                // the node is stopping
+            }
+        }
+        logger.debug("NIO node {} stopped, DTO from {} discarded", nodeId, connection);
+        connection.frameProcessed();
+    }
+
+    @Override
+    public void onClosed(NioConnection connection) {
+        requestExecutors.remove(connection);
+    }
+
+    /**
+     * Advertises the codecs accepted by this node to the peer of a connection
+     *
+     * @param connection the connection
+     * @param request true to ask the peer to advertise its own codecs in response
+     */
+    protected void advertiseCodecs(NioConnection connection, boolean request) {
+        StringBuilder body = new StringBuilder();
+        for (String name : codecNames) {
+            if (body.length() > 0) {
+                body.append(',');
+            }
+            body.append(name);
+        }
+        KeypleDto keypleDto = request
+                ? KeypleDtoHelper.buildRequest(CODECS_ACTION, body.toString(), null, null, null,
+                        nodeId, null, null)
+                : KeypleDtoHelper.buildResponse(CODECS_ACTION, body.toString(), null, null, null,
+                        nodeId, null, null);
+        try {
+            // json encoded, the peer may not know any other codec
+            connection.send(DtoCodecs.JSON.encode(keypleDto));
+        } catch (IOException e) {
+            logger.error("Unable to advertise the codecs to {}", connection, e);
+        }
+    }
+
+    private void onCodecsReceived(NioConnection connection, KeypleDto keypleDto) {
+        String body = keypleDto.getBody();
+        List<String> peerNames =
+                body != null ? Arrays.asList(body.split(",")) : Collections.<String>emptyList();
+        KeypleDtoCodec codec = DtoCodecs.negotiate(codecNames, peerNames);
+        connection.setCodec(codec);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Codec {} negotiated with {}", codec.getName(), connection);
+        }
+        if (Boolean.TRUE.equals(keypleDto.isRequest())) {
+            advertiseCodecs(connection, false);
+        }
+    }
+
+    /**
+     * Called by the I/O thread for each received DTO, before its processing
+     *
+     * @param connection the connection
+     * @param keypleDto the received DTO
+     */
+    protected void onDtoReceived(NioConnection connection, KeypleDto keypleDto) {}
+
+    private void processDto(NioConnection connection, KeypleDto keypleDto) {
+        DtoHandler handler = dtoHandler;
+        if (handler == null) {
+            logger.error("No DtoHandler defined, DTO from {} discarded", connection);
+            return;
+        }
+        TransportDto response;
+        try {
+            response = handler.onDTO(new NioTransportDto(keypleDto, connection));
+        } catch (RuntimeException e) {
+            logger.error("DtoHandler failure on {}", keypleDto, e);
+            return;
+        }
+        if (response != null && response.getKeypleDTO() != null) {
+            try {
+                sendDTO(response);
+            } catch (KeypleRemoteException e) {
+                logger.error("Unable to send the response to {}", connection, e);
+            }
+        }
+    }
+}
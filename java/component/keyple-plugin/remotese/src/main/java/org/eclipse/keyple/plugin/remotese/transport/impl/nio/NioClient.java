@@ -0,0 +1,191 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.transport.impl.nio;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.Executor;
+import org.eclipse.keyple.plugin.remotese.exception.KeypleRemoteException;
+import org.eclipse.keyple.plugin.remotese.transport.factory.ClientNode;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Client side of the NIO TCP transport.
+ * <p>
+ * The client holds a single connection to the server, shared by all the readers connected through
+ * its {@link org.eclipse.keyple.plugin.remotese.nativese.SlaveAPI}, and served by a single I/O
+ * thread.
+ */
+public class NioClient extends AbstractNioNode implements ClientNode {
+
+    private static final Logger logger = LoggerFactory.getLogger(NioClient.class);
+
+    private final String serverNodeId;
+    private final InetSocketAddress serverAddress;
+    private NioEventLoop loop;
+    private volatile NioConnection connection;
+    private ConnectCallback connectCallback;
+
+    /**
+     * Creates a client with the default settings
+     *
+     * @param clientNodeId the node id of the client
+     * @param serverNodeId the node id of the server
+     * @param serverAddress the address of the server
+     */
+    public NioClient(String clientNodeId, String serverNodeId, InetSocketAddress serverAddress) {
+        this(clientNodeId, serverNodeId, serverAddress, NioTransportSettings.DEFAULT, null);
+    }
+
+    /**
+     * Creates a client
+     *
+     * @param clientNodeId the node id of the client
+     * @param serverNodeId the node id of the server
+     * @param serverAddress the address of the server
+     * @param settings the transport settings
+     * @param executor the executor running the DTO handler, null to use a dedicated pool
+     */
+    public NioClient(String clientNodeId, String serverNodeId, InetSocketAddress serverAddress,
+            NioTransportSettings settings, Executor executor) {
+        super(clientNodeId, settings, executor);
+        if (serverAddress == null) {
+            throw new IllegalArgumentException("Server address must not be null");
+        }
+        this.serverNodeId = serverNodeId;
+        this.serverAddress = serverAddress;
+    }
+
+    /**
+     * Connects to the server asynchronously, the callback is called by the I/O thread once the
+     * connection is established or has failed
+     *
+     * @param connectCallback the callback (may be null)
+     */
+    @Override
+    public synchronized void connect(ConnectCallback connectCallback) {
+        if (connection != null) {
+            logger.warn("NIO client {} is already connected", nodeId);
+            return;
+        }
+        this.connectCallback = connectCallback;
+        startOwnExecutor();
+        SocketChannel channel = null;
+        try {
+            loop = new NioEventLoop("NioClient-" + nodeId, settings.getHeartbeatInterval());
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            final boolean connecting = !channel.connect(serverAddress);
+            final NioConnection newConnection = new NioConnection(channel, loop, settings, this);
+            connection = newConnection;
+            loop.start();
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    newConnection.register(connecting);
+                }
+            });
+        } catch (IOException e) {
+            logger.error("Unable to connect the NIO client {} to {}", nodeId, serverAddress, e);
+            if (channel != null) {
+                NioEventLoop.closeQuietly(channel);
+            }
+            connection = null;
+            this.connectCallback = null;
+            shutdownOwnExecutor();
+            if (connectCallback != null) {
+                connectCallback.onConnectFailure();
+            }
+        }
+    }
+
+    /**
+     * Closes the connection and stops the I/O thread and the dedicated pool of the client
+     */
+    @Override
+    public synchronized void disconnect() {
+        if (loop != null) {
+            // the connection is closed by the loop
+            loop.shutdown();
+            loop = null;
+        }
+        connection = null;
+        shutdownOwnExecutor();
+        logger.info("NIO client {} disconnected", nodeId);
+    }
+
+    /**
+     * @return true if the connection with the server is open
+     */
+    public boolean isConnected() {
+        NioConnection currentConnection = connection;
+        return currentConnection != null && currentConnection.isOpen();
+    }
+
+    @Override
+    public String getServerNodeId() {
+        return serverNodeId;
+    }
+
+    @Override
+    public void sendDTO(KeypleDto keypleDto) throws KeypleRemoteException {
+        NioConnection currentConnection = connection;
+        if (currentConnection == null || !currentConnection.isOpen()) {
+            throw new KeypleRemoteException("NIO client " + nodeId + " is not connected");
+        }
+        send(currentConnection, keypleDto);
+    }
+
+    @Override
+    public void onConnected(NioConnection newConnection) {
+        super.onConnected(newConnection);
+        // the server answers with its own codecs, json is used until then
+        advertiseCodecs(newConnection, true);
+        logger.info("NIO client {} connected to {}", nodeId, serverAddress);
+        ConnectCallback callback = takeConnectCallback();
+        if (callback != null) {
+            callback.onConnectSuccess();
+        }
+    }
+
+    @Override
+    public void onClosed(NioConnection closedConnection) {
+        super.onClosed(closedConnection);
+        synchronized (this) {
+            if (connection == closedConnection) {
+                connection = null;
+                if (loop != null) {
+                    loop.shutdown();
+                    loop = null;
+                }
+            }
+        }
+        // the callback is still there if the connection could not be established
+        ConnectCallback callback = takeConnectCallback();
+        if (callback != null) {
+            logger.error("NIO client {} could not connect to {}", nodeId, serverAddress);
+            callback.onConnectFailure();
+        } else {
+            logger.info("NIO client {} connection closed", nodeId);
+        }
+    }
+
+    private synchronized ConnectCallback takeConnectCallback() {
+        ConnectCallback callback = connectCallback;
+        connectCallback = null;
+        return callback;
+    }
+}
@@ -0,0 +1,454 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.transport.impl.nio;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.keyple.plugin.remotese.transport.codec.DtoCodecs;
+import org.eclipse.keyple.plugin.remotese.transport.codec.KeypleDtoCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * TCP connection between two NIO nodes.
+ * <p>
+ * The messages are exchanged as frames prefixed by their length (4 bytes, big endian). An empty
+ * frame is a heartbeat: it is sent when nothing has been written during the heartbeat interval and
+ * it is discarded by the receiver. A connection on which nothing has been received during the idle
+ * timeout is closed.
+ * <p>
+ * The frames to send are queued and written by the thread of the event loop, several frames at a
+ * time with a gathering write. The senders are blocked while the amount of queued data exceeds the
+ * limit of the settings (the peer does not read fast enough); the reading of the connection is
+ * suspended while too many received frames are waiting to be processed.
+ */
+final class NioConnection implements NioEventLoop.SelectionHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(NioConnection.class);
+
+    private static final int HEADER_LENGTH = 4;
+    private static final int INITIAL_READ_BUFFER_SIZE = 4096;
+
+    /**
+     * Receiver of the events of the connection, called by the thread of the event loop
+     */
+    interface Listener {
+        /**
+         * Called when the connection is established
+         *
+         * @param connection the connection
+         */
+        void onConnected(NioConnection connection);
+
+        /**
+         * Called for each received frame (except the heartbeats).
+         * {@link NioConnection#frameProcessed()} must be called once the frame has been processed.
+         *
+         * @param connection the connection
+         * @param frame the content of the frame
+         */
+        void onFrame(NioConnection connection, byte[] frame);
+
+        /**
+         * Called when the connection is closed, or could not be established
+         *
+         * @param connection the connection
+         */
+        void onClosed(NioConnection connection);
+    }
+
+    private final SocketChannel channel;
+    private final NioEventLoop loop;
+    private final NioTransportSettings settings;
+    private final Listener listener;
+
+    private final Queue<ByteBuffer> writeQueue = new ConcurrentLinkedQueue<ByteBuffer>();
+    private final AtomicBoolean writeScheduled = new AtomicBoolean();
+    private final AtomicInteger pendingWriteBytes = new AtomicInteger();
+    private final AtomicInteger pendingInboundFrames = new AtomicInteger();
+    private final Object writeLock = new Object();
+    private volatile boolean connected;
+    private volatile boolean closed;
+    private volatile boolean readSuspended;
+    private volatile String nodeId;
+    /* codec of the sent messages, json until another one is negotiated with the peer */
+    private volatile KeypleDtoCodec codec = DtoCodecs.JSON;
+
+    /* the following fields are only used by the thread of the event loop */
+    private SelectionKey key;
+    private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_READ_BUFFER_SIZE);
+    private long lastReadTime;
+    private long lastWriteTime;
+
+    private final Runnable enableWriteTask = new Runnable() {
+        @Override
+        public void run() {
+            enableWrite();
+        }
+    };
+
+    private final Runnable resumeReadTask = new Runnable() {
+        @Override
+        public void run() {
+            if (readSuspended && !closed
+                    && pendingInboundFrames.get() <= settings.getMaxPendingInboundFrames() / 2) {
+                readSuspended = false;
+                key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+            }
+        }
+    };
+
+    private final Runnable closeTask = new Runnable() {
+        @Override
+        public void run() {
+            doClose();
+        }
+    };
+
+    NioConnection(SocketChannel channel, NioEventLoop loop, NioTransportSettings settings,
+            Listener listener) {
+        this.channel = channel;
+        this.loop = loop;
+        this.settings = settings;
+        this.listener = listener;
+    }
+
+    /**
+     * Registers the connection in its event loop, must be called by the thread of the loop
+     *
+     * @param connecting true if the connection of the channel is pending
+     */
+    void register(boolean connecting) {
+        lastReadTime = System.currentTimeMillis();
+        lastWriteTime = lastReadTime;
+        try {
+            key = loop.register(channel,
+                    connecting ? SelectionKey.OP_CONNECT : SelectionKey.OP_READ, this);
+        } catch (IOException e) {
+            logger.error("Unable to register the connection {}", this, e);
+            doClose();
+            return;
+        }
+        if (!connecting) {
+            onConnected();
+        }
+    }
+
+    /**
+     * @return the node id of the peer, null if not known yet
+     */
+    String getNodeId() {
+        return nodeId;
+    }
+
+    void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * @return the codec of the messages sent to the peer
+     */
+    KeypleDtoCodec getCodec() {
+        return codec;
+    }
+
+    void setCodec(KeypleDtoCodec codec) {
+        this.codec = codec;
+    }
+
+    boolean isOpen() {
+        return !closed;
+    }
+
+    /**
+     * @return the amount of data waiting to be written
+     */
+    int getPendingWriteBytes() {
+        return pendingWriteBytes.get();
+    }
+
+    /**
+     * Sends a frame. The frame is queued and written by the thread of the event loop.
+     * <p>
+     * If too much data is already waiting to be written, the calling thread waits until the queue
+     * is drained below the limit (except the thread of the event loop, which never waits).
+     *
+     * @param payload the content of the frame
+     * @throws IOException if the connection is closed, or if the pending data could not be
+     *         written within the send timeout
+     */
+    void send(byte[] payload) throws IOException {
+        if (closed) {
+            throw new IOException("Connection closed");
+        }
+        awaitWritable();
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_LENGTH + payload.length);
+        frame.putInt(payload.length).put(payload);
+        frame.flip();
+        enqueue(frame);
+    }
+
+    /**
+     * Must be called once a frame provided to the listener has been processed
+     */
+    void frameProcessed() {
+        int pending = pendingInboundFrames.decrementAndGet();
+        if (readSuspended && pending <= settings.getMaxPendingInboundFrames() / 2) {
+            loop.execute(resumeReadTask);
+        }
+    }
+
+    /**
+     * Closes the connection, the listener is notified by the thread of the event loop
+     */
+    void close() {
+        if (loop.inLoop()) {
+            doClose();
+        } else {
+            loop.execute(closeTask);
+        }
+    }
+
+    @Override
+    public void onSelected(SelectionKey selectedKey) {
+        try {
+            if (selectedKey.isConnectable()) {
+                channel.finishConnect();
+                lastReadTime = System.currentTimeMillis();
+                selectedKey.interestOps(SelectionKey.OP_READ
+                        | (writeQueue.isEmpty() ? 0 : SelectionKey.OP_WRITE));
+                onConnected();
+            }
+            if (selectedKey.isValid() && selectedKey.isReadable()) {
+                read();
+            }
+            if (selectedKey.isValid() && selectedKey.isWritable()) {
+                write();
+            }
+        } catch (IOException e) {
+            logger.debug("I/O error on the connection {}: {}", this, e.getMessage());
+            doClose();
+        }
+    }
+
+    /**
+     * Checks the heartbeats, called periodically by the thread of the event loop
+     *
+     * @param now the current time in milliseconds
+     */
+    void onTick(long now) {
+        if (closed) {
+            return;
+        }
+        long idleTimeout = settings.getIdleTimeout();
+        if (idleTimeout > 0 && now - lastReadTime > idleTimeout) {
+            logger.warn("Nothing received on the connection {} for {} ms, closing it", this,
+                    now - lastReadTime);
+            doClose();
+            return;
+        }
+        if (connected && settings.getHeartbeatInterval() > 0
+                && now - lastWriteTime >= settings.getHeartbeatInterval()
+                && writeQueue.isEmpty()) {
+            ByteBuffer heartbeat = ByteBuffer.allocate(HEADER_LENGTH);
+            heartbeat.putInt(0);
+            heartbeat.flip();
+            enqueue(heartbeat);
+        }
+    }
+
+    private void onConnected() {
+        connected = true;
+        listener.onConnected(this);
+    }
+
+    private void awaitWritable() throws IOException {
+        int maxPendingWriteBytes = settings.getMaxPendingWriteBytes();
+        if (pendingWriteBytes.get() <= maxPendingWriteBytes || loop.inLoop()) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() + settings.getSendTimeout();
+        synchronized (writeLock) {
+            while (pendingWriteBytes.get() > maxPendingWriteBytes && !closed) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new IOException("Send timeout, " + pendingWriteBytes.get()
+                            + " bytes are waiting to be written to " + this);
+                }
+                try {
+                    writeLock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting to send to " + this);
+                }
+            }
+        }
+        if (closed) {
+            throw new IOException("Connection closed");
+        }
+    }
+
+    private void enqueue(ByteBuffer frame) {
+        pendingWriteBytes.addAndGet(frame.remaining());
+        writeQueue.add(frame);
+        if (writeScheduled.compareAndSet(false, true)) {
+            if (loop.inLoop()) {
+                enableWrite();
+            } else {
+                loop.execute(enableWriteTask);
+            }
+        }
+    }
+
+    /* the write interest is set once the channel is connected */
+    private void enableWrite() {
+        if (key != null && key.isValid() && connected) {
+            key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+        }
+    }
+
+    private void read() throws IOException {
+        int nbBytes = channel.read(readBuffer);
+        if (nbBytes < 0) {
+            logger.debug("Connection {} closed by the peer", this);
+            doClose();
+            return;
+        }
+        if (nbBytes == 0) {
+            return;
+        }
+        lastReadTime = System.currentTimeMillis();
+        readBuffer.flip();
+        int neededCapacity = 0;
+        while (readBuffer.remaining() >= HEADER_LENGTH) {
+            int length = readBuffer.getInt(readBuffer.position());
+            if (length < 0 || length > settings.getMaxFrameLength()) {
+                logger.error("Invalid frame length {} received on {}, closing it", length, this);
+                doClose();
+                return;
+            }
+            if (readBuffer.remaining() < HEADER_LENGTH + length) {
+                neededCapacity = HEADER_LENGTH + length;
+                break;
+            }
+            readBuffer.position(readBuffer.position() + HEADER_LENGTH);
+            if (length > 0) {
+                byte[] frame = new byte[length];
+                readBuffer.get(frame);
+                deliver(frame);
+            }
+        }
+        if (neededCapacity > readBuffer.capacity()) {
+            // the frame does not fit in the buffer
+            ByteBuffer largerBuffer = ByteBuffer.allocate(neededCapacity);
+            largerBuffer.put(readBuffer);
+            readBuffer = largerBuffer;
+        } else if (!readBuffer.hasRemaining()
+                && readBuffer.capacity() > INITIAL_READ_BUFFER_SIZE) {
+            // releases the memory of a large frame
+            readBuffer = ByteBuffer.allocate(INITIAL_READ_BUFFER_SIZE);
+        } else {
+            readBuffer.compact();
+        }
+    }
+
+    private void deliver(byte[] frame) {
+        if (pendingInboundFrames.incrementAndGet() > settings.getMaxPendingInboundFrames()
+                && !readSuspended) {
+            // the received frames are not processed fast enough
+            readSuspended = true;
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+        }
+        listener.onFrame(this, frame);
+    }
+
+    private void write() throws IOException {
+        ByteBuffer[] buffers = loop.getWriteBuffers();
+        try {
+            while (true) {
+                int nbBuffers = 0;
+                for (ByteBuffer buffer : writeQueue) {
+                    if (nbBuffers == buffers.length) {
+                        break;
+                    }
+                    buffers[nbBuffers++] = buffer;
+                }
+                if (nbBuffers == 0) {
+                    key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+                    writeScheduled.set(false);
+                    // a frame may have been queued before the flag was reset
+                    if (writeQueue.isEmpty() || !writeScheduled.compareAndSet(false, true)) {
+                        return;
+                    }
+                    key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                    continue;
+                }
+                channel.write(buffers, 0, nbBuffers);
+                lastWriteTime = System.currentTimeMillis();
+                int released = 0;
+                ByteBuffer head;
+                while ((head = writeQueue.peek()) != null && !head.hasRemaining()) {
+                    writeQueue.poll();
+                    released += head.limit();
+                }
+                releasePendingWriteBytes(released);
+                if (buffers[nbBuffers - 1].hasRemaining()) {
+                    // the socket buffer is full, wait for the next write readiness
+                    return;
+                }
+            }
+        } finally {
+            Arrays.fill(buffers, null);
+        }
+    }
+
+    private void releasePendingWriteBytes(int released) {
+        int maxPendingWriteBytes = settings.getMaxPendingWriteBytes();
+        int pending = pendingWriteBytes.addAndGet(-released);
+        if (pending + released > maxPendingWriteBytes && pending <= maxPendingWriteBytes) {
+            synchronized (writeLock) {
+                writeLock.notifyAll();
+            }
+        }
+    }
+
+    private void doClose() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (key != null) {
+            key.cancel();
+        }
+        NioEventLoop.closeQuietly(channel);
+        writeQueue.clear();
+        pendingWriteBytes.set(0);
+        synchronized (writeLock) {
+            writeLock.notifyAll();
+        }
+        listener.onClosed(this);
+    }
+
+    @Override
+    public String toString() {
+        SocketAddress remoteAddress = channel.socket().getRemoteSocketAddress();
+        return "NioConnection{" + "nodeId=" + nodeId + ", remoteAddress=" + remoteAddress + '}';
+    }
+}
@@ -0,0 +1,204 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.transport.impl.nio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Selector thread serving a set of channels.
+ * <p>
+ * All the operations on the registered channels are performed by the thread of the loop, the other
+ * threads submit them with {@link #execute(Runnable)}. The loop also calls
+ * {@link NioConnection#onTick(long)} periodically on its connections to manage the heartbeats.
+ */
+final class NioEventLoop implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(NioEventLoop.class);
+
+    /** maximum number of frames written with a single gathering write */
+    static final int MAX_GATHERED_BUFFERS = 64;
+
+    /**
+     * Handler of the selected keys, attached to the keys of the channels
+     */
+    interface SelectionHandler {
+        /**
+         * Called by the thread of the loop when the channel is ready
+         *
+         * @param key the selected key
+         */
+        void onSelected(SelectionKey key);
+    }
+
+    private final Selector selector;
+    private final Thread thread;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+    /* period of the heartbeat checks */
+    private final long tick;
+    /* scratch array of the gathering writes, only used by the thread of the loop */
+    private final ByteBuffer[] writeBuffers = new ByteBuffer[MAX_GATHERED_BUFFERS];
+    private volatile boolean running = true;
+
+    /**
+     * Creates a loop, its thread is started with {@link #start()}
+     *
+     * @param name the name of the thread
+     * @param heartbeatInterval the heartbeat interval of the connections (0 if disabled)
+     * @throws IOException if the selector cannot be opened
+     */
+    NioEventLoop(String name, long heartbeatInterval) throws IOException {
+        this.selector = Selector.open();
+        this.tick = heartbeatInterval > 0 ? Math.max(10, Math.min(1000, heartbeatInterval / 4))
+                : 1000;
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * @return true if the current thread is the thread of the loop
+     */
+    boolean inLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Submits a task to the thread of the loop
+     *
+     * @param task the task
+     */
+    void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * Registers a channel, must be called by the thread of the loop
+     *
+     * @param channel the channel
+     * @param ops the interest set
+     * @param handler the handler of the selected key
+     * @return the selection key
+     * @throws ClosedChannelException if the channel is closed
+     */
+    SelectionKey register(SelectableChannel channel, int ops, SelectionHandler handler)
+            throws ClosedChannelException {
+        return channel.register(selector, ops, handler);
+    }
+
+    ByteBuffer[] getWriteBuffers() {
+        return writeBuffers;
+    }
+
+    /**
+     * @return the number of channels served by the loop
+     */
+    int getChannelCount() {
+        return selector.keys().size();
+    }
+
+    /**
+     * Stops the loop, the registered channels are closed
+     */
+    void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        long nextTick = System.currentTimeMillis() + tick;
+        while (running) {
+            try {
+                selector.select(tick);
+                runTasks();
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (key.isValid()) {
+                        ((SelectionHandler) key.attachment()).onSelected(key);
+                    }
+                }
+                long now = System.currentTimeMillis();
+                if (now >= nextTick) {
+                    nextTick = now + tick;
+                    for (NioConnection connection : getConnections()) {
+                        connection.onTick(now);
+                    }
+                }
+            } catch (IOException e) {
+                logger.error("Selector failure in {}", thread.getName(), e);
+            } catch (RuntimeException e) {
+                logger.error("Unexpected error in {}", thread.getName(), e);
+            }
+        }
+        runTasks();
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof NioConnection) {
+                ((NioConnection) key.attachment()).close();
+            } else {
+                closeQuietly(key.channel());
+            }
+        }
+        runTasks();
+        try {
+            selector.close();
+        } catch (IOException e) {
+            logger.debug("Error while closing the selector", e);
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.error("Task failure in {}", thread.getName(), e);
+            }
+        }
+    }
+
+    private List<NioConnection> getConnections() {
+        List<NioConnection> connections = new ArrayList<NioConnection>();
+        for (SelectionKey key : selector.keys()) {
+            if (key.isValid() && key.attachment() instanceof NioConnection) {
+                connections.add((NioConnection) key.attachment());
+            }
+        }
+        return connections;
+    }
+
+    static void closeQuietly(SelectableChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.debug("Error while closing a channel", e);
+        }
+    }
+}
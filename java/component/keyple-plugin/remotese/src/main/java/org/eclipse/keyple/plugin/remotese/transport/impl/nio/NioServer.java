@@ -0,0 +1,239 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.transport.impl.nio;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.keyple.core.seproxy.exception.KeypleRuntimeException;
+import org.eclipse.keyple.plugin.remotese.exception.KeypleRemoteException;
+import org.eclipse.keyple.plugin.remotese.transport.factory.ServerNode;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Server side of the NIO TCP transport.
+ * <p>
+ * The connections are accepted by the first I/O thread and distributed in turn between the I/O
+ * threads of the settings, each one serving its connections with a single selector: a master node
+ * holds thousands of slave connections with a handful of threads. The DTOs are sent back to the
+ * connection they have been received from; the connection of a node is known from its first DTO
+ * and is shared by all its readers.
+ */
+public class NioServer extends AbstractNioNode implements ServerNode {
+
+    private static final Logger logger = LoggerFactory.getLogger(NioServer.class);
+
+    private static final int ACCEPT_BACKLOG = 1024;
+
+    private final InetSocketAddress address;
+    private final ConcurrentMap<String, NioConnection> connectionsByNodeId =
+            new ConcurrentHashMap<String, NioConnection>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final AtomicInteger nextLoop = new AtomicInteger();
+    private NioEventLoop[] loops;
+    private ServerSocketChannel serverChannel;
+
+    /**
+     * Creates a server with the default settings
+     *
+     * @param serverNodeId the node id of the server
+     * @param address the listening address (port 0 for an ephemeral port)
+     */
+    public NioServer(String serverNodeId, InetSocketAddress address) {
+        this(serverNodeId, address, NioTransportSettings.DEFAULT, null);
+    }
+
+    /**
+     * Creates a server
+     *
+     * @param serverNodeId the node id of the server
+     * @param address the listening address (port 0 for an ephemeral port)
+     * @param settings the transport settings
+     * @param executor the executor running the DTO handler, null to use a dedicated pool
+     */
+    public NioServer(String serverNodeId, InetSocketAddress address,
+            NioTransportSettings settings, Executor executor) {
+        super(serverNodeId, settings, executor);
+        if (address == null) {
+            throw new IllegalArgumentException("Address must not be null");
+        }
+        this.address = address;
+    }
+
+    /**
+     * Binds the server and starts its I/O threads
+     *
+     * @throws KeypleRuntimeException if the server could not be bound
+     */
+    @Override
+    public synchronized void start() {
+        if (serverChannel != null) {
+            return;
+        }
+        NioEventLoop[] newLoops = new NioEventLoop[settings.getNbIoThreads()];
+        try {
+            for (int i = 0; i < newLoops.length; i++) {
+                newLoops[i] = new NioEventLoop("NioServer-" + nodeId + "-" + (i + 1),
+                        settings.getHeartbeatInterval());
+            }
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.configureBlocking(false);
+            serverChannel.socket().setReuseAddress(true);
+            serverChannel.socket().bind(address, ACCEPT_BACKLOG);
+        } catch (IOException e) {
+            if (serverChannel != null) {
+                NioEventLoop.closeQuietly(serverChannel);
+                serverChannel = null;
+            }
+            throw new KeypleRuntimeException("Unable to start the NIO server on " + address, e);
+        }
+        startOwnExecutor();
+        loops = newLoops;
+        for (NioEventLoop loop : loops) {
+            loop.start();
+        }
+        final ServerSocketChannel acceptChannel = serverChannel;
+        final NioEventLoop[] startedLoops = newLoops;
+        startedLoops[0].execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    startedLoops[0].register(acceptChannel, SelectionKey.OP_ACCEPT,
+                            new Acceptor(startedLoops));
+                } catch (IOException e) {
+                    logger.error("Unable to accept connections on {}", address, e);
+                }
+            }
+        });
+        logger.info("NIO server {} listening on port {}", nodeId, getLocalPort());
+    }
+
+    /**
+     * Closes all the connections and stops the I/O threads and the dedicated pool of the server
+     */
+    public synchronized void stop() {
+        if (serverChannel == null) {
+            return;
+        }
+        // the listening channel is closed by the first loop
+        for (NioEventLoop loop : loops) {
+            loop.shutdown();
+        }
+        serverChannel = null;
+        loops = null;
+        shutdownOwnExecutor();
+        logger.info("NIO server {} stopped", nodeId);
+    }
+
+    /**
+     * @return the listening port, -1 if the server is not started
+     */
+    public synchronized int getLocalPort() {
+        return serverChannel != null ? serverChannel.socket().getLocalPort() : -1;
+    }
+
+    /**
+     * @return the number of open connections
+     */
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    @Override
+    public void sendDTO(KeypleDto keypleDto) throws KeypleRemoteException {
+        NioConnection connection = connectionsByNodeId.get(keypleDto.getTargetNodeId());
+        if (connection == null || !connection.isOpen()) {
+            throw new KeypleRemoteException(
+                    "No connection with the node " + keypleDto.getTargetNodeId());
+        }
+        send(connection, keypleDto);
+    }
+
+    @Override
+    public void onConnected(NioConnection connection) {
+        super.onConnected(connection);
+        connectionCount.incrementAndGet();
+        logger.debug("Connection accepted {}", connection);
+    }
+
+    @Override
+    protected void onDtoReceived(NioConnection connection, KeypleDto keypleDto) {
+        String requesterNodeId = keypleDto.getRequesterNodeId();
+        if (requesterNodeId != null && !requesterNodeId.equals(connection.getNodeId())) {
+            connection.setNodeId(requesterNodeId);
+            NioConnection previous = connectionsByNodeId.put(requesterNodeId, connection);
+            if (previous != null && previous != connection) {
+                logger.warn("Node {} reconnected, closing its previous connection",
+                        requesterNodeId);
+                previous.close();
+            }
+        }
+    }
+
+    @Override
+    public void onClosed(NioConnection connection) {
+        super.onClosed(connection);
+        connectionCount.decrementAndGet();
+        if (connection.getNodeId() != null) {
+            connectionsByNodeId.remove(connection.getNodeId(), connection);
+        }
+        logger.debug("Connection closed {}", connection);
+    }
+
+    /**
+     * Accepts the incoming connections and distributes them between the loops
+     */
+    private final class Acceptor implements NioEventLoop.SelectionHandler {
+
+        private final NioEventLoop[] acceptLoops;
+
+        private Acceptor(NioEventLoop[] acceptLoops) {
+            this.acceptLoops = acceptLoops;
+        }
+
+        @Override
+        public void onSelected(SelectionKey key) {
+            SocketChannel channel;
+            try {
+                while ((channel = ((ServerSocketChannel) key.channel()).accept()) != null) {
+                    channel.configureBlocking(false);
+                    channel.socket().setTcpNoDelay(true);
+                    final NioEventLoop loop =
+                            acceptLoops[(nextLoop.getAndIncrement() & Integer.MAX_VALUE)
+                                    % acceptLoops.length];
+                    final NioConnection connection =
+                            new NioConnection(channel, loop, settings, NioServer.this);
+                    if (loop.inLoop()) {
+                        connection.register(false);
+                    } else {
+                        loop.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                connection.register(false);
+                            }
+                        });
+                    }
+                }
+            } catch (IOException e) {
+                logger.error("Error while accepting a connection on {}", address, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.transport.impl.nio;
+
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
+import org.eclipse.keyple.plugin.remotese.transport.model.TransportDto;
+
+/**
+ * Transport DTO of the NIO transport: the response to a received DTO is sent back on the
+ * connection it has been received from.
+ */
+public class NioTransportDto implements TransportDto {
+
+    private final KeypleDto keypleDto;
+    private final NioConnection connection;
+
+    NioTransportDto(KeypleDto keypleDto, NioConnection connection) {
+        this.keypleDto = keypleDto;
+        this.connection = connection;
+    }
+
+    NioConnection getConnection() {
+        return connection;
+    }
+
+    @Override
+    public KeypleDto getKeypleDTO() {
+        return keypleDto;
+    }
+
+    @Override
+    public TransportDto nextTransportDTO(KeypleDto keypleDto) {
+        return new NioTransportDto(keypleDto, connection);
+    }
+}
@@ -0,0 +1,70 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.transport.impl.nio;
+
+import java.net.InetSocketAddress;
+import org.eclipse.keyple.plugin.remotese.transport.factory.ClientNode;
+import org.eclipse.keyple.plugin.remotese.transport.factory.ServerNode;
+import org.eclipse.keyple.plugin.remotese.transport.factory.TransportFactory;
+
+/**
+ * Factory to create a NIO TCP {@link ClientNode} and {@link ServerNode}.
+ * <p>
+ * The server is created on the first call to {@link #getServer()} and must be started with
+ * {@link ServerNode#start()}, the clients must be connected with
+ * {@link ClientNode#connect(ClientNode.ConnectCallback)}.
+ */
+public class NioTransportFactory extends TransportFactory {
+
+    private final String serverNodeId;
+    private final InetSocketAddress serverAddress;
+    private final NioTransportSettings settings;
+    private NioServer server;
+
+    /**
+     * @param serverNodeId the node id of the server
+     * @param serverAddress the address of the server (the listening address on the server side)
+     */
+    public NioTransportFactory(String serverNodeId, InetSocketAddress serverAddress) {
+        this(serverNodeId, serverAddress, NioTransportSettings.DEFAULT);
+    }
+
+    /**
+     * @param serverNodeId the node id of the server
+     * @param serverAddress the address of the server (the listening address on the server side)
+     * @param settings the transport settings
+     */
+    public NioTransportFactory(String serverNodeId, InetSocketAddress serverAddress,
+            NioTransportSettings settings) {
+        this.serverNodeId = serverNodeId;
+        this.serverAddress = serverAddress;
+        this.settings = settings;
+    }
+
+    @Override
+    public ClientNode getClient(String clientNodeId) {
+        return new NioClient(clientNodeId, serverNodeId, serverAddress, settings, null);
+    }
+
+    @Override
+    public synchronized ServerNode getServer() {
+        if (server == null) {
+            server = new NioServer(serverNodeId, serverAddress, settings, null);
+        }
+        return server;
+    }
+
+    @Override
+    public String getServerNodeId() {
+        return serverNodeId;
+    }
+}
@@ -0,0 +1,209 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.transport.impl.nio;
+
+import org.eclipse.keyple.plugin.remotese.transport.codec.DtoCodecs;
+import org.eclipse.keyple.plugin.remotese.transport.codec.KeypleDtoCodec;
+
+/**
+ * Settings of the NIO TCP transport ({@link NioServer} and {@link NioClient}).
+ * <p>
+ * The default values fit a master node holding thousands of slave connections: a few I/O threads,
+ * small per-connection buffers and a heartbeat every 10 seconds.
+ */
+public final class NioTransportSettings {
+
+    /** default settings */
+    public static final NioTransportSettings DEFAULT = builder().build();
+
+    private final int nbIoThreads;
+    private final long heartbeatInterval;
+    private final int maxFrameLength;
+    private final int maxPendingWriteBytes;
+    private final int maxPendingInboundFrames;
+    private final long sendTimeout;
+    private final KeypleDtoCodec codec;
+
+    /** Private constructor */
+    private NioTransportSettings(NioTransportSettingsBuilder builder) {
+        this.nbIoThreads = builder.nbIoThreads;
+        this.heartbeatInterval = builder.heartbeatInterval;
+        this.maxFrameLength = builder.maxFrameLength;
+        this.maxPendingWriteBytes = builder.maxPendingWriteBytes;
+        this.maxPendingInboundFrames = builder.maxPendingInboundFrames;
+        this.sendTimeout = builder.sendTimeout;
+        this.codec = builder.codec;
+    }
+
+    /**
+     * Builder for the {@link NioTransportSettings}
+     */
+    public static final class NioTransportSettingsBuilder {
+        private int nbIoThreads = 2;
+        private long heartbeatInterval = 10000;
+        private int maxFrameLength = 1024 * 1024;
+        private int maxPendingWriteBytes = 256 * 1024;
+        private int maxPendingInboundFrames = 64;
+        private long sendTimeout = 5000;
+        private KeypleDtoCodec codec = DtoCodecs.BINARY;
+
+        /** Private constructor */
+        private NioTransportSettingsBuilder() {}
+
+        /**
+         * Sets the number of selector threads of a server, each one serving its share of the
+         * connections (a client uses a single thread)
+         *
+         * @param nbIoThreads the number of I/O threads (default 2)
+         * @return the builder instance
+         */
+        public NioTransportSettingsBuilder nbIoThreads(int nbIoThreads) {
+            this.nbIoThreads = nbIoThreads;
+            return this;
+        }
+
+        /**
+         * Sets the interval of the heartbeats sent on an idle connection. A connection on which
+         * nothing is received during 3 intervals is closed.
+         *
+         * @param heartbeatInterval the interval in milliseconds, 0 to disable the heartbeats
+         *        (default 10000)
+         * @return the builder instance
+         */
+        public NioTransportSettingsBuilder heartbeatInterval(long heartbeatInterval) {
+            this.heartbeatInterval = heartbeatInterval;
+            return this;
+        }
+
+        /**
+         * Sets the maximum length of a received frame, a longer frame closes the connection
+         *
+         * @param maxFrameLength the length in bytes (default 1 MB)
+         * @return the builder instance
+         */
+        public NioTransportSettingsBuilder maxFrameLength(int maxFrameLength) {
+            this.maxFrameLength = maxFrameLength;
+            return this;
+        }
+
+        /**
+         * Sets the amount of data waiting to be written on a connection above which the senders
+         * are blocked
+         *
+         * @param maxPendingWriteBytes the amount in bytes (default 256 KB)
+         * @return the builder instance
+         */
+        public NioTransportSettingsBuilder maxPendingWriteBytes(int maxPendingWriteBytes) {
+            this.maxPendingWriteBytes = maxPendingWriteBytes;
+            return this;
+        }
+
+        /**
+         * Sets the number of received messages waiting to be processed on a connection above
+         * which the reading of the connection is suspended
+         *
+         * @param maxPendingInboundFrames the number of messages (default 64)
+         * @return the builder instance
+         */
+        public NioTransportSettingsBuilder maxPendingInboundFrames(int maxPendingInboundFrames) {
+            this.maxPendingInboundFrames = maxPendingInboundFrames;
+            return this;
+        }
+
+        /**
+         * Sets the maximum time a sender waits for the pending data of a connection to be written
+         *
+         * @param sendTimeout the timeout in milliseconds (default 5000)
+         * @return the builder instance
+         */
+        public NioTransportSettingsBuilder sendTimeout(long sendTimeout) {
+            this.sendTimeout = sendTimeout;
+            return this;
+        }
+
+        /**
+         * Sets the preferred codec of the sent messages: it is used with a peer which accepts it
+         * (negotiated once connected), json otherwise. The received messages are decoded whatever
+         * their codec.
+         *
+         * @param codec the codec (default {@link DtoCodecs#BINARY})
+         * @return the builder instance
+         */
+        public NioTransportSettingsBuilder codec(KeypleDtoCodec codec) {
+            this.codec = codec;
+            return this;
+        }
+
+        /**
+         * Build a new {@link NioTransportSettings}
+         *
+         * @return a new instance
+         * @throws IllegalArgumentException if a setting is out of range
+         */
+        public NioTransportSettings build() {
+            if (nbIoThreads <= 0 || heartbeatInterval < 0 || maxFrameLength <= 0
+                    || maxPendingWriteBytes <= 0 || maxPendingInboundFrames <= 0
+                    || sendTimeout < 0) {
+                throw new IllegalArgumentException("Invalid NIO transport settings");
+            }
+            if (codec == null) {
+                throw new IllegalArgumentException("Codec must not be null");
+            }
+            return new NioTransportSettings(this);
+        }
+    }
+
+    /**
+     * Gets a new builder
+     *
+     * @return a new builder instance
+     */
+    public static NioTransportSettingsBuilder builder() {
+        return new NioTransportSettingsBuilder();
+    }
+
+    public int getNbIoThreads() {
+        return nbIoThreads;
+    }
+
+    public long getHeartbeatInterval() {
+        return heartbeatInterval;
+    }
+
+    /**
+     * @return the time without any received data after which a connection is closed (0 if the
+     *         heartbeats are disabled)
+     */
+    public long getIdleTimeout() {
+        return 3 * heartbeatInterval;
+    }
+
+    public int getMaxFrameLength() {
+        return maxFrameLength;
+    }
+
+    public int getMaxPendingWriteBytes() {
+        return maxPendingWriteBytes;
+    }
+
+    public int getMaxPendingInboundFrames() {
+        return maxPendingInboundFrames;
+    }
+
+    public long getSendTimeout() {
+        return sendTimeout;
+    }
+
+    public KeypleDtoCodec getCodec() {
+        return codec;
+    }
+}
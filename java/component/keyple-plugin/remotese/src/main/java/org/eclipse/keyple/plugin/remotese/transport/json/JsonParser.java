@@ -13,21 +13,66 @@ package org.eclipse.keyple.plugin.remotese.transport.json;
 
 
 
+import java.io.IOException;
 import org.eclipse.keyple.core.seproxy.protocol.SeProtocol;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * Json Parser for Keyple DTO and Keyple DTO fields
  */
 public class JsonParser {
 
+    /* Gson instances are thread-safe, a single one is shared */
+    private static final Gson gson = createGson();
+
     public static Gson getGson() {
+        return gson;
+    }
+
+    private static Gson createGson() {
         final GsonBuilder gsonBuilder = new GsonBuilder();
         gsonBuilder.registerTypeAdapter(SeProtocol.class, new GsonSeProtocolTypeAdapter());
         gsonBuilder.registerTypeAdapter(byte[].class, new HexTypeAdapter());
+        gsonBuilder.registerTypeAdapterFactory(new KeypleDtoTypeAdapterFactory());
         // gsonBuilder.setPrettyPrinting(); disable pretty printing for inline json
         return gsonBuilder.create();
     }
 
+    /**
+     * Makes sure the json body of a {@link KeypleDto} built with a payload is computed before its
+     * serialization
+     */
+    private static class KeypleDtoTypeAdapterFactory implements TypeAdapterFactory {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (!KeypleDto.class.isAssignableFrom(type.getRawType())) {
+                return null;
+            }
+            final TypeAdapter<KeypleDto> delegate =
+                    (TypeAdapter<KeypleDto>) gson.getDelegateAdapter(this, type);
+            return (TypeAdapter<T>) new TypeAdapter<KeypleDto>() {
+                @Override
+                public void write(JsonWriter out, KeypleDto keypleDto) throws IOException {
+                    if (keypleDto != null) {
+                        keypleDto.getBody();
+                    }
+                    delegate.write(out, keypleDto);
+                }
+
+                @Override
+                public KeypleDto read(JsonReader in) throws IOException {
+                    return delegate.read(in);
+                }
+            };
+        }
+    }
 }
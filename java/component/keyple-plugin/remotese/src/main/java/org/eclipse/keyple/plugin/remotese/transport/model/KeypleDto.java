@@ -27,8 +27,11 @@ public class KeypleDto {
     // API method to be called (required)
     private final String action;
 
-    // Params of the API (optional)
-    private final String body;
+    // Params of the API (optional), computed from the payload if any
+    private volatile String body;
+
+    // Structured params of the API (optional), not serialized in json
+    private final transient KeypleDtoPayload payload;
 
     // Is a request or a response (required)
     private final Boolean isRequest;
@@ -78,9 +81,38 @@ public class KeypleDto {
             String nativeReaderName, String virtualReaderName, String requesterNodeId,
             String targetNodeId, String id, String error) {
 
+        this(action, body, null, isRequest, sessionId, nativeReaderName, virtualReaderName,
+                requesterNodeId, targetNodeId, id, error);
+    }
+
+    /**
+     * Constructor of a KeypleDto whose body is provided as a structured payload
+     *
+     * @param action : API method to be called (required)
+     * @param payload : Arguments of the API, the json body is computed when requested (required)
+     * @param isRequest : Is a request or a response (required)
+     * @param sessionId : Session Id of current Virtual Reader Session Id (optional)
+     * @param nativeReaderName : readerName of the native reader (required)
+     * @param virtualReaderName : readerName of the virtual reader (optional)
+     * @param requesterNodeId : node the request is sent from (required)
+     * @param targetNodeId : node the request is sent to (required)
+     * @param id : unique id of this request (optional)
+     */
+    public KeypleDto(String action, KeypleDtoPayload payload, Boolean isRequest,
+            String sessionId, String nativeReaderName, String virtualReaderName,
+            String requesterNodeId, String targetNodeId, String id) {
+        this(action, null, payload, isRequest, sessionId, nativeReaderName, virtualReaderName,
+                requesterNodeId, targetNodeId, id, null);
+    }
+
+    private KeypleDto(String action, String body, KeypleDtoPayload payload, Boolean isRequest,
+            String sessionId, String nativeReaderName, String virtualReaderName,
+            String requesterNodeId, String targetNodeId, String id, String error) {
+
         this.sessionId = sessionId;
         this.action = action;
         this.body = body;
+        this.payload = payload;
         this.isRequest = isRequest;
         this.nativeReaderName = nativeReaderName;
         this.virtualReaderName = virtualReaderName;
@@ -103,10 +135,27 @@ public class KeypleDto {
         return action;
     }
 
+    /**
+     * Get the json body, computed from the payload (and kept) if the dto was built with a payload
+     *
+     * @return the json body
+     */
     public String getBody() {
+        if (body == null && payload != null) {
+            body = payload.toJson();
+        }
         return body;
     }
 
+    /**
+     * Get the structured body
+     *
+     * @return the payload, null if the dto was built (or parsed) with a json body
+     */
+    public KeypleDtoPayload getPayload() {
+        return payload;
+    }
+
     public String getSessionId() {
         return sessionId;
     }
@@ -70,6 +70,48 @@ public final class KeypleDtoHelper {
                 requesterNodeId, targetNodeId, id, null);
     }
 
+    /**
+     * Build a KeypleDto of type "Request" with a structured body, its json body is only computed
+     * if requested
+     * 
+     * @param action : name of the remote method
+     * @param payload : parameters of the remote method
+     * @param sessionId : virtual session id (if exists)
+     * @param nativeReaderName : name of the local reader
+     * @param virtualReaderName : name of the virtual reader (if exists)
+     * @param requesterNodeId : node id of the sender
+     * @param targetNodeId : node id of the destinee
+     * @param id : unique id for this request
+     * @return keypleDto request
+     */
+    public static KeypleDto buildRequest(String action, KeypleDtoPayload payload,
+            String sessionId, String nativeReaderName, String virtualReaderName,
+            String requesterNodeId, String targetNodeId, String id) {
+        return new KeypleDto(action, payload, true, sessionId, nativeReaderName,
+                virtualReaderName, requesterNodeId, targetNodeId, id);
+    }
+
+    /**
+     * Build a KeypleDto of type "Response" with a structured body, its json body is only computed
+     * if requested
+     * 
+     * @param action : name of the remote method
+     * @param payload : result of the remote method
+     * @param sessionId : virtual session id (if exists)
+     * @param nativeReaderName : name of the local reader
+     * @param virtualReaderName : name of the virtual reader (if exists)
+     * @param requesterNodeId : node id of the sender
+     * @param targetNodeId : node id of the destinee
+     * @param id : id of the request
+     * @return keypleDto response
+     */
+    public static KeypleDto buildResponse(String action, KeypleDtoPayload payload,
+            String sessionId, String nativeReaderName, String virtualReaderName,
+            String requesterNodeId, String targetNodeId, String id) {
+        return new KeypleDto(action, payload, false, sessionId, nativeReaderName,
+                virtualReaderName, requesterNodeId, targetNodeId, id);
+    }
+
     /**
      * Build a KeypleDto of type "Notification", (without id)
      * 
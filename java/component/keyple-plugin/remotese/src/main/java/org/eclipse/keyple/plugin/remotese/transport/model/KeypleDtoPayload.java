@@ -0,0 +1,196 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.transport.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.eclipse.keyple.core.seproxy.ChannelControl;
+import org.eclipse.keyple.core.seproxy.MultiSeRequestProcessing;
+import org.eclipse.keyple.core.seproxy.message.SeRequest;
+import org.eclipse.keyple.core.seproxy.message.SeResponse;
+import org.eclipse.keyple.plugin.remotese.transport.json.JsonParser;
+import com.google.gson.JsonObject;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Structured body of the transmit {@link KeypleDto}s.
+ * <p>
+ * A {@link KeypleDto} built with a payload does not compute its json body until it is requested
+ * (see {@link KeypleDto#getBody()}): a binary codec can thus encode the SE requests and responses
+ * directly, and a transport passing the objects in memory does not serialize anything.
+ * <p>
+ * The json representation is the one of the json body of the corresponding remote methods.
+ */
+public final class KeypleDtoPayload {
+
+    /** Kind of content of the payload */
+    public enum Type {
+        /** Request of the READER_TRANSMIT remote method */
+        SE_REQUEST,
+        /** Request of the READER_TRANSMIT_SET remote method */
+        SE_REQUEST_SET,
+        /** Response of the READER_TRANSMIT remote method */
+        SE_RESPONSE,
+        /** Response of the READER_TRANSMIT_SET remote method */
+        SE_RESPONSE_SET
+    }
+
+    private final Type type;
+    private final List<SeRequest> seRequests;
+    private final List<SeResponse> seResponses;
+    private final MultiSeRequestProcessing multiSeRequestProcessing;
+    private final ChannelControl channelControl;
+
+    private KeypleDtoPayload(Type type, List<SeRequest> seRequests,
+            List<SeResponse> seResponses, MultiSeRequestProcessing multiSeRequestProcessing,
+            ChannelControl channelControl) {
+        this.type = type;
+        this.seRequests = seRequests;
+        this.seResponses = seResponses;
+        this.multiSeRequestProcessing = multiSeRequestProcessing;
+        this.channelControl = channelControl;
+    }
+
+    /**
+     * Builds the payload of a transmit request
+     *
+     * @param seRequest the SE request
+     * @param channelControl the channel control
+     * @return a new payload
+     */
+    public static KeypleDtoPayload seRequest(SeRequest seRequest, ChannelControl channelControl) {
+        if (channelControl == null) {
+            throw new IllegalArgumentException("Channel control must not be null");
+        }
+        return new KeypleDtoPayload(Type.SE_REQUEST, Collections.singletonList(seRequest), null,
+                null, channelControl);
+    }
+
+    /**
+     * Builds the payload of a transmit set request
+     *
+     * @param seRequests the SE requests
+     * @param multiSeRequestProcessing the multiple SE request processing mode
+     * @param channelControl the channel control
+     * @return a new payload
+     */
+    public static KeypleDtoPayload seRequestSet(List<SeRequest> seRequests,
+            MultiSeRequestProcessing multiSeRequestProcessing, ChannelControl channelControl) {
+        if (seRequests == null || multiSeRequestProcessing == null || channelControl == null) {
+            throw new IllegalArgumentException(
+                    "SE requests, processing mode and channel control must not be null");
+        }
+        return new KeypleDtoPayload(Type.SE_REQUEST_SET, seRequests, null,
+                multiSeRequestProcessing, channelControl);
+    }
+
+    /**
+     * Builds the payload of a transmit response
+     *
+     * @param seResponse the SE response (may be null)
+     * @return a new payload
+     */
+    public static KeypleDtoPayload seResponse(SeResponse seResponse) {
+        return new KeypleDtoPayload(Type.SE_RESPONSE, null,
+                Collections.singletonList(seResponse), null, null);
+    }
+
+    /**
+     * Builds the payload of a transmit set response
+     *
+     * @param seResponses the SE responses (may be null)
+     * @return a new payload
+     */
+    public static KeypleDtoPayload seResponseSet(List<SeResponse> seResponses) {
+        return new KeypleDtoPayload(Type.SE_RESPONSE_SET, null, seResponses, null, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the SE request of a {@link Type#SE_REQUEST} payload
+     */
+    public SeRequest getSeRequest() {
+        return seRequests.get(0);
+    }
+
+    /**
+     * @return the SE requests of a {@link Type#SE_REQUEST} or {@link Type#SE_REQUEST_SET} payload
+     */
+    public List<SeRequest> getSeRequests() {
+        return seRequests;
+    }
+
+    /**
+     * @return the SE response of a {@link Type#SE_RESPONSE} payload
+     */
+    public SeResponse getSeResponse() {
+        return seResponses.get(0);
+    }
+
+    /**
+     * @return the SE responses of a {@link Type#SE_RESPONSE} or {@link Type#SE_RESPONSE_SET}
+     *         payload
+     */
+    public List<SeResponse> getSeResponses() {
+        return seResponses;
+    }
+
+    public MultiSeRequestProcessing getMultiSeRequestProcessing() {
+        return multiSeRequestProcessing;
+    }
+
+    public ChannelControl getChannelControl() {
+        return channelControl;
+    }
+
+    /**
+     * Computes the json body of the remote method
+     *
+     * @return the json body
+     */
+    public String toJson() {
+        JsonObject body;
+        switch (type) {
+            case SE_REQUEST:
+                body = new JsonObject();
+                body.addProperty("seRequest",
+                        JsonParser.getGson().toJson(getSeRequest(), SeRequest.class));
+                body.addProperty("channelControl", channelControl.name());
+                return body.toString();
+            case SE_REQUEST_SET:
+                body = new JsonObject();
+                body.addProperty("seRequests", JsonParser.getGson().toJson(seRequests,
+                        new TypeToken<ArrayList<SeRequest>>() {}.getType()));
+                body.addProperty("multiSeRequestProcessing", multiSeRequestProcessing.name());
+                body.addProperty("channelControl", channelControl.name());
+                return body.toString();
+            case SE_RESPONSE:
+                return JsonParser.getGson().toJson(getSeResponse(), SeResponse.class);
+            case SE_RESPONSE_SET:
+                return JsonParser.getGson().toJson(seResponses,
+                        new TypeToken<ArrayList<SeResponse>>() {}.getType());
+            default:
+                throw new IllegalStateException("Unexpected payload type " + type);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "KeypleDtoPayload{" + "type=" + type + ", seRequests=" + seRequests
+                + ", seResponses=" + seResponses + ", multiSeRequestProcessing="
+                + multiSeRequestProcessing + ", channelControl=" + channelControl + '}';
+    }
+}
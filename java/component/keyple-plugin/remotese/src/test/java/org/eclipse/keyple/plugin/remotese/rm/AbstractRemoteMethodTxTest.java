@@ -0,0 +1,206 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.rm;
+
+import static org.mockito.Mockito.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.keyple.plugin.remotese.CoreBaseTest;
+import org.eclipse.keyple.plugin.remotese.exception.KeypleRemoteException;
+import org.eclipse.keyple.plugin.remotese.transport.DtoSender;
+import org.eclipse.keyple.plugin.remotese.transport.model.DefaultTransportDto;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class AbstractRemoteMethodTxTest extends CoreBaseTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(AbstractRemoteMethodTxTest.class);
+
+    final long WAIT = 5000;
+
+    DtoSender sender;
+    BlockingQueue<KeypleDto> sentDtos;
+    List<String> sendingThreads;
+
+    @Before
+    public void setUp() throws Exception {
+        logger.info("------------------------------");
+        logger.info("Test {}", name.getMethodName() + "");
+        logger.info("------------------------------");
+        sentDtos = new LinkedBlockingQueue<KeypleDto>();
+        sendingThreads = new ArrayList<String>();
+        sender = mock(DtoSender.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                synchronized (sendingThreads) {
+                    sendingThreads.add(Thread.currentThread().getName());
+                }
+                sentDtos.add((KeypleDto) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(sender).sendDTO(any(KeypleDto.class));
+    }
+
+    @Test
+    public void executeAsync_directExecutor_sentInCallerThread() throws Exception {
+        RemoteMethodTxEngine engine = new RemoteMethodTxEngine(sender, WAIT,
+                RemoteMethodTxExecutors.directExecutor());
+        final BlockingQueue<String> callbackResponses = new LinkedBlockingQueue<String>();
+
+        /* test */
+        Future<String> result =
+                new EchoTx("reader").executeAsync(engine, new IRemoteMethodTxCallback<String>() {
+                    @Override
+                    public void get(String response, KeypleRemoteException exception) {
+                        callbackResponses.add(response);
+                    }
+                });
+
+        /* Assert : sent, but not completed until the response */
+        Assert.assertEquals(1, sentDtos.size());
+        Assert.assertEquals(Thread.currentThread().getName(), sendingThreads.get(0));
+        Assert.assertFalse(result.isDone());
+
+        engine.onResponseDto(new DefaultTransportDto(EchoTx.response(sentDtos.poll())));
+
+        Assert.assertTrue(result.isDone());
+        Assert.assertEquals("reader", result.get());
+        Assert.assertEquals("reader", callbackResponses.poll());
+        Assert.assertEquals(0, engine.getPendingTxCount());
+    }
+
+    @Test
+    public void executeAsync_manyPendingCalls() throws Exception {
+        RemoteMethodTxEngine engine = new RemoteMethodTxEngine(sender, WAIT,
+                RemoteMethodTxExecutors.directExecutor());
+        List<Future<String>> results = new ArrayList<Future<String>>();
+
+        /* test : no thread is waiting for the responses */
+        for (int i = 0; i < 500; i++) {
+            results.add(new EchoTx("reader" + i).executeAsync(engine, null));
+        }
+        Assert.assertEquals(500, engine.getPendingTxCount());
+        KeypleDto request;
+        while ((request = sentDtos.poll()) != null) {
+            engine.onResponseDto(new DefaultTransportDto(EchoTx.response(request)));
+        }
+
+        /* Assert */
+        for (int i = 0; i < 500; i++) {
+            Assert.assertEquals("reader" + i, results.get(i).get(0, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    public void executeAsync_sendFailure() throws Exception {
+        doThrow(new KeypleRemoteException("Unable to send")).when(sender)
+                .sendDTO(any(KeypleDto.class));
+        RemoteMethodTxEngine engine = new RemoteMethodTxEngine(sender, WAIT,
+                RemoteMethodTxExecutors.directExecutor());
+
+        /* test */
+        Future<String> result = new EchoTx("reader").executeAsync(engine, null);
+
+        /* Assert */
+        try {
+            result.get(WAIT, TimeUnit.MILLISECONDS);
+            Assert.fail("An ExecutionException is expected");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof KeypleRemoteException);
+        }
+    }
+
+    @Test
+    public void send_afterException_callbackCompletedAtOnce() throws Exception {
+        EchoTx tx = new EchoTx("reader");
+        tx.setDtoSender(sender);
+        KeypleRemoteException deadline = new KeypleRemoteException("Waiting time elapsed");
+        final BlockingQueue<KeypleRemoteException> callbackExceptions =
+                new LinkedBlockingQueue<KeypleRemoteException>();
+
+        /* test : the deadline fires before the callback is attached */
+        tx.setException(deadline);
+        tx.send(new IRemoteMethodTxCallback<String>() {
+            @Override
+            public void get(String response, KeypleRemoteException exception) {
+                callbackExceptions.add(exception);
+            }
+        });
+
+        /* Assert */
+        Assert.assertSame(deadline, callbackExceptions.poll());
+        Assert.assertEquals(0, sentDtos.size());
+    }
+
+    @Test
+    public void execute_threadPerTaskExecutor() throws Exception {
+        final AtomicInteger nbThreads = new AtomicInteger();
+        ExecutorService executorService =
+                RemoteMethodTxExecutors.newThreadPerTaskExecutor(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        return new Thread(r, "sender-" + nbThreads.incrementAndGet());
+                    }
+                });
+        final RemoteMethodTxEngine engine =
+                new RemoteMethodTxEngine(sender, WAIT, executorService);
+
+        /* test : answer from another thread */
+        Thread responder = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    KeypleDto request = sentDtos.poll(WAIT, TimeUnit.MILLISECONDS);
+                    engine.onResponseDto(new DefaultTransportDto(EchoTx.response(request)));
+                } catch (InterruptedException e) {
+                    logger.error("Interrupted", e);
+                }
+            }
+        };
+        responder.start();
+        String response = new EchoTx("reader").execute(engine);
+        responder.join(WAIT);
+
+        /* Assert */
+        Assert.assertEquals("reader", response);
+        Assert.assertEquals(1, nbThreads.get());
+        Assert.assertEquals("sender-1", sendingThreads.get(0));
+        executorService.shutdown();
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void directExecutor_shutdown() {
+        ExecutorService executorService = RemoteMethodTxExecutors.directExecutor();
+        executorService.shutdown();
+
+        executorService.execute(new Runnable() {
+            @Override
+            public void run() {}
+        });
+    }
+}
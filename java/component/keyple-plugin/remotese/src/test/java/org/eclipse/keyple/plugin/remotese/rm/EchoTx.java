@@ -0,0 +1,53 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.rm;
+
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDtoHelper;
+
+/**
+ * Remote method answered with the name of the reader
+ */
+final class EchoTx extends AbstractRemoteMethodTx<String> {
+
+    EchoTx(String nativeReaderName) {
+        super(null, nativeReaderName, null, "slave", "master");
+    }
+
+    /**
+     * Builds the response of the other node to a request
+     *
+     * @param request the request
+     * @return the response, whose body is the name of the reader
+     */
+    static KeypleDto response(KeypleDto request) {
+        return KeypleDtoHelper.buildResponse(request.getAction(), request.getNativeReaderName(),
+                null, request.getNativeReaderName(), null, request.getTargetNodeId(),
+                request.getRequesterNodeId(), request.getId());
+    }
+
+    @Override
+    public RemoteMethodName getMethodName() {
+        return RemoteMethodName.READER_TRANSMIT;
+    }
+
+    @Override
+    protected KeypleDto dto() {
+        return KeypleDtoHelper.buildRequest(getMethodName().getName(), "", null,
+                nativeReaderName, null, requesterNodeId, targetNodeId, id);
+    }
+
+    @Override
+    protected String parseResponse(KeypleDto keypleDto) {
+        return keypleDto.getBody();
+    }
+}
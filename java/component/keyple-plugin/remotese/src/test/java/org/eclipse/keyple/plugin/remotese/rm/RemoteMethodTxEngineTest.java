@@ -0,0 +1,175 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.rm;
+
+import static org.mockito.Mockito.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.keyple.plugin.remotese.CoreBaseTest;
+import org.eclipse.keyple.plugin.remotese.exception.KeypleRemoteException;
+import org.eclipse.keyple.plugin.remotese.transport.DtoSender;
+import org.eclipse.keyple.plugin.remotese.transport.model.DefaultTransportDto;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDtoHelper;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class RemoteMethodTxEngineTest extends CoreBaseTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(RemoteMethodTxEngineTest.class);
+
+    final long WAIT = 5000;
+
+    ExecutorService executorService;
+    DtoSender sender;
+    BlockingQueue<KeypleDto> sentDtos;
+
+    @Before
+    public void setUp() throws Exception {
+        logger.info("------------------------------");
+        logger.info("Test {}", name.getMethodName() + "");
+        logger.info("------------------------------");
+        executorService = Executors.newCachedThreadPool();
+        sentDtos = new LinkedBlockingQueue<KeypleDto>();
+        sender = mock(DtoSender.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                sentDtos.add((KeypleDto) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(sender).sendDTO(any(KeypleDto.class));
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void execute_concurrentTxs_completedOutOfOrder() throws Exception {
+        final RemoteMethodTxEngine engine = new RemoteMethodTxEngine(sender, WAIT, executorService);
+        List<Future<String>> results = new ArrayList<Future<String>>();
+
+        /* test */
+        for (int i = 0; i < 3; i++) {
+            final EchoTx tx = new EchoTx("reader" + i);
+            results.add(executorService.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    return tx.execute(engine);
+                }
+            }));
+        }
+        List<KeypleDto> requests = new ArrayList<KeypleDto>();
+        for (int i = 0; i < 3; i++) {
+            requests.add(sentDtos.poll(WAIT, TimeUnit.MILLISECONDS));
+        }
+        Assert.assertEquals(3, engine.getPendingTxCount());
+        Collections.reverse(requests);
+        for (KeypleDto request : requests) {
+            engine.onResponseDto(new DefaultTransportDto(EchoTx.response(request)));
+        }
+
+        /* Assert */
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals("reader" + i, results.get(i).get(WAIT, TimeUnit.MILLISECONDS));
+        }
+        Assert.assertEquals(0, engine.getPendingTxCount());
+    }
+
+    @Test
+    public void execute_noAnswer_timeout() throws Exception {
+        RemoteMethodTxEngine engine = new RemoteMethodTxEngine(sender, 100, executorService);
+        EchoTx tx = new EchoTx("reader");
+
+        /* test */
+        try {
+            tx.execute(engine);
+            Assert.fail("A KeypleRemoteException is expected");
+        } catch (KeypleRemoteException e) {
+            logger.debug("Expected exception : {}", e.getMessage());
+        }
+
+        /* Assert : the late response is rejected */
+        Thread.sleep(50);
+        Assert.assertEquals(0, engine.getPendingTxCount());
+        try {
+            engine.onResponseDto(new DefaultTransportDto(EchoTx.response(sentDtos.poll())));
+            Assert.fail("An IllegalArgumentException is expected");
+        } catch (IllegalArgumentException e) {
+            logger.debug("Expected exception : {}", e.getMessage());
+        }
+    }
+
+    @Test
+    public void send_noAnswer_callbackCalledAtDeadline() throws Exception {
+        RemoteMethodTxEngine engine = new RemoteMethodTxEngine(sender, 100, executorService);
+        EchoTx tx = new EchoTx("reader");
+        final BlockingQueue<KeypleRemoteException> exceptions =
+                new LinkedBlockingQueue<KeypleRemoteException>();
+
+        /* test */
+        engine.register(tx);
+        tx.send(new IRemoteMethodTxCallback<String>() {
+            @Override
+            public void get(String response, KeypleRemoteException exception) {
+                exceptions.add(exception);
+            }
+        });
+
+        /* Assert */
+        Assert.assertNotNull(exceptions.poll(WAIT, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(0, engine.getPendingTxCount());
+    }
+
+    @Test
+    public void execute_methodTimeout() throws Exception {
+        RemoteMethodTxEngine engine = new RemoteMethodTxEngine(sender, 60000, executorService);
+        engine.setTimeout(RemoteMethodName.READER_TRANSMIT, 100);
+        long start = System.currentTimeMillis();
+
+        /* test */
+        try {
+            new EchoTx("reader").execute(engine);
+            Assert.fail("A KeypleRemoteException is expected");
+        } catch (KeypleRemoteException e) {
+            logger.debug("Expected exception : {}", e.getMessage());
+        }
+
+        /* Assert */
+        Assert.assertTrue(System.currentTimeMillis() - start < WAIT);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void onResponseDto_unknownId() {
+        RemoteMethodTxEngine engine = new RemoteMethodTxEngine(sender, WAIT, executorService);
+
+        engine.onResponseDto(new DefaultTransportDto(KeypleDtoHelper.buildResponse(
+                RemoteMethodName.READER_TRANSMIT.getName(), "body", null, "reader", null,
+                "slave", "master", "unknownId")));
+    }
+}
@@ -0,0 +1,268 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.rm.json;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.eclipse.keyple.core.seproxy.ChannelControl;
+import org.eclipse.keyple.core.seproxy.MultiSeRequestProcessing;
+import org.eclipse.keyple.core.seproxy.message.AnswerToReset;
+import org.eclipse.keyple.core.seproxy.message.ApduResponse;
+import org.eclipse.keyple.core.seproxy.message.SeResponse;
+import org.eclipse.keyple.core.seproxy.message.SelectionStatus;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.eclipse.keyple.plugin.remotese.rm.RemoteMethodName;
+import org.eclipse.keyple.plugin.remotese.transport.codec.BinaryDtoCodec;
+import org.eclipse.keyple.plugin.remotese.transport.codec.DtoCodecs;
+import org.eclipse.keyple.plugin.remotese.transport.codec.JsonDtoCodec;
+import org.eclipse.keyple.plugin.remotese.transport.codec.KeypleDtoCodec;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDtoHelper;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDtoPayload;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class DtoCodecsTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(DtoCodecsTest.class);
+
+    @Test
+    public void binary_plainDto() {
+        KeypleDto dto = KeypleDtoHelper.buildRequest("anyAction", "{\"any\":\"body\"}",
+                "sessionId", "anyReaderNameId", "anyVirtualId", "anyRequesterId", "anyTargetId",
+                "anyId");
+
+        KeypleDto decoded = roundTrip(DtoCodecs.BINARY, dto);
+
+        Assert.assertNull(decoded.getPayload());
+        Assert.assertEquals(KeypleDtoHelper.toJson(dto), KeypleDtoHelper.toJson(decoded));
+    }
+
+    @Test
+    public void binary_exceptionDto() {
+        KeypleDto dto = KeypleDtoHelper.ExceptionDTO(RemoteMethodName.READER_TRANSMIT.getName(),
+                SampleFactory.getAStackedKeypleException(), "any", "any", "any", "any", "any",
+                "any");
+
+        KeypleDto decoded = roundTrip(DtoCodecs.BINARY, dto);
+
+        Assert.assertTrue(KeypleDtoHelper.containsException(decoded));
+        Assert.assertFalse(decoded.isRequest());
+        Assert.assertEquals(dto.getError(), decoded.getError());
+        Assert.assertEquals(KeypleDtoHelper.toJson(dto), KeypleDtoHelper.toJson(decoded));
+    }
+
+    @Test
+    public void binary_noResponseDto() {
+        KeypleDto decoded = roundTrip(DtoCodecs.BINARY, KeypleDtoHelper.NoResponse("anyId"));
+
+        Assert.assertTrue(KeypleDtoHelper.isNoResponse(decoded));
+        Assert.assertEquals("anyId", decoded.getId());
+    }
+
+    @Test
+    public void binary_seRequestPayload() {
+        KeypleDtoPayload payload = KeypleDtoPayload
+                .seRequest(SampleFactory.getASeRequest_ISO14443_4(), ChannelControl.CLOSE_AFTER);
+        KeypleDto dto = KeypleDtoHelper.buildRequest(RemoteMethodName.READER_TRANSMIT.getName(),
+                payload, "sessionId", "native", "virtual", "master", "slave", "anyId");
+
+        KeypleDto decoded = roundTrip(DtoCodecs.BINARY, dto);
+
+        Assert.assertNotNull(decoded.getPayload());
+        Assert.assertEquals(KeypleDtoPayload.Type.SE_REQUEST, decoded.getPayload().getType());
+        Assert.assertEquals(ChannelControl.CLOSE_AFTER, decoded.getPayload().getChannelControl());
+        // same json representation as the original DTO
+        Assert.assertEquals(dto.getBody(), decoded.getBody());
+        Assert.assertEquals(KeypleDtoHelper.toJson(dto), KeypleDtoHelper.toJson(decoded));
+    }
+
+    @Test
+    public void binary_seRequestSetPayload() {
+        KeypleDtoPayload payload =
+                KeypleDtoPayload.seRequestSet(SampleFactory.getCompleteRequestList(),
+                        MultiSeRequestProcessing.PROCESS_ALL, ChannelControl.KEEP_OPEN);
+        KeypleDto dto =
+                KeypleDtoHelper.buildRequest(RemoteMethodName.READER_TRANSMIT_SET.getName(),
+                        payload, "sessionId", "native", "virtual", "master", "slave", "anyId");
+
+        KeypleDto decoded = roundTrip(DtoCodecs.BINARY, dto);
+
+        Assert.assertEquals(2, decoded.getPayload().getSeRequests().size());
+        Assert.assertEquals(MultiSeRequestProcessing.PROCESS_ALL,
+                decoded.getPayload().getMultiSeRequestProcessing());
+        Assert.assertEquals(dto.getBody(), decoded.getBody());
+    }
+
+    @Test
+    public void binary_seResponsePayload() {
+        ApduResponse fci = new ApduResponse(ByteArrayUtil.fromHex("6F0A84085041592E544943319000"),
+                null);
+        ApduResponse warning = new ApduResponse(ByteArrayUtil.fromHex("1122336283"),
+                Collections.singleton(0x6283));
+        ApduResponse error = new ApduResponse(ByteArrayUtil.fromHex("6A82"), null);
+        SeResponse seResponse = new SeResponse(true, false,
+                new SelectionStatus(new AnswerToReset(ByteArrayUtil.fromHex("3B8F8001")), fci,
+                        true),
+                Arrays.asList(warning, error));
+        KeypleDto dto = KeypleDtoHelper.buildResponse(RemoteMethodName.READER_TRANSMIT.getName(),
+                KeypleDtoPayload.seResponse(seResponse), "sessionId", "native", "virtual",
+                "slave", "master", "anyId");
+
+        KeypleDto decoded = roundTrip(DtoCodecs.BINARY, dto);
+        SeResponse decodedSeResponse = decoded.getPayload().getSeResponse();
+
+        Assert.assertEquals(seResponse, decodedSeResponse);
+        Assert.assertTrue(decodedSeResponse.getApduResponses().get(0).isSuccessful());
+        Assert.assertFalse(decodedSeResponse.getApduResponses().get(1).isSuccessful());
+        Assert.assertTrue(decodedSeResponse.getSelectionStatus().getFci().isSuccessful());
+        Assert.assertEquals(dto.getBody(), decoded.getBody());
+    }
+
+    @Test
+    public void binary_seResponseSetPayload() {
+        List<SeResponse> seResponses = SampleFactory.getCompleteResponseSet();
+        seResponses.add(null);
+        KeypleDto dto =
+                KeypleDtoHelper.buildResponse(RemoteMethodName.READER_TRANSMIT_SET.getName(),
+                        KeypleDtoPayload.seResponseSet(seResponses), "sessionId", "native",
+                        "virtual", "slave", "master", "anyId");
+
+        KeypleDto decoded = roundTrip(DtoCodecs.BINARY, dto);
+
+        Assert.assertEquals(seResponses, decoded.getPayload().getSeResponses());
+        Assert.assertEquals(dto.getBody(), decoded.getBody());
+    }
+
+    @Test
+    public void binary_smallerThanJson() {
+        KeypleDtoPayload payload =
+                KeypleDtoPayload.seRequestSet(SampleFactory.getCompleteRequestList(),
+                        MultiSeRequestProcessing.FIRST_MATCH, ChannelControl.KEEP_OPEN);
+        KeypleDto dto =
+                KeypleDtoHelper.buildRequest(RemoteMethodName.READER_TRANSMIT_SET.getName(),
+                        payload, "sessionId", "native", "virtual", "master", "slave", "anyId");
+
+        int binaryLength = DtoCodecs.BINARY.encode(dto).length;
+        int jsonLength = DtoCodecs.JSON.encode(dto).length;
+        logger.debug("Binary length : {}, json length : {}", binaryLength, jsonLength);
+
+        Assert.assertTrue(binaryLength * 3 < jsonLength);
+    }
+
+    @Test
+    public void json_payloadDto() {
+        KeypleDto dto = KeypleDtoHelper.buildRequest(RemoteMethodName.READER_TRANSMIT.getName(),
+                KeypleDtoPayload.seRequest(SampleFactory.getASeRequest(),
+                        ChannelControl.KEEP_OPEN),
+                "sessionId", "native", "virtual", "master", "slave", "anyId");
+
+        KeypleDto decoded = roundTrip(DtoCodecs.JSON, dto);
+
+        // the json codec transports the body only
+        Assert.assertNull(decoded.getPayload());
+        Assert.assertEquals(dto.getBody(), decoded.getBody());
+    }
+
+    @Test
+    public void detect_and_decode() {
+        KeypleDto dto = KeypleDtoHelper.buildNotification("anyAction", "anyBody", "sessionId",
+                "anyReaderNameId", "anyVirtualId", "anyRequesterId", "anyTargetId");
+        byte[] binary = DtoCodecs.BINARY.encode(dto);
+        byte[] json = DtoCodecs.JSON.encode(dto);
+
+        Assert.assertSame(DtoCodecs.BINARY, DtoCodecs.detect(binary));
+        Assert.assertSame(DtoCodecs.JSON, DtoCodecs.detect(json));
+        Assert.assertEquals(KeypleDtoHelper.toJson(dto),
+                KeypleDtoHelper.toJson(DtoCodecs.decode(binary)));
+        Assert.assertEquals(KeypleDtoHelper.toJson(dto),
+                KeypleDtoHelper.toJson(DtoCodecs.decode(json)));
+    }
+
+    @Test
+    public void forName() {
+        Assert.assertSame(DtoCodecs.BINARY, DtoCodecs.forName(BinaryDtoCodec.NAME));
+        Assert.assertSame(DtoCodecs.JSON, DtoCodecs.forName(JsonDtoCodec.NAME));
+    }
+
+    @Test
+    public void negotiate() {
+        List<String> preferred = Arrays.asList(BinaryDtoCodec.NAME, JsonDtoCodec.NAME);
+
+        Assert.assertSame(DtoCodecs.BINARY, DtoCodecs.negotiate(preferred,
+                Arrays.asList(JsonDtoCodec.NAME, BinaryDtoCodec.NAME)));
+        Assert.assertSame(DtoCodecs.JSON, DtoCodecs.negotiate(preferred,
+                Collections.singletonList(JsonDtoCodec.NAME)));
+        Assert.assertSame(DtoCodecs.JSON,
+                DtoCodecs.negotiate(preferred, Collections.singletonList("protobuf")));
+        Assert.assertSame(DtoCodecs.JSON, DtoCodecs.negotiate(preferred, null));
+        Assert.assertSame(DtoCodecs.JSON,
+                DtoCodecs.negotiate(Collections.singletonList(JsonDtoCodec.NAME),
+                        DtoCodecs.getSupportedNames()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void forName_unknown() {
+        DtoCodecs.forName("protobuf");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void binary_truncated() {
+        KeypleDto dto = KeypleDtoHelper.buildRequest("anyAction", "anyBody", "sessionId",
+                "anyReaderNameId", "anyVirtualId", "anyRequesterId", "anyTargetId", "anyId");
+        byte[] encoded = DtoCodecs.BINARY.encode(dto);
+
+        DtoCodecs.decode(Arrays.copyOf(encoded, encoded.length - 3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void binary_trailingData() {
+        KeypleDto dto = KeypleDtoHelper.NoResponse("anyId");
+        byte[] encoded = DtoCodecs.BINARY.encode(dto);
+
+        DtoCodecs.decode(Arrays.copyOf(encoded, encoded.length + 1));
+    }
+
+    @Test
+    public void binary_stableMethodCodes() {
+        KeypleDto dto = KeypleDtoHelper.buildRequest(RemoteMethodName.READER_CONNECT.getName(),
+                "anyBody", "sessionId", "anyReaderNameId", "anyVirtualId", "anyRequesterId",
+                "anyTargetId", "anyId");
+        byte[] encoded = DtoCodecs.BINARY.encode(dto);
+
+        // magic, version, flags, then the code of the remote method
+        Assert.assertEquals(3, encoded[3]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void binary_unknownMethodCode() {
+        KeypleDto dto = KeypleDtoHelper.buildRequest(RemoteMethodName.READER_CONNECT.getName(),
+                "anyBody", "sessionId", "anyReaderNameId", "anyVirtualId", "anyRequesterId",
+                "anyTargetId", "anyId");
+        byte[] encoded = DtoCodecs.BINARY.encode(dto);
+        encoded[3] = 0x7F;
+
+        DtoCodecs.decode(encoded);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void json_malformed() {
+        DtoCodecs.decode("{\"action\":".getBytes());
+    }
+
+    private static KeypleDto roundTrip(KeypleDtoCodec codec, KeypleDto dto) {
+        return codec.decode(codec.encode(dto));
+    }
+}
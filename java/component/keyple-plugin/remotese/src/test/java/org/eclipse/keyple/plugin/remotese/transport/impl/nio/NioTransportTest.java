@@ -0,0 +1,487 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.transport.impl.nio;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.keyple.core.seproxy.SeProxyService;
+import org.eclipse.keyple.core.seproxy.protocol.TransmissionMode;
+import org.eclipse.keyple.plugin.remotese.CoreBaseTest;
+import org.eclipse.keyple.plugin.remotese.exception.KeypleRemoteException;
+import org.eclipse.keyple.plugin.remotese.integration.Integration;
+import org.eclipse.keyple.plugin.remotese.nativese.SlaveAPI;
+import org.eclipse.keyple.plugin.remotese.pluginse.MasterAPI;
+import org.eclipse.keyple.plugin.remotese.transport.DtoHandler;
+import org.eclipse.keyple.plugin.remotese.transport.codec.BinaryDtoCodec;
+import org.eclipse.keyple.plugin.remotese.transport.codec.DtoCodecs;
+import org.eclipse.keyple.plugin.remotese.transport.factory.ClientNode;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDtoHelper;
+import org.eclipse.keyple.plugin.remotese.transport.model.TransportDto;
+import org.eclipse.keyple.plugin.stub.StubPlugin;
+import org.eclipse.keyple.plugin.stub.StubReader;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class NioTransportTest extends CoreBaseTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(NioTransportTest.class);
+
+    final String SERVER_NODE_ID = "nioServer";
+    final String ACTION = "ECHO";
+    final long WAIT = 5000;
+
+    NioServer server;
+    List<NioClient> clients;
+
+    @Before
+    public void setUp() {
+        logger.info("------------------------------");
+        logger.info("Test {}", name.getMethodName() + "");
+        logger.info("------------------------------");
+        clients = new ArrayList<NioClient>();
+    }
+
+    @After
+    public void tearDown() {
+        for (NioClient client : clients) {
+            client.disconnect();
+        }
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void requestResponse_manyClients() throws Exception {
+        int nbClients = 100;
+        int nbRequests = 20;
+        startEchoServer(NioTransportSettings.DEFAULT);
+        final BlockingQueue<KeypleDto> responses = new LinkedBlockingQueue<KeypleDto>();
+        for (int i = 0; i < nbClients; i++) {
+            NioClient client = connectClient("client" + i, NioTransportSettings.DEFAULT);
+            client.setDtoHandler(collectingHandler(responses));
+        }
+
+        /* test */
+        for (NioClient client : clients) {
+            for (int j = 0; j < nbRequests; j++) {
+                client.sendDTO(request(client.getNodeId(), client.getNodeId() + "-" + j));
+            }
+        }
+
+        /* Assert */
+        for (int i = 0; i < nbClients * nbRequests; i++) {
+            KeypleDto response = responses.poll(WAIT, TimeUnit.MILLISECONDS);
+            Assert.assertNotNull(response);
+            Assert.assertFalse(response.isRequest());
+            Assert.assertTrue(response.getBody().startsWith(response.getTargetNodeId() + "-"));
+        }
+        Assert.assertEquals(nbClients, server.getConnectionCount());
+    }
+
+    @Test
+    public void requests_processedInOrder() throws Exception {
+        final List<String> bodies = Collections.synchronizedList(new ArrayList<String>());
+        server = new NioServer(SERVER_NODE_ID, new InetSocketAddress("127.0.0.1", 0));
+        server.setDtoHandler(new DtoHandler() {
+            @Override
+            public TransportDto onDTO(TransportDto message) {
+                bodies.add(message.getKeypleDTO().getBody());
+                return message.nextTransportDTO(KeypleDtoHelper.NoResponse(null));
+            }
+        });
+        server.start();
+        NioClient client = connectClient("client", NioTransportSettings.DEFAULT);
+
+        /* test */
+        for (int i = 0; i < 500; i++) {
+            client.sendDTO(request("client", String.valueOf(i)));
+        }
+
+        /* Assert */
+        long deadline = System.currentTimeMillis() + WAIT;
+        while (bodies.size() < 500 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(500, bodies.size());
+        for (int i = 0; i < 500; i++) {
+            Assert.assertEquals(String.valueOf(i), bodies.get(i));
+        }
+    }
+
+    @Test
+    public void stop_dedicatedPoolShutDown() throws Exception {
+        startEchoServer(NioTransportSettings.DEFAULT);
+        final BlockingQueue<KeypleDto> responses = new LinkedBlockingQueue<KeypleDto>();
+        NioClient client = connectClient("client", NioTransportSettings.DEFAULT);
+        client.setDtoHandler(collectingHandler(responses));
+        client.sendDTO(request("client", "before"));
+        Assert.assertNotNull(responses.poll(WAIT, TimeUnit.MILLISECONDS));
+
+        /* test */
+        client.disconnect();
+        server.stop();
+
+        /* Assert : no thread left, the server can be started again */
+        waitForNodeThreadCount("NioNode-" + SERVER_NODE_ID + "-", 0);
+        waitForNodeThreadCount("NioNode-client-", 0);
+        server.start();
+        client = connectClient("client2", NioTransportSettings.DEFAULT);
+        client.setDtoHandler(collectingHandler(responses));
+        client.sendDTO(request("client2", "after"));
+        Assert.assertEquals("after", responses.poll(WAIT, TimeUnit.MILLISECONDS).getBody());
+    }
+
+    @Test
+    public void largeFrame_jsonCodec() throws Exception {
+        NioTransportSettings settings =
+                NioTransportSettings.builder().codec(DtoCodecs.JSON).build();
+        startEchoServer(settings);
+        BlockingQueue<KeypleDto> responses = new LinkedBlockingQueue<KeypleDto>();
+        NioClient client = connectClient("client", settings);
+        client.setDtoHandler(collectingHandler(responses));
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            body.append("0123456789");
+        }
+
+        /* test */
+        client.sendDTO(request("client", body.toString()));
+
+        /* Assert */
+        KeypleDto response = responses.poll(WAIT, TimeUnit.MILLISECONDS);
+        Assert.assertNotNull(response);
+        Assert.assertEquals(body.toString(), response.getBody());
+    }
+
+    @Test
+    public void codec_jsonOnlyPeer() throws Exception {
+        // binary codec by default
+        startEchoServer(NioTransportSettings.builder().heartbeatInterval(0).build());
+
+        /* test: a peer which does not advertise its codecs */
+        Socket socket = new Socket("127.0.0.1", server.getLocalPort());
+        try {
+            writeFrame(socket, DtoCodecs.JSON.encode(request("jsonPeer", "anyBody")));
+
+            /* Assert */
+            byte[] response = readFrame(socket);
+            Assert.assertEquals('{', response[0]);
+            Assert.assertEquals("anyBody", DtoCodecs.JSON.decode(response).getBody());
+        } finally {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void codec_binaryPeer() throws Exception {
+        startEchoServer(NioTransportSettings.builder().heartbeatInterval(0).build());
+        Socket socket = new Socket("127.0.0.1", server.getLocalPort());
+        try {
+            /* test: a peer which advertises the binary codec */
+            writeFrame(socket,
+                    DtoCodecs.JSON.encode(KeypleDtoHelper.buildRequest(
+                            AbstractNioNode.CODECS_ACTION, "binary,json", null, null, null,
+                            "binaryPeer", null, null)));
+            KeypleDto codecs = DtoCodecs.JSON.decode(readFrame(socket));
+            writeFrame(socket, DtoCodecs.JSON.encode(request("binaryPeer", "anyBody")));
+
+            /* Assert */
+            Assert.assertEquals(AbstractNioNode.CODECS_ACTION, codecs.getAction());
+            Assert.assertFalse(codecs.isRequest());
+            Assert.assertEquals("binary,json", codecs.getBody());
+            byte[] response = readFrame(socket);
+            Assert.assertEquals(BinaryDtoCodec.MAGIC, response[0]);
+            Assert.assertEquals("anyBody", DtoCodecs.decode(response).getBody());
+        } finally {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void codec_binaryClientJsonOnlyServer() throws Exception {
+        // a server which does not answer to the advertised codecs
+        ServerSocket serverSocket = new ServerSocket(0);
+        try {
+            NioClient client = new NioClient("client", SERVER_NODE_ID,
+                    new InetSocketAddress("127.0.0.1", serverSocket.getLocalPort()),
+                    NioTransportSettings.builder().heartbeatInterval(0).build(), null);
+            clients.add(client);
+            connect(client);
+            Socket socket = serverSocket.accept();
+            try {
+                /* test */
+                client.sendDTO(request("client", "anyBody"));
+
+                /* Assert */
+                KeypleDto codecs = DtoCodecs.JSON.decode(readFrame(socket));
+                Assert.assertEquals(AbstractNioNode.CODECS_ACTION, codecs.getAction());
+                Assert.assertTrue(codecs.isRequest());
+                byte[] request = readFrame(socket);
+                Assert.assertEquals('{', request[0]);
+                Assert.assertEquals("anyBody", DtoCodecs.JSON.decode(request).getBody());
+            } finally {
+                socket.close();
+            }
+        } finally {
+            serverSocket.close();
+        }
+    }
+
+    @Test
+    public void heartbeat_keepsIdleConnectionOpen() throws Exception {
+        NioTransportSettings settings =
+                NioTransportSettings.builder().heartbeatInterval(50).build();
+        startEchoServer(settings);
+        NioClient client = connectClient("client", settings);
+
+        /* test */
+        Thread.sleep(600);
+
+        /* Assert */
+        Assert.assertTrue(client.isConnected());
+        Assert.assertEquals(1, server.getConnectionCount());
+    }
+
+    @Test
+    public void heartbeat_silentPeerDisconnected() throws Exception {
+        startEchoServer(NioTransportSettings.builder().heartbeatInterval(50).build());
+
+        /* test: a peer which sends nothing */
+        Socket socket = new Socket("127.0.0.1", server.getLocalPort());
+        try {
+            waitForConnectionCount(1);
+            Thread.sleep(400);
+
+            /* Assert */
+            Assert.assertEquals(0, server.getConnectionCount());
+            // only heartbeats have been received before the end of stream
+            byte[] received = new byte[64];
+            int length = 0;
+            int nbBytes;
+            while ((nbBytes = socket.getInputStream().read(received, length,
+                    received.length - length)) > 0) {
+                length += nbBytes;
+            }
+            Assert.assertEquals(-1, nbBytes);
+            for (int i = 0; i < length; i++) {
+                Assert.assertEquals(0, received[i]);
+            }
+        } finally {
+            socket.close();
+        }
+    }
+
+    @Test(expected = KeypleRemoteException.class)
+    public void backpressure_sendTimeout() throws Exception {
+        // a server which never reads
+        ServerSocket serverSocket = new ServerSocket(0);
+        try {
+            NioTransportSettings settings = NioTransportSettings.builder().heartbeatInterval(0)
+                    .maxPendingWriteBytes(64 * 1024).sendTimeout(200).build();
+            NioClient client = new NioClient("client", SERVER_NODE_ID,
+                    new InetSocketAddress("127.0.0.1", serverSocket.getLocalPort()), settings,
+                    null);
+            clients.add(client);
+            connect(client);
+            Socket socket = serverSocket.accept();
+            StringBuilder body = new StringBuilder();
+            for (int i = 0; i < 6400; i++) {
+                body.append("0123456789");
+            }
+
+            /* test: the socket buffers are full after a few MB */
+            try {
+                for (int i = 0; i < 2000; i++) {
+                    client.sendDTO(request("client", body.toString()));
+                }
+            } finally {
+                socket.close();
+            }
+        } finally {
+            serverSocket.close();
+        }
+    }
+
+    @Test(expected = KeypleRemoteException.class)
+    public void send_notConnected() throws Exception {
+        NioClient client =
+                new NioClient("client", SERVER_NODE_ID, new InetSocketAddress("127.0.0.1", 1));
+        client.sendDTO(request("client", "body"));
+    }
+
+    @Test
+    public void connect_failure() throws Exception {
+        ServerSocket serverSocket = new ServerSocket(0);
+        int port = serverSocket.getLocalPort();
+        serverSocket.close();
+        NioClient client =
+                new NioClient("client", SERVER_NODE_ID, new InetSocketAddress("127.0.0.1", port));
+        clients.add(client);
+        final CountDownLatch failure = new CountDownLatch(1);
+
+        /* test */
+        client.connect(new ClientNode.ConnectCallback() {
+            @Override
+            public void onConnectSuccess() {}
+
+            @Override
+            public void onConnectFailure() {
+                failure.countDown();
+            }
+        });
+
+        /* Assert */
+        Assert.assertTrue(failure.await(WAIT, TimeUnit.MILLISECONDS));
+        Assert.assertFalse(client.isConnected());
+    }
+
+    @Test
+    public void slaveAPI_connectReader() throws Exception {
+        String remoteSePluginName = "nioRemoteSePlugin";
+        String nativeReaderName = "nioStubReader";
+        Assert.assertEquals(0, SeProxyService.getInstance().getPlugins().size());
+        server = new NioServer(SERVER_NODE_ID, new InetSocketAddress("127.0.0.1", 0));
+        MasterAPI masterAPI = Integration.createSpyMasterAPI(server, remoteSePluginName);
+        server.start();
+        NioClient client = connectClient("slave", NioTransportSettings.DEFAULT);
+        SlaveAPI slaveAPI = Integration.createSpySlaveAPI(client, SERVER_NODE_ID);
+        StubReader nativeReader =
+                Integration.createStubReader(nativeReaderName, TransmissionMode.CONTACTLESS);
+        try {
+            /* test */
+            String sessionId = slaveAPI.connectReader(nativeReader);
+
+            /* Assert */
+            Assert.assertNotNull(sessionId);
+            Assert.assertNotNull(
+                    masterAPI.getPlugin().getReaderByRemoteName(nativeReaderName, "slave"));
+            slaveAPI.disconnectReader(sessionId, nativeReaderName);
+            Assert.assertEquals(0, masterAPI.getPlugin().getReaders().size());
+        } finally {
+            StubPlugin stubPlugin =
+                    (StubPlugin) SeProxyService.getInstance().getPlugin(Integration.SLAVE_STUB);
+            stubPlugin.unplugStubReader(nativeReaderName, true);
+            Integration.unregisterAllPlugin(remoteSePluginName);
+        }
+    }
+
+    private void startEchoServer(NioTransportSettings settings) {
+        server = new NioServer(SERVER_NODE_ID, new InetSocketAddress("127.0.0.1", 0), settings,
+                null);
+        server.setDtoHandler(new DtoHandler() {
+            @Override
+            public TransportDto onDTO(TransportDto message) {
+                KeypleDto request = message.getKeypleDTO();
+                return message.nextTransportDTO(KeypleDtoHelper.buildResponse(ACTION,
+                        request.getBody(), null, null, null, SERVER_NODE_ID,
+                        request.getRequesterNodeId(), request.getId()));
+            }
+        });
+        server.start();
+    }
+
+    private NioClient connectClient(String clientNodeId, NioTransportSettings settings)
+            throws InterruptedException {
+        NioClient client = new NioClient(clientNodeId, SERVER_NODE_ID,
+                new InetSocketAddress("127.0.0.1", server.getLocalPort()), settings, null);
+        clients.add(client);
+        connect(client);
+        return client;
+    }
+
+    private void connect(NioClient client) throws InterruptedException {
+        final CountDownLatch connected = new CountDownLatch(1);
+        client.connect(new ClientNode.ConnectCallback() {
+            @Override
+            public void onConnectSuccess() {
+                connected.countDown();
+            }
+
+            @Override
+            public void onConnectFailure() {}
+        });
+        Assert.assertTrue(connected.await(WAIT, TimeUnit.MILLISECONDS));
+    }
+
+    private void waitForConnectionCount(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT;
+        while (server.getConnectionCount() != count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(count, server.getConnectionCount());
+    }
+
+    private void waitForNodeThreadCount(String namePrefix, int count)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT;
+        int nodeThreadCount;
+        do {
+            nodeThreadCount = 0;
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if (thread.getName().startsWith(namePrefix)) {
+                    nodeThreadCount++;
+                }
+            }
+            if (nodeThreadCount != count) {
+                Thread.sleep(10);
+            }
+        } while (nodeThreadCount != count && System.currentTimeMillis() < deadline);
+        Assert.assertEquals(count, nodeThreadCount);
+    }
+
+    private static void writeFrame(Socket socket, byte[] frame) throws IOException {
+        DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+        output.writeInt(frame.length);
+        output.write(frame);
+        output.flush();
+    }
+
+    private static byte[] readFrame(Socket socket) throws IOException {
+        socket.setSoTimeout(5000);
+        DataInputStream input = new DataInputStream(socket.getInputStream());
+        byte[] frame = new byte[input.readInt()];
+        input.readFully(frame);
+        return frame;
+    }
+
+    private KeypleDto request(String clientNodeId, String body) {
+        return KeypleDtoHelper.buildRequest(ACTION, body, null, null, null, clientNodeId,
+                SERVER_NODE_ID, body);
+    }
+
+    private DtoHandler collectingHandler(final BlockingQueue<KeypleDto> received) {
+        return new DtoHandler() {
+            @Override
+            public TransportDto onDTO(TransportDto message) {
+                received.add(message.getKeypleDTO());
+                return message.nextTransportDTO(KeypleDtoHelper.NoResponse(null));
+            }
+        };
+    }
+}
@@ -0,0 +1,1061 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+
+/**
+ * Stateful emulator of a Calypso PO (revision 3.1), to run {@link StubSecureElement} based tests
+ * and load tests of the Calypso transactions without hardware.
+ * <p>
+ * Unlike the hexadecimal command table of the other stub SEs, the emulator processes the commands
+ * on an in-memory file structure made of linear, cyclic and counter EFs:
+ * <ul>
+ * <li>Select Application (by AID), Select File (by LID) and Get Data (FCI),</li>
+ * <li>Read Records (one or multiple records), Update Record, Write Record and Append Record,</li>
+ * <li>Increase and Decrease,</li>
+ * <li>Get Challenge, Open Secure Session and Close Secure Session (revision 3.1).</li>
+ * </ul>
+ * In session, the modifications are only committed when the session is successfully closed; they
+ * are discarded if the session is aborted, if the terminal signature is wrong or if the physical
+ * channel is closed (tearing). The session modifications buffer is accounted as a real PO does
+ * (the data length of each modifying command plus 6 bytes), the commands overflowing it are
+ * rejected with 6400h. The transaction counter is decremented at each session opening and the
+ * challenges change from one session to another.
+ * <p>
+ * The session signatures are checked against a {@link StubCalypsoSamEmulator}: the emulators do not
+ * implement the Calypso cryptography, they share a digest of the session data instead (see
+ * StubSessionDigest). A session closed without ratification is ratified by the next command
+ * received; it remains not ratified (as reported by the next Open Secure Session) if the physical
+ * channel is closed before.
+ * <p>
+ * The access conditions are not checked. The commands registered with
+ * {@link #addHexCommand(String, String)} take precedence over the emulation, e.g. to inject
+ * errors; the other commands are answered with 6D00h.
+ */
+public final class StubCalypsoPoEmulator extends StubSecureElement {
+
+    public static final String DEFAULT_ATR = "3B8880010000000000718100F9";
+    public static final String DEFAULT_SE_PROTOCOL = "PROTOCOL_ISO14443_4";
+    public static final String DEFAULT_AID = "315449432E49434131";
+    public static final String DEFAULT_SERIAL_NUMBER = "0000000011223344";
+    public static final int DEFAULT_SESSION_BUFFER_SIZE_INDICATOR = 0x0A;
+    public static final int DEFAULT_TRANSACTION_COUNTER = 0xFFFFFF;
+
+    /* status words */
+    private static final int SW_SUCCESS = 0x9000;
+    private static final int SW_TOO_MANY_MODIFICATIONS = 0x6400;
+    private static final int SW_WRONG_LENGTH = 0x6700;
+    private static final int SW_TRANSACTION_COUNTER_IS_0 = 0x6900;
+    private static final int SW_WRONG_FILE_TYPE = 0x6981;
+    private static final int SW_NO_SESSION = 0x6985;
+    private static final int SW_NO_CURRENT_EF = 0x6986;
+    private static final int SW_INCORRECT_SIGNATURE = 0x6988;
+    private static final int SW_OUT_OF_RANGE = 0x6A80;
+    private static final int SW_WRONG_KEY_INDEX = 0x6A81;
+    private static final int SW_FILE_NOT_FOUND = 0x6A82;
+    private static final int SW_RECORD_NOT_FOUND = 0x6A83;
+    private static final int SW_DATA_NOT_FOUND = 0x6A88;
+    private static final int SW_WRONG_P1_P2 = 0x6B00;
+    private static final int SW_INS_NOT_SUPPORTED = 0x6D00;
+
+    /* instruction codes */
+    private static final byte INS_SELECT = (byte) 0xA4;
+    private static final byte INS_GET_DATA = (byte) 0xCA;
+    private static final byte INS_READ_RECORDS = (byte) 0xB2;
+    private static final byte INS_UPDATE_RECORD = (byte) 0xDC;
+    private static final byte INS_WRITE_RECORD = (byte) 0xD2;
+    private static final byte INS_APPEND_RECORD = (byte) 0xE2;
+    private static final byte INS_INCREASE = (byte) 0x32;
+    private static final byte INS_DECREASE = (byte) 0x30;
+    private static final byte INS_GET_CHALLENGE = (byte) 0x84;
+    private static final byte INS_OPEN_SESSION = (byte) 0x8A;
+    private static final byte INS_CLOSE_SESSION = (byte) 0x8E;
+
+    /* file types of the Select File proprietary information */
+    private static final byte FILE_TYPE_EF = 0x04;
+    private static final byte EF_TYPE_LINEAR = 0x02;
+    private static final byte EF_TYPE_CYCLIC = 0x04;
+    private static final byte EF_TYPE_COUNTERS = 0x09;
+    private static final int PROPRIETARY_INFORMATION_LENGTH = 23;
+
+    /* startup information, apart from the session buffer size indicator */
+    private static final byte PLATFORM = 0x3C;
+    private static final byte APPLICATION_TYPE_REV3_1 = 0x20;
+    private static final byte APPLICATION_SUBTYPE = 0x12;
+    private static final byte SOFTWARE_ISSUER = 0x14;
+    private static final byte SOFTWARE_VERSION = 0x10;
+    private static final byte SOFTWARE_REVISION = 0x01;
+
+    private static final int SERIAL_NUMBER_LENGTH = 8;
+    private static final int TERMINAL_CHALLENGE_LENGTH = 4;
+    private static final int SIGNATURE_LENGTH = 4;
+    private static final int PO_CHALLENGE_LENGTH = 8;
+    private static final int COUNTER_SIZE = 3;
+    private static final int MAX_COUNTER_VALUE = 0xFFFFFF;
+    private static final int SESSION_MODIFICATION_ADDITIONAL_COST = 6;
+    private static final int MAX_RESPONSE_LENGTH = 256;
+
+    private final byte[] atr;
+    private final String seProtocol;
+    private final byte[] aid;
+    private final byte[] serialNumber;
+    private final byte[] fci;
+    private final int sessionBufferSize;
+    private final byte[][] sessionKeys;
+    private final Map<Byte, ElementaryFile> filesBySfi;
+    private final Random random = new Random();
+    private final StubSessionDigest sessionDigest = new StubSessionDigest();
+
+    /* dynamic state, guarded by this */
+    private int transactionCounter;
+    private ElementaryFile currentFile;
+    private boolean sessionOpen;
+    private int sessionBufferRemaining;
+    private final Map<ElementaryFile, byte[][]> sessionBackup =
+            new HashMap<ElementaryFile, byte[][]>();
+    private boolean ratificationPending;
+    private boolean ratified = true;
+    private int sessionCount;
+
+    private StubCalypsoPoEmulator(StubCalypsoPoEmulatorBuilder builder) {
+        atr = builder.atr.clone();
+        seProtocol = builder.seProtocol;
+        aid = builder.aid.clone();
+        serialNumber = builder.serialNumber.clone();
+        fci = buildFci(aid, serialNumber, (byte) builder.sessionBufferSizeIndicator);
+        // lookup table of the session buffer size indicator: 2^((indicator + 25) / 4) bytes
+        sessionBufferSize =
+                (int) Math.floor(Math.pow(2, (builder.sessionBufferSizeIndicator + 25) / 4.0));
+        sessionKeys = new byte[builder.sessionKeys.length][];
+        // no key at the index 0
+        for (int i = 1; i < sessionKeys.length; i++) {
+            sessionKeys[i] = builder.sessionKeys[i].clone();
+        }
+        filesBySfi = new LinkedHashMap<Byte, ElementaryFile>();
+        for (ElementaryFile file : builder.filesBySfi.values()) {
+            filesBySfi.put(file.sfi, new ElementaryFile(file));
+        }
+        transactionCounter = builder.transactionCounter;
+    }
+
+    /**
+     * Creates a builder of PO emulator
+     *
+     * @return the builder
+     */
+    public static StubCalypsoPoEmulatorBuilder builder() {
+        return new StubCalypsoPoEmulatorBuilder();
+    }
+
+    /**
+     * Builder of {@link StubCalypsoPoEmulator}
+     * <p>
+     * The files are empty (filled with 00h) unless their content is provided.
+     */
+    public static final class StubCalypsoPoEmulatorBuilder {
+
+        private byte[] atr = ByteArrayUtil.fromHex(DEFAULT_ATR);
+        private String seProtocol = DEFAULT_SE_PROTOCOL;
+        private byte[] aid = ByteArrayUtil.fromHex(DEFAULT_AID);
+        private byte[] serialNumber = ByteArrayUtil.fromHex(DEFAULT_SERIAL_NUMBER);
+        private int sessionBufferSizeIndicator = DEFAULT_SESSION_BUFFER_SIZE_INDICATOR;
+        private int transactionCounter = DEFAULT_TRANSACTION_COUNTER;
+        /* KIF and KVC by key index (issuer, load, debit) */
+        private final byte[][] sessionKeys = new byte[][] {null, {(byte) 0x21, (byte) 0x79},
+                {(byte) 0x27, (byte) 0x79}, {(byte) 0x30, (byte) 0x79}};
+        private final Map<Byte, ElementaryFile> filesBySfi =
+                new LinkedHashMap<Byte, ElementaryFile>();
+
+        private StubCalypsoPoEmulatorBuilder() {}
+
+        /**
+         * Sets the ATR
+         *
+         * @param atr the ATR as an hexadecimal string
+         * @return the builder instance
+         */
+        public StubCalypsoPoEmulatorBuilder atr(String atr) {
+            this.atr = checkHex(atr, -1, "atr");
+            return this;
+        }
+
+        /**
+         * Sets the SE protocol
+         *
+         * @param seProtocol the protocol, as defined in {@link StubProtocolSetting}
+         * @return the builder instance
+         */
+        public StubCalypsoPoEmulatorBuilder seProtocol(String seProtocol) {
+            if (seProtocol == null) {
+                throw new IllegalArgumentException("seProtocol can't be null.");
+            }
+            this.seProtocol = seProtocol;
+            return this;
+        }
+
+        /**
+         * Sets the AID (DF name) of the application
+         *
+         * @param aid the AID as an hexadecimal string (5 to 16 bytes)
+         * @return the builder instance
+         */
+        public StubCalypsoPoEmulatorBuilder aid(String aid) {
+            this.aid = checkHex(aid, -1, "aid");
+            if (this.aid.length < 5 || this.aid.length > 16) {
+                throw new IllegalArgumentException("Bad AID length: " + this.aid.length);
+            }
+            return this;
+        }
+
+        /**
+         * Sets the application serial number
+         *
+         * @param serialNumber the serial number as an hexadecimal string (8 bytes)
+         * @return the builder instance
+         */
+        public StubCalypsoPoEmulatorBuilder serialNumber(String serialNumber) {
+            this.serialNumber = checkHex(serialNumber, SERIAL_NUMBER_LENGTH, "serialNumber");
+            return this;
+        }
+
+        /**
+         * Sets the session buffer size indicator of the startup information (e.g. 06h for 215
+         * bytes, 0Ah for 430 bytes, 0Fh for 1024 bytes)
+         *
+         * @param sessionBufferSizeIndicator the indicator (06h to 37h)
+         * @return the builder instance
+         */
+        public StubCalypsoPoEmulatorBuilder sessionBufferSizeIndicator(
+                int sessionBufferSizeIndicator) {
+            if (sessionBufferSizeIndicator < 0x06 || sessionBufferSizeIndicator > 0x37) {
+                throw new IllegalArgumentException(
+                        "Bad session buffer size indicator: " + sessionBufferSizeIndicator);
+            }
+            this.sessionBufferSizeIndicator = sessionBufferSizeIndicator;
+            return this;
+        }
+
+        /**
+         * Sets the initial value of the transaction counter, decremented at each session opening
+         *
+         * @param transactionCounter the value (0 to FFFFFFh)
+         * @return the builder instance
+         */
+        public StubCalypsoPoEmulatorBuilder transactionCounter(int transactionCounter) {
+            checkCounterValue(transactionCounter);
+            this.transactionCounter = transactionCounter;
+            return this;
+        }
+
+        /**
+         * Sets the session key of a key index
+         *
+         * @param keyIndex the key index (1: issuer, 2: load, 3: debit)
+         * @param kif the KIF returned by Open Secure Session
+         * @param kvc the KVC returned by Open Secure Session
+         * @return the builder instance
+         */
+        public StubCalypsoPoEmulatorBuilder sessionKey(int keyIndex, byte kif, byte kvc) {
+            if (keyIndex < 1 || keyIndex >= sessionKeys.length) {
+                throw new IllegalArgumentException("Bad key index: " + keyIndex);
+            }
+            sessionKeys[keyIndex] = new byte[] {kif, kvc};
+            return this;
+        }
+
+        /**
+         * Adds a linear EF
+         *
+         * @param sfi the SFI (1 to 30)
+         * @param lid the LID
+         * @param recordsNumber the number of records
+         * @param recordSize the size of the records
+         * @return the builder instance
+         */
+        public StubCalypsoPoEmulatorBuilder linearFile(byte sfi, short lid, int recordsNumber,
+                int recordSize) {
+            return addFile(new ElementaryFile(sfi, lid, EF_TYPE_LINEAR, recordsNumber,
+                    recordSize));
+        }
+
+        /**
+         * Adds a cyclic EF, the record #1 being the most recent one
+         *
+         * @param sfi the SFI (1 to 30)
+         * @param lid the LID
+         * @param recordsNumber the number of records
+         * @param recordSize the size of the records
+         * @return the builder instance
+         */
+        public StubCalypsoPoEmulatorBuilder cyclicFile(byte sfi, short lid, int recordsNumber,
+                int recordSize) {
+            return addFile(new ElementaryFile(sfi, lid, EF_TYPE_CYCLIC, recordsNumber,
+                    recordSize));
+        }
+
+        /**
+         * Adds a counters EF: the counters are stored on 3 bytes in its single record
+         *
+         * @param sfi the SFI (1 to 30)
+         * @param lid the LID
+         * @param countersNumber the number of counters
+         * @return the builder instance
+         */
+        public StubCalypsoPoEmulatorBuilder counterFile(byte sfi, short lid, int countersNumber) {
+            return addFile(new ElementaryFile(sfi, lid, EF_TYPE_COUNTERS, 1,
+                    countersNumber * COUNTER_SIZE));
+        }
+
+        /**
+         * Sets the content of a record of a file already added
+         *
+         * @param sfi the SFI of the file
+         * @param recordNumber the record number (starting at 1)
+         * @param data the content as an hexadecimal string, padded with 00h up to the record size
+         * @return the builder instance
+         */
+        public StubCalypsoPoEmulatorBuilder record(byte sfi, int recordNumber, String data) {
+            getFile(filesBySfi, sfi).setRecord(recordNumber, checkHex(data, -1, "data"));
+            return this;
+        }
+
+        /**
+         * Sets the value of a counter of a counters file already added
+         *
+         * @param sfi the SFI of the file
+         * @param counterNumber the counter number (starting at 1)
+         * @param value the value (0 to FFFFFFh)
+         * @return the builder instance
+         */
+        public StubCalypsoPoEmulatorBuilder counter(byte sfi, int counterNumber, int value) {
+            checkCounterValue(value);
+            getFile(filesBySfi, sfi).setCounter(counterNumber, value);
+            return this;
+        }
+
+        /**
+         * Builds a new PO emulator: the emulator is independent from the builder, which can be
+         * used to build other emulators
+         *
+         * @return the PO emulator
+         */
+        public StubCalypsoPoEmulator build() {
+            return new StubCalypsoPoEmulator(this);
+        }
+
+        private StubCalypsoPoEmulatorBuilder addFile(ElementaryFile file) {
+            if (file.sfi < 1 || file.sfi > 30) {
+                throw new IllegalArgumentException("Bad SFI: " + file.sfi);
+            }
+            if (filesBySfi.containsKey(file.sfi)) {
+                throw new IllegalArgumentException("SFI already used: " + file.sfi);
+            }
+            filesBySfi.put(file.sfi, file);
+            return this;
+        }
+
+        private static byte[] checkHex(String hex, int length, String name) {
+            if (hex == null) {
+                throw new IllegalArgumentException(name + " can't be null.");
+            }
+            byte[] bytes = ByteArrayUtil.fromHex(hex);
+            if (length >= 0 && bytes.length != length) {
+                throw new IllegalArgumentException("Bad " + name + ": " + hex);
+            }
+            return bytes;
+        }
+
+        private static void checkCounterValue(int value) {
+            if (value < 0 || value > MAX_COUNTER_VALUE) {
+                throw new IllegalArgumentException("Bad counter value: " + value);
+            }
+        }
+    }
+
+    /**
+     * In-memory EF: fixed size records, the counters are stored in the record #1
+     */
+    private static final class ElementaryFile {
+
+        private final byte sfi;
+        private final short lid;
+        private final byte type;
+        private final int recordSize;
+        private byte[][] records;
+
+        private ElementaryFile(byte sfi, short lid, byte type, int recordsNumber,
+                int recordSize) {
+            if (recordsNumber < 1 || recordsNumber > 255 || recordSize < 1
+                    || recordSize > 255) {
+                throw new IllegalArgumentException("Bad file size: " + recordsNumber
+                        + " records of " + recordSize + " bytes.");
+            }
+            this.sfi = sfi;
+            this.lid = lid;
+            this.type = type;
+            this.recordSize = recordSize;
+            this.records = new byte[recordsNumber][recordSize];
+        }
+
+        private ElementaryFile(ElementaryFile file) {
+            this.sfi = file.sfi;
+            this.lid = file.lid;
+            this.type = file.type;
+            this.recordSize = file.recordSize;
+            this.records = file.copyRecords();
+        }
+
+        private byte[][] copyRecords() {
+            byte[][] copy = new byte[records.length][];
+            for (int i = 0; i < records.length; i++) {
+                copy[i] = records[i].clone();
+            }
+            return copy;
+        }
+
+        private void checkRecordNumber(int recordNumber) {
+            if (recordNumber < 1 || recordNumber > records.length) {
+                throw new IllegalArgumentException("Bad record number: " + recordNumber);
+            }
+        }
+
+        private void setRecord(int recordNumber, byte[] data) {
+            checkRecordNumber(recordNumber);
+            if (data.length > recordSize) {
+                throw new IllegalArgumentException("Record too long: " + data.length);
+            }
+            records[recordNumber - 1] = Arrays.copyOf(data, recordSize);
+        }
+
+        private int getCounter(int counterNumber) {
+            checkCounterNumber(counterNumber);
+            int offset = (counterNumber - 1) * COUNTER_SIZE;
+            return ((records[0][offset] & 0xFF) << 16) | ((records[0][offset + 1] & 0xFF) << 8)
+                    | (records[0][offset + 2] & 0xFF);
+        }
+
+        private void setCounter(int counterNumber, int value) {
+            checkCounterNumber(counterNumber);
+            int offset = (counterNumber - 1) * COUNTER_SIZE;
+            records[0][offset] = (byte) (value >> 16);
+            records[0][offset + 1] = (byte) (value >> 8);
+            records[0][offset + 2] = (byte) value;
+        }
+
+        private void checkCounterNumber(int counterNumber) {
+            if (type != EF_TYPE_COUNTERS) {
+                throw new IllegalArgumentException("Not a counters file: " + sfi);
+            }
+            if (counterNumber < 1 || counterNumber * COUNTER_SIZE > recordSize) {
+                throw new IllegalArgumentException("Bad counter number: " + counterNumber);
+            }
+        }
+    }
+
+    /**
+     * Parsed command APDU
+     */
+    private static final class Command {
+
+        private final byte[] apdu;
+        private final byte ins;
+        private final int p1;
+        private final int p2;
+        private final int dataLength;
+        /** expected length, -1 if absent */
+        private final int le;
+
+        private Command(byte[] apdu, int dataLength, int le) {
+            this.apdu = apdu;
+            this.ins = apdu[1];
+            this.p1 = apdu[2] & 0xFF;
+            this.p2 = apdu[3] & 0xFF;
+            this.dataLength = dataLength;
+            this.le = le;
+        }
+
+        /**
+         * @param apdu the command APDU
+         * @return the parsed command, null if the APDU is malformed
+         */
+        private static Command parse(byte[] apdu) {
+            if (apdu.length < 4) {
+                return null;
+            } else if (apdu.length == 4) {
+                // case 1
+                return new Command(apdu, 0, -1);
+            } else if (apdu.length == 5) {
+                // case 2
+                return new Command(apdu, 0, apdu[4] & 0xFF);
+            }
+            int lc = apdu[4] & 0xFF;
+            if (apdu.length == 5 + lc) {
+                // case 3
+                return new Command(apdu, lc, -1);
+            } else if (apdu.length == 6 + lc) {
+                // case 4
+                return new Command(apdu, lc, apdu[apdu.length - 1] & 0xFF);
+            }
+            return null;
+        }
+
+        private byte[] getData() {
+            return Arrays.copyOfRange(apdu, 5, 5 + dataLength);
+        }
+
+        /**
+         * @return the length of the command in the session digest: Le is excluded from the case 4
+         *         commands
+         */
+        private int getDigestLength() {
+            return dataLength > 0 && le >= 0 ? apdu.length - 1 : apdu.length;
+        }
+    }
+
+    @Override
+    public byte[] getATR() {
+        return atr;
+    }
+
+    @Override
+    public String getSeProcotol() {
+        return seProtocol;
+    }
+
+    /**
+     * Closes the physical channel: an open session is aborted and a session closed without
+     * ratification remains not ratified
+     */
+    @Override
+    public synchronized void closePhysicalChannel() {
+        isPhysicalChannelOpen = false;
+        if (sessionOpen) {
+            abortSession();
+        }
+        ratificationPending = false;
+        currentFile = null;
+    }
+
+    /**
+     * Processes a command APDU
+     *
+     * @param apduIn : command to be processed
+     * @return APDU response
+     */
+    @Override
+    public synchronized byte[] processApdu(byte[] apduIn) {
+        if (apduIn == null) {
+            return null;
+        }
+        // any command ratifies the previous session
+        if (ratificationPending) {
+            ratificationPending = false;
+            ratified = true;
+        }
+        Command command = Command.parse(apduIn);
+        if (command == null) {
+            return status(SW_WRONG_LENGTH);
+        }
+        byte[] apduOut = null;
+        if (!hexCommands.isEmpty()) {
+            String hexResponse = hexCommands.get(ByteArrayUtil.toHex(apduIn));
+            if (hexResponse != null) {
+                apduOut = ByteArrayUtil.fromHex(hexResponse);
+            }
+        }
+        if (apduOut == null) {
+            switch (command.ins) {
+                case INS_OPEN_SESSION:
+                    // the session commands are not digested
+                    return openSession(command);
+                case INS_CLOSE_SESSION:
+                    return closeSession(command);
+                case INS_SELECT:
+                    apduOut = select(command);
+                    break;
+                case INS_GET_DATA:
+                    apduOut = command.p1 == 0x00 && command.p2 == 0x6F
+                            ? response(fci, 0, fci.length)
+                            : status(SW_DATA_NOT_FOUND);
+                    break;
+                case INS_READ_RECORDS:
+                    apduOut = readRecords(command);
+                    break;
+                case INS_UPDATE_RECORD:
+                case INS_WRITE_RECORD:
+                    apduOut = updateRecord(command);
+                    break;
+                case INS_APPEND_RECORD:
+                    apduOut = appendRecord(command);
+                    break;
+                case INS_INCREASE:
+                case INS_DECREASE:
+                    apduOut = increaseOrDecrease(command);
+                    break;
+                case INS_GET_CHALLENGE:
+                    apduOut = getChallenge();
+                    break;
+                default:
+                    apduOut = status(SW_INS_NOT_SUPPORTED);
+                    break;
+            }
+        }
+        if (sessionOpen) {
+            sessionDigest.update(apduIn, 0, command.getDigestLength());
+            sessionDigest.update(apduOut, 0, apduOut.length);
+        }
+        return apduOut;
+    }
+
+    private byte[] select(Command command) {
+        byte[] data = command.getData();
+        if (command.p1 == 0x04) {
+            // select application by DF name (possibly partial), a single application is present
+            if ((command.p2 & 0x03) != 0x00 || data.length == 0 || data.length > aid.length
+                    || !Arrays.equals(data, Arrays.copyOf(aid, data.length))) {
+                return status(SW_FILE_NOT_FOUND);
+            }
+            if (sessionOpen) {
+                abortSession();
+            }
+            currentFile = null;
+            return response(fci, 0, fci.length);
+        } else if ((command.p1 == 0x08 || command.p1 == 0x09) && command.p2 == 0x00) {
+            // select EF by LID (or path, the last LID is used)
+            if (data.length < 2 || data.length % 2 != 0) {
+                return status(SW_WRONG_LENGTH);
+            }
+            short lid = (short) (((data[data.length - 2] & 0xFF) << 8)
+                    | (data[data.length - 1] & 0xFF));
+            for (ElementaryFile file : filesBySfi.values()) {
+                if (file.lid == lid) {
+                    currentFile = file;
+                    return response(getProprietaryInformation(file), 0,
+                            2 + PROPRIETARY_INFORMATION_LENGTH);
+                }
+            }
+            return status(SW_FILE_NOT_FOUND);
+        }
+        return status(SW_WRONG_P1_P2);
+    }
+
+    private byte[] readRecords(Command command) {
+        int readMode = command.p2 & 0x07;
+        if (command.p1 == 0 || (readMode != 0x04 && readMode != 0x05)) {
+            return status(SW_WRONG_P1_P2);
+        }
+        ElementaryFile file = findFile(command.p2 >> 3);
+        if (file == null) {
+            return status(command.p2 >> 3 == 0 ? SW_NO_CURRENT_EF : SW_FILE_NOT_FOUND);
+        }
+        if (command.p1 > file.records.length) {
+            return status(SW_RECORD_NOT_FOUND);
+        }
+        if (readMode == 0x04) {
+            return response(file.records[command.p1 - 1], 0, file.recordSize);
+        }
+        // multiple records: record number, length and data of each record fitting in Le
+        int maxLength = command.le > 0 ? command.le : MAX_RESPONSE_LENGTH;
+        int nbRecords = Math.min(maxLength / (file.recordSize + 2),
+                file.records.length - command.p1 + 1);
+        if (nbRecords == 0) {
+            return status(SW_WRONG_LENGTH);
+        }
+        byte[] data = new byte[nbRecords * (file.recordSize + 2)];
+        int offset = 0;
+        for (int i = command.p1; i < command.p1 + nbRecords; i++) {
+            data[offset++] = (byte) i;
+            data[offset++] = (byte) file.recordSize;
+            System.arraycopy(file.records[i - 1], 0, data, offset, file.recordSize);
+            offset += file.recordSize;
+        }
+        return response(data, 0, data.length);
+    }
+
+    private byte[] updateRecord(Command command) {
+        if (command.p1 == 0 || (command.p2 & 0x07) != 0x04) {
+            return status(SW_WRONG_P1_P2);
+        }
+        ElementaryFile file = findFile(command.p2 >> 3);
+        if (file == null) {
+            return status(command.p2 >> 3 == 0 ? SW_NO_CURRENT_EF : SW_FILE_NOT_FOUND);
+        }
+        if (command.p1 > file.records.length) {
+            return status(SW_RECORD_NOT_FOUND);
+        }
+        if (command.dataLength == 0 || command.dataLength > file.recordSize) {
+            return status(SW_WRONG_LENGTH);
+        }
+        if (!consumeSessionBuffer(command.dataLength)) {
+            return status(SW_TOO_MANY_MODIFICATIONS);
+        }
+        backup(file);
+        byte[] record = file.records[command.p1 - 1];
+        if (command.ins == INS_UPDATE_RECORD) {
+            // the record is replaced, padded with 00h
+            Arrays.fill(record, (byte) 0x00);
+            System.arraycopy(command.apdu, 5, record, 0, command.dataLength);
+        } else {
+            // the data is ORed with the record content
+            for (int i = 0; i < command.dataLength; i++) {
+                record[i] |= command.apdu[5 + i];
+            }
+        }
+        return status(SW_SUCCESS);
+    }
+
+    private byte[] appendRecord(Command command) {
+        if (command.p1 != 0 || (command.p2 & 0x07) != 0x00) {
+            return status(SW_WRONG_P1_P2);
+        }
+        ElementaryFile file = findFile(command.p2 >> 3);
+        if (file == null) {
+            return status(command.p2 >> 3 == 0 ? SW_NO_CURRENT_EF : SW_FILE_NOT_FOUND);
+        }
+        if (file.type != EF_TYPE_CYCLIC) {
+            return status(SW_WRONG_FILE_TYPE);
+        }
+        if (command.dataLength == 0 || command.dataLength > file.recordSize) {
+            return status(SW_WRONG_LENGTH);
+        }
+        if (!consumeSessionBuffer(command.dataLength)) {
+            return status(SW_TOO_MANY_MODIFICATIONS);
+        }
+        backup(file);
+        // the oldest record is replaced by the new one, which becomes the record #1
+        byte[] record = file.records[file.records.length - 1];
+        System.arraycopy(file.records, 0, file.records, 1, file.records.length - 1);
+        Arrays.fill(record, (byte) 0x00);
+        System.arraycopy(command.apdu, 5, record, 0, command.dataLength);
+        file.records[0] = record;
+        return status(SW_SUCCESS);
+    }
+
+    private byte[] increaseOrDecrease(Command command) {
+        if ((command.p2 & 0x07) != 0x00) {
+            return status(SW_WRONG_P1_P2);
+        }
+        ElementaryFile file = findFile(command.p2 >> 3);
+        if (file == null) {
+            return status(command.p2 >> 3 == 0 ? SW_NO_CURRENT_EF : SW_FILE_NOT_FOUND);
+        }
+        if (file.type != EF_TYPE_COUNTERS) {
+            return status(SW_WRONG_FILE_TYPE);
+        }
+        if (command.p1 == 0 || command.p1 * COUNTER_SIZE > file.recordSize) {
+            return status(SW_WRONG_P1_P2);
+        }
+        if (command.dataLength != COUNTER_SIZE) {
+            return status(SW_WRONG_LENGTH);
+        }
+        int operand = ((command.apdu[5] & 0xFF) << 16) | ((command.apdu[6] & 0xFF) << 8)
+                | (command.apdu[7] & 0xFF);
+        int value = file.getCounter(command.p1)
+                + (command.ins == INS_INCREASE ? operand : -operand);
+        if (value < 0 || value > MAX_COUNTER_VALUE) {
+            return status(SW_OUT_OF_RANGE);
+        }
+        if (!consumeSessionBuffer(command.dataLength)) {
+            return status(SW_TOO_MANY_MODIFICATIONS);
+        }
+        backup(file);
+        file.setCounter(command.p1, value);
+        int offset = (command.p1 - 1) * COUNTER_SIZE;
+        return response(file.records[0], offset, COUNTER_SIZE);
+    }
+
+    private byte[] getChallenge() {
+        byte[] challenge = new byte[PO_CHALLENGE_LENGTH];
+        random.nextBytes(challenge);
+        return response(challenge, 0, challenge.length);
+    }
+
+    private byte[] openSession(Command command) {
+        // revision 3.1 mode only
+        if ((command.p2 & 0x07) != 0x01) {
+            return status(SW_WRONG_P1_P2);
+        }
+        if (command.dataLength != TERMINAL_CHALLENGE_LENGTH) {
+            return status(SW_WRONG_LENGTH);
+        }
+        int keyIndex = command.p1 & 0x07;
+        if (keyIndex < 1 || keyIndex >= sessionKeys.length) {
+            return status(SW_WRONG_KEY_INDEX);
+        }
+        if (sessionOpen) {
+            abortSession();
+        }
+        // record read at opening, if any
+        int recordNumber = command.p1 >> 3;
+        byte[] record = new byte[0];
+        if (recordNumber != 0) {
+            ElementaryFile file = findFile(command.p2 >> 3);
+            if (file == null) {
+                return status(command.p2 >> 3 == 0 ? SW_NO_CURRENT_EF : SW_FILE_NOT_FOUND);
+            }
+            if (recordNumber > file.records.length) {
+                return status(SW_RECORD_NOT_FOUND);
+            }
+            record = file.records[recordNumber - 1];
+        }
+        if (transactionCounter == 0) {
+            return status(SW_TRANSACTION_COUNTER_IS_0);
+        }
+        transactionCounter--;
+        // challenge (transaction counter and random number), ratification, KIF, KVC, record
+        byte[] data = new byte[8 + record.length];
+        data[0] = (byte) (transactionCounter >> 16);
+        data[1] = (byte) (transactionCounter >> 8);
+        data[2] = (byte) transactionCounter;
+        data[3] = (byte) random.nextInt();
+        data[4] = ratified ? (byte) 0x00 : (byte) 0x01;
+        data[5] = sessionKeys[keyIndex][0];
+        data[6] = sessionKeys[keyIndex][1];
+        data[7] = (byte) record.length;
+        System.arraycopy(record, 0, data, 8, record.length);
+        sessionOpen = true;
+        sessionBufferRemaining = sessionBufferSize;
+        sessionDigest.start(serialNumber, command.getData());
+        sessionDigest.update(data, 0, data.length);
+        return response(data, 0, data.length);
+    }
+
+    private byte[] closeSession(Command command) {
+        if (!sessionOpen) {
+            return status(SW_NO_SESSION);
+        }
+        if (command.dataLength == 0) {
+            // abort session
+            abortSession();
+            return status(SW_SUCCESS);
+        }
+        if (command.dataLength != SIGNATURE_LENGTH) {
+            abortSession();
+            return status(SW_WRONG_LENGTH);
+        }
+        sessionDigest.close();
+        byte[] terminalSignature = sessionDigest.getTerminalSignature(SIGNATURE_LENGTH);
+        if (!Arrays.equals(terminalSignature, command.getData())) {
+            abortSession();
+            return status(SW_INCORRECT_SIGNATURE);
+        }
+        // commit the modifications
+        sessionBackup.clear();
+        sessionOpen = false;
+        sessionCount++;
+        if ((command.p1 & 0x80) != 0) {
+            ratified = true;
+        } else {
+            ratified = false;
+            ratificationPending = true;
+        }
+        byte[] poSignature = sessionDigest.getPoSignature(SIGNATURE_LENGTH);
+        return response(poSignature, 0, poSignature.length);
+    }
+
+    /**
+     * Discards the modifications made in the current session
+     */
+    private void abortSession() {
+        for (Map.Entry<ElementaryFile, byte[][]> entry : sessionBackup.entrySet()) {
+            entry.getKey().records = entry.getValue();
+        }
+        sessionBackup.clear();
+        sessionOpen = false;
+        sessionDigest.abort();
+    }
+
+    /**
+     * Consumes the session buffer space needed by a modifying command, if a session is open
+     *
+     * @param dataLength the data length of the command
+     * @return false if the buffer would overflow
+     */
+    private boolean consumeSessionBuffer(int dataLength) {
+        if (!sessionOpen) {
+            return true;
+        }
+        int cost = dataLength + SESSION_MODIFICATION_ADDITIONAL_COST;
+        if (cost > sessionBufferRemaining) {
+            return false;
+        }
+        sessionBufferRemaining -= cost;
+        return true;
+    }
+
+    /**
+     * Saves the content of a file before its first modification in the current session
+     */
+    private void backup(ElementaryFile file) {
+        if (sessionOpen && !sessionBackup.containsKey(file)) {
+            sessionBackup.put(file, file.copyRecords());
+        }
+    }
+
+    /**
+     * Finds a file by SFI, the current EF for the SFI 0, and makes it the current EF
+     *
+     * @return the file, null if not found
+     */
+    private ElementaryFile findFile(int sfi) {
+        if (sfi == 0) {
+            return currentFile;
+        }
+        ElementaryFile file = filesBySfi.get((byte) sfi);
+        if (file != null) {
+            currentFile = file;
+        }
+        return file;
+    }
+
+    private static ElementaryFile getFile(Map<Byte, ElementaryFile> filesBySfi, byte sfi) {
+        ElementaryFile file = filesBySfi.get(sfi);
+        if (file == null) {
+            throw new IllegalArgumentException("File not found: SFI " + sfi);
+        }
+        return file;
+    }
+
+    /**
+     * Builds the proprietary information TLV (tag 85h) of the response to Select File
+     */
+    private static byte[] getProprietaryInformation(ElementaryFile file) {
+        byte[] tlv = new byte[2 + PROPRIETARY_INFORMATION_LENGTH];
+        tlv[0] = (byte) 0x85;
+        tlv[1] = (byte) PROPRIETARY_INFORMATION_LENGTH;
+        tlv[2] = file.sfi;
+        tlv[3] = FILE_TYPE_EF;
+        tlv[4] = file.type;
+        tlv[5] = (byte) file.recordSize;
+        tlv[6] = (byte) file.records.length;
+        // access conditions: always
+        Arrays.fill(tlv, 7, 11, (byte) 0x1F);
+        tlv[23] = (byte) (file.lid >> 8);
+        tlv[24] = (byte) file.lid;
+        return tlv;
+    }
+
+    /**
+     * Builds the FCI returned by the application selection
+     */
+    private static byte[] buildFci(byte[] aid, byte[] serialNumber,
+            byte sessionBufferSizeIndicator) {
+        byte[] startupInfo = new byte[] {sessionBufferSizeIndicator, PLATFORM,
+                APPLICATION_TYPE_REV3_1, APPLICATION_SUBTYPE, SOFTWARE_ISSUER, SOFTWARE_VERSION,
+                SOFTWARE_REVISION};
+        // 6F (84 DF name) (A5 (BF0C (C7 serial number) (53 startup information)))
+        int discretionaryDataLength = 2 + serialNumber.length + 2 + startupInfo.length;
+        int proprietaryDataLength = 3 + discretionaryDataLength;
+        byte[] fci = new byte[2 + 2 + aid.length + 2 + proprietaryDataLength];
+        int offset = 0;
+        fci[offset++] = (byte) 0x6F;
+        fci[offset++] = (byte) (fci.length - 2);
+        fci[offset++] = (byte) 0x84;
+        fci[offset++] = (byte) aid.length;
+        System.arraycopy(aid, 0, fci, offset, aid.length);
+        offset += aid.length;
+        fci[offset++] = (byte) 0xA5;
+        fci[offset++] = (byte) proprietaryDataLength;
+        fci[offset++] = (byte) 0xBF;
+        fci[offset++] = (byte) 0x0C;
+        fci[offset++] = (byte) discretionaryDataLength;
+        fci[offset++] = (byte) 0xC7;
+        fci[offset++] = (byte) serialNumber.length;
+        System.arraycopy(serialNumber, 0, fci, offset, serialNumber.length);
+        offset += serialNumber.length;
+        fci[offset++] = (byte) 0x53;
+        fci[offset++] = (byte) startupInfo.length;
+        System.arraycopy(startupInfo, 0, fci, offset, startupInfo.length);
+        return fci;
+    }
+
+    private static byte[] response(byte[] data, int offset, int length) {
+        byte[] apduOut = new byte[length + 2];
+        System.arraycopy(data, offset, apduOut, 0, length);
+        apduOut[length] = (byte) 0x90;
+        apduOut[length + 1] = (byte) 0x00;
+        return apduOut;
+    }
+
+    private static byte[] status(int sw) {
+        return new byte[] {(byte) (sw >> 8), (byte) sw};
+    }
+
+    /**
+     * Gets the content of a record
+     *
+     * @param sfi the SFI of the file
+     * @param recordNumber the record number (starting at 1)
+     * @return a copy of the record
+     */
+    public synchronized byte[] getRecord(byte sfi, int recordNumber) {
+        ElementaryFile file = getFile(filesBySfi, sfi);
+        file.checkRecordNumber(recordNumber);
+        return file.records[recordNumber - 1].clone();
+    }
+
+    /**
+     * Sets the content of a record, out of any session
+     *
+     * @param sfi the SFI of the file
+     * @param recordNumber the record number (starting at 1)
+     * @param data the content, padded with 00h up to the record size
+     */
+    public synchronized void setRecord(byte sfi, int recordNumber, byte[] data) {
+        getFile(filesBySfi, sfi).setRecord(recordNumber, data);
+    }
+
+    /**
+     * Gets the value of a counter
+     *
+     * @param sfi the SFI of the counters file
+     * @param counterNumber the counter number (starting at 1)
+     * @return the value
+     */
+    public synchronized int getCounter(byte sfi, int counterNumber) {
+        return getFile(filesBySfi, sfi).getCounter(counterNumber);
+    }
+
+    /**
+     * @return the current value of the transaction counter
+     */
+    public synchronized int getTransactionCounter() {
+        return transactionCounter;
+    }
+
+    /**
+     * @return true if a secure session is open
+     */
+    public synchronized boolean isSessionOpen() {
+        return sessionOpen;
+    }
+
+    /**
+     * @return true if the last session closed has been ratified
+     */
+    public synchronized boolean isRatified() {
+        return ratified;
+    }
+
+    /**
+     * @return the number of sessions successfully closed
+     */
+    public synchronized int getSessionCount() {
+        return sessionCount;
+    }
+}
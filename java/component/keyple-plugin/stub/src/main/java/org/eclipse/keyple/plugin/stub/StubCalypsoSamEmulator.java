@@ -0,0 +1,294 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+
+/**
+ * Stateful emulator of a Calypso SAM (revision C1), counterpart of {@link StubCalypsoPoEmulator}
+ * for the secure sessions.
+ * <p>
+ * It processes the commands issued by the terminal during a secure session: Select Diversifier,
+ * Get Challenge, Digest Init, Digest Update (single and multiple), Digest Close and Digest
+ * Authenticate. The terminal signature it computes and the PO signature it checks are those of
+ * the PO emulator (see StubSessionDigest): a session can only be closed if the terminal has
+ * digested exactly the data processed by the PO, with the right diversifier and challenge.
+ * <p>
+ * The SAM supports ISO 7816-4 logical channels (MANAGE CHANNEL command), each channel having its
+ * own diversifier, challenge and digest, so that a single emulator can serve several concurrent
+ * sessions. All the channels are closed when the physical channel is closed.
+ * <p>
+ * The commands registered with {@link #addHexCommand(String, String)} take precedence over the
+ * emulation; the other commands are answered with 6D00h.
+ */
+public final class StubCalypsoSamEmulator extends StubSecureElement {
+
+    public static final String DEFAULT_SERIAL_NUMBER = "12345678";
+    public static final String SE_PROTOCOL = "PROTOCOL_ISO7816_3";
+    public static final int DEFAULT_LOGICAL_CHANNELS_NUMBER = 4;
+
+    /* ATR of a C1 SAM, around the serial number */
+    private static final String ATR_PREFIX = "3B3F9600805A0080C1200000";
+    private static final String ATR_SUFFIX = "829000";
+    private static final int SERIAL_NUMBER_LENGTH = 4;
+    private static final int MAX_LOGICAL_CHANNELS_NUMBER = 20;
+
+    /* status words */
+    private static final int SW_SUCCESS = 0x9000;
+    private static final int SW_WRONG_LENGTH = 0x6700;
+    private static final int SW_CHANNEL_NOT_SUPPORTED = 0x6881;
+    private static final int SW_CONDITIONS_NOT_SATISFIED = 0x6985;
+    private static final int SW_INCORRECT_SIGNATURE = 0x6988;
+    private static final int SW_NO_CHANNEL_AVAILABLE = 0x6A81;
+    private static final int SW_WRONG_P1_P2 = 0x6B00;
+    private static final int SW_INS_NOT_SUPPORTED = 0x6D00;
+
+    /* instruction codes */
+    private static final byte INS_MANAGE_CHANNEL = (byte) 0x70;
+    private static final byte INS_SELECT_DIVERSIFIER = (byte) 0x14;
+    private static final byte INS_GET_CHALLENGE = (byte) 0x84;
+    private static final byte INS_DIGEST_INIT = (byte) 0x8A;
+    private static final byte INS_DIGEST_UPDATE = (byte) 0x8C;
+    private static final byte INS_DIGEST_CLOSE = (byte) 0x8E;
+    private static final byte INS_DIGEST_AUTHENTICATE = (byte) 0x82;
+
+    private final byte[] atr;
+    private final LogicalChannel[] channels;
+    private final Random random = new Random();
+
+    /**
+     * State of a logical channel
+     */
+    private static final class LogicalChannel {
+        private byte[] diversifier = new byte[0];
+        private byte[] challenge;
+        private final StubSessionDigest digest = new StubSessionDigest();
+    }
+
+    /**
+     * Creates a SAM emulator with the default serial number and number of logical channels
+     */
+    public StubCalypsoSamEmulator() {
+        this(DEFAULT_SERIAL_NUMBER, DEFAULT_LOGICAL_CHANNELS_NUMBER);
+    }
+
+    /**
+     * Creates a SAM emulator
+     *
+     * @param serialNumber the serial number as an hexadecimal string (4 bytes)
+     * @param logicalChannelsNumber the number of logical channels, basic channel included (1 to
+     *        20)
+     */
+    public StubCalypsoSamEmulator(String serialNumber, int logicalChannelsNumber) {
+        if (serialNumber == null
+                || ByteArrayUtil.fromHex(serialNumber).length != SERIAL_NUMBER_LENGTH) {
+            throw new IllegalArgumentException("Bad serial number: " + serialNumber);
+        }
+        if (logicalChannelsNumber < 1 || logicalChannelsNumber > MAX_LOGICAL_CHANNELS_NUMBER) {
+            throw new IllegalArgumentException(
+                    "Bad number of logical channels: " + logicalChannelsNumber);
+        }
+        atr = ByteArrayUtil.fromHex(ATR_PREFIX + serialNumber + ATR_SUFFIX);
+        channels = new LogicalChannel[logicalChannelsNumber];
+        channels[0] = new LogicalChannel();
+    }
+
+    @Override
+    public byte[] getATR() {
+        return atr;
+    }
+
+    @Override
+    public String getSeProcotol() {
+        return SE_PROTOCOL;
+    }
+
+    /**
+     * Closes the physical channel: the SAM is reset, the logical channels are closed
+     */
+    @Override
+    public synchronized void closePhysicalChannel() {
+        isPhysicalChannelOpen = false;
+        Arrays.fill(channels, null);
+        channels[0] = new LogicalChannel();
+    }
+
+    /**
+     * Processes a command APDU on the logical channel given by its class byte
+     *
+     * @param apduIn : command to be processed
+     * @return APDU response
+     */
+    @Override
+    public synchronized byte[] processApdu(byte[] apduIn) {
+        if (apduIn == null) {
+            return null;
+        }
+        if (apduIn.length < 4) {
+            return status(SW_WRONG_LENGTH);
+        }
+        if (!hexCommands.isEmpty()) {
+            String hexResponse = hexCommands.get(ByteArrayUtil.toHex(apduIn));
+            if (hexResponse != null) {
+                return ByteArrayUtil.fromHex(hexResponse);
+            }
+        }
+        if (apduIn[1] == INS_MANAGE_CHANNEL) {
+            return manageChannel(apduIn);
+        }
+        // channel number: first interindustry values (0 to 3) or further ones (4 to 19)
+        int cla = apduIn[0] & 0xFF;
+        int channelNumber = (cla & 0x40) != 0 ? 4 + (cla & 0x0F) : cla & 0x03;
+        if (channelNumber >= channels.length || channels[channelNumber] == null) {
+            return status(SW_CHANNEL_NOT_SUPPORTED);
+        }
+        LogicalChannel channel = channels[channelNumber];
+        int lc = apduIn.length > 5 ? apduIn[4] & 0xFF : 0;
+        if (apduIn.length > 5 && apduIn.length != 5 + lc) {
+            return status(SW_WRONG_LENGTH);
+        }
+        switch (apduIn[1]) {
+            case INS_SELECT_DIVERSIFIER:
+                if (lc != 4 && lc != 8) {
+                    return status(SW_WRONG_LENGTH);
+                }
+                channel.diversifier = Arrays.copyOfRange(apduIn, 5, 5 + lc);
+                channel.digest.abort();
+                return status(SW_SUCCESS);
+            case INS_GET_CHALLENGE:
+                return getChallenge(channel, apduIn);
+            case INS_DIGEST_INIT:
+                return digestInit(channel, apduIn, lc);
+            case INS_DIGEST_UPDATE:
+                return digestUpdate(channel, apduIn, lc);
+            case INS_DIGEST_CLOSE:
+                return digestClose(channel, apduIn);
+            case INS_DIGEST_AUTHENTICATE:
+                return digestAuthenticate(channel, apduIn, lc);
+            default:
+                return status(SW_INS_NOT_SUPPORTED);
+        }
+    }
+
+    private byte[] manageChannel(byte[] apduIn) {
+        if (apduIn[2] == (byte) 0x00 && apduIn[3] == (byte) 0x00) {
+            // open: the SAM assigns the lowest free channel
+            for (int i = 1; i < channels.length; i++) {
+                if (channels[i] == null) {
+                    channels[i] = new LogicalChannel();
+                    return response(new byte[] {(byte) i});
+                }
+            }
+            return status(SW_NO_CHANNEL_AVAILABLE);
+        } else if (apduIn[2] == (byte) 0x80) {
+            // close
+            int channelNumber = apduIn[3] & 0xFF;
+            if (channelNumber == 0 || channelNumber >= channels.length
+                    || channels[channelNumber] == null) {
+                return status(SW_WRONG_P1_P2);
+            }
+            channels[channelNumber] = null;
+            return status(SW_SUCCESS);
+        }
+        return status(SW_WRONG_P1_P2);
+    }
+
+    private byte[] getChallenge(LogicalChannel channel, byte[] apduIn) {
+        int le = apduIn.length == 5 ? apduIn[4] & 0xFF : 0;
+        if (le != 4 && le != 8) {
+            return status(SW_WRONG_LENGTH);
+        }
+        channel.challenge = new byte[le];
+        random.nextBytes(channel.challenge);
+        return response(channel.challenge);
+    }
+
+    private byte[] digestInit(LogicalChannel channel, byte[] apduIn, int lc) {
+        // the challenge is used by a single session
+        byte[] challenge = channel.challenge;
+        channel.challenge = null;
+        if (challenge == null) {
+            return status(SW_CONDITIONS_NOT_SATISFIED);
+        }
+        // KIF and KVC precede the Open Secure Session data when the key is referenced by KIF
+        int offset = apduIn[3] == (byte) 0xFF ? 7 : 5;
+        if (5 + lc < offset) {
+            return status(SW_WRONG_LENGTH);
+        }
+        channel.digest.start(channel.diversifier, challenge);
+        channel.digest.update(apduIn, offset, 5 + lc - offset);
+        return status(SW_SUCCESS);
+    }
+
+    private byte[] digestUpdate(LogicalChannel channel, byte[] apduIn, int lc) {
+        if (!channel.digest.isStarted()) {
+            return status(SW_CONDITIONS_NOT_SATISFIED);
+        }
+        if (apduIn[2] == (byte) 0x80) {
+            // Digest Update Multiple: length and data of each buffer
+            int offset = 5;
+            while (offset < 5 + lc) {
+                int length = apduIn[offset++] & 0xFF;
+                if (offset + length > 5 + lc) {
+                    channel.digest.abort();
+                    return status(SW_WRONG_LENGTH);
+                }
+                channel.digest.update(apduIn, offset, length);
+                offset += length;
+            }
+        } else {
+            channel.digest.update(apduIn, 5, lc);
+        }
+        return status(SW_SUCCESS);
+    }
+
+    private byte[] digestClose(LogicalChannel channel, byte[] apduIn) {
+        if (!channel.digest.isStarted()) {
+            return status(SW_CONDITIONS_NOT_SATISFIED);
+        }
+        int le = apduIn.length == 5 ? apduIn[4] & 0xFF : 0;
+        if (le != 4 && le != 8) {
+            return status(SW_WRONG_LENGTH);
+        }
+        channel.digest.close();
+        return response(channel.digest.getTerminalSignature(le));
+    }
+
+    private byte[] digestAuthenticate(LogicalChannel channel, byte[] apduIn, int lc) {
+        byte[] poSignature = channel.digest.getPoSignature(lc);
+        if (poSignature == null) {
+            return status(SW_CONDITIONS_NOT_SATISFIED);
+        }
+        if (lc != 4 && lc != 8) {
+            return status(SW_WRONG_LENGTH);
+        }
+        // the signature can only be checked once
+        channel.digest.abort();
+        if (!Arrays.equals(poSignature, Arrays.copyOfRange(apduIn, 5, 5 + lc))) {
+            return status(SW_INCORRECT_SIGNATURE);
+        }
+        return status(SW_SUCCESS);
+    }
+
+    private static byte[] response(byte[] data) {
+        byte[] apduOut = Arrays.copyOf(data, data.length + 2);
+        apduOut[data.length] = (byte) 0x90;
+        apduOut[data.length + 1] = (byte) 0x00;
+        return apduOut;
+    }
+
+    private static byte[] status(int sw) {
+        return new byte[] {(byte) (sw >> 8), (byte) sw};
+    }
+}
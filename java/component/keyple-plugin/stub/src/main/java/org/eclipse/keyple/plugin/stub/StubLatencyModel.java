@@ -0,0 +1,128 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Model of the time taken by a {@link StubSecureElement} to process an APDU.
+ * <p>
+ * The latency returned for each APDU exchange is spent by the stub reader after the processing of
+ * the command, while the exchange is in progress, as it would be with a real SE. The provided
+ * models can be combined, e.g. a per-instruction model made of fixed and linear latencies.
+ * <p>
+ * The models are stateless and thread-safe, they can be shared between several SEs.
+ */
+public abstract class StubLatencyModel {
+
+    /** no latency: the APDUs are processed instantaneously */
+    public static final StubLatencyModel NONE = fixed(0);
+
+    /**
+     * Gets the latency of an APDU exchange
+     *
+     * @param apduIn the command
+     * @param apduOut the response
+     * @return the latency in microseconds
+     */
+    public abstract long getLatency(byte[] apduIn, byte[] apduOut);
+
+    /**
+     * Creates a model with the same latency for all the APDUs
+     *
+     * @param latency the latency in microseconds
+     * @return the model
+     */
+    public static StubLatencyModel fixed(final long latency) {
+        checkLatency(latency);
+        return new StubLatencyModel() {
+            @Override
+            public long getLatency(byte[] apduIn, byte[] apduOut) {
+                return latency;
+            }
+        };
+    }
+
+    /**
+     * Creates a model whose latency is uniformly distributed in an interval
+     *
+     * @param minLatency the minimum latency in microseconds
+     * @param maxLatency the maximum latency in microseconds
+     * @return the model
+     */
+    public static StubLatencyModel uniform(final long minLatency, final long maxLatency) {
+        checkLatency(minLatency);
+        if (maxLatency < minLatency) {
+            throw new IllegalArgumentException("The maximum latency is lower than the minimum.");
+        }
+        final Random random = new Random();
+        return new StubLatencyModel() {
+            @Override
+            public long getLatency(byte[] apduIn, byte[] apduOut) {
+                return minLatency + (long) (random.nextDouble() * (maxLatency - minLatency));
+            }
+        };
+    }
+
+    /**
+     * Creates a model whose latency is proportional to the number of bytes exchanged, such as the
+     * transmission time on a contactless link (about 100 microseconds per byte at 106 kbit/s)
+     *
+     * @param baseLatency the latency of an exchange without data, in microseconds
+     * @param latencyPerByte the latency added by each byte of the command and of the response, in
+     *        microseconds
+     * @return the model
+     */
+    public static StubLatencyModel linear(final long baseLatency, final long latencyPerByte) {
+        checkLatency(baseLatency);
+        checkLatency(latencyPerByte);
+        return new StubLatencyModel() {
+            @Override
+            public long getLatency(byte[] apduIn, byte[] apduOut) {
+                int length = apduIn.length + (apduOut != null ? apduOut.length : 0);
+                return baseLatency + latencyPerByte * length;
+            }
+        };
+    }
+
+    /**
+     * Creates a model whose latency depends on the instruction code (INS) of the command, e.g. to
+     * simulate the processing time of the secure session commands
+     *
+     * @param models the models to apply, by instruction code
+     * @param defaultModel the model to apply to the other instructions
+     * @return the model
+     */
+    public static StubLatencyModel byInstruction(Map<Byte, StubLatencyModel> models,
+            final StubLatencyModel defaultModel) {
+        if (models == null || defaultModel == null) {
+            throw new IllegalArgumentException("The models can't be null.");
+        }
+        final Map<Byte, StubLatencyModel> modelsByIns = new HashMap<Byte, StubLatencyModel>(models);
+        return new StubLatencyModel() {
+            @Override
+            public long getLatency(byte[] apduIn, byte[] apduOut) {
+                StubLatencyModel model =
+                        apduIn.length > 1 ? modelsByIns.get(apduIn[1]) : defaultModel;
+                return (model != null ? model : defaultModel).getLatency(apduIn, apduOut);
+            }
+        };
+    }
+
+    private static void checkLatency(long latency) {
+        if (latency < 0) {
+            throw new IllegalArgumentException("The latency can't be negative: " + latency);
+        }
+    }
+}
@@ -18,6 +18,7 @@ import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderIOException;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderNotFoundException;
 import org.eclipse.keyple.core.seproxy.plugin.AbstractThreadedObservablePlugin;
+import org.eclipse.keyple.core.seproxy.plugin.local.PollingPolicy;
 import org.eclipse.keyple.core.seproxy.protocol.TransmissionMode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,6 +36,9 @@ final class StubPluginImpl extends AbstractThreadedObservablePlugin implements S
 
     private static final Logger logger = LoggerFactory.getLogger(StubPluginImpl.class);
 
+    /* maximum interval between two fetches of the stub readers names (in ms) */
+    private static final long MAX_READERS_POLLING_INTERVAL = 1000;
+
     private final Map<String, String> parameters = new HashMap<String, String>();
 
     // simulated list of real-time connected stubReader
@@ -57,6 +61,17 @@ final class StubPluginImpl extends AbstractThreadedObservablePlugin implements S
         threadWaitTimeout = 10;
     }
 
+    /**
+     * The monitoring thread is notified of each plug and unplug: the polling is only a fallback, it
+     * starts at {@link #threadWaitTimeout} ms after a change and slows down up to one second.
+     *
+     * @return the polling policy of the monitoring thread
+     */
+    @Override
+    protected PollingPolicy getReadersPollingPolicy() {
+        return new PollingPolicy(threadWaitTimeout, MAX_READERS_POLLING_INTERVAL, 2);
+    }
+
     /**
      * Gets the single instance of StubPlugin.
      *
@@ -98,6 +113,8 @@ final class StubPluginImpl extends AbstractThreadedObservablePlugin implements S
 
         if (exist) {
             logger.error("Reader with readerName " + readerName + " was already plugged");
+        } else {
+            notifyNativeReadersChanged();
         }
 
     }
@@ -129,6 +146,7 @@ final class StubPluginImpl extends AbstractThreadedObservablePlugin implements S
             }
 
             connectedStubNames.addAll(readerNames);
+            notifyNativeReadersChanged();
 
         } else {
             logger.error("All {} readers were already plugged", readerNames.size());
@@ -155,6 +173,7 @@ final class StubPluginImpl extends AbstractThreadedObservablePlugin implements S
             /* remove the native reader from the native readers list */
             logger.info("Unplugged reader with name {}, connectedStubNames size {}", readerName,
                     connectedStubNames.size());
+            notifyNativeReadersChanged();
         }
     }
 
@@ -174,6 +193,7 @@ final class StubPluginImpl extends AbstractThreadedObservablePlugin implements S
         if (synchronous) {
             readers.removeAll(readersToDelete);
         }
+        notifyNativeReadersChanged();
     }
 
 
@@ -16,7 +16,6 @@ import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.regex.Pattern;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderIOException;
 import org.eclipse.keyple.core.seproxy.plugin.local.*;
@@ -111,7 +110,7 @@ class StubReaderImpl extends AbstractObservableLocalReader
         if (se == null) {
             throw new KeypleReaderIOException("No SE available.");
         }
-        return se.processApdu(apduIn);
+        return se.transmitApdu(apduIn);
     }
 
     @Override
@@ -126,13 +125,11 @@ class StubReaderImpl extends AbstractObservableLocalReader
                 openPhysicalChannel();
             }
             // the request will be executed only if the protocol match the requestElement
-            String selectionMask = protocolsMap.get(protocolFlag);
-            if (selectionMask == null) {
+            if (!protocolsMap.containsKey(protocolFlag)) {
                 throw new KeypleReaderIOException("Target selector mask not found!", null);
             }
-            Pattern p = Pattern.compile(selectionMask);
-            String protocol = se.getSeProcotol();
-            if (!p.matcher(protocol).matches()) {
+            /* all the protocol rules are evaluated once per SE protocol value */
+            if (!getMatchingProtocols(se.getSeProcotol()).contains(protocolFlag)) {
                 logger.trace("[{}] protocolFlagMatches => unmatching SE. PROTOCOLFLAG = {}",
                         this.getName(), protocolFlag);
                 result = false;
@@ -13,6 +13,8 @@ package org.eclipse.keyple.plugin.stub;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderIOException;
 import org.eclipse.keyple.core.util.ByteArrayUtil;
 
@@ -49,6 +51,27 @@ public abstract class StubSecureElement {
 
     Map<String, String> hexCommands = new HashMap<String, String>();
 
+    private volatile StubLatencyModel latencyModel = StubLatencyModel.NONE;
+
+    /**
+     * Sets the model of the time taken by the SE to process the APDUs
+     *
+     * @param latencyModel the latency model, {@link StubLatencyModel#NONE} by default
+     */
+    public void setLatencyModel(StubLatencyModel latencyModel) {
+        if (latencyModel == null) {
+            throw new IllegalArgumentException("The latency model can't be null.");
+        }
+        this.latencyModel = latencyModel;
+    }
+
+    /**
+     * @return the model of the time taken by the SE to process the APDUs
+     */
+    public StubLatencyModel getLatencyModel() {
+        return latencyModel;
+    }
+
     /**
      * Add more simulated commands to the Stub SE
      *
@@ -88,11 +111,35 @@ public abstract class StubSecureElement {
         String hexApdu = ByteArrayUtil.toHex(apduIn);
 
         // return matching hexa response if found
-        if (hexCommands.containsKey(hexApdu)) {
-            return ByteArrayUtil.fromHex(hexCommands.get(hexApdu));
+        String hexResponse = hexCommands.get(hexApdu);
+        if (hexResponse != null) {
+            return ByteArrayUtil.fromHex(hexResponse);
         }
 
         // throw a KeypleReaderIOException if not found
         throw new KeypleReaderIOException("No response available for this request.");
     }
+
+    /**
+     * Processes an APDU and waits for the latency of the exchange given by the latency model
+     *
+     * @param apduIn : command to be processed
+     * @return APDU response
+     * @throws KeypleReaderIOException if the communication with the reader or the SE has failed
+     */
+    byte[] transmitApdu(byte[] apduIn) throws KeypleReaderIOException {
+        byte[] apduOut = processApdu(apduIn);
+        StubLatencyModel model = latencyModel;
+        if (model != StubLatencyModel.NONE && apduIn != null) {
+            long deadline = System.nanoTime()
+                    + TimeUnit.MICROSECONDS.toNanos(model.getLatency(apduIn, apduOut));
+            // parkNanos may return early: park again until the deadline or an interruption
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0
+                    && !Thread.currentThread().isInterrupted()) {
+                LockSupport.parkNanos(remaining);
+            }
+        }
+        return apduOut;
+    }
 }
@@ -0,0 +1,119 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.stub;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * (package-private)<br>
+ * Session digest shared by {@link StubCalypsoPoEmulator} and {@link StubCalypsoSamEmulator}.
+ * <p>
+ * It stands for the session MAC computation of the Calypso SEs, which the stubs can't perform
+ * without the keys: both sides hash the same data with SHA-1 and take their signatures from the
+ * hash (the terminal signature from its first bytes, the PO signature from the following ones).
+ * The hashed data are the diversifier (PO serial number), the terminal challenge, the data of the
+ * Open Secure Session response and the exchanges made in session, so that the signatures only
+ * match if the terminal has digested exactly what the PO has processed.
+ * <p>
+ * This is not a cryptographic protection, only a consistency check between the stubs.
+ */
+final class StubSessionDigest {
+
+    /** maximum length of a signature */
+    static final int MAX_SIGNATURE_LENGTH = 10;
+
+    private final MessageDigest messageDigest;
+    private boolean started;
+    private byte[] hash;
+
+    StubSessionDigest() {
+        try {
+            messageDigest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available.", e);
+        }
+    }
+
+    /**
+     * Starts a new digest, discarding the current one if any
+     *
+     * @param diversifier the diversifier (PO serial number)
+     * @param terminalChallenge the terminal challenge
+     */
+    void start(byte[] diversifier, byte[] terminalChallenge) {
+        messageDigest.reset();
+        messageDigest.update(diversifier);
+        messageDigest.update(terminalChallenge);
+        started = true;
+        hash = null;
+    }
+
+    /**
+     * @return true if the digest is started and not closed
+     */
+    boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * Adds data to the digest
+     *
+     * @param data the buffer
+     * @param offset the offset of the data in the buffer
+     * @param length the length of the data
+     */
+    void update(byte[] data, int offset, int length) {
+        if (!started) {
+            throw new IllegalStateException("The digest is not started.");
+        }
+        messageDigest.update(data, offset, length);
+    }
+
+    /**
+     * Closes the digest: no data can be added until the next start
+     */
+    void close() {
+        if (started) {
+            hash = messageDigest.digest();
+            started = false;
+        }
+    }
+
+    /**
+     * Discards the current digest
+     */
+    void abort() {
+        messageDigest.reset();
+        started = false;
+        hash = null;
+    }
+
+    /**
+     * @param length the length of the signature
+     * @return the terminal signature, null if the digest is not closed
+     */
+    byte[] getTerminalSignature(int length) {
+        return hash != null ? Arrays.copyOfRange(hash, 0, length) : null;
+    }
+
+    /**
+     * @param length the length of the signature
+     * @return the PO signature, null if the digest is not closed
+     */
+    byte[] getPoSignature(int length) {
+        return hash != null
+                ? Arrays.copyOfRange(hash, MAX_SIGNATURE_LENGTH, MAX_SIGNATURE_LENGTH + length)
+                : null;
+    }
+}
@@ -0,0 +1,405 @@
+/********************************************************************************
+ * Copyright (c) 2020 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.eclipse.keyple.calypso.command.sam.SamRevision;
+import org.eclipse.keyple.calypso.transaction.CalypsoPo;
+import org.eclipse.keyple.calypso.transaction.CalypsoSam;
+import org.eclipse.keyple.calypso.transaction.PoResource;
+import org.eclipse.keyple.calypso.transaction.PoSecuritySettings;
+import org.eclipse.keyple.calypso.transaction.PoSelectionRequest;
+import org.eclipse.keyple.calypso.transaction.PoSelector;
+import org.eclipse.keyple.calypso.transaction.PoTransaction;
+import org.eclipse.keyple.calypso.transaction.SamResource;
+import org.eclipse.keyple.calypso.transaction.SamSelectionRequest;
+import org.eclipse.keyple.calypso.transaction.SamSelector;
+import org.eclipse.keyple.core.selection.SeSelection;
+import org.eclipse.keyple.core.seproxy.ChannelControl;
+import org.eclipse.keyple.core.seproxy.SeReader;
+import org.eclipse.keyple.core.seproxy.SeSelector;
+import org.eclipse.keyple.core.seproxy.message.ApduRequest;
+import org.eclipse.keyple.core.seproxy.message.ProxyReader;
+import org.eclipse.keyple.core.seproxy.message.SeRequest;
+import org.eclipse.keyple.core.seproxy.plugin.local.AbstractLocalReader;
+import org.eclipse.keyple.core.seproxy.plugin.local.LogicalChannelReader;
+import org.eclipse.keyple.core.seproxy.protocol.SeCommonProtocols;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+@SuppressWarnings("PMD.SignatureDeclareThrowsException")
+public class StubCalypsoPoEmulatorTest extends BaseStubTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(StubCalypsoPoEmulatorTest.class);
+
+    private static final byte SFI_ENVIRONMENT = (byte) 0x07;
+    private static final byte SFI_EVENT_LOG = (byte) 0x08;
+    private static final byte SFI_COUNTERS = (byte) 0x19;
+    private static final int RECORD_SIZE = 29;
+    private static final String ENVIRONMENT =
+            "24B92848080000131A5000120000000000000000000000000000000000";
+    private static final String EVENT =
+            "00112233445566778899AABBCCDDEEFF00112233445566778899AABBCC";
+
+    private StubCalypsoPoEmulator poEmulator;
+    private StubCalypsoSamEmulator samEmulator;
+    private SeReader poReader;
+    private SeReader samReader;
+
+    @Before
+    public void setUp() throws Exception {
+        setupStub();
+        poEmulator = poEmulatorBuilder().build();
+        samEmulator = new StubCalypsoSamEmulator();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        clearStub();
+    }
+
+    private static StubCalypsoPoEmulator.StubCalypsoPoEmulatorBuilder poEmulatorBuilder() {
+        return StubCalypsoPoEmulator.builder()//
+                .linearFile(SFI_ENVIRONMENT, (short) 0x2001, 1, RECORD_SIZE)//
+                .record(SFI_ENVIRONMENT, 1, ENVIRONMENT)//
+                .cyclicFile(SFI_EVENT_LOG, (short) 0x2010, 3, RECORD_SIZE)//
+                .record(SFI_EVENT_LOG, 1, EVENT)//
+                .counterFile(SFI_COUNTERS, (short) 0x2069, 4)//
+                .counter(SFI_COUNTERS, 1, 100);
+    }
+
+    private SeReader plugReader(String name, SeCommonProtocols protocol,
+            StubSecureElement stubSecureElement) throws Exception {
+        stubPlugin.plugStubReader(name, true);
+        StubReader reader = (StubReader) stubPlugin.getReader(name);
+        reader.addSeProtocolSetting(protocol,
+                StubProtocolSetting.STUB_PROTOCOL_SETTING.get(protocol));
+        reader.insertSe(stubSecureElement);
+        return reader;
+    }
+
+    private void plugReaders() throws Exception {
+        poReader = plugReader("poReader", SeCommonProtocols.PROTOCOL_ISO14443_4, poEmulator);
+        samReader = plugReader("samReader", SeCommonProtocols.PROTOCOL_ISO7816_3, samEmulator);
+    }
+
+    private static CalypsoPo selectPo(SeReader poReader) throws Exception {
+        SeSelection seSelection = new SeSelection();
+        seSelection.prepareSelection(new PoSelectionRequest(PoSelector.builder()
+                .seProtocol(SeCommonProtocols.PROTOCOL_ISO14443_4)
+                .aidSelector(SeSelector.AidSelector.builder()
+                        .aidToSelect(StubCalypsoPoEmulator.DEFAULT_AID).build())
+                .invalidatedPo(PoSelector.InvalidatedPo.REJECT).build()));
+        return (CalypsoPo) seSelection.processExplicitSelection(poReader).getActiveMatchingSe();
+    }
+
+    private static CalypsoSam selectSam(SeReader samReader) throws Exception {
+        SeSelection samSelection = new SeSelection();
+        samSelection.prepareSelection(new SamSelectionRequest(
+                SamSelector.builder().seProtocol(SeCommonProtocols.PROTOCOL_ISO7816_3)
+                        .samRevision(SamRevision.C1).serialNumber(".*").build()));
+        return (CalypsoSam) samSelection.processExplicitSelection(samReader)
+                .getActiveMatchingSe();
+    }
+
+    private static PoSecuritySettings.PoSecuritySettingsBuilder securitySettings(
+            SamResource samResource) {
+        return new PoSecuritySettings.PoSecuritySettingsBuilder(samResource)//
+                .sessionDefaultKif(PoTransaction.SessionSetting.AccessLevel.SESSION_LVL_DEBIT,
+                        (byte) 0x30)//
+                .sessionDefaultKeyRecordNumber(
+                        PoTransaction.SessionSetting.AccessLevel.SESSION_LVL_DEBIT, (byte) 0x03);
+    }
+
+    private PoTransaction newPoTransaction(CalypsoPo calypsoPo,
+            PoSecuritySettings poSecuritySettings) {
+        return new PoTransaction(new PoResource(poReader, calypsoPo), poSecuritySettings);
+    }
+
+    private byte[] transmit(StubSecureElement se, String apdu) throws Exception {
+        return se.processApdu(ByteArrayUtil.fromHex(apdu));
+    }
+
+    private static String sw(byte[] apduOut) {
+        return ByteArrayUtil.toHex(apduOut, apduOut.length - 2, 2);
+    }
+
+    @Test
+    public void session_modificationsCommitted() throws Exception {
+        plugReaders();
+        CalypsoPo calypsoPo = selectPo(poReader);
+        Assert.assertEquals(StubCalypsoPoEmulator.DEFAULT_SERIAL_NUMBER,
+                ByteArrayUtil.toHex(calypsoPo.getApplicationSerialNumber()));
+        PoTransaction poTransaction = newPoTransaction(calypsoPo,
+                securitySettings(new SamResource(samReader, selectSam(samReader))).build());
+
+        poTransaction.prepareReadRecordFile(SFI_EVENT_LOG, 1);
+        poTransaction.processOpening(PoTransaction.SessionSetting.AccessLevel.SESSION_LVL_DEBIT);
+        Assert.assertTrue(poEmulator.isSessionOpen());
+        // the counters are read to allow the anticipation of the responses
+        poTransaction.prepareReadRecordFile(SFI_COUNTERS, 1);
+        poTransaction.processPoCommandsInSession();
+        Assert.assertEquals(EVENT, ByteArrayUtil
+                .toHex(calypsoPo.getFileBySfi(SFI_EVENT_LOG).getData().getContent(1)));
+
+        poTransaction.prepareAppendRecord(SFI_EVENT_LOG, ByteArrayUtil.fromHex("CAFE"));
+        poTransaction.prepareUpdateRecord(SFI_ENVIRONMENT, (byte) 1,
+                ByteArrayUtil.fromHex("1122"));
+        poTransaction.prepareIncrease(SFI_COUNTERS, (byte) 2, 10);
+        poTransaction.prepareDecrease(SFI_COUNTERS, (byte) 1, 30);
+        poTransaction.processClosing(ChannelControl.KEEP_OPEN);
+
+        Assert.assertFalse(poEmulator.isSessionOpen());
+        Assert.assertTrue(poEmulator.isRatified());
+        Assert.assertEquals(1, poEmulator.getSessionCount());
+        Assert.assertEquals(StubCalypsoPoEmulator.DEFAULT_TRANSACTION_COUNTER - 1,
+                poEmulator.getTransactionCounter());
+        // the record is replaced and padded
+        Assert.assertArrayEquals(Arrays.copyOf(ByteArrayUtil.fromHex("1122"), RECORD_SIZE),
+                poEmulator.getRecord(SFI_ENVIRONMENT, 1));
+        Assert.assertEquals("CAFE", ByteArrayUtil.toHex(poEmulator.getRecord(SFI_EVENT_LOG, 1))
+                .substring(0, 4));
+        Assert.assertEquals(EVENT, ByteArrayUtil.toHex(poEmulator.getRecord(SFI_EVENT_LOG, 2)));
+        Assert.assertEquals(70, poEmulator.getCounter(SFI_COUNTERS, 1));
+        Assert.assertEquals(10, poEmulator.getCounter(SFI_COUNTERS, 2));
+        Assert.assertEquals(70, calypsoPo.getFileBySfi(SFI_COUNTERS).getData()
+                .getContentAsCounterValue(1));
+    }
+
+    @Test
+    public void session_cancelled_modificationsDiscarded() throws Exception {
+        plugReaders();
+        CalypsoPo calypsoPo = selectPo(poReader);
+        PoTransaction poTransaction = newPoTransaction(calypsoPo,
+                securitySettings(new SamResource(samReader, selectSam(samReader))).build());
+
+        poTransaction.processOpening(PoTransaction.SessionSetting.AccessLevel.SESSION_LVL_DEBIT);
+        poTransaction.prepareUpdateRecord(SFI_ENVIRONMENT, (byte) 1,
+                ByteArrayUtil.fromHex("1122"));
+        poTransaction.prepareIncrease(SFI_COUNTERS, (byte) 1, 10);
+        poTransaction.processPoCommandsInSession();
+        Assert.assertEquals(110, poEmulator.getCounter(SFI_COUNTERS, 1));
+        poTransaction.processCancel(ChannelControl.KEEP_OPEN);
+
+        Assert.assertFalse(poEmulator.isSessionOpen());
+        Assert.assertEquals(0, poEmulator.getSessionCount());
+        Assert.assertEquals(ENVIRONMENT,
+                ByteArrayUtil.toHex(poEmulator.getRecord(SFI_ENVIRONMENT, 1)));
+        Assert.assertEquals(100, poEmulator.getCounter(SFI_COUNTERS, 1));
+    }
+
+    @Test
+    public void session_notRatified_whenTorn() throws Exception {
+        plugReaders();
+        CalypsoPo calypsoPo = selectPo(poReader);
+        PoSecuritySettings poSecuritySettings =
+                securitySettings(new SamResource(samReader, selectSam(samReader)))
+                        .ratificationMode(
+                                PoTransaction.SessionSetting.RatificationMode.CLOSE_NOT_RATIFIED)
+                        .build();
+
+        PoTransaction poTransaction = newPoTransaction(calypsoPo, poSecuritySettings);
+        poTransaction.processOpening(PoTransaction.SessionSetting.AccessLevel.SESSION_LVL_DEBIT);
+        poTransaction.processClosing(ChannelControl.CLOSE_AFTER);
+        Assert.assertFalse(poEmulator.isRatified());
+
+        calypsoPo = selectPo(poReader);
+        poTransaction = newPoTransaction(calypsoPo, poSecuritySettings);
+        poTransaction.processOpening(PoTransaction.SessionSetting.AccessLevel.SESSION_LVL_DEBIT);
+        Assert.assertFalse(calypsoPo.isDfRatified());
+        poTransaction.processClosing(ChannelControl.KEEP_OPEN);
+        Assert.assertFalse(poEmulator.isRatified());
+
+        // ratified by the next command
+        poTransaction.prepareReadRecordFile(SFI_EVENT_LOG, 1);
+        poTransaction.processPoCommands(ChannelControl.KEEP_OPEN);
+        Assert.assertTrue(poEmulator.isRatified());
+        Assert.assertEquals(2, poEmulator.getSessionCount());
+    }
+
+    @Test
+    public void closeSession_wrongSignature_modificationsDiscarded() throws Exception {
+        transmit(poEmulator, "00A404000" + "9" + StubCalypsoPoEmulator.DEFAULT_AID + "00");
+        byte[] apduOut = transmit(poEmulator, "008A0301" + "04C1C2C3C4" + "00");
+        Assert.assertEquals("9000", sw(apduOut));
+        // transaction counter, random number, ratified, KIF, KVC, no record data
+        Assert.assertEquals(8 + 2, apduOut.length);
+        Assert.assertEquals("FFFFFE", ByteArrayUtil.toHex(apduOut, 0, 3));
+        Assert.assertEquals("00307900", ByteArrayUtil.toHex(apduOut, 4, 4));
+
+        Assert.assertEquals("9000", sw(transmit(poEmulator, "00DC013C02AABB")));
+        Assert.assertEquals("AABB", ByteArrayUtil.toHex(poEmulator.getRecord(SFI_ENVIRONMENT, 1))
+                .substring(0, 4));
+
+        Assert.assertEquals("6988", sw(transmit(poEmulator, "008E80000401020304" + "00")));
+        Assert.assertFalse(poEmulator.isSessionOpen());
+        Assert.assertEquals(ENVIRONMENT,
+                ByteArrayUtil.toHex(poEmulator.getRecord(SFI_ENVIRONMENT, 1)));
+        Assert.assertEquals("6985", sw(transmit(poEmulator, "008E80000401020304" + "00")));
+    }
+
+    @Test
+    public void sessionBuffer_overflow_rejected() throws Exception {
+        // 215 bytes: 6 updates of 29 bytes (35 bytes each)
+        poEmulator = poEmulatorBuilder().sessionBufferSizeIndicator(0x06).build();
+        String update = "00DC013C1D" + ENVIRONMENT.replace('2', '3');
+        Assert.assertEquals("9000", sw(transmit(poEmulator, "008A0301" + "04C1C2C3C4" + "00")));
+        for (int i = 0; i < 6; i++) {
+            Assert.assertEquals("9000", sw(transmit(poEmulator, update)));
+        }
+        Assert.assertEquals("6400", sw(transmit(poEmulator, update)));
+        // out of session, the buffer is not used
+        transmit(poEmulator, "008E000000");
+        for (int i = 0; i < 7; i++) {
+            Assert.assertEquals("9000", sw(transmit(poEmulator, update)));
+        }
+    }
+
+    @Test
+    public void commands_errors() throws Exception {
+        // unknown file, record, wrong file type, counter overflow, unknown instruction
+        Assert.assertEquals("6A82", sw(transmit(poEmulator, "00B2010C00")));
+        Assert.assertEquals("6A83", sw(transmit(poEmulator, "00B2023C00")));
+        Assert.assertEquals("6981", sw(transmit(poEmulator, "00E2003802AABB")));
+        Assert.assertEquals("6A80", sw(transmit(poEmulator, "0030" + "01C8" + "0300006500")));
+        Assert.assertEquals("6D00", sw(transmit(poEmulator, "00B0000000")));
+        // registered commands take precedence
+        poEmulator.addHexCommand("00B2014400", "6982");
+        Assert.assertEquals("6982", sw(transmit(poEmulator, "00B2014400")));
+        // multiple records read
+        byte[] apduOut = transmit(poEmulator, "00B2014500");
+        Assert.assertEquals(3 * (RECORD_SIZE + 2) + 2, apduOut.length);
+        Assert.assertEquals("011D" + EVENT, ByteArrayUtil.toHex(apduOut, 0, RECORD_SIZE + 2));
+        // select file by LID, then current EF
+        apduOut = transmit(poEmulator, "00A4090002201000");
+        Assert.assertEquals("8517", ByteArrayUtil.toHex(apduOut, 0, 2));
+        Assert.assertEquals(EVENT, ByteArrayUtil.toHex(transmit(poEmulator, "00B2010400"), 0,
+                RECORD_SIZE));
+    }
+
+    @Test
+    public void sessions_sequential() throws Exception {
+        plugReaders();
+        CalypsoPo calypsoPo = selectPo(poReader);
+        PoSecuritySettings poSecuritySettings =
+                securitySettings(new SamResource(samReader, selectSam(samReader))).build();
+        int nbSessions = 1000;
+        long start = System.nanoTime();
+        for (int i = 0; i < nbSessions; i++) {
+            PoTransaction poTransaction = newPoTransaction(calypsoPo, poSecuritySettings);
+            poTransaction.prepareReadRecordFile(SFI_COUNTERS, 1);
+            poTransaction
+                    .processOpening(PoTransaction.SessionSetting.AccessLevel.SESSION_LVL_DEBIT);
+            poTransaction.prepareIncrease(SFI_COUNTERS, (byte) 2, 1);
+            poTransaction.processClosing(ChannelControl.KEEP_OPEN);
+        }
+        long elapsed = System.nanoTime() - start;
+        logger.info("{} sessions in {} ms", nbSessions, elapsed / 1000000);
+        Assert.assertEquals(nbSessions, poEmulator.getSessionCount());
+        Assert.assertEquals(nbSessions, poEmulator.getCounter(SFI_COUNTERS, 2));
+        Assert.assertEquals(StubCalypsoPoEmulator.DEFAULT_TRANSACTION_COUNTER - nbSessions,
+                poEmulator.getTransactionCounter());
+    }
+
+    @Test
+    public void sessions_concurrent_samLogicalChannels() throws Exception {
+        final int nbPos = 3;
+        final int nbSessions = 100;
+        samReader = plugReader("samReader", SeCommonProtocols.PROTOCOL_ISO7816_3, samEmulator);
+        CalypsoSam calypsoSam = selectSam(samReader);
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        final List<StubCalypsoPoEmulator> poEmulators = new ArrayList<StubCalypsoPoEmulator>();
+        for (int i = 0; i < nbPos; i++) {
+            // one PO per thread, sharing the SAM through a logical channel
+            final StubCalypsoPoEmulator emulator =
+                    poEmulatorBuilder().serialNumber("00000000AABBCC0" + i).build();
+            poEmulators.add(emulator);
+            final SeReader reader =
+                    plugReader("poReader" + i, SeCommonProtocols.PROTOCOL_ISO14443_4, emulator);
+            LogicalChannelReader channelReader =
+                    ((AbstractLocalReader) samReader).openSupplementaryChannel();
+            Assert.assertNotNull(channelReader);
+            final PoSecuritySettings poSecuritySettings =
+                    securitySettings(new SamResource(channelReader, calypsoSam)).build();
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    CalypsoPo calypsoPo = selectPo(reader);
+                    for (int j = 0; j < nbSessions; j++) {
+                        PoTransaction poTransaction = new PoTransaction(
+                                new PoResource(reader, calypsoPo), poSecuritySettings);
+                        poTransaction.prepareReadRecordFile(SFI_COUNTERS, 1);
+                        poTransaction.processOpening(
+                                PoTransaction.SessionSetting.AccessLevel.SESSION_LVL_DEBIT);
+                        poTransaction.prepareIncrease(SFI_COUNTERS, (byte) 2, 1);
+                        poTransaction.prepareAppendRecord(SFI_EVENT_LOG,
+                                ByteArrayUtil.fromHex(EVENT));
+                        poTransaction.processClosing(ChannelControl.KEEP_OPEN);
+                    }
+                    return null;
+                }
+            });
+        }
+        // no more channels: the basic one and 3 supplementary ones are open
+        Assert.assertNull(((AbstractLocalReader) samReader).openSupplementaryChannel());
+
+        ExecutorService executorService = Executors.newFixedThreadPool(nbPos);
+        try {
+            for (Future<Void> future : executorService.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        for (StubCalypsoPoEmulator emulator : poEmulators) {
+            Assert.assertEquals(nbSessions, emulator.getSessionCount());
+            Assert.assertEquals(nbSessions, emulator.getCounter(SFI_COUNTERS, 2));
+        }
+    }
+
+    @Test
+    public void latencyModel_appliedToExchanges() throws Exception {
+        plugReaders();
+        selectPo(poReader);
+        poEmulator.setLatencyModel(StubLatencyModel.byInstruction(
+                Collections.singletonMap((byte) 0x84, StubLatencyModel.fixed(20000)),
+                StubLatencyModel.NONE));
+        List<ApduRequest> apduRequests = new ArrayList<ApduRequest>();
+        apduRequests.add(new ApduRequest(ByteArrayUtil.fromHex("0084000008"), false));
+        apduRequests.add(new ApduRequest(ByteArrayUtil.fromHex("0084000008"), false));
+
+        long start = System.nanoTime();
+        byte[] challenge1 = ((ProxyReader) poReader)
+                .transmitSeRequest(new SeRequest(apduRequests), ChannelControl.KEEP_OPEN)
+                .getApduResponses().get(0).getDataOut();
+        long elapsed = System.nanoTime() - start;
+        Assert.assertTrue("elapsed " + elapsed, elapsed >= 40000000L);
+        Assert.assertEquals(8, challenge1.length);
+
+        Assert.assertEquals(1000 + 10 * (5 + 10),
+                StubLatencyModel.linear(1000, 10).getLatency(new byte[5], new byte[10]));
+        long latency = StubLatencyModel.uniform(10, 20).getLatency(new byte[5], null);
+        Assert.assertTrue(latency >= 10 && latency <= 20);
+    }
+}